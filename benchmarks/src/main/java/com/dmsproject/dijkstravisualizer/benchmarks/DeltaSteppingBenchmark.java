@@ -0,0 +1,59 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.DeltaStepping;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-source latency of delta-stepping per number of worker threads, with the
+ * automatically chosen bucket width.
+ * <p>
+ * Compare the one-thread time with {@code ShortestPathBenchmark.singleSource} for the cost
+ * of the bucket phases, and with the n-thread time for the speed-up of one query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DeltaSteppingBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private DeltaStepping deltaStepping;
+
+    @Setup
+    public void createPool(GraphState state) {
+        pool = new ForkJoinPool(threads);
+        deltaStepping = new DeltaStepping(state.graph, pool);
+        state.graph.reversed(); // Used for the predecessors; built once outside the measurement
+    }
+
+    @TearDown
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ShortestPathTree singleSource(GraphState state) {
+        state.nextQuery();
+        return deltaStepping.singleSource(state.source());
+    }
+}
@@ -0,0 +1,125 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.AlgorithmStep;
+import com.dmsproject.dijkstravisualizer.NodeDistance;
+import com.dmsproject.dijkstravisualizer.StepStyleModel;
+import com.dmsproject.dijkstravisualizer.StepTimeline;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-step cost of playing back a recorded run, without the JavaFX scene graph.
+ * <p>
+ * The style model reports its differences to a sink that only folds them into a checksum
+ * (returned, so the JIT cannot drop the work), so these numbers are the work done before the renderer touches a single node.
+ * {@code sortQueueSnapshot} measures ordering a queue-sized array of {@link NodeDistance}
+ * the way the queue panel does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DisplayModelBenchmark {
+
+    @Param({"1000", "100000"})
+    public int nodeCount;
+
+    private StepTimeline timeline;
+    private StepStyleModel forwardModel;
+    private StepStyleModel seekModel;
+    private StepStyleModel.Sink sink;
+    private int[] seekTargets;
+    private int nextSeek;
+    private int nextStep;
+    private NodeDistance[] queueSnapshot;
+    private long checksum;
+
+    @Setup
+    public void record() {
+        ShortestPathEngine engine = new ShortestPathEngine(GraphFamily.RANDOM_SPARSE.generate(nodeCount, GraphState.SEED));
+        SearchTrace trace = SearchTrace.record(engine, 0, -1);
+        timeline = new StepTimeline(trace);
+        forwardModel = new StepStyleModel(trace);
+        seekModel = new StepStyleModel(trace);
+        sink = new StepStyleModel.Sink() {
+            @Override
+            public void nodeStyleChanged(int node, StepStyleModel.NodeStyle style) {
+                checksum += node + style.ordinal();
+            }
+
+            @Override
+            public void edgeStyleChanged(int from, int to, StepStyleModel.EdgeStyle style) {
+                checksum += from ^ to;
+            }
+
+            @Override
+            public void nodeStateChanged(int node, double oldDistance, boolean wasQueued, double newDistance, boolean queued) {
+                checksum += node;
+            }
+        };
+
+        SplittableRandom random = new SplittableRandom(GraphState.SEED);
+        seekTargets = new int[256];
+        for (int i = 0; i < seekTargets.length; i++) {
+            seekTargets[i] = random.nextInt(trace.size());
+        }
+        queueSnapshot = new NodeDistance[Math.min(nodeCount, 1000)];
+        for (int i = 0; i < queueSnapshot.length; i++) {
+            queueSnapshot[i] = new NodeDistance(Integer.toString(i), random.nextInt(10_000) / 10.0);
+        }
+    }
+
+    /**
+     * "Next Step" during playback. The wrap-around from the last step back to the first
+     * is a single long jump every {@code size()} calls.
+     */
+    @Benchmark
+    public long stepForward() {
+        nextStep = (nextStep + 1) % timeline.size();
+        forwardModel.moveTo(nextStep, sink);
+        return checksum;
+    }
+
+    /**
+     * Dragging the step slider to a random step.
+     */
+    @Benchmark
+    public long seek() {
+        nextSeek = (nextSeek + 1) % seekTargets.length;
+        seekModel.moveTo(seekTargets[nextSeek], sink);
+        return checksum;
+    }
+
+    /**
+     * Creating the {@link AlgorithmStep} shown for a step (description and highlight data, no full state).
+     */
+    @Benchmark
+    public String createStep() {
+        nextStep = (nextStep + 1) % timeline.size();
+        return timeline.get(nextStep).getDescription();
+    }
+
+    @Benchmark
+    public NodeDistance[] sortQueueSnapshot() {
+        NodeDistance[] copy = queueSnapshot.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,135 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.GraphBuilder;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible graph shapes for the benchmarks.
+ * <p>
+ * Every family is generated from a fixed seed, so two runs (or two machines) measure
+ * exactly the same graph. Edges are undirected like the ones drawn in the UI, with
+ * weights in [1, 100). Node IDs are the decimal index, so index {@code i} is node "i".
+ */
+public enum GraphFamily {
+
+    /** Square grid with 4-neighbour connections: long shortest paths, tiny degree. */
+    GRID {
+        @Override
+        CsrGraph generate(int nodeCount, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            int side = (int) Math.ceil(Math.sqrt(nodeCount));
+            GraphBuilder builder = builder(nodeCount, 2L * nodeCount);
+            for (int v = 0; v < nodeCount; v++) {
+                int column = v % side;
+                if (column + 1 < side && v + 1 < nodeCount) {
+                    connect(builder, v, v + 1, random);
+                }
+                if (v + side < nodeCount) {
+                    connect(builder, v, v + side, random);
+                }
+            }
+            return builder.build();
+        }
+    },
+
+    /** Random graph with average degree 8, kept connected by a random spanning path. */
+    RANDOM_SPARSE {
+        @Override
+        CsrGraph generate(int nodeCount, long seed) {
+            return random(nodeCount, 4, seed);
+        }
+    },
+
+    /** Random graph with average degree 64, kept connected by a random spanning path. */
+    RANDOM_DENSE {
+        @Override
+        CsrGraph generate(int nodeCount, long seed) {
+            return random(nodeCount, 32, seed);
+        }
+    },
+
+    /** Barabási–Albert preferential attachment (3 edges per new node): a few very high-degree hubs. */
+    SCALE_FREE {
+        @Override
+        CsrGraph generate(int nodeCount, long seed) {
+            final int m = 3;
+            SplittableRandom random = new SplittableRandom(seed);
+            GraphBuilder builder = builder(nodeCount, (long) m * nodeCount);
+            // Every edge endpoint is appended here, so picking a uniform entry picks a node proportionally to its degree
+            int[] endpoints = new int[2 * m * nodeCount + 2 * m * m];
+            int endpointCount = 0;
+            int seedNodes = Math.min(m + 1, nodeCount);
+            for (int a = 0; a < seedNodes; a++) {
+                for (int b = a + 1; b < seedNodes; b++) {
+                    connect(builder, a, b, random);
+                    endpoints[endpointCount++] = a;
+                    endpoints[endpointCount++] = b;
+                }
+            }
+            int[] chosen = new int[m];
+            for (int v = seedNodes; v < nodeCount; v++) {
+                int picked = 0;
+                while (picked < m) {
+                    int candidate = endpoints[random.nextInt(endpointCount)];
+                    boolean duplicate = false;
+                    for (int i = 0; i < picked; i++) {
+                        duplicate |= chosen[i] == candidate;
+                    }
+                    if (!duplicate) {
+                        chosen[picked++] = candidate;
+                    }
+                }
+                for (int i = 0; i < m; i++) {
+                    connect(builder, v, chosen[i], random);
+                    endpoints[endpointCount++] = v;
+                    endpoints[endpointCount++] = chosen[i];
+                }
+            }
+            return builder.build();
+        }
+    };
+
+    /**
+     * @return the graph of this family with {@code nodeCount} nodes; equal arguments give identical graphs
+     */
+    abstract CsrGraph generate(int nodeCount, long seed);
+
+    private static GraphBuilder builder(int nodeCount, long edgeCount) {
+        GraphBuilder builder = new GraphBuilder(nodeCount, (int) Math.min(Integer.MAX_VALUE, 2 * edgeCount));
+        for (int v = 0; v < nodeCount; v++) {
+            builder.addNode(Integer.toString(v));
+        }
+        return builder;
+    }
+
+    private static void connect(GraphBuilder builder, int a, int b, SplittableRandom random) {
+        double weight = 1 + random.nextInt(99);
+        builder.addArc(a, b, weight);
+        builder.addArc(b, a, weight);
+    }
+
+    private static CsrGraph random(int nodeCount, int edgesPerNode, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        GraphBuilder builder = builder(nodeCount, (long) edgesPerNode * nodeCount);
+        int[] order = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        for (int i = 1; i < nodeCount; i++) {
+            connect(builder, order[i - 1], order[i], random);
+        }
+        long extraEdges = (long) edgesPerNode * nodeCount - (nodeCount - 1);
+        for (long e = 0; e < extraEdges; e++) {
+            int a = random.nextInt(nodeCount);
+            int b = random.nextInt(nodeCount);
+            if (a != b) {
+                connect(builder, a, b, random);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * One generated graph per trial plus a fixed list of query pairs.
+ * <p>
+ * Queries are drawn from the same seed as the graph and cycled through by
+ * {@link #nextQuery()}, so a benchmark never measures the same (cached, branch-predicted)
+ * source and target over and over, yet every run sees the same sequence.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    static final long SEED = 0x5EED_D1A57L;
+    private static final int QUERY_COUNT = 256;
+
+    @Param({"GRID", "RANDOM_SPARSE", "RANDOM_DENSE", "SCALE_FREE"})
+    public GraphFamily family;
+
+    @Param({"1000", "100000"})
+    public int nodeCount;
+
+    public CsrGraph graph;
+    private int[] sources;
+    private int[] targets;
+    private int nextQuery;
+
+    @Setup
+    public void generate() {
+        graph = family.generate(nodeCount, SEED);
+        SplittableRandom random = new SplittableRandom(SEED ^ nodeCount);
+        sources = new int[QUERY_COUNT];
+        targets = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            sources[i] = random.nextInt(nodeCount);
+            targets[i] = random.nextInt(nodeCount);
+        }
+    }
+
+    /**
+     * Advances to the next query pair; read it with {@link #source()} and {@link #target()}.
+     */
+    public void nextQuery() {
+        nextQuery = (nextQuery + 1) % QUERY_COUNT;
+    }
+
+    public int source() {
+        return sources[nextQuery];
+    }
+
+    public int target() {
+        return targets[nextQuery];
+    }
+}
@@ -0,0 +1,43 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.ContractionHierarchy;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point queries on a contraction hierarchy, for comparison with
+ * {@link ShortestPathBenchmark#pointToPoint} on the same graphs and queries. The hierarchy
+ * is built once per trial and is not part of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class HierarchyBenchmark {
+
+    private ContractionHierarchy.Query query;
+
+    @Setup
+    public void buildHierarchy(GraphState state) {
+        query = ContractionHierarchy.build(state.graph).newQuery();
+    }
+
+    @Benchmark
+    public ShortestPath hierarchyPointToPoint(GraphState state) {
+        state.nextQuery();
+        return query.shortestPath(state.source(), state.target());
+    }
+}
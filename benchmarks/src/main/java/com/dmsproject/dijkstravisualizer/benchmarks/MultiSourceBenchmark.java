@@ -0,0 +1,71 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.MultiSourceDistances;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-source distance throughput per number of worker threads.
+ * <p>
+ * Every operation computes the distances from the same batch of sources; dividing the
+ * one-thread time by the n-thread time gives the speed-up, ideally n.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class MultiSourceBenchmark {
+
+    private static final int SOURCE_COUNT = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ShortestPathEngine engine;
+    private ForkJoinPool pool;
+    private int[] sources;
+
+    @Setup
+    public void createPool(GraphState state) {
+        engine = new ShortestPathEngine(state.graph);
+        pool = new ForkJoinPool(threads);
+        SplittableRandom random = new SplittableRandom(GraphState.SEED);
+        sources = new int[SOURCE_COUNT];
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            sources[i] = random.nextInt(state.nodeCount);
+        }
+    }
+
+    @TearDown
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double distanceRows() {
+        double[] checksum = new double[1];
+        MultiSourceDistances.forEachRow(engine, sources, pool, (row, source, distances) -> {
+            synchronized (checksum) {
+                checksum[0] += distances[row % distances.length];
+            }
+        });
+        return checksum[0];
+    }
+}
@@ -0,0 +1,71 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.QueueStrategy;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPath;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query cost of the engine behind "Run Dijkstra": full single-source runs (the
+ * "all paths" mode) and point-to-point runs that stop at the end node, one-directional
+ * and bidirectional. {@code pointToPointDistance} skips building the path and should show a
+ * {@code gc.alloc.rate.norm} of zero.
+ * <p>
+ * Throughput and the latency distribution (SampleTime percentiles) are reported
+ * per graph family, size and queue strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ShortestPathBenchmark {
+
+    @Param({"BINARY_HEAP", "INDEXED_DARY_HEAP", "DIAL_BUCKETS", "RADIX_HEAP"}) // Graph families use whole-number weights
+    public QueueStrategy queueStrategy;
+
+    private ShortestPathEngine engine;
+
+    @Setup
+    public void createEngine(GraphState state) {
+        engine = new ShortestPathEngine(state.graph, queueStrategy);
+    }
+
+    @Benchmark
+    public ShortestPathTree singleSource(GraphState state) {
+        state.nextQuery();
+        return engine.singleSource(state.source());
+    }
+
+    @Benchmark
+    public ShortestPath pointToPoint(GraphState state) {
+        state.nextQuery();
+        return engine.shortestPath(state.source(), state.target());
+    }
+
+    @Benchmark
+    public double pointToPointDistance(GraphState state) {
+        state.nextQuery();
+        return engine.distance(state.source(), state.target());
+    }
+
+    @Benchmark
+    public ShortestPath bidirectionalPointToPoint(GraphState state) {
+        state.nextQuery();
+        return engine.bidirectionalShortestPath(state.source(), state.target());
+    }
+}
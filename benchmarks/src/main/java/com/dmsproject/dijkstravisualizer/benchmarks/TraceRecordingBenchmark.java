@@ -0,0 +1,73 @@
+package com.dmsproject.dijkstravisualizer.benchmarks;
+
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+import com.dmsproject.dijkstravisualizer.engine.TraceCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What recording a run for step-by-step playback costs on top of the plain search,
+ * and how fast the recorded trace can be scrubbed.
+ * <p>
+ * Compare {@code recordTrace} with {@code plainSearch} for the recording overhead;
+ * the {@code gc.alloc.rate.norm} column of the GC profiler gives the trace's bytes per run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TraceRecordingBenchmark {
+
+    private ShortestPathEngine engine;
+    private TraceCursor cursor;
+    private int[] seekTargets;
+    private int nextSeek;
+
+    @Setup
+    public void record(GraphState state) {
+        engine = new ShortestPathEngine(state.graph);
+        cursor = new TraceCursor(SearchTrace.record(engine, 0, -1));
+        SplittableRandom random = new SplittableRandom(GraphState.SEED);
+        seekTargets = new int[256];
+        for (int i = 0; i < seekTargets.length; i++) {
+            seekTargets[i] = random.nextInt(cursor.getTrace().size());
+        }
+    }
+
+    @Benchmark
+    public ShortestPathTree plainSearch(GraphState state) {
+        state.nextQuery();
+        return engine.singleSource(state.source());
+    }
+
+    @Benchmark
+    public SearchTrace recordTrace(GraphState state) {
+        state.nextQuery();
+        return SearchTrace.record(engine, state.source(), -1);
+    }
+
+    /**
+     * A random jump on the step slider: keyframe restore plus replay of the events after it.
+     */
+    @Benchmark
+    public int seek() {
+        nextSeek = (nextSeek + 1) % seekTargets.length;
+        cursor.moveTo(seekTargets[nextSeek]);
+        return cursor.settledCount();
+    }
+}
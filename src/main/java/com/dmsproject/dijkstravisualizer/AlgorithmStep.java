@@ -1,140 +1,208 @@
 package com.dmsproject.dijkstravisualizer;
 
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.util.*;
 
+/**
+ * One step of a run, as shown by the visualizer.
+ * <p>
+ * Runs are stored as a delta-encoded trace (see engine.SearchTrace); {@link StepTimeline}
+ * creates an AlgorithmStep only for the step that is about to be shown. The description
+ * is formatted the first time it is requested, and the full state (distances, queue,
+ * visited set, predecessors) is rebuilt from the trace only if one of its getters is called.
+ * The state is kept in arrays indexed like the run's graph; the ID-keyed maps and sets are
+ * only built when one of their getters asks for them.
+ * Steps produced while streaming a run have no timeline and only carry the per-step fields.
+ * In a bidirectional run, steps of the search from the end node are flagged {@link #isBackward()}.
+ */
 public class AlgorithmStep {
 
     public enum StepType {
         INITIALIZED, // Algorithm setup
         NODE_EXTRACTED, // A node is extracted from the priority queue
         EDGE_RELAXED, // An edge's target node distance is updated
+        BUCKET_OPENED, // Delta-stepping settles a whole distance bucket
         PATH_FOUND, // Shortest path to a specific end node is found
         NO_PATH_FOUND, // No path exists to a specific end node
         ALGORITHM_FINISHED_ALL_PATHS // Algorithm completed for all reachable nodes
     }
 
-    private final StepType type;
-    private final String description;
-    private final String currentNodeId;
-    private final String relaxedSourceNodeId;
-    private final String relaxedTargetNodeId;
-    private final Map<String, Double> distances;
-    private final ObservableList<NodeDistance> priorityQueueState;
-    private final Set<String> visitedNodes;
-    private final Map<String, String> predecessors; // Snapshot of predecessors for path reconstruction
-    private final List<String> path;
-    private final String endNodeId;
-    private final boolean isAllPathsMode;
-
-    // --- PRIMARY / COMPREHENSIVE CONSTRUCTOR ---
-    // All other constructors delegate to this one.
-    public AlgorithmStep(StepType type, String description, String currentNodeId,
-                         String relaxedSourceNodeId, String relaxedTargetNodeId,
-                         Map<String, Double> distances, PriorityQueue<NodeDistance> priorityQueue,
-                         Set<String> visitedNodes, Map<String, String> predecessors,
-                         List<String> path, String endNodeId, boolean isAllPathsMode) {
-        this.type = type;
-        this.description = description;
-        this.currentNodeId = currentNodeId;
-        this.relaxedSourceNodeId = relaxedSourceNodeId;
-        this.relaxedTargetNodeId = relaxedTargetNodeId;
+    /**
+     * Full algorithm state at a step, built on demand by {@link StepTimeline}. Nodes are the
+     * indices of {@code graph}; a predecessor of -1 means none.
+     */
+    static final class State {
+        final CsrGraph graph;
+        final double[] distances;
+        final int[] predecessors;
+        final BitSet visited;
+        final int[] queuedNodes; // By distance, then index
+        private Map<String, Double> distanceMap; // ID-keyed views, built on first use
+        private Map<String, String> predecessorMap;
+        private Set<String> visitedSet;
+        private ObservableList<NodeDistance> queueList;
+
+        State(CsrGraph graph, double[] distances, int[] predecessors, BitSet visited, int[] queuedNodes) {
+            this.graph = graph;
+            this.distances = distances;
+            this.predecessors = predecessors;
+            this.visited = visited;
+            this.queuedNodes = queuedNodes;
+        }
 
-        // Create immutable copies of collections.
-        // For maps, explicitly filter out null values before making immutable copy
-        // to prevent NullPointerException from Map.copyOf if a predecessor value is null.
-        Map<String, Double> safeDistances = new HashMap<>();
-        if (distances != null) {
-            for (Map.Entry<String, Double> entry : distances.entrySet()) {
-                if (entry.getKey() != null && entry.getValue() != null) { // Ensure no null keys/values
-                    safeDistances.put(entry.getKey(), entry.getValue());
+        Map<String, Double> distanceMap() {
+            if (distanceMap == null) {
+                Map<String, Double> map = new HashMap<>(2 * distances.length);
+                for (int v = 0; v < distances.length; v++) {
+                    map.put(graph.idOf(v), distances[v]);
                 }
+                distanceMap = Collections.unmodifiableMap(map);
             }
+            return distanceMap;
         }
-        this.distances = Collections.unmodifiableMap(safeDistances); // Use unmodifiableMap for safety
-
-        Map<String, String> safePredecessors = new HashMap<>();
-        if (predecessors != null) {
-            for (Map.Entry<String, String> entry : predecessors.entrySet()) {
-                // Only include entries where both key (nodeId) and value (predecessorId) are non-null.
-                // This handles cases where the source node might have a null predecessor.
-                if (entry.getKey() != null && entry.getValue() != null) {
-                    safePredecessors.put(entry.getKey(), entry.getValue());
+
+        Map<String, String> predecessorMap() {
+            if (predecessorMap == null) {
+                Map<String, String> map = new HashMap<>();
+                for (int v = 0; v < predecessors.length; v++) {
+                    if (predecessors[v] != -1) {
+                        map.put(graph.idOf(v), graph.idOf(predecessors[v]));
+                    }
                 }
+                predecessorMap = Collections.unmodifiableMap(map);
             }
+            return predecessorMap;
         }
-        this.predecessors = Collections.unmodifiableMap(safePredecessors); // Use unmodifiableMap for safety
 
-        // Copy visited nodes
-        this.visitedNodes = (visitedNodes != null) ? Collections.unmodifiableSet(new HashSet<>(visitedNodes)) : Collections.emptySet();
+        Set<String> visitedSet() {
+            if (visitedSet == null) {
+                Set<String> set = new HashSet<>();
+                for (int v = visited.nextSetBit(0); v >= 0; v = visited.nextSetBit(v + 1)) {
+                    set.add(graph.idOf(v));
+                }
+                visitedSet = Collections.unmodifiableSet(set);
+            }
+            return visitedSet;
+        }
 
-        // Copy PQ content to ObservableList and sort for consistent display
-        this.priorityQueueState = FXCollections.observableArrayList();
-        if (priorityQueue != null) {
-            this.priorityQueueState.addAll(priorityQueue);
-            FXCollections.sort(this.priorityQueueState); // NodeDistance MUST be Comparable
+        ObservableList<NodeDistance> queueList() {
+            if (queueList == null) {
+                queueList = FXCollections.observableArrayList();
+                for (int v : queuedNodes) {
+                    queueList.add(new NodeDistance(v, graph.idOf(v), distances[v]));
+                }
+            }
+            return queueList;
         }
+    }
 
-        this.path = (path != null) ? Collections.unmodifiableList(new ArrayList<>(path)) : null;
+    private final StepTimeline timeline;
+    private final int stepIndex;
+    private final StepType type;
+    private final boolean backward; // Step of the backward search of a bidirectional run
+    private final String currentNodeId;
+    private final String relaxedSourceNodeId;
+    private final String relaxedTargetNodeId;
+    private final double stepDistance; // Distance reported by this step (extracted, relaxed or final cost)
+    private final String startNodeId;
+    private final List<String> path;
+    private final String endNodeId;
+    private final boolean isAllPathsMode;
+    private String description; // Formatted lazily by getDescription()
+    private State state;        // Rebuilt lazily by the full-state getters
+
+    AlgorithmStep(StepTimeline timeline, int stepIndex, StepType type, boolean backward, String currentNodeId,
+                  String relaxedSourceNodeId, String relaxedTargetNodeId,
+                  double stepDistance, String startNodeId,
+                  List<String> path, String endNodeId, boolean isAllPathsMode) {
+        this.timeline = timeline;
+        this.stepIndex = stepIndex;
+        this.type = type;
+        this.backward = backward;
+        this.currentNodeId = currentNodeId;
+        this.relaxedSourceNodeId = relaxedSourceNodeId;
+        this.relaxedTargetNodeId = relaxedTargetNodeId;
+        this.stepDistance = stepDistance;
+        this.startNodeId = startNodeId;
+        this.path = path;
         this.endNodeId = endNodeId;
         this.isAllPathsMode = isAllPathsMode;
     }
 
-
-    // --- CONVENIENCE CONSTRUCTORS (Delegating to the primary constructor) ---
-
-    // For INITIALIZED, NODE_EXTRACTED, NO_PATH_FOUND steps
-    public AlgorithmStep(StepType type, String description, String currentNodeId,
-                         Map<String, Double> distances, PriorityQueue<NodeDistance> priorityQueue,
-                         Set<String> visitedNodes, Map<String, String> predecessors, String endNodeId) {
-        this(type, description, currentNodeId, null, null,
-                distances, priorityQueue, visitedNodes, predecessors,
-                null, endNodeId, false);
-    }
-
-    // For EDGE_RELAXED steps
-    public AlgorithmStep(StepType type, String description, String currentNodeId,
-                         String relaxedSourceNodeId, String relaxedTargetNodeId,
-                         Map<String, Double> distances, PriorityQueue<NodeDistance> priorityQueue,
-                         Set<String> visitedNodes, Map<String, String> predecessors, String endNodeId) {
-        this(type, description, currentNodeId, relaxedSourceNodeId, relaxedTargetNodeId,
-                distances, priorityQueue, visitedNodes, predecessors,
-                null, endNodeId, false);
-    }
-
-    // For PATH_FOUND step (when a specific path is found to an end node)
-    public AlgorithmStep(StepType type, String description, String currentNodeId, // currentNodeId here is the endNodeId of the path
-                         Map<String, Double> distances, PriorityQueue<NodeDistance> priorityQueue,
-                         Set<String> visitedNodes, Map<String, String> predecessors,
-                         List<String> path, String endNodeId) {
-        this(type, description, currentNodeId, null, null,
-                distances, priorityQueue, visitedNodes, predecessors,
-                path, endNodeId, false);
+    private String formatDescription() {
+        if (backward) {
+            switch (type) {
+                case INITIALIZED:
+                    return "Backward search started from end node: " + endNodeId;
+                case NODE_EXTRACTED:
+                    return "Backward search extracted node: " + currentNodeId + " with distance "
+                            + String.format("%.1f", stepDistance) + " to " + endNodeId;
+                case EDGE_RELAXED:
+                    return "Backward search relaxed edge " + relaxedSourceNodeId + "-" + relaxedTargetNodeId
+                            + ". New distance from " + relaxedTargetNodeId + " to " + endNodeId + ": " + String.format("%.1f", stepDistance);
+                default:
+                    break;
+            }
+        }
+        switch (type) {
+            case INITIALIZED:
+                return "Initialized distances and priority queue. Start node: " + startNodeId;
+            case NODE_EXTRACTED:
+                return "Extracted node: " + currentNodeId + " with distance " + String.format("%.1f", stepDistance);
+            case EDGE_RELAXED:
+                return "Relaxed edge " + relaxedSourceNodeId + "-" + relaxedTargetNodeId
+                        + ". New distance to " + relaxedTargetNodeId + ": " + String.format("%.1f", stepDistance);
+            case BUCKET_OPENED:
+                return "Opened the next bucket: settling every node closer than " + String.format("%.1f", stepDistance);
+            case PATH_FOUND:
+                return "Shortest path from " + startNodeId + " to " + endNodeId + " found. Cost: " + String.format("%.1f", stepDistance);
+            case NO_PATH_FOUND:
+                return "No path found from " + startNodeId + " to " + endNodeId;
+            case ALGORITHM_FINISHED_ALL_PATHS:
+                return "Dijkstra's Algorithm finished. Shortest distances to all reachable nodes computed from " + startNodeId + ".";
+            default:
+                return "";
+        }
     }
 
-    // For ALGORITHM_FINISHED_ALL_PATHS (when Dijkstra finishes processing all reachable nodes)
-    public AlgorithmStep(StepType type, String description,
-                         Map<String, Double> distances, PriorityQueue<NodeDistance> priorityQueue,
-                         Set<String> visitedNodes, Map<String, String> predecessors) {
-        this(type, description, null, null, null,
-                distances, priorityQueue, visitedNodes, predecessors,
-                null, null, true);
+    private State state() {
+        if (state == null) {
+            if (timeline == null) {
+                // Streamed steps (see StreamingStepModel) are not kept, so there is nothing to rebuild from
+                throw new IllegalStateException("Full state is not available for streamed steps");
+            }
+            state = timeline.buildState(stepIndex);
+        }
+        return state;
     }
 
 
     // --- GETTERS ---
     public StepType getType() { return type; }
-    public String getDescription() { return description; }
+    public boolean isBackward() { return backward; }
+    public int getStepIndex() { return stepIndex; }
+    public String getDescription() {
+        if (description == null) {
+            description = formatDescription();
+        }
+        return description;
+    }
     public String getCurrentNodeId() { return currentNodeId; }
     public String getRelaxedSourceNodeId() { return relaxedSourceNodeId; }
     public String getRelaxedTargetNodeId() { return relaxedTargetNodeId; }
-    public Map<String, Double> getDistances() { return distances; }
-    public ObservableList<NodeDistance> getPriorityQueueState() { return priorityQueueState; }
-    public Set<String> getVisitedNodes() { return visitedNodes; }
-    public Map<String, String> getPredecessors() { return predecessors; }
+    public double getStepDistance() { return stepDistance; }
+    public Map<String, Double> getDistances() { return state().distanceMap(); }
+    public ObservableList<NodeDistance> getPriorityQueueState() { return state().queueList(); }
+    public Set<String> getVisitedNodes() { return state().visitedSet(); }
+    public Map<String, String> getPredecessors() { return state().predecessorMap(); }
+    // Index-based state, without building the ID-keyed collections (indices of the run's graph)
+    public double getDistance(int node) { return state().distances[node]; }
+    public int getPredecessor(int node) { return state().predecessors[node]; }
+    public boolean isVisited(int node) { return state().visited.get(node); }
     public List<String> getPath() { return path; }
     public String getEndNodeId() { return endNodeId; }
     public boolean isAllPathsMode() { return isAllPathsMode; }
-}
\ No newline at end of file
+}
@@ -3,26 +3,60 @@ package com.dmsproject.dijkstravisualizer;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
-import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Group;
 import javafx.scene.control.*;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
+import javafx.scene.transform.Affine;
+import javafx.stage.FileChooser;
 import javafx.scene.paint.Color;
 import javafx.util.Duration;
+import com.dmsproject.dijkstravisualizer.engine.ContractionHierarchy;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.DeltaStepping;
+import com.dmsproject.dijkstravisualizer.engine.DynamicShortestPathTree;
+import com.dmsproject.dijkstravisualizer.engine.EuclideanHeuristic;
+import com.dmsproject.dijkstravisualizer.engine.GraphBuilder;
+import com.dmsproject.dijkstravisualizer.engine.GraphFile;
+import com.dmsproject.dijkstravisualizer.engine.GraphImporter;
+import com.dmsproject.dijkstravisualizer.engine.GraphLayout;
+import com.dmsproject.dijkstravisualizer.engine.MultiSourceDistances;
+import com.dmsproject.dijkstravisualizer.engine.QueueStrategy;
+import com.dmsproject.dijkstravisualizer.engine.SearchAlgorithm;
+import com.dmsproject.dijkstravisualizer.engine.SearchListener;
+import com.dmsproject.dijkstravisualizer.engine.SearchStream;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTreeCache;
+import com.dmsproject.dijkstravisualizer.engine.SpatialGrid;
 import org.jgrapht.Graph;
-import org.jgrapht.Graphs;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.SimpleWeightedGraph;
 
 import java.util.stream.Collectors;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
 import java.util.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.jgrapht.Graphs.addEdge;
 
@@ -38,8 +72,20 @@ public class DijkstraController implements Initializable {
     @FXML
     private ComboBox<String> endNodeComboBox;
     @FXML
+    private ComboBox<SearchAlgorithm> algorithmComboBox;
+    @FXML
+    private TextField heuristicFactorField;
+    @FXML
+    private ComboBox<QueueStrategy> queueStrategyComboBox;
+    @FXML
+    private CheckBox streamStepsCheckBox;
+    @FXML
     private Slider speedSlider;
     @FXML
+    private Slider stepScrubber;
+    @FXML
+    private Label stepScrubberLabel;
+    @FXML
     private Text currentStateText;
     @FXML
     private ListView<NodeDistance> priorityQueueListView;
@@ -53,6 +99,9 @@ public class DijkstraController implements Initializable {
     @FXML private Button pauseButton;
     @FXML private Button stepForwardButton;
     @FXML private Button stepBackwardButton;
+    @FXML private MenuItem cancelRunMenuItem;
+    @FXML private CheckMenuItem canvasRenderingMenuItem;
+    @FXML private CheckMenuItem repairAfterEditsMenuItem;
 
     // --- Graph Builder Mode ---
     private boolean addNodeMode = false;
@@ -64,25 +113,92 @@ public class DijkstraController implements Initializable {
     private Graph<String, DefaultWeightedEdge> jgraphtGraph;
     private Map<String, UINode> uiNodes;
     private List<UIEdge> uiEdges;
-    // private Map<String, UIEdge> uiEdges;
+    private UIEdgeIndex uiEdgeIndex; // Same edges keyed by their endpoint pair, for O(1) lookups
+    private CsrGraph engineGraph; // Frozen engine snapshot of the graph, null when out of date
+    private ShortestPathEngine queryEngine; // Engine of the last query, reused while its graph and queue still apply
+    private long graphVersion; // Bumped by every edit (see graphChanged()), so cached trees never outlive their graph
+    private final ShortestPathTreeCache treeCache = new ShortestPathTreeCache(); // Complete trees by (graphVersion, source)
+    private DynamicShortestPathTree dynamicTree; // Repair mode only: tree of the latest query, kept up to date by every edit
+    private long dynamicTreeVersion; // graphVersion the dynamic tree has been repaired up to
+    private ContractionHierarchy hierarchy; // Built from the menu or loaded with the graph; dropped by any edit
+    private QueueStrategy runQueueStrategy = QueueStrategy.INDEXED_DARY_HEAP; // Queue of the run on screen, for the bucket labels
+    private double runMaxArcWeight; // Largest edge weight of the run's graph (sets the number of Dial buckets)
+    private double runBucketWidth; // Bucket width of a delta-stepping run on screen, else 0
+    private int hoveredNode = -1; // Engine index of the node whose distance the status bar shows
+    // Non-null in canvas rendering mode: the whole graph (nodes, edges, layout) lives in the canvas
+    // and jgraphtGraph, uiNodes and uiEdges stay empty
+    private GraphCanvas graphCanvas;
+    private int selectedCanvasNodeForEdge = -1; // Canvas counterpart of selectedNodeForEdge
+
+    // --- Zoom and pan ---
+    private final GraphViewport viewport = new GraphViewport();
+    private final Group graphContent = new Group(); // Holds the UINodes/UIEdges, transformed by the viewport
+    private boolean panning = false;       // A drag on the graph pane moves the view
+    private boolean panPreviewStarted = false;
+    private double panLastX;
+    private double panLastY;
+
+    // --- Finding nodes by position ---
+    private static final double SNAP_DISTANCE = 40; // On-screen distance within which Add Edge picks the nearest node
+    private SpatialGrid nodeGrid;     // Centres of the UINodes (the canvas keeps its own grid)
+    private List<UINode> gridNodes;   // UINodes by nodeGrid index, i.e. in the order they were added
+    private int[] boxSelection = new int[0]; // Nodes picked with Shift+drag (nodeGrid or canvas indices)
+    private boolean boxSelecting = false;
+    private double boxStartX;
+    private double boxStartY;
+    private final Group graphOverlay = new Group(); // Selection box and snap marker, in pane coordinates
+    private final Rectangle selectionBox = new Rectangle();
+    private final Circle snapIndicator = new Circle();
+
+    // Loaded graphs above these sizes are drawn on a GraphCanvas instead of UINodes/UIEdges
+    private static final int MAX_DRAWN_NODES = 2000;
+    private static final int MAX_DRAWN_EDGES = 5000;
 
     private int nodeIdCounter = 0;
 
     // --- Dijkstra Algorithm Visualization State ---
-    private List<AlgorithmStep> currentAlgorithmSteps; // Stores all steps generated by Dijkstra
+    private List<AlgorithmStep> currentAlgorithmSteps; // Steps of the current run (a StepTimeline over the recorded trace)
     private int currentStepIndex = -1; // Current step being displayed (-1 for not started)
+    private boolean updatingStepScrubber = false; // True while the code (not the user) moves the scrubber
+    private StepStyleModel stepStyleModel; // Tracks what is currently shown so steps only restyle what changed
+    private StepRenderer stepRenderer;     // Applies those changes to the UI
+    private StepStreamPlayer stepStreamPlayer; // Non-null while a streamed (forward-only) run is shown
+    private SearchRunTask runningTask; // Run currently being recorded in the background, if any
+    // Runs are recorded off the FX thread; daemon so a pending run never keeps the app alive
+    private final ExecutorService algorithmExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dijkstra-run");
+        thread.setDaemon(true);
+        return thread;
+    });
     private Timeline animationTimeline; // For automatic playback
 
     private String currentStartNodeId; // To store the start node ID for the current algorithm run
     private String currentEndNodeId;   // To store the end node ID for the current algorithm run
+    private double heuristicFactor = 1.0; // Share of the consistent A* scale used for the current run
 
     // --- Graph Initialization ---
     private void initializeGraph() {
         jgraphtGraph = new org.jgrapht.graph.DefaultUndirectedWeightedGraph<>(DefaultWeightedEdge.class);
         uiNodes = new HashMap<>();
         uiEdges = new ArrayList<>();
-        graphPane.getChildren().clear(); // Clear any existing nodes/edges
+        uiEdgeIndex = new UIEdgeIndex();
+        nodeGrid = new SpatialGrid(4 * UINode.NODE_RADIUS);
+        gridNodes = new ArrayList<>();
+        boxSelection = new int[0];
+        graphChanged();
+        dynamicTree = null; // A tree of the old graph cannot be repaired into a new one
+        queryEngine = null;
+        // Queued behind any running search, so the run thread drops its O(V) workspace of the old graph
+        algorithmExecutor.execute(ShortestPathEngine::releaseWorkspaces);
+        graphCanvas = null;
+        selectedCanvasNodeForEdge = -1;
+        graphContent.getChildren().clear(); // Clear any existing nodes/edges
+        graphPane.getChildren().setAll(graphContent, graphOverlay);
         nodeIdCounter = 0; // Reset node counter
+        if (canvasRenderingMenuItem.isSelected()) {
+            installGraphCanvas(new GraphCanvas(viewport)); // Keep drawing new graphs on a canvas
+        }
+        viewport.reset();
 
         // Clear ComboBox items
         startNodeComboBox.getItems().clear();
@@ -98,6 +214,11 @@ public class DijkstraController implements Initializable {
         // Also reset visualization state if any algorithm was run
         currentAlgorithmSteps = null; // Clear steps
         currentStepIndex = -1;
+        stepStyleModel = null;
+        stepRenderer = null;
+        cancelStepStream();
+        cancelRunningTask();
+        resetStepScrubber();
         if (animationTimeline != null) {
             animationTimeline.stop();
         }
@@ -114,21 +235,78 @@ public class DijkstraController implements Initializable {
         jgraphtGraph = new org.jgrapht.graph.DefaultUndirectedWeightedGraph<>(org.jgrapht.graph.DefaultWeightedEdge.class);
         uiNodes = new HashMap<>();
         uiEdges = new ArrayList<>(); // Using ArrayList for UIEdges
+        uiEdgeIndex = new UIEdgeIndex();
+        nodeGrid = new SpatialGrid(4 * UINode.NODE_RADIUS);
+        gridNodes = new ArrayList<>();
 
         // Ensure graphPane gets mouse events and requests focus
         graphPane.setOnMouseClicked(this::handleGraphPaneClick);
         graphPane.setFocusTraversable(true); // Allow pane to receive focus if needed
 
+        // Zoom with the mouse wheel, pan by dragging. UINodes/UIEdges go into graphContent, which
+        // the viewport transforms; the pane clips it so a zoomed graph stays inside its area.
+        graphContent.setManaged(false);
+        graphPane.getChildren().setAll(graphContent, graphOverlay);
+        Rectangle graphClip = new Rectangle();
+        graphClip.widthProperty().bind(graphPane.widthProperty());
+        graphClip.heightProperty().bind(graphPane.heightProperty());
+        graphPane.setClip(graphClip);
+        viewport.addListener(this::applyViewport);
+        graphPane.widthProperty().addListener((obs, oldVal, newVal) -> applyViewport());
+        graphPane.heightProperty().addListener((obs, oldVal, newVal) -> applyViewport());
+        graphPane.setOnScroll(this::handleGraphZoom);
+        graphPane.setOnMousePressed(this::handleGraphPanStart);
+        graphPane.setOnMouseDragged(this::handleGraphPan);
+        graphPane.setOnMouseReleased(this::handleGraphPanEnd);
+
+        // Shift+drag draws a selection box; in Add Edge mode a marker shows the node a click would pick
+        graphOverlay.setManaged(false);
+        graphOverlay.setMouseTransparent(true);
+        selectionBox.setFill(Color.web(UINode.SELECTION_HIGHLIGHT_COLOR, 0.2));
+        selectionBox.setStroke(Color.web(UINode.SELECTION_HIGHLIGHT_STROKE_COLOR));
+        selectionBox.getStrokeDashArray().setAll(6.0, 4.0);
+        selectionBox.setVisible(false);
+        snapIndicator.setFill(Color.TRANSPARENT);
+        snapIndicator.setStroke(Color.web(UINode.SELECTION_HIGHLIGHT_STROKE_COLOR));
+        snapIndicator.setStrokeWidth(3);
+        snapIndicator.getStrokeDashArray().setAll(6.0, 4.0);
+        snapIndicator.setVisible(false);
+        graphOverlay.getChildren().setAll(selectionBox, snapIndicator);
+        graphPane.setOnMouseMoved(this::handleGraphMouseMoved);
+        graphPane.setOnMouseExited(event -> snapIndicator.setVisible(false));
+
         // Set up the ComboBoxes (assuming they are FXML injected)
         startNodeComboBox.setItems(FXCollections.observableArrayList());
         endNodeComboBox.setItems(FXCollections.observableArrayList());
 
+        // Search algorithm and priority queue implementation used by the engine (decrease-key heap by default)
+        algorithmComboBox.setItems(FXCollections.observableArrayList(SearchAlgorithm.values()));
+        algorithmComboBox.getSelectionModel().select(SearchAlgorithm.DIJKSTRA);
+        heuristicFactorField.disableProperty().bind(algorithmComboBox.valueProperty().isNotEqualTo(SearchAlgorithm.A_STAR));
+        queueStrategyComboBox.setItems(FXCollections.observableArrayList(QueueStrategy.values()));
+        queueStrategyComboBox.getSelectionModel().select(QueueStrategy.INDEXED_DARY_HEAP);
+
         // Initial status message
         statusLabel.setText("Click 'Add Node' to start building your graph, then 'Add Edge' to connect them.");
 
         // Initialize lists for algorithm display
         priorityQueueListView.setItems(FXCollections.observableArrayList());
         distancesListView.setItems(FXCollections.observableArrayList());
+        // With a bucket queue, every Priority Queue entry also shows the bucket it sits in
+        priorityQueueListView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(NodeDistance item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : formatQueueEntry(item, getListView().getItems()));
+            }
+        });
+
+        // Dragging the scrubber seeks straight to that step (restores the nearest keyframe)
+        stepScrubber.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (!updatingStepScrubber) {
+                seekToStep((int) Math.round(newVal.doubleValue()));
+            }
+        });
 
         // Listener for the speed slider to adjust animation speed
         speedSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -139,20 +317,7 @@ public class DijkstraController implements Initializable {
                 animationTimeline = new Timeline();
                 animationTimeline.setCycleCount(Timeline.INDEFINITE);
                 animationTimeline.getKeyFrames().add(
-                        new KeyFrame(Duration.seconds(newVal.doubleValue()), e -> {
-                            if (currentStepIndex < currentAlgorithmSteps.size() - 1) {
-                                currentStepIndex++;
-                                // *** CRITICAL CHANGE: Pass the current step to displayCurrentStep ***
-                                displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex));
-                            } else {
-                                // Reached the end of the algorithm steps during playback
-                                animationTimeline.stop();
-                                playButton.setText("Play"); // Reset play button text
-                                stepForwardButton.setDisable(true); // Disable forward navigation
-                                playButton.setDisable(true); // Disable play button
-                                pauseButton.setDisable(true); // Disable pause button
-                            }
-                        })
+                        new KeyFrame(Duration.seconds(newVal.doubleValue()), e -> advancePlayback())
                 );
                 animationTimeline.play(); // Start the animation again with the new speed
             }
@@ -180,13 +345,607 @@ public class DijkstraController implements Initializable {
     @FXML
     private void handleLoadGraph() {
         System.out.println("Load Graph clicked");
-        // Logic to load graph from a file
+        FileChooser fileChooser = createGraphFileChooser("Load Graph");
+        File file = fileChooser.showOpenDialog(graphPane.getScene().getWindow());
+        if (file == null) {
+            return; // Dialog cancelled
+        }
+
+        // Large files take a while to read, so load on the background executor like imports, along with the
+        // hierarchy saved next to the file
+        Path path = file.toPath();
+        Task<LoadedGraph> loadTask = new Task<>() {
+            @Override
+            protected LoadedGraph call() throws IOException {
+                GraphFile graphFile = GraphFile.read(path); // Bulk section reads, no per-edge parsing
+                return LoadedGraph.read(graphFile, ContractionHierarchy.sidecarOf(path));
+            }
+        };
+        long startTime = System.nanoTime();
+        loadTask.setOnSucceeded(e -> {
+            LoadedGraph loaded = loadTask.getValue();
+            System.out.printf("Loaded %s in %.1f ms%n", file.getName(), (System.nanoTime() - startTime) / 1e6);
+            showLoadedGraph(loaded.graphFile.getGraph(), loaded.graphFile.getLayout(), file.getName());
+            adoptSavedHierarchy(loaded);
+        });
+        loadTask.setOnFailed(e -> {
+            System.err.println("Error loading graph: " + loadTask.getException());
+            Throwable error = loadTask.getException();
+            showGraphFileError("Failed to load graph",
+                    error instanceof IOException ? (IOException) error : new IOException(error.getMessage(), error));
+            statusLabel.setText("Load failed.");
+        });
+        statusLabel.setText("Loading " + file.getName() + "...");
+        algorithmExecutor.submit(loadTask);
+    }
+
+    // A hierarchy saved next to the graph file is reused if it was built on exactly this graph. It was checked against
+    // the graph as read from the file, whose node order the hierarchy's indices refer to, so it only fits while the
+    // editor still runs queries on that graph.
+    private void adoptSavedHierarchy(LoadedGraph loaded) {
+        if (loaded.hierarchy == null && loaded.hierarchyError == null) {
+            return; // None saved
+        }
+        if (snapshotGraph() != loaded.graphFile.getGraph()) {
+            statusLabel.setText(statusLabel.getText() + " Saved contraction hierarchy ignored (the graph file has edges the editor merged).");
+            return;
+        }
+        if (loaded.hierarchyError != null) {
+            System.err.println("Ignoring saved hierarchy: " + loaded.hierarchyError);
+            statusLabel.setText(statusLabel.getText() + " Saved contraction hierarchy ignored (" + loaded.hierarchyError + ").");
+            return;
+        }
+        hierarchy = loaded.hierarchy;
+        statusLabel.setText(statusLabel.getText() + " Contraction hierarchy loaded.");
+    }
+
+    // What a load read on the background executor: the graph file and the hierarchy saved next to it, if any
+    private static final class LoadedGraph {
+        final GraphFile graphFile;
+        final ContractionHierarchy hierarchy; // null if none was saved or it could not be read
+        final String hierarchyError; // Why a saved hierarchy could not be read, else null
+
+        private LoadedGraph(GraphFile graphFile, ContractionHierarchy hierarchy, String hierarchyError) {
+            this.graphFile = graphFile;
+            this.hierarchy = hierarchy;
+            this.hierarchyError = hierarchyError;
+        }
+
+        // A damaged or outdated hierarchy only costs its speed-up, so it never fails the load
+        static LoadedGraph read(GraphFile graphFile, Path hierarchyPath) {
+            if (!Files.exists(hierarchyPath)) {
+                return new LoadedGraph(graphFile, null, null);
+            }
+            try {
+                return new LoadedGraph(graphFile, ContractionHierarchy.read(hierarchyPath, graphFile.getGraph()), null);
+            } catch (IOException e) {
+                return new LoadedGraph(graphFile, null, e.getMessage());
+            }
+        }
     }
 
     @FXML
     private void handleSaveGraph() {
         System.out.println("Save Graph clicked");
-        // Logic to save graph to file
+        FileChooser fileChooser = createGraphFileChooser("Save Graph");
+        File file = fileChooser.showSaveDialog(graphPane.getScene().getWindow());
+        if (file == null) {
+            return; // Dialog cancelled
+        }
+
+        CsrGraph graph = snapshotGraph();
+        try {
+            GraphFile.write(file.toPath(), graph, currentLayout(graph));
+            if (hierarchy != null) {
+                hierarchy.write(ContractionHierarchy.sidecarOf(file.toPath())); // Saves rebuilding it after the next load
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving graph: " + e.getMessage());
+            showGraphFileError("Failed to save graph", e);
+            return;
+        }
+        statusLabel.setText("Graph saved to " + file.getName() + " (" + graph.nodeCount() + " nodes, "
+                + graph.arcCount() / 2 + " edges" + (hierarchy != null ? ", with its contraction hierarchy)." : ")."));
+    }
+
+    @FXML
+    private void handleImportGraph() {
+        System.out.println("Import Graph clicked");
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Graph");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("DIMACS shortest-path graph (*.gr)", "*.gr"),
+                new FileChooser.ExtensionFilter("Edge list (*.csv, *.txt, *.edges)", "*.csv", "*.txt", "*.edges"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = fileChooser.showOpenDialog(graphPane.getScene().getWindow());
+        if (file == null) {
+            return; // Dialog cancelled
+        }
+
+        // Large files take a while to read, so import on the background executor like algorithm runs
+        Task<GraphImporter.Result> importTask = new Task<>() {
+            @Override
+            protected GraphImporter.Result call() throws IOException {
+                GraphImporter.Result result = GraphImporter.importFile(file.toPath());
+                if (!result.isSymmetric()) {
+                    // The editor only holds undirected edges; merging the two directions would change distances
+                    throw new IOException(file.getName() + " has one-way arcs or different weights in each direction. "
+                            + "The editor only supports undirected graphs; query directed graphs with the command-line BatchQuery.");
+                }
+                return result;
+            }
+        };
+        long startTime = System.nanoTime();
+        importTask.setOnSucceeded(e -> {
+            GraphImporter.Result result = importTask.getValue();
+            CsrGraph graph = result.getGraph();
+            System.out.printf("Imported %s: %d lines in %.1f ms%n", file.getName(), result.getEdgeLines(),
+                    (System.nanoTime() - startTime) / 1e6);
+            showLoadedGraph(graph, circleLayout(graph.nodeCount()), file.getName());
+            if (result.getDuplicateEdges() > 0 || result.getSelfLoops() > 0) {
+                statusLabel.setText(statusLabel.getText() + " Merged " + result.getDuplicateEdges()
+                        + " duplicate edges (kept the smallest weight), dropped " + result.getSelfLoops() + " self-loops.");
+            }
+        });
+        importTask.setOnFailed(e -> {
+            System.err.println("Error importing graph: " + importTask.getException());
+            Throwable error = importTask.getException();
+            showGraphFileError("Failed to import graph",
+                    error instanceof IOException ? (IOException) error : new IOException(error.getMessage(), error));
+            statusLabel.setText("Import failed.");
+        });
+        statusLabel.setText("Importing " + file.getName() + "...");
+        algorithmExecutor.submit(importTask);
+    }
+
+    // Distances between every pair of nodes, written as CSV. The searches run on all cores
+    // (MultiSourceDistances); rows are streamed to the file, so the matrix is never held in memory.
+    @FXML
+    private void handleExportAllPairs() {
+        System.out.println("Export All-Pairs Distances clicked");
+        CsrGraph graph = snapshotGraph();
+        if (graph.nodeCount() == 0) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Empty Graph");
+            alert.setHeaderText(null);
+            alert.setContentText("Add some nodes before computing distances.");
+            alert.showAndWait();
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export All-Pairs Distances");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV file (*.csv)", "*.csv"));
+        File file = fileChooser.showSaveDialog(graphPane.getScene().getWindow());
+        if (file == null) {
+            return; // Dialog cancelled
+        }
+
+        ShortestPathEngine engine = engineFor(graph, queueStrategyFor(graph));
+        int nodeCount = graph.nodeCount();
+        Task<Void> exportTask = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    MultiSourceDistances.CsvSink csv = new MultiSourceDistances.CsvSink(graph, writer);
+                    MultiSourceDistances.forEachRow(engine, MultiSourceDistances.allNodes(graph), ForkJoinPool.commonPool(),
+                            (row, source, distances) -> {
+                                csv.accept(row, source, distances);
+                                int written = csv.rowsWritten();
+                                updateProgress(written, nodeCount);
+                                updateMessage("Computing all-pairs distances: " + written + " of " + nodeCount + " sources done...");
+                            });
+                } catch (RuntimeException e) {
+                    throw MultiSourceDistances.CsvSink.unwrap(e);
+                }
+                return null;
+            }
+        };
+        long startTime = System.nanoTime();
+        exportTask.messageProperty().addListener((obs, oldMessage, newMessage) -> statusLabel.setText(newMessage));
+        exportTask.setOnSucceeded(e -> {
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf("All-pairs distances for %d nodes on %d threads in %.2f s%n",
+                    nodeCount, ForkJoinPool.commonPool().getParallelism(), seconds);
+            statusLabel.setText(String.format("All-pairs distances (%d x %d) written to %s in %.1f s.",
+                    nodeCount, nodeCount, file.getName(), seconds));
+        });
+        exportTask.setOnFailed(e -> {
+            Throwable error = exportTask.getException();
+            System.err.println("Error exporting distances: " + error);
+            showGraphFileError("Failed to export distances",
+                    error instanceof IOException ? (IOException) error : new IOException(error.getMessage(), error));
+            statusLabel.setText("Export failed.");
+        });
+        statusLabel.setText("Computing all-pairs distances...");
+        algorithmExecutor.submit(exportTask);
+    }
+
+    // Preprocessing for the Contraction Hierarchy algorithm; kept until the graph is edited
+    @FXML
+    private void handleBuildHierarchy() {
+        System.out.println("Build Contraction Hierarchy clicked");
+        CsrGraph graph = snapshotGraph();
+        if (graph.nodeCount() == 0) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Empty Graph");
+            alert.setHeaderText(null);
+            alert.setContentText("Add some nodes before building a contraction hierarchy.");
+            alert.showAndWait();
+            return;
+        }
+        Task<ContractionHierarchy> buildTask = new Task<>() {
+            @Override
+            protected ContractionHierarchy call() {
+                return ContractionHierarchy.build(graph, ForkJoinPool.commonPool());
+            }
+        };
+        long startTime = System.nanoTime();
+        buildTask.setOnSucceeded(e -> {
+            if (graph != engineGraph) {
+                statusLabel.setText("Graph changed while the contraction hierarchy was built. Build it again.");
+                return;
+            }
+            hierarchy = buildTask.getValue();
+            double millis = (System.nanoTime() - startTime) / 1e6;
+            System.out.printf("Contraction hierarchy: %d nodes, %d shortcuts in %.1f ms%n",
+                    graph.nodeCount(), hierarchy.getShortcutCount(), millis);
+            statusLabel.setText(String.format("Contraction hierarchy built in %.0f ms (%d shortcuts). "
+                    + "Select the \"%s\" algorithm to query it.", millis, hierarchy.getShortcutCount(),
+                    SearchAlgorithm.CONTRACTION_HIERARCHY));
+        });
+        buildTask.setOnFailed(e -> {
+            System.err.println("Building the contraction hierarchy failed: " + buildTask.getException());
+            statusLabel.setText("Building the contraction hierarchy failed: " + buildTask.getException().getMessage());
+        });
+        statusLabel.setText("Building contraction hierarchy...");
+        algorithmExecutor.submit(buildTask);
+    }
+
+    // Imported files carry no coordinates, so their nodes are spread evenly on a circle
+    private GraphLayout circleLayout(int nodeCount) {
+        double width = graphPane.getWidth() > 0 ? graphPane.getWidth() : 800;
+        double height = graphPane.getHeight() > 0 ? graphPane.getHeight() : 600;
+        double radius = Math.max(50, Math.min(width, height) / 2 - 40);
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            double angle = 2 * Math.PI * v / Math.max(nodeCount, 1);
+            xs[v] = width / 2 + radius * Math.cos(angle);
+            ys[v] = height / 2 + radius * Math.sin(angle);
+        }
+        return new GraphLayout(xs, ys);
+    }
+
+    private FileChooser createGraphFileChooser(String title) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Dijkstra graph (*." + GraphFile.EXTENSION + ")", "*." + GraphFile.EXTENSION));
+        return fileChooser;
+    }
+
+    private void showGraphFileError(String header, IOException e) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Graph File Error");
+        alert.setHeaderText(header);
+        alert.setContentText(e.getMessage());
+        alert.showAndWait();
+    }
+
+    // Replaces the current graph with a loaded one. Small graphs get their UINodes/UIEdges
+    // right away; large ones (or any graph in canvas rendering mode) are drawn on a GraphCanvas.
+    private void showLoadedGraph(CsrGraph graph, GraphLayout layout, String sourceName) {
+        int edgeCount = graph.arcCount() / 2;
+        boolean tooLargeToDraw = graph.nodeCount() > MAX_DRAWN_NODES || edgeCount > MAX_DRAWN_EDGES;
+        if (tooLargeToDraw) {
+            canvasRenderingMenuItem.setSelected(true); // The menu always shows the current mode
+        }
+        initializeGraph();
+
+        if (canvasRenderingMenuItem.isSelected()) {
+            installGraphCanvas(new GraphCanvas(graph, layout, viewport));
+            engineGraph = graph; // Runs use the loaded graph itself until it is edited
+            List<String> nodeIds = new ArrayList<>(graph.nodeCount());
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                nodeIds.add(graph.idOf(v));
+            }
+            startNodeComboBox.getItems().addAll(nodeIds);
+            endNodeComboBox.getItems().addAll(nodeIds);
+            statusLabel.setText("Loaded " + sourceName + ": " + graph.nodeCount() + " nodes, " + edgeCount + " edges"
+                    + (tooLargeToDraw ? ", drawn on a canvas because of its size." : "."));
+            zoomToFit();
+            return;
+        }
+
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            addNode(graph.idOf(v), layout.x(v), layout.y(v));
+        }
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.arcTarget(arc);
+                if (u < v) { // Each undirected edge is stored as two arcs; draw it once
+                    addGraphEdge(uiNodes.get(graph.idOf(u)), uiNodes.get(graph.idOf(v)), graph.arcWeight(arc));
+                }
+            }
+        }
+        if (2 * jgraphtGraph.edgeSet().size() == graph.arcCount()) {
+            // Runs use the loaded graph until it is edited: same nodes and edges as the editor now holds, but in
+            // the file's node order (a rebuilt snapshot would follow the vertex set's order instead)
+            engineGraph = graph;
+        }
+        statusLabel.setText("Loaded " + sourceName + ": " + graph.nodeCount() + " nodes, " + edgeCount + " edges.");
+        zoomToFit();
+    }
+
+    // Node positions to store alongside the graph when saving
+    private GraphLayout currentLayout(CsrGraph graph) {
+        if (graphCanvas != null) {
+            return graphCanvas.getLayout(); // Canvas indices are the snapshot's indices
+        }
+        double[] xs = new double[graph.nodeCount()];
+        double[] ys = new double[graph.nodeCount()];
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            UINode uiNode = uiNodes.get(graph.idOf(v));
+            xs[v] = uiNode.getCenterX();
+            ys[v] = uiNode.getCenterY();
+        }
+        return new GraphLayout(xs, ys);
+    }
+
+    private boolean graphContainsNode(String nodeId) {
+        return graphCanvas != null ? graphCanvas.indexOf(nodeId) >= 0 : uiNodes.containsKey(nodeId);
+    }
+
+    // Puts the canvas in graphPane, sized to follow the pane
+    private void installGraphCanvas(GraphCanvas canvas) {
+        graphCanvas = canvas;
+        canvas.setManaged(false); // Sized by the bindings below, not by the pane's layout
+        canvas.widthProperty().bind(graphPane.widthProperty());
+        canvas.heightProperty().bind(graphPane.heightProperty());
+        graphPane.getChildren().setAll(canvas, graphOverlay);
+    }
+
+    @FXML
+    private void handleToggleCanvasRendering() {
+        boolean useCanvas = canvasRenderingMenuItem.isSelected();
+        System.out.println("Canvas rendering " + (useCanvas ? "on" : "off"));
+        if (useCanvas == (graphCanvas != null)) {
+            return;
+        }
+        // Rebuild the current graph in the other representation (this ends any run being shown)
+        CsrGraph graph = snapshotGraph();
+        GraphLayout layout = currentLayout(graph);
+        if (!useCanvas && (graph.nodeCount() > MAX_DRAWN_NODES || graph.arcCount() / 2 > MAX_DRAWN_EDGES)) {
+            canvasRenderingMenuItem.setSelected(true);
+            statusLabel.setText("This graph is too large to draw node by node, so it stays on the canvas.");
+            return;
+        }
+        showLoadedGraph(graph, layout, "current graph");
+        statusLabel.setText(useCanvas ? "Canvas rendering on." : "Canvas rendering off.");
+    }
+
+    // --- Zoom and Pan ---
+
+    @FXML
+    private void handleZoomToFit() {
+        zoomToFit();
+    }
+
+    @FXML
+    private void handleResetZoom() {
+        viewport.reset();
+    }
+
+    // Shows the whole graph, zooming out if it does not fit (never zooms in past 1:1)
+    private void zoomToFit() {
+        CsrGraph graph = snapshotGraph();
+        if (graph.nodeCount() == 0) {
+            viewport.reset();
+            return;
+        }
+        double[] bounds = currentLayout(graph).bounds();
+        double margin = UINode.NODE_RADIUS + 20;
+        viewport.fit(bounds[0] - margin, bounds[1] - margin, bounds[2] + margin, bounds[3] + margin,
+                graphPane.getWidth(), graphPane.getHeight());
+    }
+
+    private void handleGraphZoom(ScrollEvent event) {
+        double factor = Math.pow(1.005, event.getDeltaY()); // About 20% per wheel notch
+        viewport.zoomAt(factor, event.getX(), event.getY());
+        event.consume();
+    }
+
+    private void handleGraphPanStart(MouseEvent event) {
+        if (event.getButton() == MouseButton.PRIMARY && event.isShiftDown()) {
+            boxSelecting = true; // Shift+drag selects instead of panning
+            panning = false;
+            boxStartX = event.getX();
+            boxStartY = event.getY();
+            selectionBox.setX(boxStartX);
+            selectionBox.setY(boxStartY);
+            selectionBox.setWidth(0);
+            selectionBox.setHeight(0);
+            selectionBox.setVisible(true);
+            return;
+        }
+        // Drag with the right or middle button, or with the left one while not adding nodes/edges
+        panning = event.getButton() != MouseButton.PRIMARY || (!addNodeMode && !addEdgeMode);
+        panPreviewStarted = false;
+        panLastX = event.getX();
+        panLastY = event.getY();
+    }
+
+    private void handleGraphPan(MouseEvent event) {
+        if (boxSelecting) {
+            selectionBox.setX(Math.min(boxStartX, event.getX()));
+            selectionBox.setY(Math.min(boxStartY, event.getY()));
+            selectionBox.setWidth(Math.abs(event.getX() - boxStartX));
+            selectionBox.setHeight(Math.abs(event.getY() - boxStartY));
+            return;
+        }
+        if (!panning) {
+            return;
+        }
+        if (graphCanvas != null && !panPreviewStarted) {
+            graphCanvas.startPanPreview(); // Drags move a picture of the canvas; redrawn on release
+            panPreviewStarted = true;
+        }
+        viewport.panBy(event.getX() - panLastX, event.getY() - panLastY);
+        panLastX = event.getX();
+        panLastY = event.getY();
+    }
+
+    private void handleGraphPanEnd(MouseEvent event) {
+        if (boxSelecting) {
+            boxSelecting = false;
+            selectionBox.setVisible(false);
+            if (!event.isStillSincePress()) {
+                selectNodesInBox(event.getX(), event.getY());
+            }
+            return;
+        }
+        if (panning && graphCanvas != null) {
+            graphCanvas.endPanPreview();
+        }
+        panning = false;
+    }
+
+    // --- Selection and Snapping ---
+
+    // Selects the nodes whose centre lies in the box dragged from (boxStartX, boxStartY)
+    private void selectNodesInBox(double endX, double endY) {
+        double minX = viewport.toWorldX(Math.min(boxStartX, endX));
+        double minY = viewport.toWorldY(Math.min(boxStartY, endY));
+        double maxX = viewport.toWorldX(Math.max(boxStartX, endX));
+        double maxY = viewport.toWorldY(Math.max(boxStartY, endY));
+        int[] selected = graphCanvas != null
+                ? graphCanvas.nodesIn(minX, minY, maxX, maxY)
+                : nodeGrid.nodesIn(minX, minY, maxX, maxY);
+        setBoxSelection(selected);
+
+        StringBuilder status = new StringBuilder("Selected " + selected.length + (selected.length == 1 ? " node" : " nodes"));
+        for (int i = 0; i < Math.min(selected.length, 5); i++) {
+            status.append(i == 0 ? ": " : ", ").append(nodeIdAt(selected[i]));
+        }
+        if (selected.length > 5) {
+            status.append(", ...");
+        }
+        statusLabel.setText(status.toString());
+        System.out.println(status);
+    }
+
+    private void setBoxSelection(int[] selected) {
+        if (graphCanvas != null) {
+            graphCanvas.setBoxSelection(selected);
+        } else {
+            for (int index : boxSelection) {
+                gridNodes.get(index).setDefaultStyle();
+            }
+            for (int index : selected) {
+                gridNodes.get(index).highlightAsSelectedForEdge();
+            }
+        }
+        boxSelection = selected;
+    }
+
+    // ID of a node given by its canvas index, or its nodeGrid index in scene-graph mode
+    private String nodeIdAt(int index) {
+        return graphCanvas != null ? graphCanvas.idOf(index) : gridNodes.get(index).getNodeId();
+    }
+
+    // World distance within which Add Edge picks the nearest node: at least the node itself,
+    // and a fixed distance on screen so small, zoomed-out nodes are still easy to hit
+    private double snapDistance() {
+        return Math.max(UINode.NODE_RADIUS, SNAP_DISTANCE / viewport.getScale());
+    }
+
+    // In Add Edge mode, marks the node a click at the mouse position would pick. Otherwise shows
+    // the distance of the hovered node when a tree from the current start node is cached.
+    private void handleGraphMouseMoved(MouseEvent event) {
+        double x = viewport.toWorldX(event.getX());
+        double y = viewport.toWorldY(event.getY());
+        if (!addEdgeMode) {
+            snapIndicator.setVisible(false);
+            showHoveredDistance(x, y);
+            return;
+        }
+        int node = graphCanvas != null ? graphCanvas.nearestNode(x, y, snapDistance()) : nodeGrid.nearest(x, y, snapDistance());
+        if (node == -1) {
+            snapIndicator.setVisible(false);
+            return;
+        }
+        double nodeX = graphCanvas != null ? graphCanvas.x(node) : gridNodes.get(node).getCenterX();
+        double nodeY = graphCanvas != null ? graphCanvas.y(node) : gridNodes.get(node).getCenterY();
+        snapIndicator.setCenterX(viewport.toScreenX(nodeX));
+        snapIndicator.setCenterY(viewport.toScreenY(nodeY));
+        snapIndicator.setRadius(UINode.NODE_RADIUS * viewport.getScale() + 6);
+        snapIndicator.setVisible(true);
+    }
+
+    // Looks the hovered node up in the cached tree of the current start node (no search)
+    private void showHoveredDistance(double x, double y) {
+        if ((engineGraph == null && !isRepairedTreeCurrent()) || currentStartNodeId == null || currentStartNodeId.isEmpty()) {
+            return; // Edited since the last query, or no query yet: nothing cached for this graph
+        }
+        CsrGraph graph = snapshotGraph();
+        ShortestPathTree tree = cachedTree(graph.indexOf(currentStartNodeId));
+        if (tree == null) {
+            return;
+        }
+        int hovered = graphCanvas != null ? graphCanvas.nodeAt(x, y) : nodeGrid.nearest(x, y, UINode.NODE_RADIUS);
+        if (hovered == -1) {
+            hoveredNode = -1;
+            return;
+        }
+        int node = graph.indexOf(nodeIdAt(hovered));
+        if (node == hoveredNode) {
+            return; // Still on the same node; keep whatever the status bar says
+        }
+        hoveredNode = node;
+        double distance = tree.distanceTo(node);
+        statusLabel.setText(distance == Double.POSITIVE_INFINITY
+                ? graph.idOf(node) + " cannot be reached from " + currentStartNodeId + "."
+                : String.format("Distance from %s to %s: %.1f (%d hops).", currentStartNodeId, graph.idOf(node),
+                        distance, tree.pathTo(node).length - 1));
+    }
+
+    // Runs after every zoom/pan: the canvas redraws what is in view; UINodes/UIEdges are moved
+    // with one transform, hidden when outside the view, and lose detail when zoomed out
+    private void applyViewport() {
+        snapIndicator.setVisible(false); // Shown again on the next mouse move
+        if (graphCanvas != null) {
+            graphCanvas.viewportChanged();
+            return;
+        }
+        double scale = viewport.getScale();
+        graphContent.getTransforms().setAll(new Affine(scale, 0, viewport.getOffsetX(), 0, scale, viewport.getOffsetY()));
+        double[] view = viewport.visibleBounds(graphPane.getWidth(), graphPane.getHeight());
+        for (UINode node : uiNodes.values()) {
+            applyViewport(node, view);
+        }
+        for (UIEdge edge : uiEdges) {
+            applyViewport(edge, view);
+        }
+    }
+
+    private void applyViewport(UINode node, double[] view) {
+        double extent = UINode.NODE_RADIUS + 20; // Circle plus the distance label below it
+        node.setVisible(node.getCenterX() + extent >= view[0] && node.getCenterX() - extent <= view[2]
+                && node.getCenterY() + extent >= view[1] && node.getCenterY() - extent <= view[3]);
+        node.setShadowsShown(viewport.showsShadows());
+        node.setDistanceLabelShown(viewport.showsDistanceLabels());
+    }
+
+    private void applyViewport(UIEdge edge, double[] view) {
+        UINode source = edge.getSourceNode();
+        UINode target = edge.getTargetNode();
+        double extent = 30; // Weight label beside the line
+        edge.setVisible(Math.max(source.getCenterX(), target.getCenterX()) + extent >= view[0]
+                && Math.min(source.getCenterX(), target.getCenterX()) - extent <= view[2]
+                && Math.max(source.getCenterY(), target.getCenterY()) + extent >= view[1]
+                && Math.min(source.getCenterY(), target.getCenterY()) - extent <= view[3]);
+        edge.setShadowsShown(viewport.showsShadows());
+        edge.setWeightLabelShown(viewport.showsWeightLabels());
     }
 
     @FXML
@@ -223,6 +982,11 @@ public class DijkstraController implements Initializable {
         // Reset algorithm state variables
         currentAlgorithmSteps = null; // Clear all stored steps
         currentStepIndex = -1; // Reset step index
+        stepStyleModel = null;
+        stepRenderer = null;
+        cancelStepStream();
+        cancelRunningTask();
+        resetStepScrubber();
 
         // Reset button states for algorithm controls
         // All should be disabled as no algorithm is running
@@ -258,6 +1022,7 @@ public class DijkstraController implements Initializable {
         addNodeMode = false;
         addEdgeMode = true; // Ensure only one mode is active
         selectedNodeForEdge = null; // Clear any previous selection
+        clearCanvasEdgeSelection();
         statusLabel.setText("Add Edge mode active. Click on the first node, then the second.");
         System.out.println("Add Edge mode active.");
     }
@@ -265,21 +1030,123 @@ public class DijkstraController implements Initializable {
     @FXML
     private void handleFindShortestPath() {
         System.out.println("Find Shortest Path clicked");
-        // Logic to trigger the shortest path finding
+        String startNodeId = startNodeComboBox.getSelectionModel().getSelectedItem();
+        String endNodeId = endNodeComboBox.getSelectionModel().getSelectedItem();
+        if (startNodeId == null || startNodeId.isEmpty() || endNodeId == null || endNodeId.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Missing Input");
+            alert.setHeaderText(null);
+            alert.setContentText("Please select a start node and an end node.");
+            alert.showAndWait();
+            return;
+        }
+        if (!graphContainsNode(startNodeId) || !graphContainsNode(endNodeId)) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Node Not Found");
+            alert.setHeaderText(null);
+            alert.setContentText("The selected nodes do not exist in the graph.");
+            alert.showAndWait();
+            return;
+        }
+
+        // A tree from this start node on the current graph answers any end node without a new search
+        CsrGraph graph = snapshotGraph();
+        int source = graph.indexOf(startNodeId);
+        int target = graph.indexOf(endNodeId);
+        ShortestPathTree cached = cachedTree(source);
+        if (cached != null) {
+            System.out.println("Find Shortest Path: answered from the cached tree of " + startNodeId);
+            trackTree(cached);
+            showTreePath(cached, target, "cached tree");
+            return;
+        }
+
+        // Otherwise compute the complete tree in the background (so the next query from here is a lookup)
+        long version = graphVersion;
+        ShortestPathEngine engine = engineFor(graph, queueStrategyFor(graph));
+        Task<ShortestPathTree> treeTask = new Task<>() {
+            @Override
+            protected ShortestPathTree call() {
+                return engine.singleSource(source);
+            }
+        };
+        long startTime = System.nanoTime();
+        treeTask.setOnSucceeded(e -> {
+            if (version != graphVersion) {
+                statusLabel.setText("Graph changed while the path was being computed. Find it again.");
+                return;
+            }
+            treeCache.put(version, treeTask.getValue());
+            trackTree(treeTask.getValue());
+            System.out.printf("Find Shortest Path: computed the tree of %s in %.1f ms%n", startNodeId,
+                    (System.nanoTime() - startTime) / 1e6);
+            showTreePath(treeTask.getValue(), target, "new search");
+        });
+        treeTask.setOnFailed(e -> {
+            System.err.println("Find Shortest Path failed: " + treeTask.getException());
+            statusLabel.setText("Finding the shortest path failed: " + treeTask.getException().getMessage());
+        });
+        statusLabel.setText("Finding shortest path from " + startNodeId + "...");
+        algorithmExecutor.submit(treeTask);
+    }
+
+    // Shows the path to the target in a complete tree right away, without replaying a search
+    private void showTreePath(ShortestPathTree tree, int target, String origin) {
+        CsrGraph graph = tree.getGraph();
+        resetAlgorithm(); // Clears the styles of the previous run
+        currentStartNodeId = graph.idOf(tree.getSource()); // Hovering a node now shows its distance from here
+        currentEndNodeId = graph.idOf(target);
+        startNodeComboBox.getSelectionModel().select(currentStartNodeId); // Keep the query for the next end node
+        endNodeComboBox.getSelectionModel().select(currentEndNodeId);
+
+        StepRenderer renderer = createStepRenderer(graph);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            if (tree.isReached(v)) {
+                renderer.nodeStateChanged(v, Double.POSITIVE_INFINITY, false, tree.distanceTo(v), false);
+            }
+        }
+        distancesListView.setItems(renderer.getDistanceItems());
+
+        int[] path = tree.pathTo(target);
+        if (path.length == 0) {
+            renderer.nodeStyleChanged(target, StepStyleModel.NodeStyle.UNREACHABLE);
+            totalPathCostLabel.setText("Total Path Cost: Unreachable");
+            statusLabel.setText("No path from " + currentStartNodeId + " to " + currentEndNodeId + " (" + origin + ").");
+            return;
+        }
+        for (int i = 0; i < path.length; i++) {
+            renderer.nodeStyleChanged(path[i], i == path.length - 1 ? StepStyleModel.NodeStyle.PATH_END : StepStyleModel.NodeStyle.FINALIZED);
+            if (i > 0) {
+                renderer.edgeStyleChanged(path[i - 1], path[i], StepStyleModel.EdgeStyle.PATH);
+            }
+        }
+        StringBuilder pathText = new StringBuilder();
+        for (int node : path) {
+            pathText.append(pathText.length() == 0 ? "" : " -> ").append(graph.idOf(node));
+        }
+        totalPathCostLabel.setText(String.format("Total Path Cost: %.1f", tree.distanceTo(target)));
+        statusLabel.setText(String.format("Shortest path (%s): %s, distance %.1f. Hover a node for its distance.",
+                origin, pathText, tree.distanceTo(target)));
     }
 
     @FXML
     private void handlePlay() {
         System.out.println("Play clicked");
-        if (currentAlgorithmSteps == null || currentAlgorithmSteps.isEmpty()) {
-            return; // No steps to play
-        }
+        if (stepStreamPlayer != null) {
+            if (stepStreamPlayer.isFinished()) {
+                return; // A streamed run cannot be replayed
+            }
+        } else {
+            if (currentAlgorithmSteps == null || currentAlgorithmSteps.isEmpty()) {
+                return; // No steps to play
+            }
 
-        // If we're at the very end, reset to the beginning to start playback from scratch
-        if (currentStepIndex >= currentAlgorithmSteps.size() - 1) {
-            currentStepIndex = 0;
-            // *** CRITICAL CHANGE: Pass the current step to displayCurrentStep ***
-            displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex)); // Show the first step before starting play
+            // If we're at the very end, reset to the beginning to start playback from scratch
+            if (currentStepIndex >= currentAlgorithmSteps.size() - 1) {
+                currentStepIndex = 0;
+                // *** CRITICAL CHANGE: Pass the current step to displayCurrentStep ***
+                displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex)); // Show the first step before starting play
+            }
         }
 
         // Initialize or restart the timeline
@@ -287,40 +1154,12 @@ public class DijkstraController implements Initializable {
             animationTimeline = new Timeline();
             animationTimeline.setCycleCount(Timeline.INDEFINITE); // Play until explicitly stopped or end reached
             animationTimeline.getKeyFrames().add(
-                    new KeyFrame(Duration.seconds(speedSlider.getValue()), e -> { // Use speedSlider for duration
-                        if (currentStepIndex < currentAlgorithmSteps.size() - 1) {
-                            currentStepIndex++;
-                            // *** CRITICAL CHANGE: Pass the current step to displayCurrentStep ***
-                            displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex));
-                        } else {
-                            // Reached the end of the algorithm steps
-                            animationTimeline.stop();
-                            playButton.setText("Play"); // Reset button text
-                            // Button disabling logic is primarily handled by displayCurrentStep()
-                            // but ensuring here for robustness if animation stops
-                            stepForwardButton.setDisable(true);
-                            playButton.setDisable(true);
-                            pauseButton.setDisable(true);
-                        }
-                    })
+                    new KeyFrame(Duration.seconds(speedSlider.getValue()), e -> advancePlayback()) // Use speedSlider for duration
             );
         } else {
             // If timeline exists, ensure the duration updates if slider value changed
             animationTimeline.getKeyFrames().setAll(
-                    new KeyFrame(Duration.seconds(speedSlider.getValue()), e -> {
-                        if (currentStepIndex < currentAlgorithmSteps.size() - 1) {
-                            currentStepIndex++;
-                            // *** CRITICAL CHANGE: Pass the current step to displayCurrentStep ***
-                            displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex));
-                        } else {
-                            animationTimeline.stop();
-                            playButton.setText("Play");
-                            // Button disabling logic is primarily handled by displayCurrentStep()
-                            stepForwardButton.setDisable(true);
-                            playButton.setDisable(true);
-                            pauseButton.setDisable(true);
-                        }
-                    })
+                    new KeyFrame(Duration.seconds(speedSlider.getValue()), e -> advancePlayback())
             );
         }
 
@@ -329,6 +1168,34 @@ public class DijkstraController implements Initializable {
         pauseButton.setDisable(false); // Enable pause button
     }
 
+    // Shows the next step during auto-play and stops the timeline at the end of the run
+    private void advancePlayback() {
+        if (stepStreamPlayer != null) {
+            if (stepStreamPlayer.isFinished()) {
+                stopPlaybackAtEnd();
+            } else {
+                stepStreamPlayer.requestNext(); // Displayed once the search thread delivers it
+            }
+            return;
+        }
+        if (currentStepIndex < currentAlgorithmSteps.size() - 1) {
+            currentStepIndex++;
+            displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex));
+        } else {
+            stopPlaybackAtEnd();
+        }
+    }
+
+    private void stopPlaybackAtEnd() {
+        animationTimeline.stop();
+        playButton.setText("Play"); // Reset button text
+        // Button disabling logic is primarily handled by displayCurrentStep()
+        // but ensuring here for robustness if animation stops
+        stepForwardButton.setDisable(true);
+        playButton.setDisable(true);
+        pauseButton.setDisable(true);
+    }
+
     @FXML
     private void handlePause() {
         System.out.println("Pause clicked");
@@ -342,6 +1209,15 @@ public class DijkstraController implements Initializable {
     @FXML
     private void handleStepForward() {
         System.out.println("Step Forward clicked");
+        if (stepStreamPlayer != null) {
+            stepStreamPlayer.requestNext();
+            // Stop any ongoing auto-play when manually stepping
+            if (animationTimeline != null) {
+                animationTimeline.stop();
+                playButton.setText("Play");
+            }
+            return;
+        }
         if (currentAlgorithmSteps == null || currentAlgorithmSteps.isEmpty()) {
             return; // No steps to show
         }
@@ -380,15 +1256,78 @@ public class DijkstraController implements Initializable {
         // Button disabling logic for reaching the beginning is now primarily handled by displayCurrentStep()
     }
 
-    // --- MODIFIED: handleGraphPaneClick - now only for clicks NOT on nodes ---
+    // Jumps directly to any step of the current run (used by the step scrubber)
+    private void seekToStep(int stepIndex) {
+        if (currentAlgorithmSteps == null || currentAlgorithmSteps.isEmpty()) {
+            return;
+        }
+        int target = Math.max(0, Math.min(stepIndex, currentAlgorithmSteps.size() - 1));
+        if (target == currentStepIndex) {
+            return;
+        }
+        // Stop any ongoing auto-play when seeking manually
+        if (animationTimeline != null) {
+            animationTimeline.stop();
+            playButton.setText("Play");
+        }
+        currentStepIndex = target;
+        displayCurrentStep(currentAlgorithmSteps.get(currentStepIndex));
+    }
+
+    // Moves the scrubber to the displayed step without triggering another seek
+    private void syncStepScrubber() {
+        updatingStepScrubber = true;
+        if (stepStreamPlayer != null) {
+            // Streamed steps are not kept, so there is nothing to seek to
+            stepScrubber.setDisable(true);
+            stepScrubberLabel.setText("Seek Step: " + (currentStepIndex + 1) + " (streaming)");
+            updatingStepScrubber = false;
+            return;
+        }
+        int stepCount = currentAlgorithmSteps == null ? 0 : currentAlgorithmSteps.size();
+        stepScrubber.setMax(Math.max(0, stepCount - 1));
+        stepScrubber.setValue(Math.max(0, currentStepIndex));
+        stepScrubber.setDisable(stepCount <= 1);
+        stepScrubberLabel.setText("Seek Step: " + (currentStepIndex + 1) + " / " + stepCount);
+        updatingStepScrubber = false;
+    }
+
+    private void resetStepScrubber() {
+        updatingStepScrubber = true;
+        stepScrubber.setMax(0);
+        stepScrubber.setValue(0);
+        stepScrubber.setDisable(true);
+        stepScrubberLabel.setText("Seek Step: -");
+        updatingStepScrubber = false;
+    }
+
+    // --- MODIFIED: handleGraphPaneClick - handles clicks on nodes too, found through nodeGrid ---
     @FXML
     private void handleGraphPaneClick(MouseEvent event) {
-        // This method will only be called if a node was NOT clicked,
-        // because UINode consumes the event.
+        if (!event.isStillSincePress()) {
+            return; // The mouse was dragged to pan the view, not clicked
+        }
+        // Nodes are placed in graph coordinates, which differ from the pane's once zoomed or panned
+        double x = viewport.toWorldX(event.getX());
+        double y = viewport.toWorldY(event.getY());
+        if (boxSelection.length > 0) {
+            setBoxSelection(new int[0]); // Any click clears a box selection
+        }
+        if (graphCanvas != null) {
+            handleCanvasClick(x, y);
+            return;
+        }
+        // UINodes have no click handlers of their own; the clicked node is looked up by position
         if (addNodeMode) {
-            addNode(event.getX(), event.getY());
+            if (findClickedNode(x, y, UINode.NODE_RADIUS) == null) { // Clicking an existing node adds nothing
+                addNode(x, y);
+            }
         } else if (addEdgeMode) {
-            // If we're in addEdgeMode and reach here, it means the click was on the pane, not a node.
+            UINode clickedNode = findClickedNode(x, y, snapDistance()); // The nearest node, if the click was close to one
+            if (clickedNode != null) {
+                handleNodeClickForEdge(clickedNode);
+                return;
+            }
             statusLabel.setText("No node clicked. Please click directly on a node.");
             if (selectedNodeForEdge != null) {
                 selectedNodeForEdge.setDefaultStyle(); // Reset its style
@@ -396,7 +1335,69 @@ public class DijkstraController implements Initializable {
                 statusLabel.setText("Edge creation cancelled. Select first node for a new edge.");
             }
         }
-        // No need for findClickedNode here anymore for node detection.
+    }
+
+    // Canvas nodes have no event handlers of their own, so clicks are hit-tested here
+    private void handleCanvasClick(double x, double y) {
+        if (addNodeMode) {
+            if (graphCanvas.nodeAt(x, y) == -1) { // Clicking an existing node adds nothing, as with UINodes
+                addNode(x, y);
+            }
+        } else if (addEdgeMode) {
+            int clickedNode = graphCanvas.nearestNode(x, y, snapDistance());
+            if (clickedNode != -1) {
+                handleCanvasNodeClickForEdge(clickedNode);
+            } else {
+                statusLabel.setText("No node clicked. Please click directly on a node.");
+                if (selectedCanvasNodeForEdge != -1) {
+                    clearCanvasEdgeSelection();
+                    statusLabel.setText("Edge creation cancelled. Select first node for a new edge.");
+                }
+            }
+        }
+    }
+
+    // Same steps as handleNodeClickForEdge, for a node drawn on the canvas
+    private void handleCanvasNodeClickForEdge(int clickedNode) {
+        String clickedId = graphCanvas.idOf(clickedNode);
+        System.out.println("Node clicked for edge: " + clickedId);
+
+        if (selectedCanvasNodeForEdge == -1) {
+            selectedCanvasNodeForEdge = clickedNode;
+            graphCanvas.setSelectedNode(clickedNode);
+            statusLabel.setText("First node selected: " + clickedId + ". Click second node or background to cancel.");
+        } else if (selectedCanvasNodeForEdge == clickedNode) {
+            clearCanvasEdgeSelection();
+            statusLabel.setText("Node " + clickedId + " deselected. Select first node for an edge.");
+        } else {
+            int source = selectedCanvasNodeForEdge;
+            String sourceId = graphCanvas.idOf(source);
+            if (graphCanvas.containsEdge(source, clickedNode)) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Duplicate Edge");
+                alert.setHeaderText(null);
+                alert.setContentText("An edge already exists between " + sourceId + " and " + clickedId + ".");
+                alert.showAndWait();
+                clearCanvasEdgeSelection();
+                statusLabel.setText("Edge already exists. Select first node for a new edge.");
+                return;
+            }
+            Double weight = readEdgeWeight(sourceId, clickedId);
+            clearCanvasEdgeSelection();
+            if (weight != null) {
+                graphCanvas.addEdge(source, clickedNode, weight);
+                graphChanged(); // Engine snapshot and cached trees are now stale
+                statusLabel.setText("Edge added: " + sourceId + " - " + clickedId + " (Weight: " + weight + ")");
+                repairAfterEdgeAdded(sourceId, clickedId, weight);
+            }
+        }
+    }
+
+    private void clearCanvasEdgeSelection() {
+        if (graphCanvas != null && selectedCanvasNodeForEdge != -1) {
+            graphCanvas.setSelectedNode(-1);
+        }
+        selectedCanvasNodeForEdge = -1;
     }
 
     // This method will be linked to the graphPane's onMouseClicked event in FXML (or code)
@@ -405,18 +1406,36 @@ public class DijkstraController implements Initializable {
 
     // --- Helper to add a node ---
     private void addNode(double x, double y) {
-        String nodeId = "Node" + nodeIdCounter++;
-        UINode newNode = new UINode(nodeId, x, y);
+        String nodeId;
+        do {
+            nodeId = "Node" + nodeIdCounter++;
+        } while (graphContainsNode(nodeId)); // A loaded graph may already use this ID
+        addNode(nodeId, x, y);
+    }
 
-        // Set the click handler for the UINode itself
-        newNode.setOnClickHandler(this::handleNodeClickForEdge);
+    private void addNode(String nodeId, double x, double y) {
+        if (graphCanvas != null) {
+            graphCanvas.addNode(nodeId, x, y);
+            graphChanged(); // Engine snapshot and cached trees are now stale
+            repairAfterNodeAdded(nodeId);
+            startNodeComboBox.getItems().add(nodeId);
+            endNodeComboBox.getItems().add(nodeId);
+            System.out.println("Added node: " + nodeId);
+            return;
+        }
+        UINode newNode = new UINode(nodeId, x, y);
 
-        // Add to map and pane
+        // Add to map, spatial index and pane (clicks on the node are handled by handleGraphPaneClick)
         uiNodes.put(nodeId, newNode);
-        graphPane.getChildren().add(newNode);
+        nodeGrid.put(gridNodes.size(), x, y);
+        gridNodes.add(newNode);
+        graphContent.getChildren().add(newNode);
+        applyViewport(newNode, viewport.visibleBounds(graphPane.getWidth(), graphPane.getHeight()));
 
         // --- IMPORTANT: ADD THIS LINE ---
         jgraphtGraph.addVertex(nodeId); // Add the vertex to the JGraphT graph
+        graphChanged(); // Engine snapshot and cached trees are now stale
+        repairAfterNodeAdded(nodeId);
         System.out.println("Added vertex to JGraphT: " + nodeId); // Add this debug print
 
         startNodeComboBox.getItems().add(nodeId);
@@ -424,65 +1443,54 @@ public class DijkstraController implements Initializable {
         System.out.println("Added node: " + nodeId);
     }
 
-    // --- Helper to find which node was clicked ---
-    private UINode findClickedNode(double mouseX, double mouseY) {
-        for (UINode node : uiNodes.values()) {
-            // Check if click is within the circle's bounds
-            if (node.getCircle().getBoundsInParent().contains(mouseX, mouseY)) {
-                return node;
-            }
-        }
-        return null;
+    // --- Helper to find which node was clicked: the nearest one within maxDistance of the graph point ---
+    private UINode findClickedNode(double x, double y, double maxDistance) {
+        int index = nodeGrid.nearest(x, y, maxDistance);
+        return index == -1 ? null : gridNodes.get(index);
     }
 
     // --- Helper to show weight input dialog ---
     private void showWeightInputDialog(UINode source, UINode target) {
+        Double weight = readEdgeWeight(source.getNodeId(), target.getNodeId());
+        if (weight != null) {
+            // Add the edge to JGraphT and UI
+            addGraphEdge(source, target, weight);
+        }
+        // Whether or not an edge was added, clear the selection and reset styles
+        selectedNodeForEdge = null;
+        source.setDefaultStyle();
+        target.setDefaultStyle();
+    }
+
+    // Asks for the weight of a new edge; null if the dialog was cancelled or the input was invalid
+    private Double readEdgeWeight(String sourceId, String targetId) {
         TextInputDialog dialog = new TextInputDialog("1"); // Default weight
         dialog.setTitle("Edge Weight");
-        dialog.setHeaderText("Enter weight for edge " + source.getNodeId() + " - " + target.getNodeId());
+        dialog.setHeaderText("Enter weight for edge " + sourceId + " - " + targetId);
         dialog.setContentText("Weight:");
 
         Optional<String> result = dialog.showAndWait();
-        if (result.isPresent()) {
-            try {
-                double weight = Double.parseDouble(result.get());
-                if (weight <= 0) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Invalid Weight");
-                    alert.setHeaderText(null);
-                    alert.setContentText("Weight must be a positive number.");
-                    alert.showAndWait();
-                    // If invalid, still reset node styles and keep selection process active
-                    // Or you might choose to clear selection here too.
-                    source.setDefaultStyle(); // Reset source style
-                    target.setDefaultStyle(); // Reset target style
-                    selectedNodeForEdge = null; // Clear selection
-                    return; // Exit as weight is invalid
-                }
-                // Add the edge to JGraphT and UI
-                addGraphEdge(source, target, weight);
-
-                // After successful edge creation, clear the selection and reset styles
-                selectedNodeForEdge = null; // Clear selected node
-                source.setDefaultStyle(); // Reset source node style
-                target.setDefaultStyle(); // Reset target node style
-
-            } catch (NumberFormatException e) {
+        if (result.isEmpty()) {
+            return null; // User cancelled the dialog
+        }
+        try {
+            double weight = Double.parseDouble(result.get());
+            if (weight <= 0) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Invalid Input");
+                alert.setTitle("Invalid Weight");
                 alert.setHeaderText(null);
-                alert.setContentText("Please enter a valid number for the weight.");
+                alert.setContentText("Weight must be a positive number.");
                 alert.showAndWait();
-                // If invalid input, reset node styles and clear selection
-                source.setDefaultStyle();
-                target.setDefaultStyle();
-                selectedNodeForEdge = null;
+                return null;
             }
-        } else {
-            // User cancelled the dialog, so clear the selection and reset styles
-            source.setDefaultStyle();
-            target.setDefaultStyle();
-            selectedNodeForEdge = null;
+            return weight;
+        } catch (NumberFormatException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Invalid Input");
+            alert.setHeaderText(null);
+            alert.setContentText("Please enter a valid number for the weight.");
+            alert.showAndWait();
+            return null;
         }
     }
 
@@ -500,6 +1508,7 @@ public class DijkstraController implements Initializable {
                 return;
             }
             jgraphtGraph.setEdgeWeight(edge, weight);
+            graphChanged(); // Engine snapshot and cached trees are now stale
 
             // 2. Create UIEdge object
             UIEdge uiEdge = new UIEdge(sourceUINode, targetUINode, weight);
@@ -507,10 +1516,12 @@ public class DijkstraController implements Initializable {
 
             // 3. Add UIEdge to the graphPane for display
             // Important: Add edges BEFORE nodes so nodes appear on top
-            graphPane.getChildren().add(0, uiEdge); // Add at index 0 to put it behind nodes
+            graphContent.getChildren().add(0, uiEdge); // Add at index 0 to put it behind nodes
+            applyViewport(uiEdge, viewport.visibleBounds(graphPane.getWidth(), graphPane.getHeight()));
 
             // 4. Add UIEdge to your tracking list/map
             uiEdges.add(uiEdge); // Assuming uiEdges is an ArrayList<UIEdge>
+            uiEdgeIndex.add(uiEdge);
 
             // 5. Update Combo Boxes with target node if it wasn't already in the list (redundant if already added by addNode)
             // This part is mainly for ensuring combo boxes are populated with all nodes.
@@ -520,6 +1531,7 @@ public class DijkstraController implements Initializable {
             // So, this specific update for combo boxes is probably not strictly necessary here if addNode does its job.
 
             statusLabel.setText("Edge added: " + sourceId + " - " + targetId + " (Weight: " + weight + ")");
+            repairAfterEdgeAdded(sourceId, targetId, weight);
 
         } catch (IllegalArgumentException e) {
             // This might catch cases where nodes don't exist in JGraphT if you added error checking earlier
@@ -544,13 +1556,17 @@ public class DijkstraController implements Initializable {
         // Add to JGraphT graph
         DefaultWeightedEdge jgraphtEdge = jgraphtGraph.addEdge(source.getNodeId(), target.getNodeId());
         jgraphtGraph.setEdgeWeight(jgraphtEdge, weight);
+        graphChanged(); // Engine snapshot and cached trees are now stale
 
         // Add to JavaFX pane
         UIEdge uiEdge = new UIEdge(source, target, weight);
         uiEdges.add(uiEdge);
-        graphPane.getChildren().add(0, uiEdge); // Add edges below nodes
+        uiEdgeIndex.add(uiEdge);
+        graphContent.getChildren().add(0, uiEdge); // Add edges below nodes
+        applyViewport(uiEdge, viewport.visibleBounds(graphPane.getWidth(), graphPane.getHeight()));
         statusLabel.setText("Edge added between " + source.getNodeId() + " and " + target.getNodeId() + " with weight " + weight + ".");
         System.out.println("Added edge: " + source.getNodeId() + " - " + target.getNodeId() + " with weight " + weight);
+        repairAfterEdgeAdded(source.getNodeId(), target.getNodeId(), weight);
     }
 
     // --- NEW: Handler for clicks directly on a UINode for edge creation ---
@@ -617,7 +1633,7 @@ public class DijkstraController implements Initializable {
         }
 
         // 2. Validate if selected nodes actually exist in the graph
-        if (!uiNodes.containsKey(currentStartNodeId)) {
+        if (!graphContainsNode(currentStartNodeId)) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Node Not Found");
             alert.setHeaderText(null);
@@ -626,7 +1642,7 @@ public class DijkstraController implements Initializable {
             return;
         }
         // Only validate end node if it's explicitly selected (not null/empty)
-        if (currentEndNodeId != null && !currentEndNodeId.isEmpty() && !uiNodes.containsKey(currentEndNodeId)) {
+        if (currentEndNodeId != null && !currentEndNodeId.isEmpty() && !graphContainsNode(currentEndNodeId)) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Node Not Found");
             alert.setHeaderText(null);
@@ -645,6 +1661,55 @@ public class DijkstraController implements Initializable {
             return;
         }
 
+        // 4. Point-to-point algorithms cannot compute all paths
+        if (selectedAlgorithm().needsTarget() && (currentEndNodeId == null || currentEndNodeId.isEmpty())) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Missing Input");
+            alert.setHeaderText(null);
+            alert.setContentText(selectedAlgorithm() + " needs an end node. Select one, or run Dijkstra to find all paths.");
+            alert.showAndWait();
+            return;
+        }
+
+        // 5. A* scales its straight-line estimate by a factor between 0 (plain Dijkstra) and 1 (tightest safe estimate)
+        if (selectedAlgorithm() == SearchAlgorithm.A_STAR) {
+            Double factor = readHeuristicFactor();
+            if (factor == null) {
+                return;
+            }
+            heuristicFactor = factor;
+        }
+
+        // 6. Hierarchy queries need the preprocessing of the current graph
+        if (selectedAlgorithm() == SearchAlgorithm.CONTRACTION_HIERARCHY && hierarchy == null) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("No Contraction Hierarchy");
+            alert.setHeaderText(null);
+            alert.setContentText("Build the contraction hierarchy first (Algorithm → Build Contraction Hierarchy). "
+                    + "It has to be rebuilt after every edit.");
+            alert.showAndWait();
+            return;
+        }
+
+        // 7. Bucket queues only order whole-number distances
+        if (selectedQueueStrategy().needsIntegerWeights() && selectedAlgorithm() != SearchAlgorithm.CONTRACTION_HIERARCHY
+                && selectedAlgorithm() != SearchAlgorithm.DELTA_STEPPING) {
+            String problem = null;
+            if (selectedAlgorithm() == SearchAlgorithm.A_STAR) {
+                problem = "A* adds a fractional distance estimate to every queue key.";
+            } else if (!snapshotGraph().hasIntegerWeights()) {
+                problem = "This graph has edge weights that are not whole numbers.";
+            }
+            if (problem != null) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Queue Not Applicable");
+                alert.setHeaderText(null);
+                alert.setContentText(problem + " Choose one of the heaps as the priority queue for " + selectedQueueStrategy() + " runs.");
+                alert.showAndWait();
+                return;
+            }
+        }
+
 
         // Stop any currently running animation before starting a new one
         if (animationTimeline != null) {
@@ -658,10 +1723,22 @@ public class DijkstraController implements Initializable {
         boolean isAllPathsMode = (currentEndNodeId == null || currentEndNodeId.isEmpty());
         String effectiveEndNodeId = isAllPathsMode ? null : currentEndNodeId;
 
-        // Run Dijkstra's algorithm with the selected start and (optional) end node
-        // The runDijkstraAlgorithm method will populate currentAlgorithmSteps
+        // Streaming mode: steps are produced on a worker thread while they are being shown
+        // (hierarchy searches settle a few hundred nodes at most, and delta-stepping reports whole
+        // buckets between parallel phases, so both are always recorded)
+        if (streamStepsCheckBox.isSelected() && selectedAlgorithm() != SearchAlgorithm.CONTRACTION_HIERARCHY
+                && selectedAlgorithm() != SearchAlgorithm.DELTA_STEPPING) {
+            startStepStream(currentStartNodeId, effectiveEndNodeId);
+            return;
+        }
+
+        // Run Dijkstra's algorithm with the selected start and (optional) end node.
+        // It runs in the background; showFirstStep() is called once the steps are recorded.
         runDijkstraAlgorithm(currentStartNodeId, effectiveEndNodeId);
+    }
 
+    // Shows step 0 of a freshly recorded run and sets up the playback controls
+    private void showFirstStep() {
         // Prepare for visualization if steps were generated
         if (!currentAlgorithmSteps.isEmpty()) {
             currentStepIndex = 0;
@@ -692,6 +1769,11 @@ public class DijkstraController implements Initializable {
         }
         currentAlgorithmSteps = new ArrayList<>();
         currentStepIndex = -1;
+        stepStyleModel = null;
+        stepRenderer = null;
+        cancelStepStream();
+        cancelRunningTask();
+        resetStepScrubber();
         totalPathCostLabel.setText("Total Path Cost: N/A");
         currentStateText.setText("");
         statusLabel.setText("Ready.");
@@ -711,6 +1793,7 @@ public class DijkstraController implements Initializable {
             selectedNodeForEdge.setDefaultStyle(); // Explicitly reset the style of the previously selected node
             selectedNodeForEdge = null; // Clear the reference to the selected node
         }
+        clearCanvasEdgeSelection();
         addNodeMode=false;
         addEdgeMode=false;
         statusLabel.setText("Graph reset. Select an operation mode to begin (e.g., Add Node, Add Edge, Run Dijkstra).");
@@ -732,315 +1815,547 @@ public class DijkstraController implements Initializable {
     }*/
 
     // --- Core Dijkstra's Algorithm Implementation ---
+    // The search runs in the headless engine (see engine.ShortestPathEngine) and is recorded
+    // as a delta-encoded trace. StepTimeline rebuilds each step's full state only when it is shown.
     private void runDijkstraAlgorithm(String startNodeId, String endNodeId) {
-        currentAlgorithmSteps.clear();
         animationTimeline = null; // Ensure no old timeline is running
-
-        // Step 1: Initialization
-        Map<String, Double> distances = new HashMap<>(); // Stores shortest distance from startNode to each node
-        Map<String, String> predecessors = new HashMap<>(); // Stores predecessor in the shortest path
-        PriorityQueue<NodeDistance> pq = new PriorityQueue<>(); // Priority queue for Dijkstra's
-        Set<String> visitedNodes = new HashSet<>(); // Set of nodes whose shortest path is finalized
-
-        // Initialize distances
-        for (String nodeId : jgraphtGraph.vertexSet()) {
-            distances.put(nodeId, Double.POSITIVE_INFINITY);
-            predecessors.put(nodeId, null); // No predecessor initially
-        }
-        distances.put(startNodeId, 0.0);
-        pq.add(new NodeDistance(startNodeId, 0.0));
-
-        // Record initial state
-        currentAlgorithmSteps.add(new AlgorithmStep(
-                AlgorithmStep.StepType.INITIALIZED, // Changed from INITIALIZATION
-                "Initialized distances and priority queue. Start node: " + startNodeId,
-                startNodeId, // currentNodeId (the start node itself)
-                distances, pq, visitedNodes, predecessors,
-                endNodeId // Pass the endNodeId (can be null)
-        ));
-        System.out.println("Dijkstra: Initialized.");
-
-        // Step 2: Main loop
-        while (!pq.isEmpty()) {
-            NodeDistance current = pq.poll(); // Extract node with smallest distance
-            String u = current.getNodeId();
-            double uDistance = current.getDistance();
-
-            // If already visited, skip (due to multiple entries in PQ from relaxations)
-            if (visitedNodes.contains(u)) {
-                continue;
+        cancelRunningTask();
+
+        // The task only sees this frozen snapshot, so editing the graph meanwhile cannot corrupt the run
+        CsrGraph graph = snapshotGraph();
+        int startIndex = graph.indexOf(startNodeId);
+        int endIndex = (endNodeId == null) ? -1 : graph.indexOf(endNodeId);
+
+        SearchAlgorithm algorithm = selectedAlgorithm();
+        EuclideanHeuristic heuristic = algorithm == SearchAlgorithm.A_STAR ? createHeuristic(graph) : null;
+        ContractionHierarchy runHierarchy = algorithm == SearchAlgorithm.CONTRACTION_HIERARCHY ? hierarchy : null;
+        // Validation let a bucket queue through for these two even on fractional weights
+        QueueStrategy queueStrategy = queueStrategyFor(graph);
+        // Hierarchy queries use their own lazy heaps and delta-stepping its distance buckets, whatever queue is selected
+        showQueueBuckets(runHierarchy != null || algorithm == SearchAlgorithm.DELTA_STEPPING
+                ? QueueStrategy.BINARY_HEAP : queueStrategy, graph);
+        runBucketWidth = algorithm == SearchAlgorithm.DELTA_STEPPING ? DeltaStepping.autoDelta(graph) : 0;
+        SearchRunTask task = new SearchRunTask(engineFor(graph, queueStrategy), algorithm,
+                startIndex, endIndex, heuristic, runHierarchy);
+        task.messageProperty().addListener((obs, oldMessage, newMessage) -> {
+            if (task == runningTask) {
+                statusLabel.setText(newMessage);
             }
-
-            // Mark node as visited (the shortest path finalized)
-            visitedNodes.add(u);
-
-            // Record node extracted step
-            currentAlgorithmSteps.add(new AlgorithmStep(
-                    AlgorithmStep.StepType.NODE_EXTRACTED,
-                    "Extracted node: " + u + " with distance " + String.format("%.1f", uDistance),
-                    u, distances, pq, visitedNodes, predecessors,
-                    endNodeId // Pass the endNodeId
-            ));
-            System.out.println("Dijkstra: Extracted " + u);
-
-            // *** CRITICAL CHANGE: Only break if a specific endNodeId is provided AND reached ***
-            if (endNodeId != null && u.equals(endNodeId)) {
-                System.out.println("Dijkstra: Target node " + endNodeId + " reached. Terminating early for specific path.");
-                break; // Target found, no need to process further if it's a specific path
+        });
+        task.setOnSucceeded(e -> {
+            if (task != runningTask) {
+                return; // Superseded by a newer run or a reset
+            }
+            finishRunningTask();
+            if (task.getGraph() != engineGraph) {
+                // The graph was edited while the run was in progress, so its steps no longer match
+                statusLabel.setText("Graph changed while the algorithm was running. Result discarded, run it again.");
+                System.out.println("Dijkstra: Discarded a run computed on an outdated graph.");
+                return;
             }
+            if (task.getTree() != null) {
+                treeCache.put(graphVersion, task.getTree()); // Later queries from this start node are lookups
+                trackTree(task.getTree());
+            }
+            showRecordedRun(task.getValue(), startNodeId, endNodeId);
+            if (task.getDijkstraSettledCount() >= 0) {
+                reportSearchSpace(task);
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task != runningTask) {
+                return;
+            }
+            finishRunningTask();
+            System.err.println("Dijkstra run failed: " + task.getException());
+            statusLabel.setText("Algorithm failed: " + task.getException().getMessage());
+        });
+        task.setOnCancelled(e -> {
+            if (task == runningTask) {
+                finishRunningTask();
+                statusLabel.setText("Algorithm run cancelled.");
+            }
+        });
 
-            // For each neighbor v of u
-            for (DefaultWeightedEdge edge : jgraphtGraph.edgesOf(u)) {
-                String v = Graphs.getOppositeVertex(jgraphtGraph, edge, u);
-                double weight = jgraphtGraph.getEdgeWeight(edge);
+        runningTask = task;
+        cancelRunMenuItem.setDisable(false);
+        statusLabel.setText("Running " + algorithm + "...");
+        algorithmExecutor.submit(task);
+    }
 
-                // If v is already visited, skip
-                if (visitedNodes.contains(v)) {
-                    continue;
-                }
+    // Called on the FX thread once a run has been recorded on the current graph
+    private void showRecordedRun(SearchTrace trace, String startNodeId, String endNodeId) {
+        CsrGraph graph = trace.getGraph();
+        currentAlgorithmSteps = new StepTimeline(trace);
+
+        // Styles start from the all-default state left by resetAlgorithm()
+        stepStyleModel = new StepStyleModel(trace);
+        stepRenderer = createStepRenderer(graph);
+        priorityQueueListView.setItems(stepRenderer.getQueueItems());
+        distancesListView.setItems(stepRenderer.getDistanceItems());
+        System.out.println("Dijkstra: Recorded " + trace.size() + " steps from " + startNodeId
+                + (endNodeId == null ? " (all paths)." : " to " + endNodeId + "."));
+        showFirstStep();
+    }
 
-                // Relaxation
-                // Check if distances.get(u) is not infinity before adding weight to prevent overflow if distance[u] is unreachable
-                if (distances.get(u) != Double.POSITIVE_INFINITY && distances.get(u) + weight < distances.get(v)) {
-                    distances.put(v, distances.get(u) + weight);
-                    predecessors.put(v, u);
-                    pq.add(new NodeDistance(v, distances.get(v)));
-
-                    // Record edge relaxed step
-                    currentAlgorithmSteps.add(new AlgorithmStep(
-                            AlgorithmStep.StepType.EDGE_RELAXED,
-                            "Relaxed edge " + u + "-" + v + ". New distance to " + v + ": " + String.format("%.1f", distances.get(v)),
-                            u, u, v, // currentNodeId, relaxedSourceNodeId, relaxedTargetNodeId
-                            distances, pq, visitedNodes, predecessors,
-                            endNodeId // Pass the endNodeId
-                    ));
-                    System.out.println("Dijkstra: Relaxed " + u + "-" + v + " (new dist: " + String.format("%.1f", distances.get(v)) + ")");
-                }
-            }
+    // Compares the nodes settled by a bidirectional or A* run with those plain Dijkstra settles for the same query
+    private void reportSearchSpace(SearchRunTask task) {
+        int settled = task.getSettledCount();
+        int dijkstraSettled = task.getDijkstraSettledCount();
+        // Delta-stepping settles whole buckets, so it may settle more nodes than Dijkstra
+        String ratio = settled <= dijkstraSettled
+                ? String.format("%.1fx fewer", (double) dijkstraSettled / Math.max(settled, 1))
+                : String.format("%.1fx more", (double) settled / Math.max(dijkstraSettled, 1));
+        String comparison = String.format("%s settled %d nodes, Dijkstra %d (%s).", task.getAlgorithm(),
+                settled, dijkstraSettled, ratio);
+        statusLabel.setText(comparison + " Use controls to navigate.");
+        System.out.println(task.getAlgorithm() + ": " + comparison);
+    }
+
+    @FXML
+    private void handleCancelRun() {
+        System.out.println("Cancel Run clicked");
+        if (runningTask != null) {
+            runningTask.cancel();
+        } else if (stepStreamPlayer != null) {
+            handleResetAlgorithm();
         }
+    }
 
-        // Step 3: Final Algorithm State / Path Construction
-        // *** CRITICAL CHANGE: Differentiate between "all paths" mode and specific target ***
-        if (endNodeId == null) {
-            // Case 1: All paths mode (no specific end node was selected)
-            currentAlgorithmSteps.add(new AlgorithmStep(
-                    AlgorithmStep.StepType.ALGORITHM_FINISHED_ALL_PATHS,
-                    "Dijkstra's Algorithm finished. Shortest distances to all reachable nodes computed from " + startNodeId + ".",
-                    distances, pq, visitedNodes, predecessors
-                    // No endNodeId or path needed for this constructor, isAllPathsMode is true by default
-            ));
-            System.out.println("Dijkstra: Algorithm finished for all reachable nodes from " + startNodeId + ".");
+    // Cancels the background run, if any; its result will be ignored
+    private void cancelRunningTask() {
+        if (runningTask != null) {
+            SearchRunTask task = runningTask;
+            finishRunningTask();
+            task.cancel();
+        }
+    }
+
+    private void finishRunningTask() {
+        runningTask = null;
+        cancelRunMenuItem.setDisable(stepStreamPlayer == null);
+    }
+
+    // Streams the run instead of recording it: the search runs on a worker thread and playback
+    // pulls one step at a time, so the first step appears right away and memory stays bounded by
+    // the stream buffer rather than the run length. Streamed runs can only move forward.
+    private void startStepStream(String startNodeId, String endNodeId) {
+        CsrGraph graph = snapshotGraph();
+        int startIndex = graph.indexOf(startNodeId);
+        int endIndex = (endNodeId == null) ? -1 : graph.indexOf(endNodeId);
+
+        ShortestPathEngine engine = engineFor(graph, queueStrategyFor(graph));
+        showQueueBuckets(engine.getQueueStrategy(), graph);
+        runBucketWidth = 0;
+        SearchStream stream;
+        if (selectedAlgorithm() == SearchAlgorithm.A_STAR) {
+            stream = new SearchStream(engine, startIndex, endIndex, createHeuristic(graph), SearchStream.DEFAULT_BUFFER_CAPACITY);
         } else {
-            // Case 2: Specific end node mode
-            double finalDistance = distances.getOrDefault(endNodeId, Double.POSITIVE_INFINITY);
-
-            if (finalDistance == Double.POSITIVE_INFINITY) {
-                // No path found to the specific end node
-                currentAlgorithmSteps.add(new AlgorithmStep(
-                        AlgorithmStep.StepType.NO_PATH_FOUND,
-                        "No path found from " + startNodeId + " to " + endNodeId,
-                        endNodeId, // currentNodeId (the unreachable end node)
-                        distances, pq, visitedNodes, predecessors,
-                        endNodeId // Pass the endNodeId
-                ));
-                System.out.println("Dijkstra: No path to " + endNodeId + " from " + startNodeId + ".");
-            } else {
-                // Path found to the specific end node
-                List<String> path = reconstructPath(predecessors, startNodeId, endNodeId);
-                currentAlgorithmSteps.add(new AlgorithmStep(
-                        AlgorithmStep.StepType.PATH_FOUND, // Changed from ALGORITHM_COMPLETE
-                        "Shortest path from " + startNodeId + " to " + endNodeId + " found. Cost: " + String.format("%.1f", finalDistance),
-                        endNodeId, // currentNodeId (the end node)
-                        distances, pq, visitedNodes, predecessors,
-                        path, // Pass the reconstructed path
-                        endNodeId // Pass the endNodeId
-                ));
-                System.out.println("Dijkstra: Path found to " + endNodeId + " from " + startNodeId + " with cost " + String.format("%.1f", finalDistance) + ".");
+            boolean bidirectional = selectedAlgorithm() == SearchAlgorithm.BIDIRECTIONAL_DIJKSTRA;
+            stream = new SearchStream(engine, startIndex, endIndex, bidirectional, SearchStream.DEFAULT_BUFFER_CAPACITY);
+        }
+        stepRenderer = createStepRenderer(graph);
+        priorityQueueListView.setItems(stepRenderer.getQueueItems());
+        distancesListView.setItems(stepRenderer.getDistanceItems());
+        stepStreamPlayer = new StepStreamPlayer(stream, stepRenderer, this::displayStreamedStep, this::handleStepStreamError);
+        stepStreamPlayer.start();
+        stepStreamPlayer.requestNext(); // Show the first step as soon as the search produces it
+        cancelRunMenuItem.setDisable(false);
+
+        stepBackwardButton.setDisable(true); // Streamed runs cannot step back
+        stepForwardButton.setDisable(false);
+        playButton.setDisable(false);
+        pauseButton.setDisable(true);
+        statusLabel.setText("Algorithm started (streaming). Use Play or Step Forward to advance.");
+        System.out.println("Dijkstra: Streaming steps from " + startNodeId
+                + (endNodeId == null ? " (all paths)." : " to " + endNodeId + "."));
+    }
+
+    // Called on the FX thread for every step delivered by stepStreamPlayer
+    private void displayStreamedStep(AlgorithmStep step) {
+        currentStepIndex = step.getStepIndex();
+        displayCurrentStep(step);
+        if (stepStreamPlayer.isFinished() && animationTimeline != null) {
+            animationTimeline.stop();
+            playButton.setText("Play");
+        }
+    }
+
+    private void handleStepStreamError(Throwable error) {
+        System.err.println("Streaming run failed: " + error);
+        if (animationTimeline != null) {
+            animationTimeline.stop();
+            playButton.setText("Play");
+        }
+        stepForwardButton.setDisable(true);
+        playButton.setDisable(true);
+        pauseButton.setDisable(true);
+        statusLabel.setText("Streaming run failed: " + error.getMessage());
+    }
+
+    // Stops the search thread of a streamed run, if one is active
+    private void cancelStepStream() {
+        if (stepStreamPlayer != null) {
+            stepStreamPlayer.cancel();
+            stepStreamPlayer = null;
+            cancelRunMenuItem.setDisable(runningTask == null);
+        }
+    }
+
+    // Styles a run's steps on the canvas or on the UINodes/UIEdges, whichever shows the graph
+    private StepRenderer createStepRenderer(CsrGraph graph) {
+        return graphCanvas != null ? new StepRenderer(graph, graphCanvas) : new StepRenderer(graph, uiNodes, this::findUIEdge);
+    }
+
+    // Straight-line lower bound over the node positions, scaled so that no edge is shorter than its estimate
+    private EuclideanHeuristic createHeuristic(CsrGraph graph) {
+        EuclideanHeuristic heuristic = EuclideanHeuristic.of(graph, currentLayout(graph), heuristicFactor);
+        System.out.println("A*: Heuristic scale " + heuristic.getScale() + " (factor " + heuristicFactor + ").");
+        return heuristic;
+    }
+
+    // Reads the A* heuristic factor; null (after an alert) if it is not a number between 0 and 1
+    private Double readHeuristicFactor() {
+        try {
+            double factor = Double.parseDouble(heuristicFactorField.getText().trim());
+            if (factor >= 0 && factor <= 1) {
+                return factor;
             }
+        } catch (NumberFormatException e) {
+            // Reported below
         }
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Invalid Input");
+        alert.setHeaderText(null);
+        alert.setContentText("The heuristic factor must be a number between 0 and 1.");
+        alert.showAndWait();
+        return null;
+    }
+
+    private SearchAlgorithm selectedAlgorithm() {
+        return algorithmComboBox.getValue() != null ? algorithmComboBox.getValue() : SearchAlgorithm.DIJKSTRA;
+    }
 
-        // Removed direct totalPathCostLabel update here.
-        // It will be handled in displayCurrentStep based on the final AlgorithmStep type.
+    private QueueStrategy selectedQueueStrategy() {
+        return queueStrategyComboBox.getValue() != null
+                ? queueStrategyComboBox.getValue() : QueueStrategy.INDEXED_DARY_HEAP;
     }
 
-    private List<String> reconstructPath(Map<String, String> predecessors, String startNodeId, String endNodeId) {
-        List<String> path = new ArrayList<>();
-        String current = endNodeId;
-        while (current != null && !current.equals(startNodeId)) {
-            path.add(0, current); // Add to the beginning to reverse the path
-            current = predecessors.get(current);
+    // Selected queue, or the indexed heap when it is a bucket queue and the graph has fractional weights
+    // Queries share one engine per snapshot, so they also share the executor thread's search workspace
+    private ShortestPathEngine engineFor(CsrGraph graph, QueueStrategy queueStrategy) {
+        if (queryEngine == null || queryEngine.getGraph() != graph || queryEngine.getQueueStrategy() != queueStrategy) {
+            queryEngine = new ShortestPathEngine(graph, queueStrategy);
         }
-        if (current != null && current.equals(startNodeId)) {
-            path.add(0, startNodeId);
-        } else {
-            // This case should ideally not be hit if finalDistance was not infinity,
-            // but for robustness, clear path if start is not reachable from end.
-            path.clear();
+        return queryEngine;
+    }
+
+    private QueueStrategy queueStrategyFor(CsrGraph graph) {
+        QueueStrategy strategy = selectedQueueStrategy();
+        if (strategy.needsIntegerWeights() && !graph.hasIntegerWeights()) {
+            System.out.println(strategy + " needs whole-number weights; using the indexed heap instead.");
+            return QueueStrategy.INDEXED_DARY_HEAP;
         }
-        return path;
+        return strategy;
+    }
+
+    // Remembers the queue of the run about to be shown, so the Priority Queue list can label its buckets
+    private void showQueueBuckets(QueueStrategy strategy, CsrGraph graph) {
+        runQueueStrategy = strategy;
+        runMaxArcWeight = graph.maxArcWeight();
     }
 
-    // Helper to build the path description from predecessors map
-    private String buildPathDescription(String startNodeId, String endNodeId, Map<String, String> predecessors, Map<String, Double> distances) {
-        if (distances.get(endNodeId) == Double.POSITIVE_INFINITY) {
-            return "No path.";
+    // "Bucket 3 | A: 12.0" for a bucket queue or delta-stepping, plain "A: 12.0" for the heaps. Queue buckets
+    // are worked out from the smallest queued distance, which is where the queue's own scan has got to.
+    private String formatQueueEntry(NodeDistance item, List<NodeDistance> items) {
+        if (runBucketWidth > 0) {
+            return "Bucket " + (long) (item.getDistance() / runBucketWidth) + " | " + item;
         }
+        int bucket = runQueueStrategy.bucketOf(item.getDistance(), items.get(0).getDistance(), runMaxArcWeight);
+        return bucket < 0 ? item.toString() : "Bucket " + bucket + " | " + item;
+    }
 
-        List<String> path = new ArrayList<>();
-        String current = endNodeId;
-        while (current != null && !current.equals(startNodeId)) {
-            path.add(current);
-            current = predecessors.get(current);
+    @FXML
+    private void handleToggleRepairAfterEdits() {
+        System.out.println("Repair Shortest Paths After Edits: " + repairAfterEditsMenuItem.isSelected());
+        dynamicTree = null;
+        if (!repairAfterEditsMenuItem.isSelected()) {
+            statusLabel.setText("Repair mode off. Edits discard shortest-path results.");
+            return;
         }
-        if (current != null && current.equals(startNodeId)) {
-            path.add(startNodeId);
+        // Start from the tree of the query on screen, if it is still cached
+        ShortestPathTree tree = null;
+        if (currentStartNodeId != null && graphContainsNode(currentStartNodeId)) {
+            tree = cachedTree(snapshotGraph().indexOf(currentStartNodeId));
+        }
+        if (tree != null) {
+            trackTree(tree);
+            statusLabel.setText("Repair mode on. Edits repair the shortest paths from " + currentStartNodeId + ".");
         } else {
-            // This case should ideally not happen if distances.get(endNodeId) is not infinity,
-            // but it's a safeguard for disconnected components.
-            return "Path construction error (disconnected component?).";
+            statusLabel.setText("Repair mode on. Run all paths or Find Shortest Path; later edits repair its shortest paths.");
         }
-        Collections.reverse(path);
-        return String.join(" -> ", path);
     }
 
-    private void displayCurrentStep(AlgorithmStep step) {
-        if (step == null) {
+    // In repair mode, the tree of the latest query is the one edits keep up to date
+    private void trackTree(ShortestPathTree tree) {
+        if (!repairAfterEditsMenuItem.isSelected()) {
             return;
         }
+        if (isRepairedTreeCurrent() && dynamicTree.getSource() == tree.getSource()) {
+            return; // Already tracking this source (the cached tree may be its last repair)
+        }
+        dynamicTree = new DynamicShortestPathTree(tree, selectedQueueStrategy());
+        dynamicTreeVersion = graphVersion;
+    }
 
-        Platform.runLater(() -> {
-            // --- UI Updates based on AlgorithmStep data ---
-            currentStateText.setText(step.getDescription());
-
-            // Update Priority Queue List View
-            // Assuming AlgorithmStep.getPriorityQueueState() returns an ObservableList or compatible
-            priorityQueueListView.setItems(step.getPriorityQueueState());
-
-            // Update Distances List View
-            ObservableList<String> distanceItems = FXCollections.observableArrayList();
-            // Sort distances map by node ID for consistent display
-            step.getDistances().entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> {
-                        String nodeId = entry.getKey();
-                        Double dist = entry.getValue();
-                        String distStr = (dist == Double.POSITIVE_INFINITY) ? "∞" : String.format("%.1f", dist);
-                        distanceItems.add(nodeId + ": " + distStr);
-                    });
-            distancesListView.setItems(distanceItems);
-
-            // --- Node and Edge Styling ---
-            // Always reset styles at the beginning of a step to ensure a clean visualization
-            resetNodeStyles();
-            clearEdgeStyles();
-
-            // Highlight visited nodes (nodes whose shortest path has been finalized)
-            for (String visitedNodeId : step.getVisitedNodes()) {
-                if (uiNodes.containsKey(visitedNodeId)) {
-                    uiNodes.get(visitedNodeId).setVisitedStyle();
-                }
-            }
+    // True if the tracked tree has been repaired for every edit, so it can stand in for a snapshot and a search
+    private boolean isRepairedTreeCurrent() {
+        return dynamicTree != null && dynamicTreeVersion == graphVersion;
+    }
+
+    // The cached tree from the source, or the repaired one, which is only copied out (with its graph) when first asked for
+    private ShortestPathTree cachedTree(int source) {
+        ShortestPathTree tree = treeCache.get(graphVersion, source);
+        if (tree == null && isRepairedTreeCurrent() && dynamicTree.getSource() == source) {
+            tree = dynamicTree.toTree();
+            treeCache.put(graphVersion, tree);
+        }
+        return tree;
+    }
+
+    private void repairAfterNodeAdded(String nodeId) {
+        if (dynamicTree == null) {
+            return;
+        }
+        dynamicTree.addNode(nodeId); // Unreached until an edge connects it, so nothing to repair
+        adoptRepairedGraph();
+    }
 
-            // Highlight the current node being processed (e.g., extracted from PQ)
-            if (step.getCurrentNodeId() != null && uiNodes.containsKey(step.getCurrentNodeId())) {
-                uiNodes.get(step.getCurrentNodeId()).setCurrentStyle();
+    // In repair mode, fixes the tracked tree for the new edge and shows only the repair as a short run.
+    // The edit only touches the tree's own adjacency; no snapshot is built and no tree is copied for it.
+    private void repairAfterEdgeAdded(String sourceId, String targetId, double weight) {
+        if (dynamicTree == null) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        int source = dynamicTree.getSource();
+        RepairRecorder listener = new RepairRecorder(dynamicTree);
+        int repaired = dynamicTree.setEdgeWeight(dynamicTree.indexOf(sourceId), dynamicTree.indexOf(targetId), weight, listener);
+        if (!adoptRepairedGraph()) {
+            return;
+        }
+        double editMicros = (System.nanoTime() - startTime) / 1e3; // The edit and its repair
+        String startNodeId = dynamicTree.idOf(source);
+        if (repaired == 0) {
+            statusLabel.setText(statusLabel.getText() + String.format(" Shortest paths from %s unchanged (edit applied in %.0f µs).",
+                    startNodeId, editMicros));
+            return;
+        }
+
+        clearShownRun();
+        currentStartNodeId = startNodeId; // Hovering a node shows its repaired distance
+        currentEndNodeId = null;
+        showRecordedRun(listener.finish(), startNodeId, null);
+        String summary = String.format("Edge %s - %s shortened the paths from %s to %d of %d nodes (edit and repair took %.0f µs).",
+                sourceId, targetId, startNodeId, repaired, dynamicTree.nodeCount(), editMicros);
+        statusLabel.setText(summary + " Use controls to replay the repair.");
+        System.out.println("Repair: " + summary);
+    }
+
+    // After a repair, the tracked tree stands for the current graph: snapshotGraph() and cachedTree() build the
+    // engine snapshot and the tree from it when first needed, in place of a new snapshot and search.
+    // Returns false (and stops tracking) if the tree no longer matches the editor's graph, so the next query starts anew.
+    private boolean adoptRepairedGraph() {
+        int nodeCount = graphCanvas != null ? graphCanvas.nodeCount() : jgraphtGraph.vertexSet().size();
+        int edgeCount = graphCanvas != null ? graphCanvas.edgeCount() : jgraphtGraph.edgeSet().size();
+        if (dynamicTree.nodeCount() != nodeCount || dynamicTree.arcCount() != 2 * edgeCount) {
+            System.err.println("Repair: tracked graph is out of step with the editor; repair mode will restart from the next query");
+            dynamicTree = null;
+            return false;
+        }
+        dynamicTreeVersion = graphVersion;
+        return true;
+    }
+
+    // Buffers the events of a repair, and records them as a trace on the edited graph only once the repair is
+    // shown, so the repair itself never waits for the graph or the trace's per-node state to be built
+    private static final class RepairRecorder implements SearchListener {
+        private final DynamicShortestPathTree tree;
+        private int[] nodes = new int[16];
+        private int[] fromNodes = new int[16]; // -1 for a settled node
+        private double[] distances = new double[16];
+        private int size;
+
+        RepairRecorder(DynamicShortestPathTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void onNodeSettled(int node, double distance) {
+            add(node, -1, distance);
+        }
+
+        @Override
+        public void onEdgeRelaxed(int from, int to, double newDistance) {
+            add(to, from, newDistance);
+        }
+
+        private void add(int node, int from, double distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                fromNodes = Arrays.copyOf(fromNodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
             }
+            nodes[size] = node;
+            fromNodes[size] = from;
+            distances[size++] = distance;
+        }
 
-            // Highlight the edge that was just relaxed
-            // relaxedSourceNodeId and relaxedTargetNodeId are properties of AlgorithmStep
-            if (step.getRelaxedSourceNodeId() != null && step.getRelaxedTargetNodeId() != null) {
-                UIEdge uiEdge = findUIEdge(step.getRelaxedSourceNodeId(), step.getRelaxedTargetNodeId());
-                if (uiEdge != null) {
-                    uiEdge.setRelaxedStyle();
+        SearchTrace finish() {
+            SearchTrace.Recorder recorder = new SearchTrace.Recorder(tree.getGraph(), tree.getSource(), -1);
+            for (int i = 0; i < size; i++) {
+                if (fromNodes[i] == -1) {
+                    recorder.onNodeSettled(nodes[i], distances[i]);
+                } else {
+                    recorder.onEdgeRelaxed(fromNodes[i], nodes[i], distances[i]);
                 }
             }
+            return recorder.finish();
+        }
+    }
 
-            // --- Control Button States (General for intermediate steps) ---
-            // These control button states are general and apply to most steps.
-            // Specific final states will override these.
-            stepForwardButton.setDisable(currentStepIndex == currentAlgorithmSteps.size() - 1);
-            stepBackwardButton.setDisable(currentStepIndex == 0);
-            playButton.setDisable(currentStepIndex == currentAlgorithmSteps.size() - 1); // Disable play if at end
-            pauseButton.setDisable(false); // Always allow pause if actively playing (will be disabled if play is disabled)
-
-
-            // --- Handle specific StepTypes for final display and labels ---
-            switch (step.getType()) {
-                case INITIALIZED:
-                case NODE_EXTRACTED:
-                case EDGE_RELAXED:
-                    // For intermediate steps, show "calculating" status and current progress
-                    totalPathCostLabel.setText("Total Path Cost: Calculating...");
-                    statusLabel.setText("Algorithm in progress: " + (currentStepIndex + 1) + "/" + currentAlgorithmSteps.size());
-                    break;
-
-                case PATH_FOUND:
-                    // A specific path was found to the end node
-                    List<String> path = step.getPath(); // Get the reconstructed path from AlgorithmStep
-                    if (path != null && path.size() > 1) {
-                        highlightPath(path); // Highlight the found path on the graph
-                        double finalCost = step.getDistances().getOrDefault(step.getEndNodeId(), Double.POSITIVE_INFINITY);
-                        totalPathCostLabel.setText(String.format("Total Path Cost: %.1f", finalCost));
-                    } else {
-                        // This case indicates an issue if PATH_FOUND type is used, but no valid path is available
-                        totalPathCostLabel.setText("Total Path Cost: N/A (Path reconstruction error)");
-                    }
-                    statusLabel.setText(step.getDescription()); // Set status to the step's final description
-                    // Highlight the final end node of the path
-                    if (step.getEndNodeId() != null && uiNodes.containsKey(step.getEndNodeId())) {
-                        uiNodes.get(step.getEndNodeId()).setPathEndStyle();
-                    }
-
-                    // Disable navigation and auto-play as the algorithm is complete for this specific path
-                    stepForwardButton.setDisable(true);
-                    playButton.setDisable(true);
-                    pauseButton.setDisable(true);
-                    break;
-
-                case NO_PATH_FOUND:
-                    // No path found to a specific target node
-                    totalPathCostLabel.setText("Total Path Cost: Unreachable");
-                    statusLabel.setText(step.getDescription()); // Set status to "No path found"
-                    // Style the target node as unreachable
-                    if (step.getEndNodeId() != null && uiNodes.containsKey(step.getEndNodeId())) {
-                        uiNodes.get(step.getEndNodeId()).setUnreachableStyle();
-                    }
-                    // Disable navigation and auto-play
-                    stepForwardButton.setDisable(true);
-                    playButton.setDisable(true);
-                    pauseButton.setDisable(true);
-                    break;
-
-                case ALGORITHM_FINISHED_ALL_PATHS:
-                    // Algorithm completed, showing shortest distances to all reachable nodes
-                    totalPathCostLabel.setText("Total Path Cost: N/A (All Distances Computed)");
-                    statusLabel.setText(step.getDescription()); // Set status to "Algorithm finished for all paths"
-
-                    // Style all nodes that were reached (have a finite distance)
-                    for (String nodeId : step.getDistances().keySet()) {
-                        if (step.getDistances().get(nodeId) != Double.POSITIVE_INFINITY) {
-                            if (uiNodes.containsKey(nodeId)) {
-                                // Use a style to indicate the node's distance is finalized
-                                uiNodes.get(nodeId).setFinalizedStyle();
-                            }
-                        }
-                    }
-                    // In "all paths" mode, typically no single path is highlighted at the end, so clear edges
-                    clearEdgeStyles();
-
-                    // Disable navigation and auto-play as the algorithm is fully complete
-                    stepForwardButton.setDisable(true);
-                    playButton.setDisable(true);
-                    pauseButton.setDisable(true);
-                    break;
-
-                default:
-                    // Fallback for any unhandled step types (shouldn't happen if all are covered)
-                    totalPathCostLabel.setText("Total Path Cost: N/A");
-                    statusLabel.setText("Ready.");
-                    break;
+    // Stops and clears the run on screen, keeping the edit mode and node selections (unlike resetAlgorithm)
+    private void clearShownRun() {
+        if (animationTimeline != null) {
+            animationTimeline.stop();
+            animationTimeline = null;
+        }
+        cancelStepStream();
+        cancelRunningTask();
+        resetStepScrubber();
+        resetNodeStyles();
+        clearEdgeStyles();
+    }
+
+    // Called by every edit: the snapshot has to be rebuilt and trees computed on the old graph are useless
+    private void graphChanged() {
+        engineGraph = null;
+        hierarchy = null; // Shortcuts of the old graph may be wrong for the new one
+        graphVersion++;
+        treeCache.evictOlderThan(graphVersion);
+    }
+
+    // Freezes jgraphtGraph (or the canvas, or in repair mode the repaired tree) into the engine's CSR snapshot. The
+    // snapshot is cached until the next edit (addNode/addGraphEdge/addEdge/initializeGraph reset it to null).
+    private CsrGraph snapshotGraph() {
+        if (engineGraph == null && isRepairedTreeCurrent()) {
+            engineGraph = dynamicTree.getGraph(); // Built from the repaired tree's adjacency, in the same node indices
+        } else if (engineGraph == null && graphCanvas != null) {
+            engineGraph = graphCanvas.toGraph(); // Same node indices as the canvas
+        } else if (engineGraph == null) {
+            GraphBuilder builder = new GraphBuilder(jgraphtGraph.vertexSet().size(), 2 * jgraphtGraph.edgeSet().size());
+            for (String nodeId : jgraphtGraph.vertexSet()) {
+                builder.addNode(nodeId);
             }
-        });
+            for (DefaultWeightedEdge edge : jgraphtGraph.edgeSet()) {
+                builder.addEdge(jgraphtGraph.getEdgeSource(edge), jgraphtGraph.getEdgeTarget(edge), jgraphtGraph.getEdgeWeight(edge));
+            }
+            engineGraph = builder.build();
+        }
+        return engineGraph;
+    }
+
+    private void displayCurrentStep(AlgorithmStep step) {
+        if (step == null) {
+            return;
+        }
+
+        // Handlers and the playback timeline already run on the FX thread, so update the UI directly
+
+        // --- UI Updates based on AlgorithmStep data ---
+        currentStateText.setText(step.getDescription());
+        syncStepScrubber();
+
+        // Restyle only the nodes/edges (and list rows) that differ from the previously shown step.
+        // The Distances and Priority Queue lists are owned by stepRenderer and updated in place.
+        if (stepStyleModel != null) {
+            stepStyleModel.moveTo(currentStepIndex, stepRenderer);
+        }
+        if (runQueueStrategy.needsIntegerWeights()) {
+            priorityQueueListView.refresh(); // Radix buckets are relative to the smallest key, so unchanged rows move too
+        }
+
+        // --- Control Button States (General for intermediate steps) ---
+        // These control button states are general and apply to most steps.
+        // Specific final states will override these.
+        // A streamed run has no known length (and no way back) until its final step arrives
+        boolean streaming = stepStreamPlayer != null;
+        boolean atLastStep = !streaming && currentStepIndex == currentAlgorithmSteps.size() - 1;
+        stepForwardButton.setDisable(atLastStep);
+        stepBackwardButton.setDisable(streaming || currentStepIndex == 0);
+        playButton.setDisable(atLastStep); // Disable play if at end
+        pauseButton.setDisable(false); // Always allow pause if actively playing (will be disabled if play is disabled)
+
+
+        // --- Handle specific StepTypes for final display and labels ---
+        switch (step.getType()) {
+            case INITIALIZED:
+            case NODE_EXTRACTED:
+            case EDGE_RELAXED:
+            case BUCKET_OPENED:
+                // For intermediate steps, show "calculating" status and current progress
+                totalPathCostLabel.setText("Total Path Cost: Calculating...");
+                statusLabel.setText(streaming
+                        ? "Algorithm in progress (streaming): step " + (currentStepIndex + 1)
+                        : "Algorithm in progress: " + (currentStepIndex + 1) + "/" + currentAlgorithmSteps.size());
+                break;
+
+            case PATH_FOUND:
+                // A specific path was found to the end node (path edges and end node are styled by stepStyleModel)
+                List<String> path = step.getPath(); // Get the reconstructed path from AlgorithmStep
+                if (path != null && path.size() > 1) {
+                    totalPathCostLabel.setText(String.format("Total Path Cost: %.1f", step.getStepDistance()));
+                } else {
+                    // This case indicates an issue if PATH_FOUND type is used, but no valid path is available
+                    totalPathCostLabel.setText("Total Path Cost: N/A (Path reconstruction error)");
+                }
+                statusLabel.setText(step.getDescription()); // Set status to the step's final description
+
+                // Disable navigation and auto-play as the algorithm is complete for this specific path
+                stepForwardButton.setDisable(true);
+                playButton.setDisable(true);
+                pauseButton.setDisable(true);
+                break;
+
+            case NO_PATH_FOUND:
+                // No path found to a specific target node
+                totalPathCostLabel.setText("Total Path Cost: Unreachable");
+                statusLabel.setText(step.getDescription()); // Set status to "No path found"
+                // The target node is styled as unreachable by stepStyleModel
+                // Disable navigation and auto-play
+                stepForwardButton.setDisable(true);
+                playButton.setDisable(true);
+                pauseButton.setDisable(true);
+                break;
+
+            case ALGORITHM_FINISHED_ALL_PATHS:
+                // Algorithm completed, showing shortest distances to all reachable nodes
+                totalPathCostLabel.setText("Total Path Cost: N/A (All Distances Computed)");
+                statusLabel.setText(step.getDescription()); // Set status to "Algorithm finished for all paths"
+                // Reached nodes get the finalized style and edge highlights are cleared by stepStyleModel
+
+                // Disable navigation and auto-play as the algorithm is fully complete
+                stepForwardButton.setDisable(true);
+                playButton.setDisable(true);
+                pauseButton.setDisable(true);
+                break;
+
+            default:
+                // Fallback for any unhandled step types (shouldn't happen if all are covered)
+                totalPathCostLabel.setText("Total Path Cost: N/A");
+                statusLabel.setText("Ready.");
+                break;
+        }
     }
 
 
@@ -1048,6 +2363,10 @@ public class DijkstraController implements Initializable {
     // Handles both directions for undirected graph display
     // Resets all UINode styles to their default
     private void resetNodeStyles() {
+        boxSelection = new int[0];
+        if (graphCanvas != null) {
+            graphCanvas.resetStyles();
+        }
         for (UINode node : uiNodes.values()) {
             node.setDefaultStyle();
         }
@@ -1055,6 +2374,9 @@ public class DijkstraController implements Initializable {
 
     // Resets all UIEdge styles to their default
     private void clearEdgeStyles() {
+        if (graphCanvas != null) {
+            graphCanvas.resetStyles();
+        }
         for (UIEdge edge : uiEdges) { // Assuming uiEdges is an ArrayList<UIEdge>
             edge.setDefaultStyle();
         }
@@ -1075,38 +2397,6 @@ public class DijkstraController implements Initializable {
 
     // Finds a UIEdge given its source and target node IDs (handles undirected graphs)
     private UIEdge findUIEdge(String node1Id, String node2Id) {
-        // Assuming uiEdges is an ArrayList<UIEdge>
-        for (UIEdge edge : uiEdges) {
-            // *** CRITICAL FIX: Access node IDs from the UINode objects ***
-            String edgeSourceId = edge.getSourceNode().getNodeId();
-            String edgeTargetId = edge.getTargetNode().getNodeId();
-
-            if ((edgeSourceId.equals(node1Id) && edgeTargetId.equals(node2Id)) ||
-                    (edgeSourceId.equals(node2Id) && edgeTargetId.equals(node1Id))) {
-                return edge;
-            }
-        }
-        return null;
-    }
-
-
-    // Placeholder for final path highlighting (will be implemented in Phase 4)
-    private void highlightFinalPath(Map<String, String> predecessors, String startNodeId, String endNodeId) {
-        // This method will be expanded in Phase 4
-        // For now, just reset all edge styles then highlight the final path
-        clearEdgeStyles(); // Ensure all edges are reset
-        if (predecessors != null && predecessors.containsKey(endNodeId) && predecessors.get(endNodeId) != null) {
-            String current = endNodeId;
-            while (current != null && !current.equals(startNodeId)) {
-                String predecessor = predecessors.get(current);
-                if (predecessor != null) {
-                    UIEdge edgeToHighlight = findUIEdge(predecessor, current);
-                    if (edgeToHighlight != null) {
-                        edgeToHighlight.highlightAsPath(); // New method in UIEdge
-                    }
-                }
-                current = predecessor;
-            }
-        }
+        return uiEdgeIndex.get(node1Id, node2Id); // Constant-time lookup instead of scanning uiEdges
     }
 }
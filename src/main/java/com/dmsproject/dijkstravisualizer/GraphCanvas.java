@@ -0,0 +1,634 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.StepStyleModel.EdgeStyle;
+import com.dmsproject.dijkstravisualizer.StepStyleModel.NodeStyle;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.GraphBuilder;
+import com.dmsproject.dijkstravisualizer.engine.GraphLayout;
+import com.dmsproject.dijkstravisualizer.engine.NodeDictionary;
+import com.dmsproject.dijkstravisualizer.engine.SpatialGrid;
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws a whole graph on a single {@link Canvas}, for graphs too large for one
+ * {@link UINode}/{@link UIEdge} per element.
+ * <p>
+ * Nodes and edges are kept in growable primitive arrays (positions, endpoints, weights,
+ * style ordinals). A change only marks the rectangles it affects as dirty; on the next
+ * pulse those rectangles are cleared and everything intersecting them is drawn again,
+ * with all default-looking edges stroked as one path. Node positions are also kept in a
+ * {@link SpatialGrid}, which resolves clicks ({@link #nodeAt(double, double)}), box
+ * selections and snapping, and finds the nodes to draw. Node indices match the engine graph the canvas was
+ * built from (or exports with {@link #toGraph()}), so the canvas can be used directly
+ * as the {@link StepStyleModel.Sink} of a run. Colours are those of UINode and UIEdge.
+ * <p>
+ * Positions are world coordinates; the {@link GraphViewport} maps them to the canvas.
+ * Only elements inside the viewport are drawn, text is left out when zoomed out (or when
+ * too many nodes are in view), and while the view is dragged the last frame is shifted
+ * as an image instead of being redrawn, so panning costs the same for any graph size.
+ */
+public class GraphCanvas extends Canvas implements StepStyleModel.Sink {
+
+    // Above this many nodes in view, IDs, distances and weights are not drawn (they would only overlap)
+    static final int MAX_LABELLED_NODES = 2000;
+    private static final double MIN_OUTLINED_RADIUS = 2; // On-screen radius below which nodes are drawn without outline
+
+    private static final double NODE_RADIUS = UINode.NODE_RADIUS;
+    private static final double NODE_EXTENT = NODE_RADIUS + 16; // Half-size of the box around a node and its labels
+    private static final double GRID_CELL_SIZE = 4 * NODE_RADIUS;
+    private static final double EDGE_LABEL_OFFSET = 15;         // Weight label distance from the edge, as in UIEdge
+    private static final double EDGE_EXTENT = EDGE_LABEL_OFFSET + 16;
+    private static final double EDGE_STROKE_EXTENT = UIEdge.PATH_EDGE_STROKE_WIDTH; // Same without weight labels
+    private static final int MAX_DIRTY_REGIONS = 32; // More than this and the whole canvas is redrawn
+    private static final int PATH_BATCH = 4096;      // Edge segments per stroked path
+
+    private static final Color[] NODE_FILLS = new Color[NodeStyle.values().length];
+    private static final Color[] NODE_STROKES = new Color[NodeStyle.values().length];
+    private static final double[] NODE_STROKE_WIDTHS = new double[NodeStyle.values().length];
+    private static final Color[] NODE_TEXT_COLORS = new Color[NodeStyle.values().length];
+    private static final Color[] EDGE_COLORS = new Color[EdgeStyle.values().length];
+    private static final double[] EDGE_WIDTHS = new double[EdgeStyle.values().length];
+    private static final Color[] LABEL_FILLS = new Color[EdgeStyle.values().length];
+    private static final Color[] LABEL_STROKES = new Color[EdgeStyle.values().length];
+    private static final Color[] LABEL_TEXT_COLORS = new Color[EdgeStyle.values().length];
+    private static final Color SELECTION_STROKE = Color.web(UINode.SELECTION_HIGHLIGHT_STROKE_COLOR);
+    private static final Font ID_FONT = Font.font("Arial", FontWeight.BOLD, 14);
+    private static final Font DISTANCE_FONT = Font.font("Arial", 10);
+    private static final Font WEIGHT_FONT = Font.font("Arial", FontWeight.BOLD, 12);
+
+    static {
+        nodeLook(NodeStyle.DEFAULT, UINode.DEFAULT_NODE_FILL, UINode.DEFAULT_NODE_STROKE, 2, Color.BLACK);
+        nodeLook(NodeStyle.VISITED, UINode.VISITED_NODE_FILL, UINode.VISITED_NODE_STROKE, 3, Color.BLACK);
+        nodeLook(NodeStyle.CURRENT, UINode.CURRENT_NODE_FILL, UINode.CURRENT_NODE_STROKE, 3.5, Color.BLACK);
+        nodeLook(NodeStyle.PATH_END, UINode.PATH_NODE_FILL, UINode.PATH_NODE_STROKE, 3.5, Color.WHITE);
+        nodeLook(NodeStyle.UNREACHABLE, UINode.UNREACHABLE_NODE_FILL, UINode.UNREACHABLE_NODE_STROKE, 2, Color.BLACK);
+        nodeLook(NodeStyle.FINALIZED, UINode.FINALIZED_NODE_FILL, UINode.VISITED_NODE_STROKE, 3, Color.BLACK);
+        nodeLook(NodeStyle.BACKWARD_VISITED, UINode.BACKWARD_VISITED_NODE_FILL, UINode.BACKWARD_VISITED_NODE_STROKE, 3, Color.BLACK);
+        edgeLook(EdgeStyle.DEFAULT, UIEdge.DEFAULT_EDGE_COLOR, UIEdge.DEFAULT_EDGE_STROKE_WIDTH,
+                Color.web(UIEdge.LABEL_DEFAULT_BG_COLOR, 0.8), UIEdge.LABEL_DEFAULT_BG_STROKE_COLOR, UIEdge.LABEL_DEFAULT_TEXT_COLOR);
+        edgeLook(EdgeStyle.RELAXED, UIEdge.RELAXED_EDGE_COLOR, UIEdge.RELAXED_EDGE_STROKE_WIDTH,
+                Color.web(UIEdge.LABEL_RELAXED_BG_COLOR, 0.8), UIEdge.LABEL_RELAXED_BG_STROKE_COLOR, UIEdge.LABEL_RELAXED_TEXT_COLOR);
+        edgeLook(EdgeStyle.PATH, UIEdge.PATH_EDGE_COLOR, UIEdge.PATH_EDGE_STROKE_WIDTH,
+                Color.web(UIEdge.LABEL_PATH_BG_COLOR, 0.9), UIEdge.LABEL_PATH_BG_STROKE_COLOR, UIEdge.LABEL_PATH_TEXT_COLOR);
+    }
+
+    private final NodeDictionary nodes;
+    private double[] xs;
+    private double[] ys;
+    private byte[] nodeStyles;   // NodeStyle ordinal per node
+    private double[] distances;  // Tentative distance shown under each node
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private double[] edgeWeights;
+    private int edgeCount;
+    private final Map<Long, EdgeStyle> highlightedEdges = new HashMap<>(); // Non-default edges only
+    private int selectedNode = -1; // Node highlighted as the first end of a new edge
+    private final BitSet boxSelection = new BitSet(); // Nodes picked with a selection rectangle
+    private final SpatialGrid grid;
+
+    private final GraphViewport viewport;
+    private double[] view = new double[4]; // World bounds of the viewport during a redraw
+    private boolean labelsShown = true;    // Whether the last full redraw had few enough nodes in view for text
+    private WritableImage panCache;        // Last frame, shifted around while the view is being dragged
+    private double panStartX;
+    private double panStartY;
+
+    private final double[] dirtyRegions = new double[4 * MAX_DIRTY_REGIONS]; // minX, minY, maxX, maxY per region
+    private int dirtyCount;
+    private boolean fullRedraw = true;
+    private boolean redrawScheduled;
+
+    public GraphCanvas(GraphViewport viewport) {
+        this.viewport = viewport;
+        this.nodes = new NodeDictionary();
+        this.grid = new SpatialGrid(GRID_CELL_SIZE);
+        allocate(16, 16);
+        watchSize();
+    }
+
+    /**
+     * Creates a canvas showing {@code graph} at the positions of {@code layout}. Each undirected
+     * edge (stored as two arcs) is drawn once.
+     */
+    public GraphCanvas(CsrGraph graph, GraphLayout layout, GraphViewport viewport) {
+        this.viewport = viewport;
+        this.nodes = graph.getNodes().copy();
+        int n = graph.nodeCount();
+        allocate(Math.max(n, 16), Math.max(graph.arcCount() / 2, 16));
+        for (int v = 0; v < n; v++) {
+            xs[v] = layout.x(v);
+            ys[v] = layout.y(v);
+        }
+        this.grid = SpatialGrid.of(layout, GRID_CELL_SIZE);
+        for (int u = 0; u < n; u++) {
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.arcTarget(arc);
+                if (u < v) {
+                    addEdge(u, v, graph.arcWeight(arc));
+                }
+            }
+        }
+        watchSize();
+    }
+
+    private void allocate(int nodeCapacity, int edgeCapacity) {
+        xs = new double[nodeCapacity];
+        ys = new double[nodeCapacity];
+        nodeStyles = new byte[nodeCapacity];
+        distances = new double[nodeCapacity];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        edgeFrom = new int[edgeCapacity];
+        edgeTo = new int[edgeCapacity];
+        edgeWeights = new double[edgeCapacity];
+    }
+
+    private void watchSize() {
+        widthProperty().addListener((obs, oldVal, newVal) -> redrawAll());
+        heightProperty().addListener((obs, oldVal, newVal) -> redrawAll());
+    }
+
+    // --- Graph contents ---
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int indexOf(String nodeId) {
+        return nodes.indexOf(nodeId);
+    }
+
+    public String idOf(int node) {
+        return nodes.idOf(node);
+    }
+
+    public double x(int node) {
+        return xs[node];
+    }
+
+    public double y(int node) {
+        return ys[node];
+    }
+
+    /**
+     * @return the index of the new node (the next engine index)
+     */
+    public int addNode(String nodeId, double x, double y) {
+        if (nodes.contains(nodeId)) {
+            throw new IllegalArgumentException("Node already exists: " + nodeId);
+        }
+        int node = nodes.add(nodeId);
+        if (node == xs.length) {
+            int capacity = xs.length * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            nodeStyles = Arrays.copyOf(nodeStyles, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            Arrays.fill(distances, node, capacity, Double.POSITIVE_INFINITY);
+        }
+        xs[node] = x;
+        ys[node] = y;
+        grid.put(node, x, y);
+        markNodeDirty(node);
+        return node;
+    }
+
+    public void addEdge(int a, int b, double weight) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeFrom.length * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+        }
+        edgeFrom[edgeCount] = a;
+        edgeTo[edgeCount] = b;
+        edgeWeights[edgeCount] = weight;
+        edgeCount++;
+        markEdgeDirty(a, b);
+    }
+
+    /**
+     * Scans the edge arrays; only used when the user connects two nodes.
+     */
+    public boolean containsEdge(int a, int b) {
+        for (int e = 0; e < edgeCount; e++) {
+            if ((edgeFrom[e] == a && edgeTo[e] == b) || (edgeFrom[e] == b && edgeTo[e] == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the node whose circle contains the world point (the nearest one if circles overlap), or -1
+     */
+    public int nodeAt(double x, double y) {
+        return grid.nearest(x, y, NODE_RADIUS);
+    }
+
+    /**
+     * @return the node nearest to the world point, at most {@code maxDistance} away, or -1
+     */
+    public int nearestNode(double x, double y, double maxDistance) {
+        return grid.nearest(x, y, maxDistance);
+    }
+
+    /**
+     * @return the nodes whose centre lies in the world rectangle, in ascending order
+     */
+    public int[] nodesIn(double minX, double minY, double maxX, double maxY) {
+        return grid.nodesIn(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Freezes the canvas contents into an engine graph with the same node indices.
+     */
+    public CsrGraph toGraph() {
+        GraphBuilder builder = new GraphBuilder(nodes.size(), 2 * edgeCount);
+        for (int v = 0; v < nodes.size(); v++) {
+            builder.addNode(nodes.idOf(v));
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            builder.addArc(edgeFrom[e], edgeTo[e], edgeWeights[e]);
+            builder.addArc(edgeTo[e], edgeFrom[e], edgeWeights[e]);
+        }
+        return builder.build();
+    }
+
+    public GraphLayout getLayout() {
+        return new GraphLayout(Arrays.copyOf(xs, nodes.size()), Arrays.copyOf(ys, nodes.size()));
+    }
+
+    // --- Styles ---
+
+    /**
+     * Highlights the first node picked for a new edge, or clears the highlight with -1.
+     */
+    public void setSelectedNode(int node) {
+        if (selectedNode != -1) {
+            markNodeDirty(selectedNode);
+        }
+        selectedNode = node;
+        if (node != -1) {
+            markNodeDirty(node);
+        }
+    }
+
+    /**
+     * Highlights the nodes of a box selection, replacing the previous one.
+     */
+    public void setBoxSelection(int[] selected) {
+        for (int v = boxSelection.nextSetBit(0); v >= 0; v = boxSelection.nextSetBit(v + 1)) {
+            markNodeDirty(v);
+        }
+        boxSelection.clear();
+        for (int v : selected) {
+            boxSelection.set(v);
+            markNodeDirty(v);
+        }
+    }
+
+    /**
+     * Puts every node and edge back to its default look and forgets the shown distances.
+     */
+    public void resetStyles() {
+        Arrays.fill(nodeStyles, (byte) 0);
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        highlightedEdges.clear();
+        selectedNode = -1;
+        boxSelection.clear();
+        redrawAll();
+    }
+
+    @Override
+    public void nodeStyleChanged(int node, NodeStyle style) {
+        nodeStyles[node] = (byte) style.ordinal();
+        markNodeDirty(node);
+    }
+
+    @Override
+    public void edgeStyleChanged(int from, int to, EdgeStyle style) {
+        if (style == EdgeStyle.DEFAULT) {
+            highlightedEdges.remove(StepStyleModel.edgeKey(from, to));
+        } else {
+            highlightedEdges.put(StepStyleModel.edgeKey(from, to), style);
+        }
+        markEdgeDirty(from, to);
+    }
+
+    @Override
+    public void nodeStateChanged(int node, double oldDistance, boolean wasQueued, double newDistance, boolean queued) {
+        distances[node] = newDistance;
+        if (labelsShown && viewport.showsDistanceLabels()) {
+            markNodeDirty(node);
+        }
+    }
+
+    // --- Viewport ---
+
+    /**
+     * Redraws after a zoom or pan, or only moves the pan preview while a drag is in progress.
+     */
+    public void viewportChanged() {
+        if (panCache != null) {
+            GraphicsContext g = getGraphicsContext2D();
+            g.clearRect(0, 0, getWidth(), getHeight());
+            g.drawImage(panCache, viewport.getOffsetX() - panStartX, viewport.getOffsetY() - panStartY);
+        } else {
+            redrawAll();
+        }
+    }
+
+    /**
+     * Called when a drag starts: until {@link #endPanPreview()}, panning just moves a picture of the current frame.
+     */
+    public void startPanPreview() {
+        panCache = snapshot(null, null);
+        panStartX = viewport.getOffsetX();
+        panStartY = viewport.getOffsetY();
+    }
+
+    public void endPanPreview() {
+        if (panCache != null) {
+            panCache = null;
+            redrawAll();
+        }
+    }
+
+    // --- Dirty regions ---
+
+    /**
+     * Schedules a redraw of the whole canvas.
+     */
+    public void redrawAll() {
+        fullRedraw = true;
+        scheduleRedraw();
+    }
+
+    private void markNodeDirty(int node) {
+        markDirty(xs[node] - NODE_EXTENT, ys[node] - NODE_EXTENT, xs[node] + NODE_EXTENT, ys[node] + NODE_EXTENT);
+    }
+
+    private void markEdgeDirty(int a, int b) {
+        markDirty(Math.min(xs[a], xs[b]) - EDGE_EXTENT, Math.min(ys[a], ys[b]) - EDGE_EXTENT,
+                Math.max(xs[a], xs[b]) + EDGE_EXTENT, Math.max(ys[a], ys[b]) + EDGE_EXTENT);
+    }
+
+    private void markDirty(double minX, double minY, double maxX, double maxY) {
+        if (!fullRedraw) {
+            if (dirtyCount == MAX_DIRTY_REGIONS) {
+                fullRedraw = true;
+            } else {
+                int i = 4 * dirtyCount++;
+                dirtyRegions[i] = minX;
+                dirtyRegions[i + 1] = minY;
+                dirtyRegions[i + 2] = maxX;
+                dirtyRegions[i + 3] = maxY;
+            }
+        }
+        scheduleRedraw();
+    }
+
+    // All changes made while handling one event are drawn together on the next pulse
+    private void scheduleRedraw() {
+        if (!redrawScheduled) {
+            redrawScheduled = true;
+            Platform.runLater(this::redraw);
+        }
+    }
+
+    // True if the world box is in view and in a region being redrawn
+    private boolean needsDrawing(double minX, double minY, double maxX, double maxY) {
+        if (maxX < view[0] || minX > view[2] || maxY < view[1] || minY > view[3]) {
+            return false;
+        }
+        if (fullRedraw) {
+            return true;
+        }
+        for (int i = 0; i < 4 * dirtyCount; i += 4) {
+            if (maxX >= dirtyRegions[i] && minX <= dirtyRegions[i + 2]
+                    && maxY >= dirtyRegions[i + 1] && minY <= dirtyRegions[i + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Drawing ---
+
+    private int countNodesInView() {
+        return grid.countIn(view[0], view[1], view[2], view[3]);
+    }
+
+    // Nodes that may need drawing, in index order so later nodes stay on top: those in view,
+    // or only those around the dirty regions
+    private int[] nodesToDraw() {
+        double minX = view[0];
+        double minY = view[1];
+        double maxX = view[2];
+        double maxY = view[3];
+        if (!fullRedraw) {
+            double[] dirty = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (int i = 0; i < 4 * dirtyCount; i += 4) {
+                dirty[0] = Math.min(dirty[0], dirtyRegions[i]);
+                dirty[1] = Math.min(dirty[1], dirtyRegions[i + 1]);
+                dirty[2] = Math.max(dirty[2], dirtyRegions[i + 2]);
+                dirty[3] = Math.max(dirty[3], dirtyRegions[i + 3]);
+            }
+            minX = Math.max(minX, dirty[0]);
+            minY = Math.max(minY, dirty[1]);
+            maxX = Math.min(maxX, dirty[2]);
+            maxY = Math.min(maxY, dirty[3]);
+        }
+        return grid.nodesIn(minX - NODE_EXTENT, minY - NODE_EXTENT, maxX + NODE_EXTENT, maxY + NODE_EXTENT);
+    }
+
+    private void redraw() {
+        redrawScheduled = false;
+        if (panCache != null) {
+            return; // The pan preview is on screen; endPanPreview() redraws everything
+        }
+        view = viewport.visibleBounds(getWidth(), getHeight());
+        GraphicsContext g = getGraphicsContext2D();
+        g.save();
+        if (fullRedraw) {
+            g.clearRect(0, 0, getWidth(), getHeight());
+            labelsShown = countNodesInView() <= MAX_LABELLED_NODES;
+        }
+        double scale = viewport.getScale();
+        g.setTransform(scale, 0, 0, scale, viewport.getOffsetX(), viewport.getOffsetY());
+        if (!fullRedraw) {
+            g.beginPath();
+            for (int i = 0; i < 4 * dirtyCount; i += 4) {
+                g.rect(dirtyRegions[i], dirtyRegions[i + 1],
+                        dirtyRegions[i + 2] - dirtyRegions[i], dirtyRegions[i + 3] - dirtyRegions[i + 1]);
+            }
+            g.clip();
+            for (int i = 0; i < 4 * dirtyCount; i += 4) {
+                g.clearRect(dirtyRegions[i], dirtyRegions[i + 1],
+                        dirtyRegions[i + 2] - dirtyRegions[i], dirtyRegions[i + 3] - dirtyRegions[i + 1]);
+            }
+        }
+        drawEdges(g, labelsShown && viewport.showsWeightLabels());
+        drawNodes(g, labelsShown && viewport.showsDistanceLabels());
+        g.restore();
+        fullRedraw = false;
+        dirtyCount = 0;
+    }
+
+    private boolean edgeNeedsDrawing(int a, int b, double margin) {
+        return needsDrawing(Math.min(xs[a], xs[b]) - margin, Math.min(ys[a], ys[b]) - margin,
+                Math.max(xs[a], xs[b]) + margin, Math.max(ys[a], ys[b]) + margin);
+    }
+
+    private void drawEdges(GraphicsContext g, boolean labels) {
+        double margin = labels ? EDGE_EXTENT : EDGE_STROKE_EXTENT;
+
+        // Every edge in its default look first, batched into a few large paths
+        g.setStroke(EDGE_COLORS[EdgeStyle.DEFAULT.ordinal()]);
+        g.setLineWidth(atLeastOnePixel(EDGE_WIDTHS[EdgeStyle.DEFAULT.ordinal()]));
+        g.setLineDashes();
+        g.beginPath();
+        int segments = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            int a = edgeFrom[e];
+            int b = edgeTo[e];
+            if (edgeNeedsDrawing(a, b, margin)) {
+                g.moveTo(xs[a], ys[a]);
+                g.lineTo(xs[b], ys[b]);
+                if (++segments == PATH_BATCH) {
+                    g.stroke();
+                    g.beginPath();
+                    segments = 0;
+                }
+            }
+        }
+        g.stroke();
+
+        // Then the few relaxed / path edges on top
+        for (Map.Entry<Long, EdgeStyle> entry : highlightedEdges.entrySet()) {
+            int a = StepStyleModel.keyFrom(entry.getKey());
+            int b = StepStyleModel.keyTo(entry.getKey());
+            if (edgeNeedsDrawing(a, b, margin)) {
+                EdgeStyle style = entry.getValue();
+                g.setStroke(EDGE_COLORS[style.ordinal()]);
+                g.setLineWidth(atLeastOnePixel(EDGE_WIDTHS[style.ordinal()]));
+                if (style == EdgeStyle.RELAXED) {
+                    g.setLineDashes(8.0, 5.0);
+                } else {
+                    g.setLineDashes();
+                }
+                g.strokeLine(xs[a], ys[a], xs[b], ys[b]);
+            }
+        }
+        g.setLineDashes();
+
+        if (labels) {
+            g.setFont(WEIGHT_FONT);
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.CENTER);
+            g.setLineWidth(1);
+            for (int e = 0; e < edgeCount; e++) {
+                if (edgeNeedsDrawing(edgeFrom[e], edgeTo[e], margin)) {
+                    drawWeightLabel(g, e);
+                }
+            }
+        }
+    }
+
+    // Weight label beside the middle of the edge, placed like UIEdge.updateLabelPosition
+    private void drawWeightLabel(GraphicsContext g, int e) {
+        int a = edgeFrom[e];
+        int b = edgeTo[e];
+        double dx = xs[b] - xs[a];
+        double dy = ys[b] - ys[a];
+        double length = Math.hypot(dx, dy);
+        double labelX = (xs[a] + xs[b]) / 2;
+        double labelY = (ys[a] + ys[b]) / 2;
+        if (length > 0) {
+            labelX += -dy / length * EDGE_LABEL_OFFSET;
+            labelY += dx / length * EDGE_LABEL_OFFSET;
+        }
+        EdgeStyle style = highlightedEdges.getOrDefault(StepStyleModel.edgeKey(a, b), EdgeStyle.DEFAULT);
+        String text = String.valueOf(edgeWeights[e]);
+        double width = 7.5 * text.length() + 10; // Approximate width of the bold 12px digits
+        g.setFill(LABEL_FILLS[style.ordinal()]);
+        g.fillRoundRect(labelX - width / 2, labelY - 10, width, 20, 5, 5);
+        g.setStroke(LABEL_STROKES[style.ordinal()]);
+        g.strokeRoundRect(labelX - width / 2, labelY - 10, width, 20, 5, 5);
+        g.setFill(LABEL_TEXT_COLORS[style.ordinal()]);
+        g.fillText(text, labelX, labelY);
+    }
+
+    // Keeps lines visible when zoomed far out
+    private double atLeastOnePixel(double width) {
+        return Math.max(width, 1 / viewport.getScale());
+    }
+
+    private void drawNodes(GraphicsContext g, boolean labels) {
+        double diameter = 2 * NODE_RADIUS;
+        boolean outlines = NODE_RADIUS * viewport.getScale() >= MIN_OUTLINED_RADIUS;
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        for (int v : nodesToDraw()) {
+            double x = xs[v];
+            double y = ys[v];
+            if (!needsDrawing(x - NODE_EXTENT, y - NODE_EXTENT, x + NODE_EXTENT, y + NODE_EXTENT)) {
+                continue;
+            }
+            int style = nodeStyles[v];
+            g.setFill(NODE_FILLS[style]);
+            g.fillOval(x - NODE_RADIUS, y - NODE_RADIUS, diameter, diameter);
+            if (v == selectedNode || boxSelection.get(v)) {
+                g.setStroke(SELECTION_STROKE);
+                g.setLineWidth(atLeastOnePixel(5));
+                g.strokeOval(x - NODE_RADIUS, y - NODE_RADIUS, diameter, diameter);
+            } else if (outlines) {
+                g.setStroke(NODE_STROKES[style]);
+                g.setLineWidth(NODE_STROKE_WIDTHS[style]);
+                g.strokeOval(x - NODE_RADIUS, y - NODE_RADIUS, diameter, diameter);
+            }
+            if (labels) {
+                g.setFill(NODE_TEXT_COLORS[style]);
+                g.setFont(ID_FONT);
+                g.fillText(nodes.idOf(v), x, y);
+                if (distances[v] != Double.POSITIVE_INFINITY) {
+                    g.setFill(NODE_TEXT_COLORS[style].darker().darker());
+                    g.setFont(DISTANCE_FONT);
+                    g.fillText(String.format("%.1f", distances[v]), x, y + NODE_RADIUS);
+                }
+            }
+        }
+    }
+
+    private static void nodeLook(NodeStyle style, String fill, String stroke, double strokeWidth, Color text) {
+        NODE_FILLS[style.ordinal()] = Color.web(fill);
+        NODE_STROKES[style.ordinal()] = Color.web(stroke);
+        NODE_STROKE_WIDTHS[style.ordinal()] = strokeWidth;
+        NODE_TEXT_COLORS[style.ordinal()] = text;
+    }
+
+    private static void edgeLook(EdgeStyle style, String color, double width, Color labelFill, String labelStroke, String labelText) {
+        EDGE_COLORS[style.ordinal()] = Color.web(color);
+        EDGE_WIDTHS[style.ordinal()] = width;
+        LABEL_FILLS[style.ordinal()] = labelFill;
+        LABEL_STROKES[style.ordinal()] = Color.web(labelStroke);
+        LABEL_TEXT_COLORS[style.ordinal()] = Color.web(labelText);
+    }
+}
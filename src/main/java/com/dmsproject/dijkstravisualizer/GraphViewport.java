@@ -0,0 +1,164 @@
+package com.dmsproject.dijkstravisualizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zoom and pan of the graph view: maps graph ("world") coordinates, in which node
+ * positions are stored, to coordinates on the graph pane ("screen").
+ * <p>
+ * {@code screen = world * scale + offset} on both axes. The viewport also holds the
+ * level-of-detail thresholds: below a given zoom, weight labels, drop shadows and
+ * distance labels are no longer shown. Listeners are told about every change so the
+ * view (scene graph or {@link GraphCanvas}) can cull and redraw.
+ */
+public class GraphViewport {
+
+    public static final double MIN_SCALE = 0.01;
+    public static final double MAX_SCALE = 8.0;
+
+    private double scale = 1.0;
+    private double offsetX;
+    private double offsetY;
+
+    // Level-of-detail thresholds (zoom levels below which the detail is hidden)
+    private double weightLabelZoom = 0.6;
+    private double shadowZoom = 0.8;
+    private double distanceLabelZoom = 0.5;
+
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getOffsetX() {
+        return offsetX;
+    }
+
+    public double getOffsetY() {
+        return offsetY;
+    }
+
+    public double toScreenX(double worldX) {
+        return worldX * scale + offsetX;
+    }
+
+    public double toScreenY(double worldY) {
+        return worldY * scale + offsetY;
+    }
+
+    public double toWorldX(double screenX) {
+        return (screenX - offsetX) / scale;
+    }
+
+    public double toWorldY(double screenY) {
+        return (screenY - offsetY) / scale;
+    }
+
+    /**
+     * @return {minX, minY, maxX, maxY} of the world area shown on a pane of the given size
+     */
+    public double[] visibleBounds(double width, double height) {
+        return new double[]{toWorldX(0), toWorldY(0), toWorldX(width), toWorldY(height)};
+    }
+
+    /**
+     * Moves the view by a distance on screen.
+     */
+    public void panBy(double dx, double dy) {
+        offsetX += dx;
+        offsetY += dy;
+        fireChanged();
+    }
+
+    /**
+     * Multiplies the zoom by {@code factor}, keeping the world point under (screenX, screenY) in place.
+     */
+    public void zoomAt(double factor, double screenX, double screenY) {
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        double worldX = toWorldX(screenX);
+        double worldY = toWorldY(screenY);
+        scale = newScale;
+        offsetX = screenX - worldX * scale;
+        offsetY = screenY - worldY * scale;
+        fireChanged();
+    }
+
+    /**
+     * Zooms and pans so the world rectangle fills a pane of the given size (never zooming in past 1:1).
+     */
+    public void fit(double minX, double minY, double maxX, double maxY, double width, double height) {
+        double worldWidth = Math.max(maxX - minX, 1);
+        double worldHeight = Math.max(maxY - minY, 1);
+        scale = Math.max(MIN_SCALE, Math.min(1.0, Math.min(width / worldWidth, height / worldHeight)));
+        offsetX = (width - worldWidth * scale) / 2 - minX * scale;
+        offsetY = (height - worldHeight * scale) / 2 - minY * scale;
+        fireChanged();
+    }
+
+    /**
+     * Back to 1:1 with the world origin in the top-left corner.
+     */
+    public void reset() {
+        scale = 1.0;
+        offsetX = 0;
+        offsetY = 0;
+        fireChanged();
+    }
+
+    // --- Level of detail ---
+
+    public boolean showsWeightLabels() {
+        return scale >= weightLabelZoom;
+    }
+
+    public boolean showsShadows() {
+        return scale >= shadowZoom;
+    }
+
+    public boolean showsDistanceLabels() {
+        return scale >= distanceLabelZoom;
+    }
+
+    public double getWeightLabelZoom() {
+        return weightLabelZoom;
+    }
+
+    public void setWeightLabelZoom(double weightLabelZoom) {
+        this.weightLabelZoom = weightLabelZoom;
+        fireChanged();
+    }
+
+    public double getShadowZoom() {
+        return shadowZoom;
+    }
+
+    public void setShadowZoom(double shadowZoom) {
+        this.shadowZoom = shadowZoom;
+        fireChanged();
+    }
+
+    public double getDistanceLabelZoom() {
+        return distanceLabelZoom;
+    }
+
+    public void setDistanceLabelZoom(double distanceLabelZoom) {
+        this.distanceLabelZoom = distanceLabelZoom;
+        fireChanged();
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : new ArrayList<>(listeners)) {
+            listener.run();
+        }
+    }
+}
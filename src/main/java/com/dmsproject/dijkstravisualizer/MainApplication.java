@@ -54,6 +54,7 @@ public class MainApplication extends Application {
     }
 
     public static void main(String[] args) {
+        // Batch queries without a display: run cli.BatchQuery instead, which never loads this class or JavaFX
         launch();
     }
 }
\ No newline at end of file
@@ -4,14 +4,25 @@ package com.dmsproject.dijkstravisualizer;
 import java.util.Objects;
 
 public class NodeDistance implements Comparable<NodeDistance> {
+    private int node; // Index in the run's graph, or -1 if only the ID is known
     private String nodeId;
     private double distance;
 
     public NodeDistance(String nodeId, double distance) {
+        this(-1, nodeId, distance);
+    }
+
+    // Entry of a run's Priority Queue list: ties are broken by node index, so no string is compared
+    public NodeDistance(int node, String nodeId, double distance) {
+        this.node = node;
         this.nodeId = nodeId;
         this.distance = distance;
     }
 
+    public int getNode() {
+        return node;
+    }
+
     public String getNodeId() {
         return nodeId;
     }
@@ -32,8 +43,11 @@ public class NodeDistance implements Comparable<NodeDistance> {
         // Compare by distance first (for priority queue)
         int cmp = Double.compare(this.distance, other.distance);
         if (cmp == 0) {
-            // If distances are equal, compare by nodeId for consistent ordering
-            cmp = this.nodeId.compareTo(other.nodeId);
+            // If distances are equal, compare by node index (then nodeId when no index is known) for consistent ordering
+            cmp = Integer.compare(this.node, other.node);
+            if (cmp == 0 && this.node == -1) {
+                cmp = this.nodeId.compareTo(other.nodeId);
+            }
         }
         return cmp;
     }
@@ -44,11 +58,11 @@ public class NodeDistance implements Comparable<NodeDistance> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeDistance that = (NodeDistance) o;
-        return Double.compare(that.distance, distance) == 0 && Objects.equals(nodeId, that.nodeId);
+        return Double.compare(that.distance, distance) == 0 && node == that.node && Objects.equals(nodeId, that.nodeId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(nodeId, distance);
+        return Objects.hash(node, nodeId, distance);
     }
 }
\ No newline at end of file
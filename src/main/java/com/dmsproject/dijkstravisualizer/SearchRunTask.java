@@ -0,0 +1,215 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.engine.ContractionHierarchy;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.DeltaStepping;
+import com.dmsproject.dijkstravisualizer.engine.EuclideanHeuristic;
+import com.dmsproject.dijkstravisualizer.engine.SearchAlgorithm;
+import com.dmsproject.dijkstravisualizer.engine.SearchListener;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+import javafx.concurrent.Task;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Records one run off the JavaFX thread.
+ * <p>
+ * The task works on a frozen {@link CsrGraph} snapshot, so edits made in the UI while it
+ * runs cannot affect it; the caller compares {@link #getGraph()} with its current snapshot
+ * to decide whether the result still applies. Progress is reported as settled nodes out of
+ * all nodes, and cancelling the task stops the search at its next settled node. After a
+ * point-to-point run of any other algorithm the task also runs plain Dijkstra on the same
+ * query, so the two search spaces can be compared. Delta-stepping runs on the common
+ * fork-join pool with an automatically chosen bucket width.
+ */
+public class SearchRunTask extends Task<SearchTrace> {
+
+    private static final int PROGRESS_INTERVAL = 1024; // Settled nodes between progress updates
+
+    private final ShortestPathEngine engine;
+    private final SearchAlgorithm algorithm;
+    private final int source;
+    private final int target;
+    private final EuclideanHeuristic heuristic;
+    private final ContractionHierarchy hierarchy;
+    private volatile int settledCount;
+    private volatile int dijkstraSettledCount = -1;
+    private volatile ShortestPathTree tree;
+
+    /**
+     * @param target node to stop at, or -1 for a full single-source run
+     */
+    public SearchRunTask(ShortestPathEngine engine, int source, int target) {
+        this(engine, SearchAlgorithm.DIJKSTRA, source, target);
+    }
+
+    /**
+     * @param target node to stop at, or -1 for a full single-source run (Dijkstra and delta-stepping only)
+     */
+    public SearchRunTask(ShortestPathEngine engine, SearchAlgorithm algorithm, int source, int target) {
+        this(engine, algorithm, source, target, null);
+    }
+
+    /**
+     * @param heuristic lower bound for A*, null for the other algorithms
+     */
+    public SearchRunTask(ShortestPathEngine engine, SearchAlgorithm algorithm, int source, int target,
+                         EuclideanHeuristic heuristic) {
+        this(engine, algorithm, source, target, heuristic, null);
+    }
+
+    /**
+     * @param hierarchy hierarchy of the engine's graph for {@link SearchAlgorithm#CONTRACTION_HIERARCHY}, otherwise null
+     */
+    public SearchRunTask(ShortestPathEngine engine, SearchAlgorithm algorithm, int source, int target,
+                         EuclideanHeuristic heuristic, ContractionHierarchy hierarchy) {
+        if (algorithm.needsTarget() && target == -1) {
+            throw new IllegalArgumentException(algorithm + " needs an end node");
+        }
+        if ((algorithm == SearchAlgorithm.A_STAR) != (heuristic != null)) {
+            throw new IllegalArgumentException("A heuristic is needed for A* and only for A*");
+        }
+        if ((algorithm == SearchAlgorithm.CONTRACTION_HIERARCHY) != (hierarchy != null)) {
+            throw new IllegalArgumentException("A hierarchy is needed for hierarchy runs and only for them");
+        }
+        if (hierarchy != null && hierarchy.getGraph() != engine.getGraph()) {
+            throw new IllegalArgumentException("The hierarchy was built on a different graph");
+        }
+        this.engine = engine;
+        this.algorithm = algorithm;
+        this.source = source;
+        this.target = target;
+        this.heuristic = heuristic;
+        this.hierarchy = hierarchy;
+    }
+
+    public CsrGraph getGraph() {
+        return engine.getGraph();
+    }
+
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the number of nodes the run settled, once it has succeeded
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * @return the number of nodes plain Dijkstra settles for the same query, or -1 if the run was plain Dijkstra
+     */
+    public int getDijkstraSettledCount() {
+        return dijkstraSettledCount;
+    }
+
+    /**
+     * @return the shortest-path tree of a Dijkstra run that settled every reachable node, or null
+     */
+    public ShortestPathTree getTree() {
+        return tree;
+    }
+
+    @Override
+    protected SearchTrace call() {
+        int nodeCount = getGraph().nodeCount();
+        boolean bidirectional = algorithm == SearchAlgorithm.BIDIRECTIONAL_DIJKSTRA
+                || algorithm == SearchAlgorithm.CONTRACTION_HIERARCHY;
+        SearchTrace.Recorder recorder = new SearchTrace.Recorder(getGraph(), source, target, bidirectional);
+        String running = "Running " + algorithm + "...";
+        updateMessage(running);
+        SearchListener listener = new SearchListener() {
+            private int settled = 0;
+
+            @Override
+            public void onInitialized(int node) {
+                recorder.onInitialized(node);
+            }
+
+            @Override
+            public void onNodeSettled(int node, double distance) {
+                recorder.onNodeSettled(node, distance);
+                countSettled();
+            }
+
+            @Override
+            public void onEdgeRelaxed(int from, int to, double newDistance) {
+                recorder.onEdgeRelaxed(from, to, newDistance);
+            }
+
+            @Override
+            public void onBackwardInitialized(int node) {
+                recorder.onBackwardInitialized(node);
+            }
+
+            @Override
+            public void onBackwardNodeSettled(int node, double distance) {
+                recorder.onBackwardNodeSettled(node, distance);
+                countSettled();
+            }
+
+            @Override
+            public void onBackwardEdgeRelaxed(int from, int to, double newDistance) {
+                recorder.onBackwardEdgeRelaxed(from, to, newDistance);
+            }
+
+            @Override
+            public void onSearchesMet(int meeting, double distance) {
+                recorder.onSearchesMet(meeting, distance);
+            }
+
+            @Override
+            public void onPathUnpacked(int[] path) {
+                recorder.onPathUnpacked(path);
+            }
+
+            @Override
+            public void onBucketOpened(int bucket, double upperBound) {
+                recorder.onBucketOpened(bucket, upperBound);
+            }
+
+            private void countSettled() {
+                settledCount = ++settled;
+                if (settled % PROGRESS_INTERVAL == 0) {
+                    if (isCancelled()) {
+                        throw new CancellationException("Run cancelled");
+                    }
+                    updateProgress(settled, nodeCount);
+                    updateMessage(String.format("%s %d%% of nodes settled", running, 100L * settled / nodeCount));
+                }
+            }
+        };
+        switch (algorithm) {
+            case BIDIRECTIONAL_DIJKSTRA:
+                engine.bidirectionalSearch(source, target, listener);
+                break;
+            case A_STAR:
+                engine.aStarSearch(source, target, heuristic, listener);
+                break;
+            case CONTRACTION_HIERARCHY:
+                hierarchy.newQuery().search(source, target, listener);
+                break;
+            case DELTA_STEPPING:
+                DeltaStepping deltaStepping = new DeltaStepping(getGraph(), ForkJoinPool.commonPool());
+                updateMessage(running + " (bucket width " + String.format("%.2f", deltaStepping.getDelta()) + ")");
+                ShortestPathTree steppedTree = deltaStepping.search(source, target, listener);
+                tree = steppedTree.isComplete() ? steppedTree : null;
+                break;
+            default:
+                ShortestPathTree result = engine.search(source, target, listener);
+                tree = result.isComplete() ? result : null;
+                break;
+        }
+        if (algorithm != SearchAlgorithm.DIJKSTRA && target != -1) {
+            updateMessage("Running Dijkstra for comparison...");
+            dijkstraSettledCount = engine.shortestPath(source, target).getSettledCount();
+        }
+        updateProgress(1, 1);
+        return recorder.finish();
+    }
+}
@@ -0,0 +1,176 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.StepStyleModel.EdgeStyle;
+import com.dmsproject.dijkstravisualizer.StepStyleModel.NodeStyle;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Applies the changes reported by {@link StepStyleModel} to the UINodes, UIEdges and the
+ * Distances / Priority Queue lists. Only elements that actually change are restyled, so no
+ * transitions or effects are created for the rest of the graph. When the graph is drawn on
+ * a {@link GraphCanvas}, node and edge changes are passed on to the canvas instead.
+ * <p>
+ * Everything is addressed by node index: UINodes are looked up by ID once per run, and a
+ * UIEdge once per arc, the first time that arc is restyled.
+ */
+public class StepRenderer implements StepStyleModel.Sink {
+
+    private final CsrGraph graph;
+    private final UINode[] uiNodes; // By node index; empty when drawing on a canvas
+    private final BiFunction<String, String, UIEdge> edgeLookup;
+    private final UIEdge[] arcEdges; // UIEdge of each arc, filled in on first use; empty when drawing on a canvas
+    private final GraphCanvas canvas; // null when the graph is made of UINodes/UIEdges
+
+    private final ObservableList<String> distanceItems = FXCollections.observableArrayList();
+    private final ObservableList<NodeDistance> queueItems = FXCollections.observableArrayList(); // Kept sorted
+    private final int[] distanceRows; // Row of each node in distanceItems (rows are sorted by node ID)
+
+    public StepRenderer(CsrGraph graph, Map<String, UINode> uiNodes, BiFunction<String, String, UIEdge> edgeLookup) {
+        this(graph, uiNodes, edgeLookup, null);
+    }
+
+    /**
+     * Renders onto a canvas whose node indices are those of {@code graph}.
+     */
+    public StepRenderer(CsrGraph graph, GraphCanvas canvas) {
+        this(graph, Collections.emptyMap(), (a, b) -> null, canvas);
+    }
+
+    private StepRenderer(CsrGraph graph, Map<String, UINode> uiNodes, BiFunction<String, String, UIEdge> edgeLookup,
+                         GraphCanvas canvas) {
+        this.graph = graph;
+        this.edgeLookup = edgeLookup;
+        this.canvas = canvas;
+        this.uiNodes = new UINode[canvas != null ? 0 : graph.nodeCount()];
+        for (int v = 0; v < this.uiNodes.length; v++) {
+            this.uiNodes[v] = uiNodes.get(graph.idOf(v));
+        }
+        this.arcEdges = new UIEdge[canvas != null ? 0 : graph.arcCount()];
+
+        // Sort the distance rows by node ID once per run, as the full rebuild used to do every step
+        int n = graph.nodeCount();
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            order[v] = v;
+        }
+        Arrays.sort(order, Comparator.comparing(graph::idOf));
+        distanceRows = new int[n];
+        String[] rows = new String[n];
+        for (int row = 0; row < n; row++) {
+            distanceRows[order[row]] = row;
+            rows[row] = formatDistance(order[row], Double.POSITIVE_INFINITY);
+        }
+        distanceItems.setAll(rows);
+    }
+
+    public ObservableList<String> getDistanceItems() {
+        return distanceItems;
+    }
+
+    public ObservableList<NodeDistance> getQueueItems() {
+        return queueItems;
+    }
+
+    @Override
+    public void nodeStyleChanged(int node, NodeStyle style) {
+        if (canvas != null) {
+            canvas.nodeStyleChanged(node, style);
+            return;
+        }
+        UINode uiNode = uiNodes[node];
+        if (uiNode == null) {
+            return;
+        }
+        switch (style) {
+            case VISITED:
+                uiNode.setVisitedStyle();
+                break;
+            case BACKWARD_VISITED:
+                uiNode.setBackwardVisitedStyle();
+                break;
+            case CURRENT:
+                uiNode.setCurrentStyle();
+                break;
+            case PATH_END:
+                uiNode.setPathEndStyle();
+                break;
+            case UNREACHABLE:
+                uiNode.setUnreachableStyle();
+                break;
+            case FINALIZED:
+                uiNode.setFinalizedStyle();
+                break;
+            default:
+                uiNode.setDefaultStyle();
+                break;
+        }
+    }
+
+    @Override
+    public void edgeStyleChanged(int from, int to, EdgeStyle style) {
+        if (canvas != null) {
+            canvas.edgeStyleChanged(from, to, style);
+            return;
+        }
+        UIEdge uiEdge = uiEdgeOf(from, to);
+        if (uiEdge == null) {
+            return;
+        }
+        switch (style) {
+            case RELAXED:
+                uiEdge.setRelaxedStyle();
+                break;
+            case PATH:
+                uiEdge.setPathStyle();
+                break;
+            default:
+                uiEdge.setDefaultStyle();
+                break;
+        }
+    }
+
+    @Override
+    public void nodeStateChanged(int node, double oldDistance, boolean wasQueued, double newDistance, boolean queued) {
+        distanceItems.set(distanceRows[node], formatDistance(node, newDistance));
+        if (canvas != null) {
+            canvas.nodeStateChanged(node, oldDistance, wasQueued, newDistance, queued);
+        }
+
+        if (wasQueued) {
+            int index = Collections.binarySearch(queueItems, new NodeDistance(node, null, oldDistance));
+            if (index >= 0) {
+                queueItems.remove(index);
+            }
+        }
+        if (queued) {
+            NodeDistance entry = new NodeDistance(node, graph.idOf(node), newDistance);
+            int index = Collections.binarySearch(queueItems, entry);
+            queueItems.add(index < 0 ? -index - 1 : index, entry);
+        }
+    }
+
+    private UIEdge uiEdgeOf(int from, int to) {
+        for (int arc = graph.firstArc(from), end = graph.endArc(from); arc < end; arc++) {
+            if (graph.arcTarget(arc) == to) {
+                if (arcEdges[arc] == null) {
+                    arcEdges[arc] = edgeLookup.apply(graph.idOf(from), graph.idOf(to));
+                }
+                return arcEdges[arc];
+            }
+        }
+        return null; // Not an edge of this graph
+    }
+
+    private String formatDistance(int node, double distance) {
+        String distStr = (distance == Double.POSITIVE_INFINITY) ? "∞" : String.format("%.1f", distance);
+        return graph.idOf(node) + ": " + distStr;
+    }
+}
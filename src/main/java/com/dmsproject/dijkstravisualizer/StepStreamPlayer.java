@@ -0,0 +1,148 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.engine.SearchEvent;
+import com.dmsproject.dijkstravisualizer.engine.SearchStream;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import javafx.application.Platform;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Plays a {@link SearchStream} in the UI, one step per {@link #requestNext()}.
+ * <p>
+ * The player only requests an event from the stream when the viewer asks for the
+ * next step, so the search thread runs at most one buffer ahead of playback and
+ * then waits. Events are applied on the JavaFX thread through a
+ * {@link StreamingStepModel}; the resulting step is handed to {@code onStep}.
+ */
+public class StepStreamPlayer implements Flow.Subscriber<SearchEvent> {
+
+    private final SearchStream stream;
+    private final StreamingStepModel model;
+    private final StepStyleModel.Sink sink;
+    private final Consumer<AlgorithmStep> onStep;
+    private final Consumer<Throwable> onError;
+
+    private Flow.Subscription subscription; // Guarded by this
+    private long requestedBeforeSubscribe;  // Requests made before onSubscribe arrived, guarded by this
+    private boolean awaitingStep;           // FX thread only: a step was requested but not shown yet
+    private boolean finished;               // FX thread only
+    private volatile boolean cancelled;
+
+    public StepStreamPlayer(SearchStream stream, StepStyleModel.Sink sink,
+                            Consumer<AlgorithmStep> onStep, Consumer<Throwable> onError) {
+        this.stream = stream;
+        this.model = new StreamingStepModel(stream.getGraph(), stream.getSource(), stream.getTarget(), stream.isBidirectional());
+        this.sink = sink;
+        this.onStep = onStep;
+        this.onError = onError;
+    }
+
+    /**
+     * Subscribes to the stream and starts its search thread.
+     */
+    public void start() {
+        stream.subscribe(this);
+        stream.start();
+    }
+
+    /**
+     * Asks for the next step unless one is already on its way or the run is over.
+     * Must be called on the JavaFX thread.
+     */
+    public void requestNext() {
+        if (awaitingStep || finished || cancelled) {
+            return;
+        }
+        awaitingStep = true;
+        synchronized (this) {
+            if (subscription == null) {
+                requestedBeforeSubscribe++;
+                return;
+            }
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * @return true while a requested step has not been shown yet (the search may still be computing it)
+     */
+    public boolean isAwaitingStep() {
+        return awaitingStep;
+    }
+
+    /**
+     * @return true once the final step has been shown or the stream failed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return index of the last shown step, -1 before the first one
+     */
+    public int getPosition() {
+        return model.getPosition();
+    }
+
+    /**
+     * Stops the search thread; no further steps are shown.
+     */
+    public void cancel() {
+        cancelled = true;
+        Flow.Subscription current;
+        synchronized (this) {
+            current = subscription;
+        }
+        if (current != null) {
+            current.cancel();
+        }
+        stream.cancel();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long pending;
+        synchronized (this) {
+            this.subscription = subscription;
+            pending = requestedBeforeSubscribe;
+            requestedBeforeSubscribe = 0;
+        }
+        if (pending > 0) {
+            subscription.request(pending);
+        }
+    }
+
+    @Override
+    public void onNext(SearchEvent event) {
+        Platform.runLater(() -> {
+            if (cancelled) {
+                return;
+            }
+            awaitingStep = false;
+            AlgorithmStep step = model.apply(event, sink);
+            if (event.getType() == SearchTrace.EventType.FINISHED) {
+                finished = true;
+            }
+            onStep.accept(step);
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Platform.runLater(() -> {
+            if (cancelled) {
+                return;
+            }
+            finished = true;
+            awaitingStep = false;
+            onError.accept(throwable);
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        // The FINISHED event already marked the end of the run
+    }
+}
@@ -0,0 +1,286 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.AlgorithmStep.StepType;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.TraceCursor;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Works out how every node and edge should look at a given step of a recorded run,
+ * and reports only the elements whose look or state differs from the step shown before.
+ * <p>
+ * Moving from one step to another only re-examines the nodes touched by the trace events
+ * in between, plus the previous and new "current" node, the end node and the highlighted
+ * edges. Playback cost per step is therefore proportional to what changed, forwards,
+ * backwards or across a seek. This class has no JavaFX dependency; {@link StepRenderer}
+ * applies the reported changes to the scene graph.
+ * <p>
+ * In a bidirectional run, nodes settled by the backward search get their own style, and
+ * a node only reached from the target shows its distance to the target.
+ */
+public class StepStyleModel {
+
+    public enum NodeStyle {
+        DEFAULT, VISITED, CURRENT, PATH_END, UNREACHABLE, FINALIZED, BACKWARD_VISITED
+    }
+
+    public enum EdgeStyle {
+        DEFAULT, RELAXED, PATH
+    }
+
+    /**
+     * Receives the differences found by {@link #moveTo(int, Sink)}.
+     */
+    public interface Sink {
+        void nodeStyleChanged(int node, NodeStyle style);
+
+        void edgeStyleChanged(int from, int to, EdgeStyle style);
+
+        /**
+         * The node's tentative distance or its presence in the queue changed.
+         */
+        void nodeStateChanged(int node, double oldDistance, boolean wasQueued, double newDistance, boolean queued);
+    }
+
+    private static final NodeStyle[] NODE_STYLES = NodeStyle.values();
+
+    private final SearchTrace trace;
+    private final TraceCursor cursor;
+    private final int nodeCount;
+    private final byte[] shownStyles;        // NodeStyle ordinal currently shown per node
+    private final double[] shownDistances;   // Distance currently shown per node
+    private final BitSet shownQueued;        // Nodes currently shown in the queue
+    private Map<Long, EdgeStyle> shownEdges = new HashMap<>(); // Highlighted edges only, keyed by node pair
+    private int position = -1; // Step currently shown, -1 before the first one
+
+    private final int[] dirtyNodes;
+    private final BitSet dirtyMarks;
+    private int dirtyCount;
+
+    public StepStyleModel(SearchTrace trace) {
+        this.trace = trace;
+        this.cursor = new TraceCursor(trace);
+        this.nodeCount = trace.getGraph().nodeCount();
+        this.shownStyles = new byte[nodeCount];
+        this.shownDistances = new double[nodeCount];
+        this.shownQueued = new BitSet(nodeCount);
+        Arrays.fill(shownDistances, Double.POSITIVE_INFINITY);
+        this.dirtyNodes = new int[nodeCount];
+        this.dirtyMarks = new BitSet(nodeCount);
+    }
+
+    public SearchTrace getTrace() {
+        return trace;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Maps a trace event to the step type shown for it.
+     */
+    public static StepType stepTypeOf(SearchTrace trace, int event) {
+        return stepTypeOf(trace.type(event), trace.getTarget(), trace.distance(event));
+    }
+
+    /**
+     * Maps an event (from a trace or a stream) to the step type shown for it.
+     */
+    static StepType stepTypeOf(SearchTrace.EventType eventType, int target, double distance) {
+        switch (eventType) {
+            case INITIALIZED:
+                return StepType.INITIALIZED;
+            case NODE_SETTLED:
+                return StepType.NODE_EXTRACTED;
+            case EDGE_RELAXED:
+                return StepType.EDGE_RELAXED;
+            case BUCKET_OPENED:
+                return StepType.BUCKET_OPENED;
+            default:
+                if (target == -1) {
+                    return StepType.ALGORITHM_FINISHED_ALL_PATHS;
+                }
+                return distance == Double.POSITIVE_INFINITY ? StepType.NO_PATH_FOUND : StepType.PATH_FOUND;
+        }
+    }
+
+    /**
+     * @return the node highlighted as "current" at the event, or -1
+     */
+    public static int currentNodeOf(SearchTrace trace, int event) {
+        return currentNodeOf(trace.type(event), trace.node(event), trace.fromNode(event), trace.getTarget());
+    }
+
+    static int currentNodeOf(SearchTrace.EventType eventType, int node, int fromNode, int target) {
+        switch (eventType) {
+            case INITIALIZED:
+            case NODE_SETTLED:
+                return node;
+            case EDGE_RELAXED:
+                return fromNode;
+            case BUCKET_OPENED:
+                return -1;
+            default:
+                return target;
+        }
+    }
+
+    /**
+     * Shows the given step, reporting every node and edge that has to change.
+     */
+    public void moveTo(int step, Sink sink) {
+        int previous = position;
+        if (step == previous) {
+            return;
+        }
+        cursor.moveTo(step);
+        position = step;
+
+        boolean everything = Math.abs(step - previous) > nodeCount
+                || isAllPathsFinish(previous) || isAllPathsFinish(step);
+        if (everything) {
+            for (int v = 0; v < nodeCount; v++) {
+                markDirty(v);
+            }
+        } else {
+            // Only nodes touched by the events in between can have a different state
+            for (int e = Math.min(previous, step) + 1; e <= Math.max(previous, step); e++) {
+                if (trace.node(e) != -1) {
+                    markDirty(trace.node(e));
+                }
+            }
+            markSpecialNodes(previous);
+            markSpecialNodes(step);
+        }
+
+        StepType type = stepTypeOf(trace, step);
+        int current = currentNodeOf(trace, step);
+        for (int i = 0; i < dirtyCount; i++) {
+            int v = dirtyNodes[i];
+            dirtyMarks.clear(v);
+
+            NodeStyle style = nodeStyleOf(v, type, current);
+            if (style.ordinal() != shownStyles[v]) {
+                shownStyles[v] = (byte) style.ordinal();
+                sink.nodeStyleChanged(v, style);
+            }
+
+            double distance = cursor.shownDistance(v);
+            boolean queued = cursor.isQueued(v);
+            if (distance != shownDistances[v] || queued != shownQueued.get(v)) {
+                sink.nodeStateChanged(v, shownDistances[v], shownQueued.get(v), distance, queued);
+                shownDistances[v] = distance;
+                shownQueued.set(v, queued);
+            }
+        }
+        dirtyCount = 0;
+
+        updateEdges(step, type, sink);
+    }
+
+    public NodeStyle shownStyleOf(int node) {
+        return NODE_STYLES[shownStyles[node]];
+    }
+
+    private NodeStyle nodeStyleOf(int node, StepType type, int current) {
+        return nodeStyleOf(cursor.isSettled(node), cursor.isBackwardSettled(node),
+                cursor.distance(node) != Double.POSITIVE_INFINITY, node == current, node == trace.getTarget(), type);
+    }
+
+    static NodeStyle nodeStyleOf(boolean settled, boolean backwardSettled, boolean reached, boolean current,
+                                 boolean target, StepType type) {
+        // Same precedence the full restyle used: visited, then current, then the final-step styles
+        NodeStyle style = settled ? NodeStyle.VISITED : backwardSettled ? NodeStyle.BACKWARD_VISITED : NodeStyle.DEFAULT;
+        if (current) {
+            style = NodeStyle.CURRENT;
+        }
+        switch (type) {
+            case PATH_FOUND:
+                if (target) {
+                    style = NodeStyle.PATH_END;
+                }
+                break;
+            case NO_PATH_FOUND:
+                if (target) {
+                    style = NodeStyle.UNREACHABLE;
+                }
+                break;
+            case ALGORITHM_FINISHED_ALL_PATHS:
+                if (reached) {
+                    style = NodeStyle.FINALIZED;
+                }
+                break;
+            default:
+                break;
+        }
+        return style;
+    }
+
+    private void updateEdges(int step, StepType type, Sink sink) {
+        Map<Long, EdgeStyle> wanted = new HashMap<>();
+        if (type == StepType.EDGE_RELAXED) {
+            wanted.put(edgeKey(trace.fromNode(step), trace.node(step)), EdgeStyle.RELAXED);
+        } else if (type == StepType.PATH_FOUND) {
+            int[] path = cursor.foundPath();
+            for (int i = 0; i + 1 < path.length; i++) {
+                wanted.put(edgeKey(path[i], path[i + 1]), EdgeStyle.PATH);
+            }
+        }
+
+        for (Map.Entry<Long, EdgeStyle> entry : shownEdges.entrySet()) {
+            if (!wanted.containsKey(entry.getKey())) {
+                sink.edgeStyleChanged(keyFrom(entry.getKey()), keyTo(entry.getKey()), EdgeStyle.DEFAULT);
+            }
+        }
+        for (Map.Entry<Long, EdgeStyle> entry : wanted.entrySet()) {
+            if (shownEdges.get(entry.getKey()) != entry.getValue()) {
+                sink.edgeStyleChanged(keyFrom(entry.getKey()), keyTo(entry.getKey()), entry.getValue());
+            }
+        }
+        shownEdges = wanted;
+    }
+
+    private void markSpecialNodes(int event) {
+        if (event < 0) {
+            return;
+        }
+        int current = currentNodeOf(trace, event);
+        if (current != -1) {
+            markDirty(current);
+        }
+        if (trace.getTarget() != -1) {
+            markDirty(trace.getTarget());
+        }
+    }
+
+    private boolean isAllPathsFinish(int event) {
+        return event >= 0 && trace.getTarget() == -1 && trace.type(event) == SearchTrace.EventType.FINISHED;
+    }
+
+    private void markDirty(int node) {
+        if (!dirtyMarks.get(node)) {
+            dirtyMarks.set(node);
+            dirtyNodes[dirtyCount++] = node;
+        }
+    }
+
+    // Undirected edges are identified by their (smaller, larger) node pair
+    static long edgeKey(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xffffffffL);
+    }
+
+    static int keyFrom(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int keyTo(long key) {
+        return (int) key;
+    }
+}
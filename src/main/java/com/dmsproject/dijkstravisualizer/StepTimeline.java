@@ -0,0 +1,90 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.AlgorithmStep.StepType;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.SearchTrace;
+import com.dmsproject.dijkstravisualizer.engine.TraceCursor;
+
+import java.util.*;
+
+/**
+ * Read-only list of the steps of one run, backed by a delta-encoded {@link SearchTrace}.
+ * <p>
+ * {@link #get(int)} creates a lightweight {@link AlgorithmStep}; its full state is only
+ * rebuilt (by moving a {@link TraceCursor} to the step) if one of its state getters is used.
+ */
+public class StepTimeline extends AbstractList<AlgorithmStep> {
+
+    private final SearchTrace trace;
+    private final TraceCursor cursor;
+    private final CsrGraph graph;
+    private final String startNodeId;
+    private final String endNodeId; // null in "all paths" mode
+
+    public StepTimeline(SearchTrace trace) {
+        this.trace = trace;
+        this.cursor = new TraceCursor(trace);
+        this.graph = trace.getGraph();
+        this.startNodeId = graph.idOf(trace.getSource());
+        this.endNodeId = trace.getTarget() == -1 ? null : graph.idOf(trace.getTarget());
+    }
+
+    public SearchTrace getTrace() {
+        return trace;
+    }
+
+    @Override
+    public int size() {
+        return trace.size();
+    }
+
+    @Override
+    public AlgorithmStep get(int index) {
+        if (index < 0 || index >= trace.size()) {
+            throw new IndexOutOfBoundsException("Step " + index + " out of range [0, " + trace.size() + ")");
+        }
+        StepType type = StepStyleModel.stepTypeOf(trace, index);
+        int current = StepStyleModel.currentNodeOf(trace, index);
+        String currentNodeId = (current == -1) ? null : graph.idOf(current);
+        String relaxedSourceNodeId = null;
+        String relaxedTargetNodeId = null;
+        List<String> path = null;
+
+        if (type == StepType.EDGE_RELAXED) {
+            relaxedSourceNodeId = graph.idOf(trace.fromNode(index));
+            relaxedTargetNodeId = graph.idOf(trace.node(index));
+        } else if (type == StepType.PATH_FOUND) {
+            cursor.moveTo(index);
+            path = new ArrayList<>();
+            for (int node : cursor.foundPath()) {
+                path.add(graph.idOf(node));
+            }
+            path = Collections.unmodifiableList(path);
+        }
+
+        return new AlgorithmStep(this, index, type, trace.isBackward(index), currentNodeId, relaxedSourceNodeId,
+                relaxedTargetNodeId, trace.distance(index), startNodeId, path, endNodeId, endNodeId == null);
+    }
+
+    // Rebuilds the full state of one step from the cursor (O(V) array copies; only used on demand).
+    // In a bidirectional run, nodes only reached from the target show their distance to it and
+    // their next node towards it.
+    AlgorithmStep.State buildState(int index) {
+        cursor.moveTo(index);
+        int n = graph.nodeCount();
+        double[] distances = new double[n];
+        int[] predecessors = new int[n];
+        BitSet visited = new BitSet(n);
+        for (int v = 0; v < n; v++) {
+            distances[v] = cursor.shownDistance(v);
+            predecessors[v] = cursor.predecessor(v);
+            if (predecessors[v] == -1 && trace.isBidirectional()) {
+                predecessors[v] = cursor.backwardSuccessor(v);
+            }
+            if (cursor.isSettled(v) || cursor.isBackwardSettled(v)) {
+                visited.set(v);
+            }
+        }
+        return new AlgorithmStep.State(graph, distances, predecessors, visited, cursor.queuedNodes());
+    }
+}
@@ -0,0 +1,193 @@
+package com.dmsproject.dijkstravisualizer;
+
+import com.dmsproject.dijkstravisualizer.AlgorithmStep.StepType;
+import com.dmsproject.dijkstravisualizer.StepStyleModel.EdgeStyle;
+import com.dmsproject.dijkstravisualizer.StepStyleModel.NodeStyle;
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.SearchEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forward-only counterpart of {@link StepStyleModel} for streamed runs.
+ * <p>
+ * Events arrive one at a time from an engine.SearchStream and are applied to the
+ * current state (one distance, predecessor and settled entry per node) instead of
+ * being kept, so memory does not grow with the run. Each event reports only the
+ * changed nodes and edges to a {@link StepStyleModel.Sink}, using the same styles and
+ * precedence as recorded playback, and yields the {@link AlgorithmStep} to display.
+ * A bidirectional stream also keeps the state of the backward search.
+ */
+public class StreamingStepModel {
+
+    private final CsrGraph graph;
+    private final int source;
+    private final int target;
+    private final String startNodeId;
+    private final String endNodeId; // null in "all paths" mode
+    private final double[] distances;
+    private final int[] predecessors;
+    private final BitSet settled;
+    private final double[] backwardDistances; // Backward search of a bidirectional run, otherwise null
+    private final int[] backwardSuccessors;
+    private final BitSet backwardSettled;
+    private final byte[] shownStyles;
+    private Map<Long, EdgeStyle> shownEdges = new HashMap<>();
+    private int current = -1;
+    private int position = -1;
+
+    public StreamingStepModel(CsrGraph graph, int source, int target) {
+        this(graph, source, target, false);
+    }
+
+    public StreamingStepModel(CsrGraph graph, int source, int target, boolean bidirectional) {
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        this.startNodeId = graph.idOf(source);
+        this.endNodeId = target == -1 ? null : graph.idOf(target);
+        int n = graph.nodeCount();
+        this.distances = new double[n];
+        this.predecessors = new int[n];
+        this.settled = new BitSet(n);
+        this.shownStyles = new byte[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+        this.backwardDistances = bidirectional ? new double[n] : null;
+        this.backwardSuccessors = bidirectional ? new int[n] : null;
+        this.backwardSettled = bidirectional ? new BitSet(n) : null;
+        if (bidirectional) {
+            Arrays.fill(backwardDistances, Double.POSITIVE_INFINITY);
+            Arrays.fill(backwardSuccessors, -1);
+        }
+    }
+
+    /**
+     * @return index of the last applied step, -1 before the first one
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Applies the next event of the stream, reporting what changed, and returns the step to display.
+     */
+    public AlgorithmStep apply(SearchEvent event, StepStyleModel.Sink sink) {
+        int node = event.getNode();
+        double distance = event.getDistance();
+        boolean backward = event.isBackward();
+        double[] sideDistances = backward ? backwardDistances : distances;
+        double oldShown = shownDistance(node);
+        boolean wasQueued = isQueued(node);
+        switch (event.getType()) {
+            case INITIALIZED:
+                sideDistances[node] = 0.0;
+                break;
+            case NODE_SETTLED:
+                (backward ? backwardSettled : settled).set(node);
+                break;
+            case EDGE_RELAXED:
+                sideDistances[node] = distance;
+                (backward ? backwardSuccessors : predecessors)[node] = event.getFromNode();
+                break;
+            case FINISHED:
+                break;
+        }
+        if (shownDistance(node) != oldShown || isQueued(node) != wasQueued) {
+            sink.nodeStateChanged(node, oldShown, wasQueued, shownDistance(node), isQueued(node));
+        }
+        position++;
+
+        StepType type = StepStyleModel.stepTypeOf(event.getType(), target, distance);
+        int previousCurrent = current;
+        current = StepStyleModel.currentNodeOf(event.getType(), node, event.getFromNode(), target);
+        if (type == StepType.ALGORITHM_FINISHED_ALL_PATHS) {
+            for (int v = 0; v < shownStyles.length; v++) {
+                restyle(v, type, sink);
+            }
+        } else {
+            restyle(previousCurrent, type, sink);
+            restyle(current, type, sink);
+            restyle(node, type, sink);
+        }
+
+        List<String> path = null;
+        Map<Long, EdgeStyle> wanted = new HashMap<>();
+        if (type == StepType.EDGE_RELAXED) {
+            wanted.put(StepStyleModel.edgeKey(event.getFromNode(), node), EdgeStyle.RELAXED);
+        } else if (type == StepType.PATH_FOUND) {
+            // A bidirectional run names the meeting node; the backward tree leads on from it to the target
+            int meeting = backwardDistances != null ? event.getFromNode() : target;
+            path = new ArrayList<>();
+            for (int v = meeting; v != -1; v = (v == source) ? -1 : predecessors[v]) {
+                path.add(graph.idOf(v));
+                if (v != source) {
+                    wanted.put(StepStyleModel.edgeKey(predecessors[v], v), EdgeStyle.PATH);
+                }
+            }
+            Collections.reverse(path);
+            for (int v = meeting; backwardDistances != null && backwardSuccessors[v] != -1; v = backwardSuccessors[v]) {
+                path.add(graph.idOf(backwardSuccessors[v]));
+                wanted.put(StepStyleModel.edgeKey(v, backwardSuccessors[v]), EdgeStyle.PATH);
+            }
+            path = Collections.unmodifiableList(path);
+        }
+        updateEdges(wanted, sink);
+
+        String relaxedSourceNodeId = null;
+        String relaxedTargetNodeId = null;
+        if (type == StepType.EDGE_RELAXED) {
+            relaxedSourceNodeId = graph.idOf(event.getFromNode());
+            relaxedTargetNodeId = graph.idOf(node);
+        }
+        return new AlgorithmStep(null, position, type, backward, current == -1 ? null : graph.idOf(current),
+                relaxedSourceNodeId, relaxedTargetNodeId, distance, startNodeId, path, endNodeId, endNodeId == null);
+    }
+
+    // Same rules as TraceCursor.shownDistance / isQueued
+    private double shownDistance(int node) {
+        if (distances[node] != Double.POSITIVE_INFINITY || backwardDistances == null) {
+            return distances[node];
+        }
+        return backwardDistances[node];
+    }
+
+    private boolean isQueued(int node) {
+        if (distances[node] != Double.POSITIVE_INFINITY || backwardDistances == null) {
+            return distances[node] != Double.POSITIVE_INFINITY && !settled.get(node);
+        }
+        return backwardDistances[node] != Double.POSITIVE_INFINITY && !backwardSettled.get(node);
+    }
+
+    private void restyle(int node, StepType type, StepStyleModel.Sink sink) {
+        if (node == -1) {
+            return;
+        }
+        NodeStyle style = StepStyleModel.nodeStyleOf(settled.get(node), backwardSettled != null && backwardSettled.get(node),
+                distances[node] != Double.POSITIVE_INFINITY, node == current, node == target, type);
+        if (style.ordinal() != shownStyles[node]) {
+            shownStyles[node] = (byte) style.ordinal();
+            sink.nodeStyleChanged(node, style);
+        }
+    }
+
+    private void updateEdges(Map<Long, EdgeStyle> wanted, StepStyleModel.Sink sink) {
+        for (Map.Entry<Long, EdgeStyle> entry : shownEdges.entrySet()) {
+            if (!wanted.containsKey(entry.getKey())) {
+                sink.edgeStyleChanged(StepStyleModel.keyFrom(entry.getKey()), StepStyleModel.keyTo(entry.getKey()), EdgeStyle.DEFAULT);
+            }
+        }
+        for (Map.Entry<Long, EdgeStyle> entry : wanted.entrySet()) {
+            if (shownEdges.get(entry.getKey()) != entry.getValue()) {
+                sink.edgeStyleChanged(StepStyleModel.keyFrom(entry.getKey()), StepStyleModel.keyTo(entry.getKey()), entry.getValue());
+            }
+        }
+        shownEdges = wanted;
+    }
+}
@@ -20,33 +20,36 @@ public class UIEdge extends Group {
     private Label weightLabel;
     private Rectangle labelBackground;
 
+    private DropShadow glow;             // Glow of the current style, kept while shadows are hidden
+    private boolean shadowsShown = true; // False when zoomed out (see GraphViewport)
+
     private UINode sourceNode;
     private UINode targetNode;
     private double weight;
 
     // --- ENHANCED COLOR PALETTE & STYLING CONSTANTS ---
-    private static final String DEFAULT_EDGE_COLOR = "#B0BEC5";
-    private static final double DEFAULT_EDGE_STROKE_WIDTH = 2.0;
+    static final String DEFAULT_EDGE_COLOR = "#B0BEC5";
+    static final double DEFAULT_EDGE_STROKE_WIDTH = 2.0;
 
-    private static final String RELAXED_EDGE_COLOR = "#FFC107";
-    private static final double RELAXED_EDGE_STROKE_WIDTH = 3.0;
+    static final String RELAXED_EDGE_COLOR = "#FFC107";
+    static final double RELAXED_EDGE_STROKE_WIDTH = 3.0;
 
-    private static final String PATH_EDGE_COLOR = "#4CAF50";
-    private static final double PATH_EDGE_STROKE_WIDTH = 4.0;
+    static final String PATH_EDGE_COLOR = "#4CAF50";
+    static final double PATH_EDGE_STROKE_WIDTH = 4.0;
 
     // Colors for the label's background and text, chosen to complement the line colors
-    private static final String LABEL_DEFAULT_BG_COLOR = "#FFFFFF";
-    private static final String LABEL_DEFAULT_BG_STROKE_COLOR = "#BDBDBD";
-    private static final String LABEL_DEFAULT_TEXT_COLOR = "#212121";
+    static final String LABEL_DEFAULT_BG_COLOR = "#FFFFFF";
+    static final String LABEL_DEFAULT_BG_STROKE_COLOR = "#BDBDBD";
+    static final String LABEL_DEFAULT_TEXT_COLOR = "#212121";
 
-    private static final String LABEL_RELAXED_BG_COLOR = "#FFF3E0";
-    private static final String LABEL_RELAXED_BG_STROKE_COLOR = "#FF9800";
-    private static final String LABEL_RELAXED_TEXT_COLOR = "#E65100";
+    static final String LABEL_RELAXED_BG_COLOR = "#FFF3E0";
+    static final String LABEL_RELAXED_BG_STROKE_COLOR = "#FF9800";
+    static final String LABEL_RELAXED_TEXT_COLOR = "#E65100";
 
     // UPDATED: Path label background and text for better contrast
-    private static final String LABEL_PATH_BG_COLOR = "#388E3C"; // Darker green for background (Material Green 700)
-    private static final String LABEL_PATH_BG_STROKE_COLOR = "#2E7D32"; // Even darker green for border (Material Green 800)
-    private static final String LABEL_PATH_TEXT_COLOR = "#FFFFFF"; // White text for contrast on dark green
+    static final String LABEL_PATH_BG_COLOR = "#388E3C"; // Darker green for background (Material Green 700)
+    static final String LABEL_PATH_BG_STROKE_COLOR = "#2E7D32"; // Even darker green for border (Material Green 800)
+    static final String LABEL_PATH_TEXT_COLOR = "#FFFFFF"; // White text for contrast on dark green
 
 
     private static final Duration EDGE_TRANSITION_DURATION = Duration.millis(300);
@@ -82,6 +85,8 @@ public class UIEdge extends Group {
         line.startYProperty().addListener((obs, oldVal, newVal) -> updateLabelPosition());
         line.endXProperty().addListener((obs, oldVal, newVal) -> updateLabelPosition());
         line.endYProperty().addListener((obs, oldVal, newVal) -> updateLabelPosition());
+        // Label positions are not maintained while the edge is culled, so catch up when it reappears
+        visibleProperty().addListener((obs, wasVisible, isVisible) -> updateLabelPosition());
 
         updateLabelPosition();
 
@@ -96,6 +101,9 @@ public class UIEdge extends Group {
     }
 
     private void updateLabelPosition() {
+        if (!isVisible() || !weightLabel.isVisible()) {
+            return; // Off-screen or hidden by level of detail; updated again once shown
+        }
         double startX = line.getStartX();
         double startY = line.getStartY();
         double endX = line.getEndX();
@@ -157,15 +165,28 @@ public class UIEdge extends Group {
         labelBackground.setStroke(Color.web(labelBgStrokeColor));
 
         if (addGlow) {
-            DropShadow glow = new DropShadow();
+            glow = new DropShadow();
             glow.setColor(Color.web(strokeColorHex).brighter());
             glow.setRadius(10);
             glow.setSpread(0.5);
             glow.setBlurType(BlurType.GAUSSIAN);
-            line.setEffect(glow);
         } else {
-            line.setEffect(null);
+            glow = null;
         }
+        line.setEffect(shadowsShown ? glow : null);
+    }
+
+    // --- Level of detail (driven by the zoom level, see GraphViewport) ---
+
+    public void setShadowsShown(boolean shown) {
+        shadowsShown = shown;
+        line.setEffect(shown ? glow : null);
+    }
+
+    public void setWeightLabelShown(boolean shown) {
+        weightLabel.setVisible(shown);
+        labelBackground.setVisible(shown);
+        updateLabelPosition();
     }
 
     public void highlightAsPath() {
@@ -0,0 +1,57 @@
+package com.dmsproject.dijkstravisualizer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Looks up the {@link UIEdge} drawn between two nodes in constant time.
+ * <p>
+ * Edges are undirected, so every edge is stored under both of its endpoints:
+ * {@code get(a, b)} and {@code get(b, a)} return the same edge, and
+ * {@link #incidentEdges(String)} lists a node's edges in O(degree).
+ */
+public class UIEdgeIndex {
+
+    private final Map<String, Map<String, UIEdge>> edgesByNode = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * Indexes the edge under its two endpoints, replacing any edge already drawn between them.
+     */
+    public void add(UIEdge edge) {
+        String sourceId = edge.getSourceNode().getNodeId();
+        String targetId = edge.getTargetNode().getNodeId();
+        UIEdge previous = edgesByNode.computeIfAbsent(sourceId, id -> new HashMap<>()).put(targetId, edge);
+        edgesByNode.computeIfAbsent(targetId, id -> new HashMap<>()).put(sourceId, edge);
+        if (previous == null) {
+            size++;
+        }
+    }
+
+    /**
+     * @return the edge between the two nodes in either direction, or null if there is none
+     */
+    public UIEdge get(String node1Id, String node2Id) {
+        Map<String, UIEdge> incident = edgesByNode.get(node1Id);
+        return incident == null ? null : incident.get(node2Id);
+    }
+
+    /**
+     * @return the edges touching the node (read-only view), empty if it has none
+     */
+    public Collection<UIEdge> incidentEdges(String nodeId) {
+        Map<String, UIEdge> incident = edgesByNode.get(nodeId);
+        return incident == null ? Collections.emptyList() : Collections.unmodifiableCollection(incident.values());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        edgesByNode.clear();
+        size = 0;
+    }
+}
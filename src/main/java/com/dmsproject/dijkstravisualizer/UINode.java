@@ -29,42 +29,51 @@ public class UINode extends StackPane {
     private Label idLabel;
     private Label distanceLabel;
 
+    private DropShadow shadow;          // Effect of the current style, kept while shadows are hidden
+    private boolean shadowsShown = true; // False when zoomed out (see GraphViewport)
+
     private String nodeId;
     private double currentDistance = Double.POSITIVE_INFINITY;
     private UINode previousNodeInPath;
 
     // --- NEW COLOR PALETTE & STYLES ---
     // Using a more cohesive and visually pleasing palette.
-    private static final String DEFAULT_NODE_FILL = "#BBDEFB"; // Light Blue (Material Design Blue 100)
-    private static final String DEFAULT_NODE_STROKE = "#2196F3"; // Deeper Blue (Material Design Blue 500)
+    static final String DEFAULT_NODE_FILL = "#BBDEFB"; // Light Blue (Material Design Blue 100)
+    static final String DEFAULT_NODE_STROKE = "#2196F3"; // Deeper Blue (Material Design Blue 500)
+
+    static final String VISITED_NODE_FILL = "#E0E0E0"; // Light Grey (Material Design Grey 300)
+    static final String VISITED_NODE_STROKE = "#9E9E9E"; // Medium Grey (Material Design Grey 500)
 
-    private static final String VISITED_NODE_FILL = "#E0E0E0"; // Light Grey (Material Design Grey 300)
-    private static final String VISITED_NODE_STROKE = "#9E9E9E"; // Medium Grey (Material Design Grey 500)
+    // Nodes settled by the search from the end node in a bidirectional run
+    static final String BACKWARD_VISITED_NODE_FILL = "#E1BEE7"; // Light Purple (Material Design Purple 100)
+    static final String BACKWARD_VISITED_NODE_STROKE = "#AB47BC"; // Purple (Material Design Purple 400)
 
-    private static final String CURRENT_NODE_FILL = "#FFCC80"; // Light Orange (Material Design Orange 200)
-    private static final String CURRENT_NODE_STROKE = "#FF9800"; // Vibrant Orange (Material Design Orange 500)
+    static final String CURRENT_NODE_FILL = "#FFCC80"; // Light Orange (Material Design Orange 200)
+    static final String CURRENT_NODE_STROKE = "#FF9800"; // Vibrant Orange (Material Design Orange 500)
 
-    private static final String PATH_NODE_FILL = "#A5D6A7"; // Light Green (Material Design Green 200)
-    private static final String PATH_NODE_STROKE = "#4CAF50"; // Vibrant Green (Material Design Green 500)
+    static final String PATH_NODE_FILL = "#A5D6A7"; // Light Green (Material Design Green 200)
+    static final String PATH_NODE_STROKE = "#4CAF50"; // Vibrant Green (Material Design Green 500)
 
-    private static final String UNREACHABLE_NODE_FILL = "#BDBDBD"; // Medium Grey (Material Design Grey 400)
-    private static final String UNREACHABLE_NODE_STROKE = "#757575"; // Dark Grey (Material Design Grey 600)
+    static final String UNREACHABLE_NODE_FILL = "#BDBDBD"; // Medium Grey (Material Design Grey 400)
+    static final String UNREACHABLE_NODE_STROKE = "#757575"; // Dark Grey (Material Design Grey 600)
 
-    private static final String FINALIZED_NODE_FILL = "#C8E6C9"; // Even Lighter Green (for finalized path nodes if distinct)
+    static final String FINALIZED_NODE_FILL = "#C8E6C9"; // Even Lighter Green (for finalized path nodes if distinct)
 
     // --- Highlighting Colors ---
     // Using a distinct, attention-grabbing color for selection
-    private static final String SELECTION_HIGHLIGHT_COLOR = "#FFD54F"; // Amber (Material Design Amber 300)
-    private static final String SELECTION_HIGHLIGHT_STROKE_COLOR = "#FFC107"; // Darker Amber (Material Design Amber 500)
+    static final String SELECTION_HIGHLIGHT_COLOR = "#FFD54F"; // Amber (Material Design Amber 300)
+    static final String SELECTION_HIGHLIGHT_STROKE_COLOR = "#FFC107"; // Darker Amber (Material Design Amber 500)
 
     // --- NEW START/END NODE COLORS ---
     // Visually distinct colors for start and end nodes.
-    private static final String START_NODE_FILL = "#9FA8DA"; // Indigo 200 (Soft blue-purple)
-    private static final String START_NODE_STROKE = "#3F51B5"; // Indigo 500 (Deeper blue-purple)
+    static final String START_NODE_FILL = "#9FA8DA"; // Indigo 200 (Soft blue-purple)
+    static final String START_NODE_STROKE = "#3F51B5"; // Indigo 500 (Deeper blue-purple)
+
+    static final String END_NODE_FILL = "#FFAB91"; // Deep Orange 200 (Warm, distinct orange)
+    static final String END_NODE_STROKE = "#FF5722"; // Deep Orange 500 (Vibrant orange)
 
-    private static final String END_NODE_FILL = "#FFAB91"; // Deep Orange 200 (Warm, distinct orange)
-    private static final String END_NODE_STROKE = "#FF5722"; // Deep Orange 500 (Vibrant orange)
 
+    static final double NODE_RADIUS = 25; // Slightly larger node for better visibility
 
     // Animation durations
     private static final Duration STYLE_TRANSITION_DURATION = Duration.millis(300);
@@ -74,9 +83,9 @@ public class UINode extends StackPane {
     public UINode(String nodeId, double x, double y) {
         this.nodeId = nodeId;
 
-        circle = new Circle(25); // Slightly larger node for better visibility
+        circle = new Circle(NODE_RADIUS);
         // Subtle shadow (30% opaque black)
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0));
 
         idLabel = new Label(nodeId);
         idLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14)); // Clearer font
@@ -107,6 +116,7 @@ public class UINode extends StackPane {
                     currentFill.equalsIgnoreCase(Color.web(END_NODE_FILL).toString())) {
                 circle.setStrokeWidth(2); // Default, Unreachable, Start, End nodes can have 2px or adjusted base stroke
             } else if (currentFill.equalsIgnoreCase(Color.web(VISITED_NODE_FILL).toString()) ||
+                    currentFill.equalsIgnoreCase(Color.web(BACKWARD_VISITED_NODE_FILL).toString()) ||
                     currentFill.equalsIgnoreCase(Color.web(FINALIZED_NODE_FILL).toString())) {
                 circle.setStrokeWidth(3); // Visited and Finalized nodes have 3px stroke
             } else if (currentFill.equalsIgnoreCase(Color.web(CURRENT_NODE_FILL).toString()) ||
@@ -122,9 +132,10 @@ public class UINode extends StackPane {
         this.onClickHandler = handler;
     }
 
+    // Without a handler the click goes on to the parent, which may find the node by position
     private void handleNodeClicked(MouseEvent event) {
-        event.consume();
         if (onClickHandler != null) {
+            event.consume();
             onClickHandler.accept(this);
         }
     }
@@ -138,6 +149,15 @@ public class UINode extends StackPane {
         return circle;
     }
 
+    // Centre of the circle in graph pane coordinates (the position stored in saved graphs)
+    public double getCenterX() {
+        return getLayoutX() + circle.getRadius();
+    }
+
+    public double getCenterY() {
+        return getLayoutY() + circle.getRadius();
+    }
+
     public double getCurrentDistance() {
         return currentDistance;
     }
@@ -182,43 +202,48 @@ public class UINode extends StackPane {
 
     public void setDefaultStyle() {
         applyNodeStyle(DEFAULT_NODE_FILL, DEFAULT_NODE_STROKE, 2, Color.BLACK); // Black text on light blue
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Reset subtle shadow
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Reset subtle shadow
     }
 
     public void setVisitedStyle() {
         applyNodeStyle(VISITED_NODE_FILL, VISITED_NODE_STROKE, 3, Color.BLACK); // Black text on grey
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Subtle shadow
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Subtle shadow
+    }
+
+    public void setBackwardVisitedStyle() {
+        applyNodeStyle(BACKWARD_VISITED_NODE_FILL, BACKWARD_VISITED_NODE_STROKE, 3, Color.BLACK); // Black text on light purple
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Subtle shadow
     }
 
     public void setCurrentStyle() {
         applyNodeStyle(CURRENT_NODE_FILL, CURRENT_NODE_STROKE, 3.5, Color.BLACK); // Black text on light orange
         // More prominent shadow, using the current node's stroke color for coherence
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web(CURRENT_NODE_STROKE), 10, 0.7, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web(CURRENT_NODE_STROKE), 10, 0.7, 0, 0));
     }
 
     // This style is for the nodes that are part of the final shortest path
     public void setPathStyle() {
         applyNodeStyle(PATH_NODE_FILL, PATH_NODE_STROKE, 3.5, Color.WHITE); // White text on green
         // More prominent shadow, using the path node's stroke color for coherence
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web(PATH_NODE_STROKE), 10, 0.7, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web(PATH_NODE_STROKE), 10, 0.7, 0, 0));
     }
 
     // This style is for the specific END node if a path was found to it
     public void setPathEndStyle() {
         applyNodeStyle(PATH_NODE_FILL, PATH_NODE_STROKE, 3.5, Color.WHITE); // White text on green
         // Even more prominent shadow for the end node, slightly brighter glow
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web(PATH_NODE_STROKE).brighter(), 15, 0.8, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web(PATH_NODE_STROKE).brighter(), 15, 0.8, 0, 0));
     }
 
     public void setUnreachableStyle() {
         applyNodeStyle(UNREACHABLE_NODE_FILL, UNREACHABLE_NODE_STROKE, 2, Color.BLACK); // Black text on grey
-        circle.setEffect(null); // Remove shadow if unreachable, makes it look "flat" or inactive
+        setShadow(null); // Remove shadow if unreachable, makes it look "flat" or inactive
     }
 
     public void setFinalizedStyle() {
         // This is for nodes that have their final distance set in "all paths" mode
         applyNodeStyle(FINALIZED_NODE_FILL, VISITED_NODE_STROKE, 3, Color.BLACK); // Black text on light green
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Reset to subtle shadow
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web("#4D000000"), 5, 0.5, 0, 0)); // Reset to subtle shadow
     }
 
     // --- NEW: Styles for Start and End Nodes (Aesthetic additions) ---
@@ -228,7 +253,7 @@ public class UINode extends StackPane {
     public void setStartNodeStyle() {
         applyNodeStyle(START_NODE_FILL, START_NODE_STROKE, 4, Color.WHITE); // Thicker stroke for prominence
         // Add a slightly stronger shadow to make it pop
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web(START_NODE_STROKE), 12, 0.7, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web(START_NODE_STROKE), 12, 0.7, 0, 0));
     }
 
     /**
@@ -237,7 +262,7 @@ public class UINode extends StackPane {
     public void setEndNodeStyle() {
         applyNodeStyle(END_NODE_FILL, END_NODE_STROKE, 4, Color.WHITE); // Thicker stroke for prominence
         // Add a slightly stronger shadow to make it pop
-        circle.setEffect(new DropShadow(BlurType.GAUSSIAN, Color.web(END_NODE_STROKE), 12, 0.7, 0, 0));
+        setShadow(new DropShadow(BlurType.GAUSSIAN, Color.web(END_NODE_STROKE), 12, 0.7, 0, 0));
     }
 
     /**
@@ -256,7 +281,26 @@ public class UINode extends StackPane {
         glow.setRadius(15); // Large radius for a noticeable glow
         glow.setSpread(0.6); // How far the glow spreads
         glow.setBlurType(BlurType.GAUSSIAN);
-        circle.setEffect(glow); // Apply the glow effect
+        setShadow(glow); // Apply the glow effect
+    }
+
+    // --- Level of detail (driven by the zoom level, see GraphViewport) ---
+
+    /**
+     * Shows or hides the drop shadow; the current style's shadow comes back when shown again.
+     */
+    public void setShadowsShown(boolean shown) {
+        shadowsShown = shown;
+        circle.setEffect(shown ? shadow : null);
+    }
+
+    public void setDistanceLabelShown(boolean shown) {
+        distanceLabel.setVisible(shown);
+    }
+
+    private void setShadow(DropShadow effect) {
+        shadow = effect;
+        circle.setEffect(shadowsShown ? effect : null);
     }
 
     // --- Overrides for proper collection usage ---
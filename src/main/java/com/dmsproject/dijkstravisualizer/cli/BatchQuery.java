@@ -0,0 +1,444 @@
+package com.dmsproject.dijkstravisualizer.cli;
+
+import com.dmsproject.dijkstravisualizer.engine.CsrGraph;
+import com.dmsproject.dijkstravisualizer.engine.GraphFile;
+import com.dmsproject.dijkstravisualizer.engine.GraphImporter;
+import com.dmsproject.dijkstravisualizer.engine.QueueStrategy;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPath;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathEngine;
+import com.dmsproject.dijkstravisualizer.engine.ShortestPathTree;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Command-line batch queries on the headless engine, for machines without a display.
+ * <p>
+ * Reads a graph ({@code .dgraph} file, DIMACS {@code .gr} or edge list, as in the UI) and a
+ * query file or standard input with one query per line: {@code <source> <target>} for a
+ * point-to-point query, or {@code <source>} alone for distances to every reachable node.
+ * IDs are separated like edge-list fields (commas, semicolons, spaces or tabs); blank lines
+ * and lines starting with {@code #} or {@code %} are skipped.
+ * <p>
+ * Queries are answered in blocks, in parallel, and written in input order as soon as their
+ * block is done, so input of any length streams through in bounded memory. Nothing here or
+ * in the engine refers to JavaFX: run this class from the class path and no toolkit is
+ * started, nor are the JavaFX jars needed.
+ */
+public final class BatchQuery {
+
+    private static final int BLOCK_SIZE = 4096; // Queries answered per parallel round
+    private static final long WARMUP_SEED = 0x5EED_D1A57L;
+
+    private static final String USAGE = String.join("\n",
+            "Usage: BatchQuery <graph> [options]",
+            "  <graph>                 .dgraph file, DIMACS .gr file or edge list",
+            "  -q, --queries <file>    query file, one '<source> [<target>]' per line (default: standard input)",
+            "  -o, --output <file>     result file (default: standard output)",
+            "  -f, --format <format>   tsv, csv or json (one object per line); default tsv",
+            "  -t, --threads <n>       worker threads (default: available processors)",
+            "  -w, --warmup <n>        run n random point-to-point queries before the real ones (default 0)",
+            "      --queue <strategy>  " + String.join(", ", queueStrategyNames()) + " (default: chosen by edge weights)",
+            "      --paths             also write the node IDs along each point-to-point path",
+            "  -h, --help              show this help");
+
+    enum Format {
+        TSV, CSV, JSON
+    }
+
+    private BatchQuery() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.println(USAGE);
+            return;
+        }
+        try {
+            run(options);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(Options options) throws IOException {
+        long start = System.nanoTime();
+        CsrGraph graph = loadGraph(options.graphPath);
+        QueueStrategy queueStrategy = options.queueStrategy != null ? options.queueStrategy : QueueStrategy.forWeights(graph);
+        ShortestPathEngine engine = new ShortestPathEngine(graph, queueStrategy);
+        System.err.printf(Locale.ROOT, "Loaded %d nodes and %d arcs in %d ms (%s, threads: %d)%n",
+                graph.nodeCount(), graph.arcCount(), millisSince(start), queueStrategy, options.threads);
+
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try (BufferedReader in = options.queriesPath != null
+                     ? Files.newBufferedReader(options.queriesPath, StandardCharsets.UTF_8)
+                     : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             Writer out = options.outputPath != null
+                     ? Files.newBufferedWriter(options.outputPath, StandardCharsets.UTF_8)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+            if (options.warmup > 0) {
+                long warmupStart = System.nanoTime();
+                warmUp(engine, pool, options.warmup);
+                System.err.printf(Locale.ROOT, "Warmed up with %d queries in %d ms%n", options.warmup, millisSince(warmupStart));
+            }
+
+            long queryStart = System.nanoTime();
+            ResultFormatter formatter = new ResultFormatter(graph, options.format, options.paths);
+            out.write(formatter.header());
+            QueryReader queries = new QueryReader(in, graph, options.threads);
+            int[] sources = new int[BLOCK_SIZE];
+            int[] targets = new int[BLOCK_SIZE];
+            String[] results = new String[BLOCK_SIZE];
+            long answered = 0;
+            int count;
+            while ((count = queries.readBlock(sources, targets)) > 0) {
+                int blockSize = count;
+                pool.submit(() -> IntStream.range(0, blockSize).parallel()
+                        .forEach(i -> results[i] = answer(engine, formatter, sources[i], targets[i]))).join();
+                for (int i = 0; i < blockSize; i++) {
+                    out.write(results[i]);
+                    results[i] = null;
+                }
+                out.flush(); // Hand each block on as soon as it is done
+                answered += blockSize;
+            }
+            System.err.printf(Locale.ROOT, "Answered %d queries in %d ms%n", answered, millisSince(queryStart));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static CsrGraph loadGraph(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith("." + GraphFile.EXTENSION)) {
+            return GraphFile.read(path).getGraph();
+        }
+        return GraphImporter.importFile(path).getGraph();
+    }
+
+    // Random pairs on every worker, so each thread has compiled code and its query workspace
+    private static void warmUp(ShortestPathEngine engine, ForkJoinPool pool, int queryCount) {
+        int nodeCount = engine.getGraph().nodeCount();
+        if (nodeCount == 0) {
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, queryCount).parallel().forEach(i -> {
+            SplittableRandom random = new SplittableRandom(WARMUP_SEED + i);
+            engine.distance(random.nextInt(nodeCount), random.nextInt(nodeCount));
+        })).join();
+    }
+
+    private static String answer(ShortestPathEngine engine, ResultFormatter formatter, int source, int target) {
+        if (target == -1) {
+            return formatter.singleSource(engine.singleSource(source));
+        }
+        if (formatter.paths) {
+            ShortestPath path = engine.shortestPath(source, target);
+            return formatter.pointToPoint(source, target, path.getDistance(), path.getNodeIds());
+        }
+        return formatter.pointToPoint(source, target, engine.distance(source, target), null);
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static String[] queueStrategyNames() {
+        QueueStrategy[] strategies = QueueStrategy.values();
+        String[] names = new String[strategies.length];
+        for (int i = 0; i < strategies.length; i++) {
+            names[i] = strategies[i].name().toLowerCase(Locale.ROOT);
+        }
+        return names;
+    }
+
+    /**
+     * Parsed command line.
+     */
+    static final class Options {
+
+        Path graphPath;
+        Path queriesPath;
+        Path outputPath;
+        Format format = Format.TSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int warmup;
+        QueueStrategy queueStrategy;
+        boolean paths;
+
+        /**
+         * @return the options, or null if help was asked for
+         * @throws IllegalArgumentException for a malformed command line
+         */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h":
+                    case "--help":
+                        return null;
+                    case "-q":
+                    case "--queries":
+                        options.queriesPath = Path.of(value(args, ++i, arg));
+                        break;
+                    case "-o":
+                    case "--output":
+                        options.outputPath = Path.of(value(args, ++i, arg));
+                        break;
+                    case "-f":
+                    case "--format":
+                        options.format = parseEnum(Format.class, value(args, ++i, arg), arg);
+                        break;
+                    case "-t":
+                    case "--threads":
+                        options.threads = parseCount(value(args, ++i, arg), arg, 1);
+                        break;
+                    case "-w":
+                    case "--warmup":
+                        options.warmup = parseCount(value(args, ++i, arg), arg, 0);
+                        break;
+                    case "--queue":
+                        options.queueStrategy = parseEnum(QueueStrategy.class, value(args, ++i, arg), arg);
+                        break;
+                    case "--paths":
+                        options.paths = true;
+                        break;
+                    default:
+                        if (arg.startsWith("-") || options.graphPath != null) {
+                            throw new IllegalArgumentException("Unexpected argument: " + arg);
+                        }
+                        options.graphPath = Path.of(arg);
+                        break;
+                }
+            }
+            if (options.graphPath == null) {
+                throw new IllegalArgumentException("No graph file given");
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[i];
+        }
+
+        private static int parseCount(String value, String option, int minimum) {
+            try {
+                int count = Integer.parseInt(value);
+                if (count >= minimum) {
+                    return count;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException(option + " needs a whole number of at least " + minimum + ", got " + value);
+        }
+
+        private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String option) {
+            try {
+                return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown " + option + " value: " + value);
+            }
+        }
+    }
+
+    /**
+     * Reads query lines and resolves their node IDs.
+     */
+    static final class QueryReader {
+
+        private final BufferedReader in;
+        private final CsrGraph graph;
+        private final int maxSingleSourcePerBlock;
+        private long lineNumber;
+
+        /**
+         * @param maxSingleSourcePerBlock single-source queries allowed in one block; their
+         *                                results are a line per node, so a block of them is
+         *                                kept to one per thread
+         */
+        QueryReader(BufferedReader in, CsrGraph graph, int maxSingleSourcePerBlock) {
+            this.in = in;
+            this.graph = graph;
+            this.maxSingleSourcePerBlock = maxSingleSourcePerBlock;
+        }
+
+        /**
+         * Fills the arrays with the next queries, target -1 for a single-source query.
+         *
+         * @return the number of queries read, 0 at the end of the input
+         * @throws IllegalArgumentException for a malformed line or an unknown node ID
+         */
+        int readBlock(int[] sources, int[] targets) throws IOException {
+            int count = 0;
+            int singleSourceCount = 0;
+            String line;
+            while (count < sources.length && singleSourceCount < maxSingleSourcePerBlock && (line = in.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("%")) {
+                    continue;
+                }
+                String[] ids = trimmed.split("[\\s,;]+");
+                if (ids.length > 2) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected '<source> [<target>]', got: " + line);
+                }
+                sources[count] = node(ids[0]);
+                targets[count] = ids.length == 2 ? node(ids[1]) : -1;
+                if (targets[count] == -1) {
+                    singleSourceCount++;
+                }
+                count++;
+            }
+            return count;
+        }
+
+        private int node(String id) {
+            int index = graph.indexOf(id);
+            if (index < 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown node " + id);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Formats results as lines of the chosen format. Unreachable targets have an empty
+     * distance (null in JSON); single-source results list reachable nodes only.
+     */
+    static final class ResultFormatter {
+
+        private final CsrGraph graph;
+        private final Format format;
+        final boolean paths;
+
+        ResultFormatter(CsrGraph graph, Format format, boolean paths) {
+            this.graph = graph;
+            this.format = format;
+            this.paths = paths;
+        }
+
+        String header() {
+            switch (format) {
+                case TSV:
+                    return paths ? "source\ttarget\tdistance\tpath\n" : "source\ttarget\tdistance\n";
+                case CSV:
+                    return paths ? "source,target,distance,path\n" : "source,target,distance\n";
+                default:
+                    return "";
+            }
+        }
+
+        String pointToPoint(int source, int target, double distance, List<String> pathIds) {
+            StringBuilder line = new StringBuilder(64);
+            appendResult(line, graph.idOf(source), graph.idOf(target), distance, pathIds);
+            return line.toString();
+        }
+
+        String singleSource(ShortestPathTree tree) {
+            String sourceId = graph.idOf(tree.getSource());
+            StringBuilder lines = new StringBuilder(32 * tree.getSettledCount());
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                if (tree.isReached(v)) {
+                    appendResult(lines, sourceId, graph.idOf(v), tree.distanceTo(v), null);
+                }
+            }
+            return lines.toString();
+        }
+
+        private void appendResult(StringBuilder line, String sourceId, String targetId, double distance, List<String> pathIds) {
+            boolean found = distance != Double.POSITIVE_INFINITY;
+            switch (format) {
+                case TSV:
+                case CSV:
+                    char separator = format == Format.TSV ? '\t' : ',';
+                    appendField(line, sourceId);
+                    line.append(separator);
+                    appendField(line, targetId);
+                    line.append(separator);
+                    if (found) {
+                        line.append(distance);
+                    }
+                    if (pathIds != null) {
+                        line.append(separator);
+                        appendField(line, String.join(" -> ", pathIds));
+                    }
+                    break;
+                case JSON:
+                    line.append("{\"source\":");
+                    appendJsonString(line, sourceId);
+                    line.append(",\"target\":");
+                    appendJsonString(line, targetId);
+                    line.append(",\"distance\":");
+                    if (found) {
+                        line.append(distance);
+                    } else {
+                        line.append("null");
+                    }
+                    if (pathIds != null) {
+                        line.append(",\"path\":[");
+                        for (int i = 0; i < pathIds.size(); i++) {
+                            if (i > 0) {
+                                line.append(',');
+                            }
+                            appendJsonString(line, pathIds.get(i));
+                        }
+                        line.append(']');
+                    }
+                    line.append('}');
+                    break;
+            }
+            line.append('\n');
+        }
+
+        private void appendField(StringBuilder line, String value) {
+            if (format == Format.TSV) {
+                line.append(value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+            } else if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                line.append(value);
+            } else {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+
+        private static void appendJsonString(StringBuilder line, String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 0x20) {
+                    line.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Primitive binary min-heap of (node, priority) pairs with lazy deletion:
+ * every offer pushes a new entry, so a node may be queued several times and
+ * the caller skips stale entries when they are polled. Ties are broken by
+ * node index so runs are deterministic.
+ */
+final class BinaryMinHeap implements NodeQueue {
+
+    private int[] nodes;
+    private double[] keys;
+    private int size;
+
+    BinaryMinHeap(int initialCapacity) {
+        nodes = new int[Math.max(initialCapacity, 4)];
+        keys = new double[nodes.length];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public void offer(int node, double key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(node, key, nodes[parent], keys[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+
+    @Override
+    public double peekPriority() {
+        return keys[0];
+    }
+
+    @Override
+    public int poll() {
+        int min = nodes[0];
+        int last = --size;
+        if (last == 0) {
+            return min;
+        }
+        int node = nodes[last];
+        double key = keys[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < last && less(nodes[right], keys[right], nodes[child], keys[child])) {
+                child = right;
+            }
+            if (!less(nodes[child], keys[child], node, key)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        return min;
+    }
+
+    private static boolean less(int nodeA, double keyA, int nodeB, double keyB) {
+        return keyA < keyB || (keyA == keyB && nodeA < nodeB);
+    }
+}
@@ -0,0 +1,825 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy over a {@link CsrGraph}: preprocessing that makes repeated
+ * point-to-point queries on an unchanging graph settle only a few hundred nodes.
+ * <p>
+ * Preprocessing contracts the nodes one at a time, least important first (by edge
+ * difference, number of already contracted neighbours and depth in the hierarchy). Contracting a node adds a
+ * shortcut {@code u -> x} for every path {@code u -> v -> x} that a local witness search
+ * cannot match without it, so distances between the remaining nodes are unchanged. The
+ * result is stored as two CSR graphs over the same nodes:
+ * <ul>
+ *   <li>{@code upward}: every arc and shortcut {@code v -> w} with {@code rank(w) > rank(v)},
+ *       searched from the source;</li>
+ *   <li>{@code downward}: every arc and shortcut {@code w -> v} with {@code rank(w) > rank(v)},
+ *       stored at {@code v} as {@code v -> w} and searched from the target.</li>
+ * </ul>
+ * Every shortest path climbs in rank and then descends, so a query is a bidirectional search
+ * that only ever goes up on both sides (see {@link Query}). Each shortcut remembers the
+ * contracted node it skips, so found paths are unpacked into arcs of the graph.
+ * <p>
+ * The initial node priorities are simulated in parallel on a {@link ForkJoinPool}; the
+ * contraction itself is sequential. Hierarchies are immutable and can be saved next to
+ * the graph file (see {@link #write(Path)}).
+ */
+public final class ContractionHierarchy {
+
+    public static final String EXTENSION = "dch";
+
+    private static final int MAGIC = 0x484B4A44; // "DJKH" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // Witness searches stop after this many settled nodes; a missed witness only costs a needless shortcut
+    private static final int WITNESS_SETTLE_LIMIT = 256;
+    private static final int SIMULATION_SETTLE_LIMIT = 16; // Priority estimates run far more often, so they look less far
+
+    private final CsrGraph graph;
+    private final int[] ranks;
+    private final CsrGraph upward;
+    private final int[] upwardMiddles;   // Node skipped by each upward shortcut, -1 for an arc of the graph
+    private final CsrGraph downward;
+    private final int[] downwardMiddles; // Same for the downward arcs
+    private final int shortcutCount;
+
+    private ContractionHierarchy(CsrGraph graph, int[] ranks, CsrGraph upward, int[] upwardMiddles,
+                                 CsrGraph downward, int[] downwardMiddles) {
+        this.graph = graph;
+        this.ranks = ranks;
+        this.upward = upward;
+        this.upwardMiddles = upwardMiddles;
+        this.downward = downward;
+        this.downwardMiddles = downwardMiddles;
+        int shortcuts = 0;
+        for (int middle : upwardMiddles) {
+            shortcuts += middle == -1 ? 0 : 1;
+        }
+        for (int middle : downwardMiddles) {
+            shortcuts += middle == -1 ? 0 : 1;
+        }
+        this.shortcutCount = shortcuts;
+    }
+
+    public static ContractionHierarchy build(CsrGraph graph) {
+        return build(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Contracts every node of the graph.
+     *
+     * @param pool runs the initial priority simulations
+     */
+    public static ContractionHierarchy build(CsrGraph graph, ForkJoinPool pool) {
+        Contractor contractor = new Contractor(graph);
+        contractor.computeInitialPriorities(pool);
+        contractor.contractAll();
+        return contractor.toHierarchy();
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the position of the node in the contraction order (0 = contracted first)
+     */
+    public int rankOf(int node) {
+        return ranks[node];
+    }
+
+    /**
+     * @return the number of shortcut arcs added by the contraction
+     */
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * @return arcs of the upward and downward graphs together (graph arcs and shortcuts)
+     */
+    public int arcCount() {
+        return upward.arcCount() + downward.arcCount();
+    }
+
+    /**
+     * @return a new query with its own search state; reuse it for many queries from one thread
+     */
+    public Query newQuery() {
+        return new Query();
+    }
+
+    public ShortestPath shortestPath(int source, int target) {
+        return newQuery().search(source, target, SearchListener.NONE);
+    }
+
+    public ShortestPath shortestPath(String sourceId, String targetId) {
+        return shortestPath(requireNode(sourceId), requireNode(targetId));
+    }
+
+    /**
+     * Search state for point-to-point queries on the hierarchy. Arrays are sized once and
+     * invalidated per query by a stamp, so a query touches only the nodes it reaches. Not
+     * thread-safe: use one query object per thread.
+     */
+    public final class Query {
+
+        private final double[] forwardDistances;
+        private final double[] backwardDistances;
+        private final int[] forwardPredecessors;
+        private final int[] backwardSuccessors;  // Next node towards the target
+        private final int[] forwardArcs;         // Upward arc that reached the node
+        private final int[] backwardArcs;        // Downward arc that reached the node
+        private final int[] forwardStamps;       // Node reached by the current query's forward search iff equal to stamp
+        private final int[] backwardStamps;
+        private final int[] forwardSettledStamps;
+        private final int[] backwardSettledStamps;
+        private final BinaryMinHeap forwardQueue;
+        private final BinaryMinHeap backwardQueue;
+        private int stamp;
+
+        private Query() {
+            int n = graph.nodeCount();
+            forwardDistances = new double[n];
+            backwardDistances = new double[n];
+            forwardPredecessors = new int[n];
+            backwardSuccessors = new int[n];
+            forwardArcs = new int[n];
+            backwardArcs = new int[n];
+            forwardStamps = new int[n];
+            backwardStamps = new int[n];
+            forwardSettledStamps = new int[n];
+            backwardSettledStamps = new int[n];
+            forwardQueue = new BinaryMinHeap(64);
+            backwardQueue = new BinaryMinHeap(64);
+        }
+
+        public ShortestPath shortestPath(int source, int target) {
+            return search(source, target, SearchListener.NONE);
+        }
+
+        /**
+         * Searches upward from the source and upward (over the downward graph) from the target,
+         * extending the side with the smaller queue minimum. A side stops once its minimum
+         * reaches the best path seen, since both halves of a hierarchy path only climb. A node
+         * that the opposite graph reaches more cheaply from an already reached node is stalled:
+         * its distance is not a shortest one, so its arcs are not scanned. Events are reported
+         * like {@link ShortestPathEngine#bidirectionalSearch}, arcs being those of the
+         * hierarchy; the unpacked path is reported last through
+         * {@link SearchListener#onPathUnpacked(int[])}.
+         *
+         * @return the path in arcs of the graph, whose settled count covers both searches
+         */
+        public ShortestPath search(int source, int target, SearchListener listener) {
+            checkNode(source);
+            checkNode(target);
+            nextStamp();
+            forwardQueue.clear();
+            backwardQueue.clear();
+            reach(forwardDistances, forwardPredecessors, forwardArcs, forwardStamps, source, 0.0, -1, -1);
+            forwardQueue.offer(source, 0.0);
+            listener.onInitialized(source);
+            reach(backwardDistances, backwardSuccessors, backwardArcs, backwardStamps, target, 0.0, -1, -1);
+            backwardQueue.offer(target, 0.0);
+            listener.onBackwardInitialized(target);
+
+            double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+            int meeting = source == target ? source : -1;
+            int settledCount = 0;
+            while (true) {
+                boolean forwardOpen = !forwardQueue.isEmpty() && forwardQueue.peekPriority() < best;
+                boolean backwardOpen = !backwardQueue.isEmpty() && backwardQueue.peekPriority() < best;
+                if (!forwardOpen && !backwardOpen) {
+                    break;
+                }
+                boolean forward = forwardOpen && (!backwardOpen || forwardQueue.peekPriority() <= backwardQueue.peekPriority());
+                BinaryMinHeap queue = forward ? forwardQueue : backwardQueue;
+                CsrGraph arcs = forward ? upward : downward;
+                CsrGraph opposite = forward ? downward : upward;
+                double[] distances = forward ? forwardDistances : backwardDistances;
+                int[] predecessors = forward ? forwardPredecessors : backwardSuccessors;
+                int[] reachingArcs = forward ? forwardArcs : backwardArcs;
+                int[] stamps = forward ? forwardStamps : backwardStamps;
+                int[] settledStamps = forward ? forwardSettledStamps : backwardSettledStamps;
+                double[] otherDistances = forward ? backwardDistances : forwardDistances;
+                int[] otherStamps = forward ? backwardStamps : forwardStamps;
+
+                int u = queue.poll();
+                if (settledStamps[u] == stamp) {
+                    continue; // Stale entry left behind by the lazy queue
+                }
+                settledStamps[u] = stamp;
+                settledCount++;
+                double uDistance = distances[u];
+                if (forward) {
+                    listener.onNodeSettled(u, uDistance);
+                } else {
+                    listener.onBackwardNodeSettled(u, uDistance);
+                }
+                if (otherStamps[u] == stamp && uDistance + otherDistances[u] < best) {
+                    best = uDistance + otherDistances[u];
+                    meeting = u;
+                }
+                if (isStalled(u, uDistance, opposite, distances, stamps)) {
+                    continue;
+                }
+
+                for (int arc = arcs.firstArc(u), end = arcs.endArc(u); arc < end; arc++) {
+                    int v = arcs.arcTarget(arc);
+                    double candidate = uDistance + arcs.arcWeight(arc);
+                    if (stamps[v] != stamp || candidate < distances[v]) {
+                        reach(distances, predecessors, reachingArcs, stamps, v, candidate, u, arc);
+                        queue.offer(v, candidate);
+                        if (forward) {
+                            listener.onEdgeRelaxed(u, v, candidate);
+                        } else {
+                            listener.onBackwardEdgeRelaxed(u, v, candidate);
+                        }
+                        if (otherStamps[v] == stamp && candidate + otherDistances[v] < best) {
+                            best = candidate + otherDistances[v];
+                            meeting = v;
+                        }
+                    }
+                }
+            }
+
+            if (meeting == -1) {
+                return new ShortestPath(graph, source, target, Double.POSITIVE_INFINITY, new int[0], settledCount);
+            }
+            listener.onSearchesMet(meeting, best);
+            int[] path = unpackPath(source, meeting);
+            listener.onPathUnpacked(path);
+            return new ShortestPath(graph, source, target, best, path, settledCount);
+        }
+
+        // The opposite graph holds the arcs entering u from higher nodes; one of them beating u's distance proves it is not shortest
+        private boolean isStalled(int u, double uDistance, CsrGraph opposite, double[] distances, int[] stamps) {
+            for (int arc = opposite.firstArc(u), end = opposite.endArc(u); arc < end; arc++) {
+                int w = opposite.arcTarget(arc);
+                if (stamps[w] == stamp && distances[w] + opposite.arcWeight(arc) < uDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void nextStamp() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(forwardStamps, 0);
+                Arrays.fill(backwardStamps, 0);
+                Arrays.fill(forwardSettledStamps, 0);
+                Arrays.fill(backwardSettledStamps, 0);
+                stamp = 1;
+            }
+        }
+
+        private void reach(double[] distances, int[] predecessors, int[] reachingArcs, int[] stamps,
+                           int node, double distance, int predecessor, int arc) {
+            distances[node] = distance;
+            predecessors[node] = predecessor;
+            reachingArcs[node] = arc;
+            stamps[node] = stamp;
+        }
+
+        // Source -> meeting along the forward tree, then meeting -> target along the backward tree, shortcuts expanded
+        private int[] unpackPath(int source, int meeting) {
+            IntList hierarchyPath = new IntList();
+            IntList arcs = new IntList();
+            for (int v = meeting; v != source; v = forwardPredecessors[v]) {
+                hierarchyPath.add(v);
+                arcs.add(forwardArcs[v]);
+            }
+            hierarchyPath.add(source);
+            hierarchyPath.reverse();
+            arcs.reverse();
+            int forwardLinks = arcs.size;
+            for (int v = meeting; backwardSuccessors[v] != -1; v = backwardSuccessors[v]) {
+                hierarchyPath.add(backwardSuccessors[v]);
+                arcs.add(backwardArcs[v]);
+            }
+
+            IntList path = new IntList();
+            path.add(source);
+            for (int i = 0; i < arcs.size; i++) {
+                int middle = i < forwardLinks ? upwardMiddles[arcs.values[i]] : downwardMiddles[arcs.values[i]];
+                unpackArc(hierarchyPath.values[i], hierarchyPath.values[i + 1], middle, path);
+            }
+            return Arrays.copyOf(path.values, path.size);
+        }
+    }
+
+    // Appends the graph path of arc from -> to (without from) to path, expanding shortcuts through their middle nodes
+    private void unpackArc(int from, int to, int middle, IntList path) {
+        IntList stack = new IntList(); // (from, to, middle) triples still to expand, next on top
+        stack.add(from);
+        stack.add(to);
+        stack.add(middle);
+        while (stack.size > 0) {
+            int m = stack.values[--stack.size];
+            int v = stack.values[--stack.size];
+            int u = stack.values[--stack.size];
+            if (m == -1) {
+                path.add(v);
+                continue;
+            }
+            // m was contracted before u and v: u -> m is a downward arc stored at m, m -> v an upward one
+            int second = findArc(upward, m, v);
+            int first = findArc(downward, m, u);
+            stack.add(m);
+            stack.add(v);
+            stack.add(upwardMiddles[second]);
+            stack.add(u);
+            stack.add(m);
+            stack.add(downwardMiddles[first]);
+        }
+    }
+
+    private static int findArc(CsrGraph arcs, int from, int to) {
+        for (int arc = arcs.firstArc(from), end = arcs.endArc(from); arc < end; arc++) {
+            if (arcs.arcTarget(arc) == to) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException("Hierarchy has no arc " + from + " -> " + to);
+    }
+
+    // --- Saving and loading ---
+
+    /**
+     * @return where the hierarchy of a graph file is kept: next to it, with the {@link #EXTENSION}
+     */
+    public static Path sidecarOf(Path graphFile) {
+        String name = graphFile.getFileName().toString();
+        String graphSuffix = "." + GraphFile.EXTENSION;
+        if (name.endsWith(graphSuffix)) {
+            name = name.substring(0, name.length() - graphSuffix.length());
+        }
+        return graphFile.resolveSibling(name + "." + EXTENSION);
+    }
+
+    /**
+     * Hash of the node IDs (by index) and of the arcs, independent of the order of the arcs,
+     * so a hierarchy is only loaded for the graph it was built on.
+     */
+    public static long fingerprint(CsrGraph graph) {
+        long hash = mix(graph.nodeCount() * 31L + graph.arcCount());
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            hash += mix(v * 0x9E3779B97F4A7C15L + graph.idOf(v).hashCode());
+            for (int arc = graph.firstArc(v), end = graph.endArc(v); arc < end; arc++) {
+                long endpoints = ((long) v << 32) | graph.arcTarget(arc);
+                hash += mix(mix(endpoints) ^ Double.doubleToLongBits(graph.arcWeight(arc)));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the hierarchy, replacing the file if it exists.
+     * <p>
+     * Layout (little-endian), version 1:
+     * <pre>
+     * header    int magic "DJKH", int version, int nodeCount, int upwardArcCount, int downwardArcCount,
+     *           int reserved, long graph fingerprint
+     * ranks     int[nodeCount] (zero padding up to a multiple of 8 bytes)
+     * upward    int[nodeCount + 1] offsets, int[arcs] targets, int[arcs] middles (padding), double[arcs] weights
+     * downward  same as upward
+     * </pre>
+     */
+    public void write(Path path) throws IOException {
+        int n = graph.nodeCount();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(GraphFile.WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(upward.arcCount()).putInt(downward.arcCount())
+                    .putInt(0).putLong(fingerprint(graph));
+            GraphFile.putInts(channel, buffer, ranks);
+            GraphFile.pad(channel, buffer, 4L * n);
+            writeArcs(channel, buffer, upward, upwardMiddles);
+            writeArcs(channel, buffer, downward, downwardMiddles);
+            GraphFile.drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Loads a hierarchy written by {@link #write(Path)} for the given graph.
+     *
+     * @throws IOException if the file cannot be read, is not a valid hierarchy file, or was built on another graph
+     */
+    public static ContractionHierarchy read(Path path, CsrGraph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not a hierarchy file (too short): " + path);
+            }
+            GraphFile.SectionReader in = new GraphFile.SectionReader(channel, path);
+            ByteBuffer header = in.read(HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a hierarchy file (bad magic number): " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported hierarchy file version " + version + " (expected " + VERSION + "): " + path);
+            }
+            int n = header.getInt();
+            int upwardArcs = header.getInt();
+            int downwardArcs = header.getInt();
+            header.getInt();
+            long fingerprint = header.getLong();
+            if (n != graph.nodeCount() || fingerprint != fingerprint(graph)) {
+                throw new IOException("Hierarchy file was built on a different graph: " + path);
+            }
+            if (upwardArcs < 0 || downwardArcs < 0) {
+                throw new IOException("Corrupt hierarchy file header: " + path);
+            }
+
+            int[] ranks = new int[n];
+            in.readInts(ranks);
+            in.align8();
+            int[] upwardOffsets = new int[n + 1];
+            int[] upwardTargets = new int[upwardArcs];
+            int[] upwardMiddles = new int[upwardArcs];
+            double[] upwardWeights = new double[upwardArcs];
+            readArcs(in, upwardOffsets, upwardTargets, upwardMiddles, upwardWeights);
+            int[] downwardOffsets = new int[n + 1];
+            int[] downwardTargets = new int[downwardArcs];
+            int[] downwardMiddles = new int[downwardArcs];
+            double[] downwardWeights = new double[downwardArcs];
+            readArcs(in, downwardOffsets, downwardTargets, downwardMiddles, downwardWeights);
+            if (in.position() != fileSize) {
+                throw new IOException("Corrupt hierarchy file (expected " + in.position() + " bytes, found " + fileSize + "): " + path);
+            }
+
+            GraphFile.checkCsr(n, upwardOffsets, upwardTargets, path);
+            GraphFile.checkCsr(n, downwardOffsets, downwardTargets, path);
+            for (int rank : ranks) {
+                if (rank < 0 || rank >= n) {
+                    throw new IOException("Corrupt node ranks: " + path);
+                }
+            }
+            for (int middle : upwardMiddles) {
+                if (middle < -1 || middle >= n) {
+                    throw new IOException("Corrupt shortcut middles: " + path);
+                }
+            }
+            for (int middle : downwardMiddles) {
+                if (middle < -1 || middle >= n) {
+                    throw new IOException("Corrupt shortcut middles: " + path);
+                }
+            }
+            return new ContractionHierarchy(graph, ranks,
+                    new CsrGraph(graph.getNodes(), upwardOffsets, upwardTargets, upwardWeights), upwardMiddles,
+                    new CsrGraph(graph.getNodes(), downwardOffsets, downwardTargets, downwardWeights), downwardMiddles);
+        }
+    }
+
+    private static void writeArcs(FileChannel channel, ByteBuffer buffer, CsrGraph arcs, int[] middles) throws IOException {
+        int n = arcs.nodeCount();
+        int m = arcs.arcCount();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = arcs.endArc(v);
+        }
+        for (int a = 0; a < m; a++) {
+            targets[a] = arcs.arcTarget(a);
+            weights[a] = arcs.arcWeight(a);
+        }
+        GraphFile.putInts(channel, buffer, offsets);
+        GraphFile.putInts(channel, buffer, targets);
+        GraphFile.putInts(channel, buffer, middles);
+        GraphFile.pad(channel, buffer, 4L * (n + 1) + 8L * m);
+        GraphFile.putDoubles(channel, buffer, weights);
+    }
+
+    private static void readArcs(GraphFile.SectionReader in, int[] offsets, int[] targets, int[] middles,
+                                 double[] weights) throws IOException {
+        in.readInts(offsets);
+        in.readInts(targets);
+        in.readInts(middles);
+        in.align8();
+        in.readDoubles(weights);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private int requireNode(String nodeId) {
+        int index = graph.indexOf(nodeId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown node: " + nodeId);
+        }
+        return index;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= graph.nodeCount()) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + graph.nodeCount() + ")");
+        }
+    }
+
+    // --- Preprocessing ---
+
+    // Contracts the nodes of a graph; keeps every arc and shortcut in growable per-node lists
+    private static final class Contractor {
+        private final CsrGraph graph;
+        private final int n;
+        private final ArcList[] outArcs;
+        private final ArcList[] inArcs;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        private final double[] priorities;
+        private final int[] ranks;
+        private final int[] levels; // 1 + the highest level among contracted neighbours
+
+        Contractor(CsrGraph graph) {
+            this.graph = graph;
+            this.n = graph.nodeCount();
+            outArcs = new ArcList[n];
+            inArcs = new ArcList[n];
+            for (int v = 0; v < n; v++) {
+                outArcs[v] = new ArcList();
+                inArcs[v] = new ArcList();
+            }
+            for (int u = 0; u < n; u++) {
+                for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                    int v = graph.arcTarget(arc);
+                    if (v != u) { // A loop is never part of a shortest path
+                        addArc(u, v, graph.arcWeight(arc), -1);
+                    }
+                }
+            }
+            contracted = new boolean[n];
+            contractedNeighbours = new int[n];
+            levels = new int[n];
+            priorities = new double[n];
+            ranks = new int[n];
+        }
+
+        // Simulating a contraction only reads the lists, so all nodes can be simulated at once
+        void computeInitialPriorities(ForkJoinPool pool) {
+            ThreadLocal<WitnessSearch> witnesses = ThreadLocal.withInitial(() -> new WitnessSearch(n));
+            pool.submit(() -> IntStream.range(0, n).parallel()
+                    .forEach(v -> priorities[v] = priorityOf(v, witnesses.get()))).join();
+        }
+
+        // Lazy updates: a polled node whose priority got worse than the next one goes back into the queue
+        void contractAll() {
+            WitnessSearch witness = new WitnessSearch(n);
+            BinaryMinHeap order = new BinaryMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.offer(v, priorities[v]);
+            }
+            int[] neighbourStamps = new int[n];
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                double priority = order.peekPriority();
+                int v = order.poll();
+                if (contracted[v] || priority != priorities[v]) {
+                    continue; // Stale entry
+                }
+                double updated = priorityOf(v, witness);
+                if (updated > priority && !order.isEmpty() && updated > order.peekPriority()) {
+                    priorities[v] = updated;
+                    order.offer(v, updated);
+                    continue;
+                }
+                contract(v, witness, true);
+                contracted[v] = true;
+                ranks[v] = nextRank++;
+                // v's lists now hold exactly its upward (out) and downward (in) arcs and never change again
+                for (int i = 0; i < outArcs[v].size; i++) {
+                    inArcs[outArcs[v].nodes[i]].remove(v);
+                }
+                for (int i = 0; i < inArcs[v].size; i++) {
+                    outArcs[inArcs[v].nodes[i]].remove(v);
+                }
+
+                // Neighbours lost an arc and gained shortcuts: their priorities are out of date
+                int neighbourStamp = nextRank;
+                for (ArcList arcs : new ArcList[] {outArcs[v], inArcs[v]}) {
+                    for (int i = 0; i < arcs.size; i++) {
+                        int w = arcs.nodes[i];
+                        if (neighbourStamps[w] != neighbourStamp) {
+                            neighbourStamps[w] = neighbourStamp;
+                            contractedNeighbours[w]++;
+                            levels[w] = Math.max(levels[w], levels[v] + 1);
+                            double wPriority = priorityOf(w, witness);
+                            if (wPriority != priorities[w]) {
+                                priorities[w] = wPriority;
+                                order.offer(w, wPriority);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Edge difference (shortcuts added minus arcs removed), plus contracted neighbours and level,
+        // which spread the contraction evenly and keep the hierarchy shallow
+        private double priorityOf(int v, WitnessSearch witness) {
+            int removed = outArcs[v].size + inArcs[v].size;
+            return contract(v, witness, false) - removed + contractedNeighbours[v] + levels[v];
+        }
+
+        // Finds the shortcuts contracting v needs; adds them if apply is set. Returns their number
+        private int contract(int v, WitnessSearch witness, boolean apply) {
+            ArcList in = inArcs[v];
+            ArcList out = outArcs[v];
+            int shortcuts = 0;
+            for (int i = 0; i < in.size; i++) {
+                int u = in.nodes[i];
+                double inWeight = in.weights[i];
+                double maxOutWeight = -1;
+                for (int j = 0; j < out.size; j++) {
+                    if (out.nodes[j] != u) {
+                        maxOutWeight = Math.max(maxOutWeight, out.weights[j]);
+                    }
+                }
+                if (maxOutWeight < 0) {
+                    continue;
+                }
+                witness.run(outArcs, u, v, inWeight + maxOutWeight, apply ? WITNESS_SETTLE_LIMIT : SIMULATION_SETTLE_LIMIT);
+                for (int j = 0; j < out.size; j++) {
+                    int x = out.nodes[j];
+                    if (x == u) {
+                        continue;
+                    }
+                    double viaV = inWeight + out.weights[j];
+                    if (witness.distanceTo(x) > viaV) { // No path avoiding v is as short
+                        shortcuts++;
+                        if (apply) {
+                            addArc(u, x, viaV, v);
+                        }
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        private void addArc(int from, int to, double weight, int middle) {
+            if (outArcs[from].addOrLower(to, weight, middle)) {
+                inArcs[to].addOrLower(from, weight, middle);
+            }
+        }
+
+        ContractionHierarchy toHierarchy() {
+            int[] upwardMiddles = new int[countArcs(outArcs)];
+            int[] downwardMiddles = new int[countArcs(inArcs)];
+            return new ContractionHierarchy(graph, ranks, toCsr(outArcs, upwardMiddles), upwardMiddles,
+                    toCsr(inArcs, downwardMiddles), downwardMiddles);
+        }
+
+        private static int countArcs(ArcList[] lists) {
+            int count = 0;
+            for (ArcList arcs : lists) {
+                count += arcs.size;
+            }
+            return count;
+        }
+
+        private CsrGraph toCsr(ArcList[] lists, int[] middles) {
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[middles.length];
+            double[] weights = new double[middles.length];
+            for (int v = 0; v < n; v++) {
+                ArcList arcs = lists[v];
+                int first = offsets[v];
+                System.arraycopy(arcs.nodes, 0, targets, first, arcs.size);
+                System.arraycopy(arcs.weights, 0, weights, first, arcs.size);
+                System.arraycopy(arcs.middles, 0, middles, first, arcs.size);
+                offsets[v + 1] = first + arcs.size;
+            }
+            return new CsrGraph(graph.getNodes(), offsets, targets, weights);
+        }
+    }
+
+    // Dijkstra from u over uncontracted nodes except v, bounded in distance and settled nodes
+    private static final class WitnessSearch {
+        private final double[] distances;
+        private final int[] reachedStamps;
+        private final int[] settledStamps;
+        private final BinaryMinHeap queue = new BinaryMinHeap(64);
+        private int stamp;
+
+        WitnessSearch(int nodeCount) {
+            distances = new double[nodeCount];
+            reachedStamps = new int[nodeCount];
+            settledStamps = new int[nodeCount];
+        }
+
+        void run(ArcList[] outArcs, int source, int excluded, double maxDistance, int settleLimit) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(reachedStamps, 0);
+                Arrays.fill(settledStamps, 0);
+                stamp = 1;
+            }
+            queue.clear();
+            distances[source] = 0.0;
+            reachedStamps[source] = stamp;
+            queue.offer(source, 0.0);
+            int settled = 0;
+            while (!queue.isEmpty() && queue.peekPriority() <= maxDistance && settled < settleLimit) {
+                int u = queue.poll();
+                if (settledStamps[u] == stamp) {
+                    continue;
+                }
+                settledStamps[u] = stamp;
+                settled++;
+                ArcList out = outArcs[u];
+                for (int i = 0; i < out.size; i++) {
+                    int w = out.nodes[i];
+                    if (w == excluded) {
+                        continue;
+                    }
+                    double candidate = distances[u] + out.weights[i];
+                    if (candidate <= maxDistance && (reachedStamps[w] != stamp || candidate < distances[w])) {
+                        distances[w] = candidate;
+                        reachedStamps[w] = stamp;
+                        queue.offer(w, candidate);
+                    }
+                }
+            }
+        }
+
+        double distanceTo(int node) {
+            return reachedStamps[node] == stamp ? distances[node] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // Arcs of one node during preprocessing, at most one per neighbour
+    private static final class ArcList {
+        int[] nodes = new int[4];
+        double[] weights = new double[4];
+        int[] middles = new int[4];
+        int size;
+
+        void remove(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    size--;
+                    nodes[i] = nodes[size];
+                    weights[i] = weights[size];
+                    middles[i] = middles[size];
+                    return;
+                }
+            }
+        }
+
+        // Adds the arc, or lowers the weight of the existing one; false if the existing one is already as short
+        boolean addOrLower(int node, double weight, int middle) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    if (weight >= weights[i]) {
+                        return false;
+                    }
+                    weights[i] = weight;
+                    middles[i] = middle;
+                    return true;
+                }
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            middles[size++] = middle;
+            return true;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void reverse() {
+            for (int low = 0, high = size - 1; low < high; low++, high--) {
+                int swap = values[low];
+                values[low] = values[high];
+                values[high] = swap;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of a weighted graph.
+ * <p>
+ * The outgoing arcs of node {@code u} are the arc indices
+ * {@code offsets[u] .. offsets[u + 1] - 1}; arc {@code a} leads to
+ * {@code targets[a]} with weight {@code weights[a]}. Undirected edges are
+ * stored as two arcs, one in each direction; imported DIMACS arcs may be one-way. Node indices are translated to
+ * and from the UI's string IDs through the attached {@link NodeDictionary}.
+ */
+public final class CsrGraph {
+
+    private final NodeDictionary nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final double maxArcWeight;
+    private final boolean integerWeights;
+    private volatile CsrGraph reversed; // Built on first use by reversed()
+
+    /**
+     * Wraps already-built CSR arrays. The arrays are not copied, so callers must
+     * not modify them afterwards.
+     */
+    public CsrGraph(NodeDictionary nodes, int[] offsets, int[] targets, double[] weights) {
+        if (offsets.length != nodes.size() + 1) {
+            throw new IllegalArgumentException("Expected " + (nodes.size() + 1) + " offsets but got " + offsets.length);
+        }
+        if (targets.length != weights.length) {
+            throw new IllegalArgumentException("Targets and weights must have the same length");
+        }
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("Offsets do not describe " + targets.length + " arcs");
+        }
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        double max = 0;
+        boolean integral = true;
+        for (double w : weights) {
+            max = Math.max(max, w);
+            integral &= w == Math.rint(w);
+        }
+        this.maxArcWeight = max;
+        this.integerWeights = integral;
+    }
+
+    public NodeDictionary getNodes() {
+        return nodes;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the number of directed arcs (twice the number of undirected edges in a graph
+     *         built by the editor; one-way arcs of a DIMACS import count once)
+     */
+    public int arcCount() {
+        return targets.length;
+    }
+
+    public int firstArc(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * @return one past the last arc index of the node
+     */
+    public int endArc(int node) {
+        return offsets[node + 1];
+    }
+
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    public double arcWeight(int arc) {
+        return weights[arc];
+    }
+
+    /**
+     * @return the largest arc weight, or 0 for a graph without arcs
+     */
+    public double maxArcWeight() {
+        return maxArcWeight;
+    }
+
+    /**
+     * @return whether every arc weight is a whole number, as the bucket queues require
+     */
+    public boolean hasIntegerWeights() {
+        return integerWeights;
+    }
+
+    public int indexOf(String nodeId) {
+        return nodes.indexOf(nodeId);
+    }
+
+    public String idOf(int node) {
+        return nodes.idOf(node);
+    }
+
+    /**
+     * @return the first arc from {@code from} to {@code to}, or -1 if there is none
+     */
+    public int arcIndex(int from, int to) {
+        for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+            if (targets[arc] == to) {
+                return arc;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the graph with every arc turned around (same nodes and indices), so that the
+     *         outgoing arcs of a node are its incoming arcs here. Built once and then cached.
+     */
+    public CsrGraph reversed() {
+        CsrGraph result = reversed;
+        if (result == null) {
+            int n = nodeCount();
+            int[] reversedOffsets = new int[n + 1];
+            for (int arc = 0; arc < targets.length; arc++) {
+                reversedOffsets[targets[arc] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                reversedOffsets[v + 1] += reversedOffsets[v];
+            }
+            int[] next = Arrays.copyOf(reversedOffsets, n);
+            int[] reversedTargets = new int[targets.length];
+            double[] reversedWeights = new double[weights.length];
+            for (int u = 0; u < n; u++) {
+                for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                    int slot = next[targets[arc]]++;
+                    reversedTargets[slot] = u;
+                    reversedWeights[slot] = weights[arc];
+                }
+            }
+            result = new CsrGraph(nodes, reversedOffsets, reversedTargets, reversedWeights);
+            result.reversed = this;
+            reversed = result; // Racing threads may each build one; they are identical
+        }
+        return result;
+    }
+}
@@ -0,0 +1,446 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer and Sanders).
+ * <p>
+ * Instead of settling one node at a time, nodes are kept in buckets of distance width Δ and a
+ * whole bucket is settled at once. Its nodes relax their light arcs (weight at most Δ) in
+ * parallel, which may put more nodes into the same bucket, until the bucket stays empty; then
+ * every node settled in it relaxes its heavy arcs once, again in parallel. Each such round is
+ * a phase: the frontier is split over a {@link ForkJoinPool}, and distances are lowered with
+ * compare-and-set on one shared {@code double[]}, so no locks are taken. The distances are the
+ * same as Dijkstra's; a small Δ does little extra work but has short phases, a large Δ
+ * has long phases but relaxes some arcs more than once. {@link #autoDelta(CsrGraph)} picks Δ
+ * from the weights and the degree.
+ * <p>
+ * Predecessors are not written while threads race on the distances. Once the search is done,
+ * every node takes the in-arc that explains its distance exactly and whose tail got its own
+ * final distance in an earlier phase, which always exists and never forms a cycle.
+ * <p>
+ * A {@link SearchListener} is called from the calling thread only, between phases: after each
+ * bucket it hears {@link SearchListener#onBucketOpened}, then the improved distances and the
+ * settled nodes of that bucket in distance order.
+ */
+public final class DeltaStepping {
+
+    /**
+     * Frontier nodes per fork-join leaf; smaller frontiers are relaxed by the calling thread.
+     */
+    public static final int GRAIN = 512;
+
+    /**
+     * Buckets are kept in a circular array of {@code maxArcWeight / Δ + 2} slots, at most this many.
+     */
+    public static final int MAX_BUCKETS = 1 << 20;
+
+    private static final int WEIGHT_SAMPLE = 4096;
+    private static final VarHandle DISTANCES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle STAMPS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final CsrGraph graph;
+    private final double delta;
+    private final ForkJoinPool pool;
+
+    public DeltaStepping(CsrGraph graph, ForkJoinPool pool) {
+        this(graph, autoDelta(graph), pool);
+    }
+
+    /**
+     * @param delta bucket width, positive
+     * @throws IllegalArgumentException if Δ is not positive or so small that the buckets would
+     *                                  not fit in {@link #MAX_BUCKETS}
+     */
+    public DeltaStepping(CsrGraph graph, double delta, ForkJoinPool pool) {
+        if (!(delta > 0) || delta == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Bucket width must be positive, got " + delta);
+        }
+        if (graph.maxArcWeight() / delta + 2 > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Bucket width " + delta + " is too small for arc weights up to "
+                    + graph.maxArcWeight());
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    /**
+     * Chooses Δ from the weight distribution: a high (90th percentile) arc weight divided by the
+     * average out-degree, so a node's light arcs add about one node per phase to its bucket.
+     * This is the Θ(1/d) of Meyer and Sanders for weights spread over [0, 1], scaled to the
+     * graph's weights, and ignores a few huge weights. Never smaller than the smallest positive
+     * weight, below which buckets only add phases.
+     */
+    public static double autoDelta(CsrGraph graph) {
+        int arcs = graph.arcCount();
+        if (arcs == 0) {
+            return 1.0;
+        }
+        int sampleSize = Math.min(arcs, WEIGHT_SAMPLE);
+        double[] sample = new double[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = graph.arcWeight((int) ((long) i * arcs / sampleSize)); // Evenly spread over the arcs
+        }
+        Arrays.sort(sample);
+        double smallestPositive = Double.POSITIVE_INFINITY;
+        for (double weight : sample) {
+            if (weight > 0) {
+                smallestPositive = weight;
+                break;
+            }
+        }
+        if (smallestPositive == Double.POSITIVE_INFINITY) {
+            return 1.0; // Only zero weights were sampled
+        }
+        double averageDegree = Math.max(1.0, (double) arcs / graph.nodeCount());
+        double high = sample[(int) (0.9 * (sampleSize - 1))];
+        double delta = Math.max(high / averageDegree, smallestPositive);
+        return Math.max(delta, graph.maxArcWeight() / (MAX_BUCKETS - 2));
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public ShortestPathTree singleSource(int source) {
+        return search(source, -1, SearchListener.NONE);
+    }
+
+    /**
+     * Runs delta-stepping from the source.
+     *
+     * @param target node whose bucket ends the search once settled, or -1 to settle every reachable node
+     */
+    public ShortestPathTree search(int source, int target, SearchListener listener) {
+        checkNode(source);
+        if (target != -1) {
+            checkNode(target);
+        }
+        return new Search(source, target, listener).run();
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= graph.nodeCount()) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + graph.nodeCount() + ")");
+        }
+    }
+
+    // State of one run; the relaxing threads share the arrays
+    private final class Search {
+        private final int source;
+        private final int target;
+        private final SearchListener listener;
+        private final boolean reporting;
+
+        private final double[] distances;
+        private final int[] improvedPhases;  // Phase in which the node last got a shorter distance (0 for the source)
+        private final int[] touchedStamps;   // Phase in which the node was last added to touched
+        private final int[] frontierStamps;  // Phase for which the node was last put in the frontier
+        private final int[] epochStamps;     // Last bucket in which the node got a shorter distance (reporting only)
+        private final boolean[] settled;
+        private int phase;
+
+        private final IntList[] buckets;
+        private int queuedEntries; // Entries over all buckets, stale ones included
+
+        // Nodes whose distance dropped in the current phase; filled by the relaxing threads
+        private final int[] touched;
+        private final AtomicInteger touchedCount = new AtomicInteger();
+
+        private int[] frontier;
+        private double[] frontierDistances; // Distance of each frontier node when the phase started
+        private int frontierSize;
+
+        Search(int source, int target, SearchListener listener) {
+            int n = graph.nodeCount();
+            this.source = source;
+            this.target = target;
+            this.listener = listener;
+            this.reporting = listener != SearchListener.NONE;
+            distances = new double[n];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            improvedPhases = new int[n];
+            touchedStamps = new int[n];
+            frontierStamps = new int[n];
+            epochStamps = reporting ? new int[n] : null;
+            if (reporting) {
+                Arrays.fill(epochStamps, -1);
+            }
+            settled = new boolean[n];
+            touched = new int[n];
+            frontier = new int[16];
+            frontierDistances = new double[16];
+            buckets = new IntList[(int) (graph.maxArcWeight() / delta) + 2];
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] = new IntList();
+            }
+        }
+
+        ShortestPathTree run() {
+            distances[source] = 0.0;
+            addToBucket(source);
+            listener.onInitialized(source);
+
+            int settledCount = 0;
+            boolean complete = true;
+            IntList settledInBucket = new IntList();
+            IntList improvedInBucket = new IntList(); // Reporting only
+            long bucket = 0;
+            while (queuedEntries > 0) {
+                while (buckets[slotOf(bucket)].size == 0) {
+                    bucket++;
+                }
+                settledInBucket.size = 0;
+                improvedInBucket.size = 0;
+
+                // Light arcs, until no node falls back into this bucket
+                takeFrontier(bucket);
+                while (frontierSize > 0) {
+                    for (int i = 0; i < frontierSize; i++) {
+                        int v = frontier[i];
+                        if (!settled[v]) {
+                            settled[v] = true;
+                            settledInBucket.add(v);
+                        }
+                    }
+                    relaxFrontier(true);
+                    distributeTouched(bucket, improvedInBucket);
+                    takeFrontier(bucket);
+                }
+
+                // Heavy arcs once, from the final distances
+                ensureFrontierCapacity(settledInBucket.size);
+                for (int i = 0; i < settledInBucket.size; i++) {
+                    int v = settledInBucket.values[i];
+                    frontier[i] = v;
+                    frontierDistances[i] = distances[v];
+                }
+                frontierSize = settledInBucket.size;
+                phase++;
+                relaxFrontier(false);
+                distributeTouched(bucket, improvedInBucket);
+
+                settledCount += settledInBucket.size;
+                if (reporting) {
+                    reportBucket(bucket, settledInBucket, improvedInBucket);
+                }
+                if (target != -1 && settled[target]) {
+                    complete = false; // Later buckets still hold nodes with shorter paths left to find
+                    break;
+                }
+                bucket++;
+            }
+            int[] predecessors = new int[graph.nodeCount()];
+            findPredecessors(predecessors);
+            return new ShortestPathTree(graph, source, distances, predecessors, settledCount, complete);
+        }
+
+        private int slotOf(long bucket) {
+            return (int) (bucket % buckets.length);
+        }
+
+        private long bucketOf(double distance) {
+            return (long) (distance / delta);
+        }
+
+        private void addToBucket(int node) {
+            buckets[slotOf(bucketOf(distances[node]))].add(node);
+            queuedEntries++;
+        }
+
+        // Moves the live entries of the bucket into the frontier, dropping stale and repeated ones
+        private void takeFrontier(long bucket) {
+            phase++;
+            IntList entries = buckets[slotOf(bucket)];
+            ensureFrontierCapacity(entries.size);
+            frontierSize = 0;
+            for (int i = 0; i < entries.size; i++) {
+                int v = entries.values[i];
+                if (bucketOf(distances[v]) == bucket && frontierStamps[v] != phase) {
+                    frontierStamps[v] = phase;
+                    frontier[frontierSize] = v;
+                    frontierDistances[frontierSize++] = distances[v];
+                }
+            }
+            queuedEntries -= entries.size;
+            entries.size = 0;
+        }
+
+        private void ensureFrontierCapacity(int capacity) {
+            if (frontier.length < capacity) {
+                frontier = new int[Math.max(capacity, frontier.length * 2)];
+                frontierDistances = new double[frontier.length];
+            }
+        }
+
+        private void relaxFrontier(boolean light) {
+            touchedCount.set(0);
+            if (frontierSize <= GRAIN) {
+                relaxRange(0, frontierSize, light); // Not worth a fork
+            } else {
+                pool.invoke(new RelaxTask(this, 0, frontierSize, light));
+            }
+        }
+
+        // Relaxes the light or heavy arcs of frontier[from, to); runs on the pool's threads
+        void relaxRange(int from, int to, boolean light) {
+            int[] local = new int[16];
+            int localCount = 0;
+            for (int i = from; i < to; i++) {
+                int u = frontier[i];
+                double uDistance = frontierDistances[i];
+                for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                    double weight = graph.arcWeight(arc);
+                    if ((weight <= delta) != light) {
+                        continue;
+                    }
+                    int v = graph.arcTarget(arc);
+                    double candidate = uDistance + weight;
+                    double current = distances[v]; // A stale read only costs a failed compare-and-set
+                    while (candidate < current) {
+                        if (DISTANCES.compareAndSet(distances, v, current, candidate)) {
+                            improvedPhases[v] = phase;
+                            if ((int) STAMPS.getAndSet(touchedStamps, v, phase) != phase) {
+                                if (localCount == local.length) {
+                                    local = Arrays.copyOf(local, localCount * 2);
+                                }
+                                local[localCount++] = v;
+                            }
+                            break;
+                        }
+                        current = (double) DISTANCES.getVolatile(distances, v);
+                    }
+                }
+            }
+            if (localCount > 0) {
+                int offset = touchedCount.getAndAdd(localCount); // Each node is touched once per phase, so this fits
+                System.arraycopy(local, 0, touched, offset, localCount);
+            }
+        }
+
+        // Files the nodes improved in the last phase under their new bucket
+        private void distributeTouched(long bucket, IntList improvedInBucket) {
+            for (int i = 0, count = touchedCount.get(); i < count; i++) {
+                int v = touched[i];
+                addToBucket(v);
+                if (reporting && epochStamps[v] != (int) bucket) {
+                    epochStamps[v] = (int) bucket;
+                    improvedInBucket.add(v);
+                }
+            }
+        }
+
+        // Reports the bucket's improved and settled nodes by distance, so every predecessor comes first
+        private void reportBucket(long bucket, IntList settledInBucket, IntList improvedInBucket) {
+            IntList nodes = new IntList();
+            for (int i = 0; i < improvedInBucket.size; i++) {
+                nodes.add(improvedInBucket.values[i]);
+            }
+            for (int i = 0; i < settledInBucket.size; i++) {
+                int v = settledInBucket.values[i];
+                if (epochStamps[v] != (int) bucket) {
+                    nodes.add(v);
+                }
+            }
+            int[] order = Arrays.stream(nodes.values, 0, nodes.size).boxed()
+                    .sorted((a, b) -> {
+                        int cmp = Double.compare(distances[a], distances[b]);
+                        if (cmp == 0) {
+                            cmp = Integer.compare(improvedPhases[a], improvedPhases[b]); // Zero-weight arcs
+                        }
+                        return cmp != 0 ? cmp : Integer.compare(a, b);
+                    })
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            listener.onBucketOpened((int) bucket, (bucket + 1) * delta);
+            for (int v : order) {
+                if (epochStamps[v] == (int) bucket) {
+                    listener.onEdgeRelaxed(predecessorOf(v), v, distances[v]);
+                }
+                if (settled[v] && bucketOf(distances[v]) == bucket) {
+                    listener.onNodeSettled(v, distances[v]);
+                }
+            }
+        }
+
+        // Tail of the lowest-index in-arc that gives the node its distance from a tail improved in an earlier
+        // phase (the arc that set the distance last qualifies, and phases fall along the chain, so no cycles)
+        private int predecessorOf(int v) {
+            if (v == source || distances[v] == Double.POSITIVE_INFINITY) {
+                return -1;
+            }
+            CsrGraph reversed = graph.reversed();
+            int best = -1;
+            for (int arc = reversed.firstArc(v), end = reversed.endArc(v); arc < end; arc++) {
+                int u = reversed.arcTarget(arc);
+                if (settled[u] && improvedPhases[u] < improvedPhases[v]
+                        && distances[u] + reversed.arcWeight(arc) == distances[v] && (best == -1 || u < best)) {
+                    best = u;
+                }
+            }
+            return best;
+        }
+
+        private void findPredecessors(int[] predecessors) {
+            int n = graph.nodeCount();
+            if (n <= GRAIN) {
+                for (int v = 0; v < n; v++) {
+                    predecessors[v] = predecessorOf(v);
+                }
+                return;
+            }
+            graph.reversed(); // Build it once before the threads need it
+            pool.submit(() -> IntStream.range(0, n).parallel()
+                    .forEach(v -> predecessors[v] = predecessorOf(v))).join();
+        }
+    }
+
+    // Splits the frontier range until it is at most GRAIN nodes long
+    private static final class RelaxTask extends RecursiveAction {
+        private final Search search;
+        private final int from;
+        private final int to;
+        private final boolean light;
+
+        RelaxTask(Search search, int from, int to, boolean light) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                search.relaxRange(from, to, light);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RelaxTask(search, from, middle, light), new RelaxTask(search, middle, to, light));
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
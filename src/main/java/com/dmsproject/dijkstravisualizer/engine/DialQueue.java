@@ -0,0 +1,115 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue for integer keys: one bucket per key value in a circular array of
+ * {@code maxArcWeight + 1} buckets.
+ * <p>
+ * Dijkstra with integer arc weights of at most C only ever has queued keys in
+ * {@code [min, min + C]}, so key {@code k} can live in bucket {@code k mod (C + 1)} without
+ * two live keys sharing a bucket. Offering is O(1); polling scans forward from the last
+ * minimum to the next non-empty bucket, so a whole search costs O(m + max distance).
+ * Deletion is lazy like {@link BinaryMinHeap}: lowering a key adds a second entry and the
+ * caller skips the stale one. Nodes with equal keys come out in reverse insertion order.
+ */
+final class DialQueue implements NodeQueue {
+
+    static final int MAX_BUCKETS = 1 << 20;
+
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    private long minimum; // Key of the bucket the scan stopped at; no queued key is smaller
+    private int size;
+
+    /**
+     * @param maxArcWeight largest arc weight of the searched graph, an integer
+     */
+    DialQueue(long maxArcWeight) {
+        if (maxArcWeight < 0 || maxArcWeight >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Dial buckets need integer arc weights in [0, " + MAX_BUCKETS
+                    + "), got a maximum of " + maxArcWeight + "; use a radix heap");
+        }
+        buckets = new int[(int) maxArcWeight + 1][];
+        bucketSizes = new int[buckets.length];
+    }
+
+    /**
+     * @return the circular bucket holding the key
+     */
+    static int bucketIndex(long key, int bucketCount) {
+        return (int) (key % bucketCount);
+    }
+
+    int bucketCount() {
+        return buckets.length;
+    }
+
+    @Override
+    public void offer(int node, double priority) {
+        long key = (long) priority;
+        if (key != priority || key < 0) {
+            throw new IllegalArgumentException("Dial buckets need non-negative integer keys, got " + priority);
+        }
+        if (key < minimum || key - minimum >= buckets.length) {
+            if (size > 0) {
+                throw new IllegalArgumentException("Key " + key + " outside the bucket window [" + minimum + ", "
+                        + (minimum + buckets.length) + ")");
+            }
+            minimum = key; // An empty queue (a new search) can restart anywhere
+        }
+        int bucket = bucketIndex(key, buckets.length);
+        int[] nodes = buckets[bucket];
+        if (nodes == null) {
+            nodes = buckets[bucket] = new int[4];
+        } else if (bucketSizes[bucket] == nodes.length) {
+            nodes = buckets[bucket] = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        nodes[bucketSizes[bucket]++] = node;
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        int bucket = advanceToMinimum();
+        size--;
+        return buckets[bucket][--bucketSizes[bucket]];
+    }
+
+    @Override
+    public double peekPriority() {
+        advanceToMinimum();
+        return minimum;
+    }
+
+    // Moves the scan to the first non-empty bucket
+    private int advanceToMinimum() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        int bucket = bucketIndex(minimum, buckets.length);
+        while (bucketSizes[bucket] == 0) {
+            minimum++;
+            bucket = bucket + 1 == buckets.length ? 0 : bucket + 1;
+        }
+        return bucket;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) { // A drained queue is already clear; skip the O(C) fill between searches
+            Arrays.fill(bucketSizes, 0);
+            size = 0;
+        }
+    }
+}
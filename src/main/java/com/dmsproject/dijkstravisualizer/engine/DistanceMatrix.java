@@ -0,0 +1,80 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Distances from a list of sources to every node, as computed by
+ * {@link MultiSourceDistances#compute}. Row {@code i} belongs to {@code source(i)}; all rows
+ * live in one row-major {@code double[]}, so a matrix costs 8 bytes per entry and nothing more.
+ */
+public final class DistanceMatrix {
+
+    /**
+     * Largest number of entries a matrix can hold; more rows must be streamed instead.
+     */
+    public static final long MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
+    private final CsrGraph graph;
+    private final int[] sources;
+    private final double[] values;
+
+    DistanceMatrix(CsrGraph graph, int[] sources) {
+        long entries = (long) sources.length * graph.nodeCount();
+        if (entries > MAX_ENTRIES) {
+            throw new IllegalArgumentException(sources.length + " x " + graph.nodeCount()
+                    + " distances do not fit in one matrix; stream the rows instead");
+        }
+        this.graph = graph;
+        this.sources = sources.clone();
+        this.values = new double[(int) entries];
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int rowCount() {
+        return sources.length;
+    }
+
+    public int columnCount() {
+        return graph.nodeCount();
+    }
+
+    /**
+     * @return the source node of the row
+     */
+    public int source(int row) {
+        return sources[row];
+    }
+
+    /**
+     * @return the distance from the row's source to the node, or {@link Double#POSITIVE_INFINITY} if unreachable
+     */
+    public double distance(int row, int node) {
+        checkRow(row);
+        if (node < 0 || node >= graph.nodeCount()) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + graph.nodeCount() + ")");
+        }
+        return values[row * graph.nodeCount() + node];
+    }
+
+    /**
+     * @return a copy of the row
+     */
+    public double[] row(int row) {
+        checkRow(row);
+        int start = row * graph.nodeCount();
+        return Arrays.copyOfRange(values, start, start + graph.nodeCount());
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= sources.length) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + sources.length + ")");
+        }
+    }
+
+    void setRow(int row, double[] distances) {
+        System.arraycopy(distances, 0, values, row * graph.nodeCount(), graph.nodeCount());
+    }
+}
@@ -0,0 +1,458 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-path tree from one source that is kept up to date while the graph is edited.
+ * <p>
+ * Instead of a new search after every edit, only the part of the tree the edit affects is
+ * repaired:
+ * <ul>
+ *   <li>An inserted arc, or a lower weight, can only shorten paths through it. The repair
+ *       starts at the arc's head and runs Dijkstra outwards for as long as distances improve.</li>
+ *   <li>A removed arc, or a higher weight, can only lengthen the paths of the subtree hanging
+ *       below it, and only if it is a tree arc. The repair unsettles that subtree, seeds each
+ *       of its nodes from its best in-arc outside the subtree, and runs Dijkstra inside it.</li>
+ * </ul>
+ * Either way the cost depends on the affected nodes and their arcs, not on the graph size.
+ * The repair is reported to a {@link SearchListener} (relaxed arcs and settled nodes, with
+ * the new distances), so it can be recorded as a short trace of its own.
+ * <p>
+ * The tree keeps its own adjacency in both directions and its own node IDs, built once from
+ * the graph the tree was computed on, and edits change only these. {@link #getGraph()} turns
+ * them back into a {@link CsrGraph} when a caller asks for one, in the tree's own index space:
+ * node indices never change and new nodes are appended. That copy costs O(V + E), so it is
+ * made at most once per batch of edits and never as part of an edit itself. Graphs handed out
+ * earlier, and searches still running on them, never see later edits.
+ */
+public final class DynamicShortestPathTree {
+
+    private final int source;
+    private final QueueStrategy queueStrategy;
+    private final NodeDictionary nodes; // Own copy of the IDs; addNode appends to it
+    private NodeDictionary graphNodes; // IDs shared by the graphs getGraph() built, never modified; null once a node is added
+    private CsrGraph graph; // Built by getGraph() from the adjacency, null once an edit changed it
+    private int nodeCount;
+    private int arcCount;
+
+    // Adjacency in both directions; row v holds degree[v] entries
+    private int[][] outTargets;
+    private double[][] outWeights;
+    private int[] outDegrees;
+    private int[][] inSources;
+    private double[][] inWeights;
+    private int[] inDegrees;
+
+    private double[] distances;
+    private int[] predecessors;
+
+    // Repair scratch state: a node is in the current subtree / settled when its stamp equals the repair's
+    private int[] subtreeStamps;
+    private int[] settledStamps;
+    private int stamp;
+    private int[] subtree;
+    private NodeQueue queue;
+
+    /**
+     * @param tree          complete tree (see {@link ShortestPathTree#isComplete()}) to start from
+     * @param queueStrategy queue for the repairs; the bucket queues are replaced by the indexed
+     *                      heap, since edits may bring in any weight and a repair seeds many
+     *                      nodes at once, far outside one bucket window
+     */
+    public DynamicShortestPathTree(ShortestPathTree tree, QueueStrategy queueStrategy) {
+        if (!tree.isComplete()) {
+            throw new IllegalArgumentException("Only a complete shortest-path tree can be kept up to date");
+        }
+        CsrGraph graph = tree.getGraph();
+        int n = graph.nodeCount();
+        this.source = tree.getSource();
+        this.queueStrategy = queueStrategy.needsIntegerWeights() ? QueueStrategy.INDEXED_DARY_HEAP : queueStrategy;
+        this.nodes = graph.getNodes().copy();
+        this.graphNodes = graph.getNodes();
+        this.graph = graph;
+        this.nodeCount = n;
+        this.arcCount = graph.arcCount();
+
+        outTargets = new int[n][];
+        outWeights = new double[n][];
+        outDegrees = new int[n];
+        inSources = new int[n][];
+        inWeights = new double[n][];
+        inDegrees = new int[n];
+        CsrGraph reversed = graph.reversed();
+        for (int v = 0; v < n; v++) {
+            outDegrees[v] = graph.degree(v);
+            outTargets[v] = new int[Math.max(outDegrees[v], 2)];
+            outWeights[v] = new double[outTargets[v].length];
+            for (int i = 0, arc = graph.firstArc(v); i < outDegrees[v]; i++, arc++) {
+                outTargets[v][i] = graph.arcTarget(arc);
+                outWeights[v][i] = graph.arcWeight(arc);
+            }
+            inDegrees[v] = reversed.degree(v);
+            inSources[v] = new int[Math.max(inDegrees[v], 2)];
+            inWeights[v] = new double[inSources[v].length];
+            for (int i = 0, arc = reversed.firstArc(v); i < inDegrees[v]; i++, arc++) {
+                inSources[v][i] = reversed.arcTarget(arc);
+                inWeights[v][i] = reversed.arcWeight(arc);
+            }
+        }
+
+        distances = new double[n];
+        predecessors = new int[n];
+        for (int v = 0; v < n; v++) {
+            distances[v] = tree.distanceTo(v);
+            predecessors[v] = tree.predecessorOf(v);
+        }
+        subtreeStamps = new int[n];
+        settledStamps = new int[n];
+        subtree = new int[16];
+        queue = this.queueStrategy.create(Math.max(n, 16), Double.POSITIVE_INFINITY); // Edits may bring in any weight
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the number of arcs of the edited graph
+     */
+    public int arcCount() {
+        return arcCount;
+    }
+
+    /**
+     * @return the graph with every edit so far, in the same node indices as the tree. The first
+     *         call after an edit builds it from the tree's adjacency in O(V + E); later calls
+     *         return the same graph until the next edit.
+     */
+    public CsrGraph getGraph() {
+        if (graph == null) {
+            if (graphNodes == null) {
+                graphNodes = nodes.copy(); // Older graphs keep reading the IDs they were built with
+            }
+            int[] offsets = new int[nodeCount + 1];
+            for (int v = 0; v < nodeCount; v++) {
+                offsets[v + 1] = offsets[v] + outDegrees[v];
+            }
+            int[] targets = new int[arcCount];
+            double[] weights = new double[arcCount];
+            for (int v = 0; v < nodeCount; v++) {
+                System.arraycopy(outTargets[v], 0, targets, offsets[v], outDegrees[v]);
+                System.arraycopy(outWeights[v], 0, weights, offsets[v], outDegrees[v]);
+            }
+            graph = new CsrGraph(graphNodes, offsets, targets, weights);
+        }
+        return graph;
+    }
+
+    /**
+     * @return the index of the node, or -1 if it is not in the edited graph
+     */
+    public int indexOf(String nodeId) {
+        return nodes.indexOf(nodeId);
+    }
+
+    public String idOf(int node) {
+        checkNode(node);
+        return nodes.idOf(node);
+    }
+
+    public double distanceTo(int node) {
+        checkNode(node);
+        return distances[node];
+    }
+
+    public int predecessorOf(int node) {
+        checkNode(node);
+        return predecessors[node];
+    }
+
+    /**
+     * Adds an unconnected (so unreached) node.
+     *
+     * @return its index
+     */
+    public int addNode(String nodeId) {
+        if (nodes.contains(nodeId)) {
+            throw new IllegalArgumentException("Node already exists: " + nodeId);
+        }
+        nodes.add(nodeId);
+        graphNodes = null;
+        graph = null;
+        int node = nodeCount;
+        if (node == distances.length) {
+            int capacity = Math.max(16, distances.length * 2);
+            outTargets = Arrays.copyOf(outTargets, capacity);
+            outWeights = Arrays.copyOf(outWeights, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            inSources = Arrays.copyOf(inSources, capacity);
+            inWeights = Arrays.copyOf(inWeights, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+            subtreeStamps = Arrays.copyOf(subtreeStamps, capacity);
+            settledStamps = Arrays.copyOf(settledStamps, capacity);
+            queue = queueStrategy.create(capacity, Double.POSITIVE_INFINITY);
+        }
+        outTargets[node] = new int[2];
+        outWeights[node] = new double[2];
+        inSources[node] = new int[2];
+        inWeights[node] = new double[2];
+        distances[node] = Double.POSITIVE_INFINITY;
+        predecessors[node] = -1;
+        nodeCount++;
+        return node;
+    }
+
+    /**
+     * Sets the weight of an undirected edge (both arcs), inserting it if needed, and repairs the tree.
+     *
+     * @return the number of nodes whose distance the repair settled again
+     */
+    public int setEdgeWeight(int a, int b, double weight, SearchListener listener) {
+        checkArc(a, b, weight);
+        return updateArc(a, b, weight, listener) + updateArc(b, a, weight, listener);
+    }
+
+    /**
+     * Removes an undirected edge (both arcs) and repairs the tree.
+     *
+     * @return the number of nodes whose distance the repair settled again
+     */
+    public int removeEdge(int a, int b, SearchListener listener) {
+        checkNode(a);
+        checkNode(b);
+        return deleteArc(a, b, listener) + deleteArc(b, a, listener);
+    }
+
+    /**
+     * Sets the weight of the arc, inserting it if needed, and repairs the tree.
+     *
+     * @return the number of nodes whose distance the repair settled again
+     */
+    public int setArcWeight(int from, int to, double weight, SearchListener listener) {
+        checkArc(from, to, weight);
+        return updateArc(from, to, weight, listener);
+    }
+
+    /**
+     * Removes the arc, if present, and repairs the tree.
+     *
+     * @return the number of nodes whose distance the repair settled again
+     */
+    public int removeArc(int from, int to, SearchListener listener) {
+        checkNode(from);
+        checkNode(to);
+        return deleteArc(from, to, listener);
+    }
+
+    /**
+     * @return a copy of the current tree on {@link #getGraph()}, with the same node indices
+     *         (so the first call after an edit also builds the graph)
+     */
+    public ShortestPathTree toTree() {
+        int reached = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            if (distances[v] != Double.POSITIVE_INFINITY) {
+                reached++;
+            }
+        }
+        return new ShortestPathTree(getGraph(), source, Arrays.copyOf(distances, nodeCount),
+                Arrays.copyOf(predecessors, nodeCount), reached, true);
+    }
+
+    // Sets the arc in the adjacency and repairs for the change
+    private int updateArc(int from, int to, double weight, SearchListener listener) {
+        int outSlot = slotOf(outTargets[from], outDegrees[from], to);
+        double oldWeight = outSlot < 0 ? Double.POSITIVE_INFINITY : outWeights[from][outSlot];
+        if (outSlot < 0) {
+            appendArc(from, to, weight);
+            graph = null;
+        } else if (weight != oldWeight) {
+            outWeights[from][outSlot] = weight;
+            inWeights[to][slotOf(inSources[to], inDegrees[to], from)] = weight;
+            graph = null;
+        }
+        if (weight < oldWeight) {
+            return repairDecrease(from, to, weight, listener);
+        }
+        return weight > oldWeight ? repairIncrease(from, to, listener) : 0;
+    }
+
+    // Removes the arc, if present, from the adjacency and repairs for it
+    private int deleteArc(int from, int to, SearchListener listener) {
+        int outSlot = slotOf(outTargets[from], outDegrees[from], to);
+        if (outSlot < 0) {
+            return 0;
+        }
+        graph = null;
+        arcCount--;
+        removeSlot(outTargets[from], outWeights[from], --outDegrees[from], outSlot);
+        removeSlot(inSources[to], inWeights[to], --inDegrees[to], slotOf(inSources[to], inDegrees[to] + 1, from));
+        return repairIncrease(from, to, listener);
+    }
+
+    // Shorter arc: only paths through it can improve, so search outwards from its head while they do
+    private int repairDecrease(int from, int to, double weight, SearchListener listener) {
+        double candidate = distances[from] + weight;
+        if (!(candidate < distances[to])) {
+            return 0;
+        }
+        nextStamp();
+        distances[to] = candidate;
+        predecessors[to] = from;
+        listener.onEdgeRelaxed(from, to, candidate);
+        queue.offer(to, candidate);
+        int settledCount = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (settledStamps[u] == stamp) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            settledStamps[u] = stamp;
+            settledCount++;
+            double uDistance = distances[u];
+            listener.onNodeSettled(u, uDistance);
+            for (int i = 0; i < outDegrees[u]; i++) {
+                int v = outTargets[u][i];
+                double vCandidate = uDistance + outWeights[u][i];
+                if (vCandidate < distances[v]) {
+                    distances[v] = vCandidate;
+                    predecessors[v] = u;
+                    queue.offer(v, vCandidate);
+                    listener.onEdgeRelaxed(u, v, vCandidate);
+                }
+            }
+        }
+        return settledCount;
+    }
+
+    // Longer or removed arc: only the subtree below it, if it is a tree arc, can get longer paths
+    private int repairIncrease(int from, int to, SearchListener listener) {
+        if (predecessors[to] != from) {
+            return 0; // Not a tree arc: no shortest path used it
+        }
+        nextStamp();
+        int subtreeSize = collectSubtree(to);
+        for (int i = 0; i < subtreeSize; i++) {
+            distances[subtree[i]] = Double.POSITIVE_INFINITY;
+            predecessors[subtree[i]] = -1;
+        }
+        // Best way into each subtree node from the unaffected rest of the tree
+        for (int i = 0; i < subtreeSize; i++) {
+            int v = subtree[i];
+            for (int j = 0; j < inDegrees[v]; j++) {
+                int u = inSources[v][j];
+                if (subtreeStamps[u] != stamp && distances[u] + inWeights[v][j] < distances[v]) {
+                    distances[v] = distances[u] + inWeights[v][j];
+                    predecessors[v] = u;
+                }
+            }
+            if (predecessors[v] != -1) {
+                listener.onEdgeRelaxed(predecessors[v], v, distances[v]);
+                queue.offer(v, distances[v]);
+            }
+        }
+        // Dijkstra restricted to the subtree; nodes outside it keep their distances
+        int settledCount = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (settledStamps[u] == stamp) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            settledStamps[u] = stamp;
+            settledCount++;
+            double uDistance = distances[u];
+            listener.onNodeSettled(u, uDistance);
+            for (int i = 0; i < outDegrees[u]; i++) {
+                int v = outTargets[u][i];
+                double vCandidate = uDistance + outWeights[u][i];
+                if (subtreeStamps[v] == stamp && settledStamps[v] != stamp && vCandidate < distances[v]) {
+                    distances[v] = vCandidate;
+                    predecessors[v] = u;
+                    queue.offer(v, vCandidate);
+                    listener.onEdgeRelaxed(u, v, vCandidate);
+                }
+            }
+        }
+        return settledCount;
+    }
+
+    // Marks the tree below root (root included) and lists it in subtree[]; a child is any out-neighbour whose predecessor is its parent
+    private int collectSubtree(int root) {
+        int size = 0;
+        subtree[size++] = root;
+        subtreeStamps[root] = stamp;
+        for (int next = 0; next < size; next++) {
+            int u = subtree[next];
+            for (int i = 0; i < outDegrees[u]; i++) {
+                int v = outTargets[u][i];
+                if (predecessors[v] == u && subtreeStamps[v] != stamp) {
+                    if (size == subtree.length) {
+                        subtree = Arrays.copyOf(subtree, size * 2);
+                    }
+                    subtree[size++] = v;
+                    subtreeStamps[v] = stamp;
+                }
+            }
+        }
+        return size;
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(subtreeStamps, 0);
+            Arrays.fill(settledStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private void appendArc(int from, int to, double weight) {
+        if (outDegrees[from] == outTargets[from].length) {
+            outTargets[from] = Arrays.copyOf(outTargets[from], outDegrees[from] * 2);
+            outWeights[from] = Arrays.copyOf(outWeights[from], outDegrees[from] * 2);
+        }
+        outTargets[from][outDegrees[from]] = to;
+        outWeights[from][outDegrees[from]++] = weight;
+        if (inDegrees[to] == inSources[to].length) {
+            inSources[to] = Arrays.copyOf(inSources[to], inDegrees[to] * 2);
+            inWeights[to] = Arrays.copyOf(inWeights[to], inDegrees[to] * 2);
+        }
+        inSources[to][inDegrees[to]] = from;
+        inWeights[to][inDegrees[to]++] = weight;        arcCount++;
+    }
+
+    private static int slotOf(int[] row, int degree, int node) {
+        for (int i = 0; i < degree; i++) {
+            if (row[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Shifts the entries after the slot down (last is the new degree). Keeping the order keeps
+    // several parallel arcs in the same order in the out- and in-rows, so "the first" is one arc
+    private static void removeSlot(int[] nodes, double[] weights, int last, int slot) {
+        System.arraycopy(nodes, slot + 1, nodes, slot, last - slot);
+        System.arraycopy(weights, slot + 1, weights, slot, last - slot);
+    }
+
+    private void checkArc(int from, int to, double weight) {
+        checkNode(from);
+        checkNode(to);
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Arc weights must be finite and non-negative: " + weight);
+        }
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + nodeCount + ")");
+        }
+    }
+}
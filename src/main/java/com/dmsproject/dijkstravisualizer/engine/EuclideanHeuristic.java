@@ -0,0 +1,79 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * A* lower bound from node positions: {@code scale} times the straight-line distance
+ * between a node and the target in a {@link GraphLayout}.
+ * <p>
+ * Edge weights are not tied to the drawing, so the scale has to come from the graph:
+ * {@link #consistentScale} is the largest one for which no arc is shorter than the
+ * estimate across it. Up to that scale the estimate is consistent, so A* settles every
+ * node at its final distance and finds the same paths as Dijkstra. A scale of 0 turns
+ * A* back into Dijkstra.
+ */
+public final class EuclideanHeuristic {
+
+    // Keeps the estimate strictly below the weight of the tightest arc despite rounding
+    private static final double ROUNDING_MARGIN = 1.0 - 1e-9;
+
+    private final GraphLayout layout;
+    private final double scale;
+
+    public EuclideanHeuristic(GraphLayout layout, double scale) {
+        if (!(scale >= 0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("Heuristic scale must be finite and non-negative: " + scale);
+        }
+        this.layout = layout;
+        this.scale = scale;
+    }
+
+    /**
+     * @return the heuristic with {@code factor} times the graph's consistent scale; factors
+     *         from 0 to 1 keep it consistent
+     */
+    public static EuclideanHeuristic of(CsrGraph graph, GraphLayout layout, double factor) {
+        if (!(factor >= 0 && factor <= 1)) {
+            throw new IllegalArgumentException("Heuristic factor must be between 0 and 1: " + factor);
+        }
+        return new EuclideanHeuristic(layout, factor * consistentScale(graph, layout));
+    }
+
+    /**
+     * @return the smallest ratio of arc weight to drawn arc length over all arcs, or 0 if
+     *         no arc has a positive length
+     */
+    public static double consistentScale(CsrGraph graph, GraphLayout layout) {
+        if (layout.nodeCount() != graph.nodeCount()) {
+            throw new IllegalArgumentException("Layout has " + layout.nodeCount()
+                    + " nodes, graph has " + graph.nodeCount());
+        }
+        double scale = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                double length = distance(layout, u, graph.arcTarget(arc));
+                if (length > 0) {
+                    scale = Math.min(scale, graph.arcWeight(arc) / length);
+                }
+            }
+        }
+        return scale == Double.POSITIVE_INFINITY ? 0.0 : Math.max(scale, 0.0) * ROUNDING_MARGIN;
+    }
+
+    public GraphLayout getLayout() {
+        return layout;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return the lower bound on the distance from the node to the target
+     */
+    public double estimate(int node, int target) {
+        return scale * distance(layout, node, target);
+    }
+
+    private static double distance(GraphLayout layout, int a, int b) {
+        return Math.hypot(layout.x(a) - layout.x(b), layout.y(a) - layout.y(b));
+    }
+}
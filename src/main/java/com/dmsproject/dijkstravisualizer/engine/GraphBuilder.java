@@ -0,0 +1,97 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Collects nodes and arcs in insertion order and freezes them into a
+ * {@link CsrGraph}. The builder can keep growing after {@link #build()};
+ * every call produces an independent snapshot.
+ */
+public final class GraphBuilder {
+
+    private final NodeDictionary nodes;
+    private int[] arcSources;
+    private int[] arcTargets;
+    private double[] arcWeights;
+    private int arcCount;
+
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    public GraphBuilder(int expectedNodes, int expectedArcs) {
+        this.nodes = new NodeDictionary(expectedNodes);
+        this.arcSources = new int[Math.max(expectedArcs, 1)];
+        this.arcTargets = new int[Math.max(expectedArcs, 1)];
+        this.arcWeights = new double[Math.max(expectedArcs, 1)];
+    }
+
+    public int addNode(String nodeId) {
+        return nodes.add(nodeId);
+    }
+
+    /**
+     * Adds an undirected edge as a pair of arcs. Unknown node IDs are added on the fly.
+     */
+    public void addEdge(String sourceId, String targetId, double weight) {
+        int u = nodes.add(sourceId);
+        int v = nodes.add(targetId);
+        addArc(u, v, weight);
+        addArc(v, u, weight);
+    }
+
+    /**
+     * Adds a single directed arc between two existing node indices.
+     */
+    public void addArc(int source, int target, double weight) {
+        if (source < 0 || source >= nodes.size() || target < 0 || target >= nodes.size()) {
+            throw new IndexOutOfBoundsException("Arc " + source + " -> " + target + " refers to an unknown node");
+        }
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Arc weight must be a finite non-negative number: " + weight);
+        }
+        if (arcCount == arcSources.length) {
+            int newCapacity = arcCount * 2;
+            arcSources = Arrays.copyOf(arcSources, newCapacity);
+            arcTargets = Arrays.copyOf(arcTargets, newCapacity);
+            arcWeights = Arrays.copyOf(arcWeights, newCapacity);
+        }
+        arcSources[arcCount] = source;
+        arcTargets[arcCount] = target;
+        arcWeights[arcCount] = weight;
+        arcCount++;
+    }
+
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+    public int arcCount() {
+        return arcCount;
+    }
+
+    /**
+     * Freezes the current contents with a counting sort by source node.
+     * Arcs of the same node keep their insertion order.
+     */
+    public CsrGraph build() {
+        int n = nodes.size();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < arcCount; i++) {
+            offsets[arcSources[i] + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        int[] targets = new int[arcCount];
+        double[] weights = new double[arcCount];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < arcCount; i++) {
+            int slot = next[arcSources[i]]++;
+            targets[slot] = arcTargets[i];
+            weights[slot] = arcWeights[i];
+        }
+        return new CsrGraph(nodes.copy(), offsets, targets, weights);
+    }
+}
@@ -0,0 +1,326 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary file holding a {@link CsrGraph} and its {@link GraphLayout}.
+ * <p>
+ * Layout (little-endian), version 1:
+ * <pre>
+ * header   int magic "DJKG", int version, int nodeCount, int arcCount, long idByteCount, long reserved
+ * ids      int[nodeCount + 1] byte offsets into the id block, byte[idByteCount] UTF-8 node IDs
+ *          (zero padding up to a multiple of 8 bytes)
+ * layout   double[nodeCount] x, double[nodeCount] y
+ * csr      int[nodeCount + 1] offsets, int[arcCount] targets
+ *          (zero padding up to a multiple of 8 bytes), double[arcCount] weights
+ * </pre>
+ * Every section is a plain array, so saving is one sequential channel write and loading
+ * reads each section with positional channel reads straight into its array; nothing is
+ * parsed per edge. The file is not memory-mapped: the arrays are the graph's own copies and
+ * the channel is closed once they are read, so the file can be overwritten right away.
+ * The header alone fixes the file size, which is checked before any array is allocated.
+ */
+public final class GraphFile {
+
+    public static final String EXTENSION = "dgraph";
+
+    private static final int MAGIC = 0x474B4A44; // "DJKG" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private final CsrGraph graph;
+    private final GraphLayout layout;
+
+    private GraphFile(CsrGraph graph, GraphLayout layout) {
+        this.graph = graph;
+        this.layout = layout;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public GraphLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Writes the graph and its layout, replacing the file if it exists.
+     */
+    public static void write(Path path, CsrGraph graph, GraphLayout layout) throws IOException {
+        int n = graph.nodeCount();
+        if (layout.nodeCount() != n) {
+            throw new IllegalArgumentException("Layout has " + layout.nodeCount() + " nodes but the graph has " + n);
+        }
+        int m = graph.arcCount();
+        byte[][] ids = new byte[n][];
+        int[] idOffsets = new int[n + 1];
+        long idBytes = 0;
+        for (int v = 0; v < n; v++) {
+            ids[v] = graph.idOf(v).getBytes(StandardCharsets.UTF_8);
+            idBytes += ids[v].length;
+            if (idBytes > Integer.MAX_VALUE) {
+                throw new IOException("Node IDs are too long to be saved");
+            }
+            idOffsets[v + 1] = (int) idBytes;
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = graph.endArc(v);
+        }
+        for (int a = 0; a < m; a++) {
+            targets[a] = graph.arcTarget(a);
+            weights[a] = graph.arcWeight(a);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putLong(idBytes).putLong(0L);
+            putInts(channel, buffer, idOffsets);
+            for (byte[] id : ids) {
+                putBytes(channel, buffer, id);
+            }
+            pad(channel, buffer, HEADER_BYTES + 4L * (n + 1) + idBytes);
+            putDoubles(channel, buffer, layout.xs());
+            putDoubles(channel, buffer, layout.ys());
+            putInts(channel, buffer, offsets);
+            putInts(channel, buffer, targets);
+            pad(channel, buffer, 4L * (n + 1) + 4L * m);
+            putDoubles(channel, buffer, weights);
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Reads the graph and layout back from the file's sections.
+     *
+     * @throws IOException if the file cannot be read or is not a valid graph file
+     */
+    public static GraphFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not a graph file (too short): " + path);
+            }
+            SectionReader in = new SectionReader(channel, path);
+            ByteBuffer header = in.read(HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file (bad magic number): " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph file version " + version + " (expected " + VERSION + "): " + path);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            long idBytes = header.getLong();
+            if (n < 0 || n == Integer.MAX_VALUE || m < 0 || idBytes < 0 || idBytes > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt graph file header: " + path);
+            }
+            long expectedSize = fileSize(n, m, idBytes);
+            if (expectedSize != fileSize) {
+                // Checked before allocating, so a damaged header cannot ask for arrays larger than the file
+                throw new IOException("Corrupt graph file (expected " + expectedSize + " bytes, found " + fileSize + "): " + path);
+            }
+
+            int[] idOffsets = new int[n + 1];
+            in.readInts(idOffsets);
+            byte[] idBlock = new byte[(int) idBytes];
+            in.readBytes(idBlock);
+            in.align8();
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            in.readDoubles(xs);
+            in.readDoubles(ys);
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[m];
+            double[] weights = new double[m];
+            in.readInts(offsets);
+            in.readInts(targets);
+            in.align8();
+            in.readDoubles(weights);
+
+            NodeDictionary nodes = new NodeDictionary(n);
+            for (int v = 0; v < n; v++) {
+                int start = idOffsets[v];
+                int end = idOffsets[v + 1];
+                if (start > end || end > idBlock.length) {
+                    throw new IOException("Corrupt node ID table: " + path);
+                }
+                if (nodes.add(new String(idBlock, start, end - start, StandardCharsets.UTF_8)) != v) {
+                    throw new IOException("Duplicate node ID in graph file: " + path);
+                }
+            }
+            checkCsr(n, offsets, targets, path);
+            return new GraphFile(new CsrGraph(nodes, offsets, targets, weights), new GraphLayout(xs, ys));
+        }
+    }
+
+    /**
+     * @return the size of a file with this header, the sum of the sections listed in the class comment
+     */
+    static long fileSize(int nodeCount, int arcCount, long idBytes) {
+        long ids = align8(HEADER_BYTES + 4L * (nodeCount + 1L) + idBytes);
+        long layout = 16L * nodeCount;
+        long csr = align8(4L * (nodeCount + 1L) + 4L * arcCount) + 8L * arcCount;
+        return ids + layout + csr;
+    }
+
+    // Loading must never produce a graph that fails later with an index error
+    static void checkCsr(int n, int[] offsets, int[] targets, Path path) throws IOException {
+        if (offsets[0] != 0 || offsets[n] != targets.length) {
+            throw new IOException("Corrupt adjacency offsets: " + path);
+        }
+        for (int v = 0; v < n; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                throw new IOException("Corrupt adjacency offsets: " + path);
+            }
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= n) {
+                throw new IOException("Corrupt adjacency targets: " + path);
+            }
+        }
+    }
+
+    static long align8(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Reads consecutive sections of a file through one reusable buffer, with positional
+     * channel reads that copy straight into the target arrays.
+     */
+    static final class SectionReader {
+        private final FileChannel channel;
+        private final Path path;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        SectionReader(FileChannel channel, Path path) {
+            this.channel = channel;
+            this.path = path;
+        }
+
+        /**
+         * @return the file position of the next section
+         */
+        long position() {
+            return position;
+        }
+
+        /**
+         * Reads the next {@code bytes} bytes (at most the buffer size).
+         *
+         * @return the buffer holding them, valid until the next read
+         */
+        ByteBuffer read(int bytes) throws IOException {
+            buffer.clear().limit(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("File is truncated: " + path);
+                }
+            }
+            position += bytes;
+            return buffer.flip();
+        }
+
+        void readInts(int[] values) throws IOException {
+            int chunk = READ_BUFFER_BYTES / Integer.BYTES;
+            for (int from = 0; from < values.length; from += chunk) {
+                int count = Math.min(chunk, values.length - from);
+                read(count * Integer.BYTES).asIntBuffer().get(values, from, count);
+            }
+        }
+
+        void readDoubles(double[] values) throws IOException {
+            int chunk = READ_BUFFER_BYTES / Double.BYTES;
+            for (int from = 0; from < values.length; from += chunk) {
+                int count = Math.min(chunk, values.length - from);
+                read(count * Double.BYTES).asDoubleBuffer().get(values, from, count);
+            }
+        }
+
+        void readBytes(byte[] values) throws IOException {
+            for (int from = 0; from < values.length; from += READ_BUFFER_BYTES) {
+                int count = Math.min(READ_BUFFER_BYTES, values.length - from);
+                read(count).get(values, from, count);
+            }
+        }
+
+        /**
+         * Skips the padding that ends the previous section on an 8-byte boundary.
+         */
+        void align8() {
+            position = GraphFile.align8(position);
+        }
+    }
+
+    static void putInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(buffer.remaining() / Integer.BYTES, values.length - from);
+            if (count == 0) {
+                drain(channel, buffer);
+                continue;
+            }
+            buffer.asIntBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            from += count;
+        }
+    }
+
+    static void putDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(buffer.remaining() / Double.BYTES, values.length - from);
+            if (count == 0) {
+                drain(channel, buffer);
+                continue;
+            }
+            buffer.asDoubleBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            from += count;
+        }
+    }
+
+    private static void putBytes(FileChannel channel, ByteBuffer buffer, byte[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int count = Math.min(buffer.remaining(), values.length - from);
+            if (count == 0) {
+                drain(channel, buffer);
+                continue;
+            }
+            buffer.put(values, from, count);
+            from += count;
+        }
+    }
+
+    // Writes zero bytes so that a section of the given length ends on an 8-byte boundary
+    static void pad(FileChannel channel, ByteBuffer buffer, long sectionBytes) throws IOException {
+        int padding = (int) (align8(sectionBytes) - sectionBytes);
+        if (buffer.remaining() < padding) {
+            drain(channel, buffer);
+        }
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
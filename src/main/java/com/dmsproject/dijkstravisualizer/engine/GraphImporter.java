@@ -0,0 +1,572 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams large graph files straight into a {@link CsrGraph}.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *     <li>DIMACS shortest-path ({@code .gr}): {@code c} comment lines, one
+ *     {@code p sp <nodes> <arcs>} line and {@code a <u> <v> <weight>} arc lines with
+ *     node IDs {@code 1..nodes}. Arcs are one-way, as in the file.</li>
+ *     <li>Edge lists (anything else): one undirected {@code <u> <v> [weight]} edge per line,
+ *     separated by commas, semicolons, spaces or tabs. Node IDs are non-negative
+ *     integers, a missing weight counts as 1, lines starting with {@code #} or
+ *     {@code %} are comments and a non-numeric first line is taken as a header.</li>
+ * </ul>
+ * The file is read once through a fixed-size buffer and numbers are parsed from the
+ * raw bytes, so no String is created per token. Like the edge dialog in the UI, every
+ * weight must be a positive number. An arc that appears more than once (the same
+ * {@code u -> v}; for edge lists the same edge in either direction) is merged into one
+ * with the smallest weight. Duplicates are found by sorting all edges once, not per
+ * line. Self-loops are dropped because they never shorten a path.
+ */
+public final class GraphImporter {
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private GraphImporter() {
+    }
+
+    /**
+     * Summary of one import.
+     */
+    public static final class Result {
+        private final CsrGraph graph;
+        private final long edgeLines;
+        private final long duplicateEdges;
+        private final long selfLoops;
+        private final boolean symmetric;
+
+        Result(CsrGraph graph, long edgeLines, long duplicateEdges, long selfLoops, boolean symmetric) {
+            this.graph = graph;
+            this.edgeLines = edgeLines;
+            this.duplicateEdges = duplicateEdges;
+            this.selfLoops = selfLoops;
+            this.symmetric = symmetric;
+        }
+
+        public CsrGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * @return the number of edge (or arc) lines read from the file
+         */
+        public long getEdgeLines() {
+            return edgeLines;
+        }
+
+        /**
+         * @return edge lines merged into an earlier edge (or arc) between the same two nodes
+         */
+        public long getDuplicateEdges() {
+            return duplicateEdges;
+        }
+
+        public long getSelfLoops() {
+            return selfLoops;
+        }
+
+        /**
+         * @return whether every arc has a reverse arc of the same weight, so the graph is
+         *         undirected; always true for edge lists, false for DIMACS files with one-way
+         *         arcs or different weights per direction
+         */
+        public boolean isSymmetric() {
+            return symmetric;
+        }
+    }
+
+    /**
+     * Imports a DIMACS file if the name ends with {@code .gr}, otherwise an edge list.
+     */
+    public static Result importFile(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".gr") ? importDimacs(path) : importEdgeList(path);
+    }
+
+    public static Result importDimacs(Path path) throws IOException {
+        try (Scanner in = new Scanner(path)) {
+            long declaredNodes = -1;
+            EdgeArrays edges = null;
+            while (in.skipBlankLines()) {
+                int tag = in.peek();
+                if (tag == 'c') {
+                    in.skipLine();
+                } else if (tag == 'p') {
+                    if (declaredNodes >= 0) {
+                        throw in.error("Duplicate problem line");
+                    }
+                    in.next();
+                    in.expectWord("sp");
+                    declaredNodes = in.readLong();
+                    long declaredArcs = in.readLong();
+                    if (declaredNodes > Integer.MAX_VALUE - 1) {
+                        throw in.error("Too many nodes: " + declaredNodes);
+                    }
+                    edges = new EdgeArrays((int) Math.min(declaredArcs, 1 << 24)); // Grows if the header undercounts
+                    in.endLine();
+                } else if (tag == 'a') {
+                    if (edges == null) {
+                        throw in.error("Arc line before the problem line");
+                    }
+                    in.next();
+                    long u = in.readLong();
+                    long v = in.readLong();
+                    double weight = in.readWeight();
+                    in.endLine();
+                    if (u < 1 || u > declaredNodes || v < 1 || v > declaredNodes) {
+                        throw in.error("Node ID out of range 1.." + declaredNodes);
+                    }
+                    edges.add(u - 1, v - 1, weight);
+                } else {
+                    throw in.error("Unexpected line type '" + (char) tag + "'");
+                }
+            }
+            if (edges == null) {
+                throw new IOException("No problem line ('p sp <nodes> <arcs>') found in " + path);
+            }
+            return edges.build(NodeDictionary.numbered(1, (int) declaredNodes), true);
+        }
+    }
+
+    public static Result importEdgeList(Path path) throws IOException {
+        try (Scanner in = new Scanner(path)) {
+            EdgeArrays edges = new EdgeArrays(1 << 16);
+            boolean firstLine = true;
+            while (in.skipBlankLines()) {
+                int first = in.peek();
+                if (first == '#' || first == '%') {
+                    in.skipLine();
+                    continue;
+                }
+                if (firstLine && (first < '0' || first > '9')) {
+                    in.skipLine(); // Header such as "source,target,weight"
+                    firstLine = false;
+                    continue;
+                }
+                firstLine = false;
+                long u = in.readLong();
+                in.skipSeparator();
+                long v = in.readLong();
+                double weight = in.skipSeparator() ? in.readWeight() : 1.0;
+                in.endLine();
+                edges.add(u, v, weight);
+            }
+            return edges.build(edges.compactIds(), false);
+        }
+    }
+
+    /**
+     * Growable columns of (u, v, weight) edges, plus the bulk steps that turn them into a graph.
+     */
+    private static final class EdgeArrays {
+        private long[] us;
+        private long[] vs;
+        private double[] weights;
+        private int size;
+
+        EdgeArrays(int expected) {
+            int capacity = Math.max(expected, 16);
+            us = new long[capacity];
+            vs = new long[capacity];
+            weights = new double[capacity];
+        }
+
+        void add(long u, long v, double weight) {
+            if (size == us.length) {
+                if (size >= Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many edges to import");
+                }
+                int capacity = (int) Math.min((long) size * 2, Integer.MAX_VALUE - 8);
+                us = Arrays.copyOf(us, capacity);
+                vs = Arrays.copyOf(vs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            us[size] = u;
+            vs[size] = v;
+            weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Replaces arbitrary numeric IDs by dense indices (sorted by ID) and returns the matching dictionary.
+         */
+        NodeDictionary compactIds() {
+            long[] ids = new long[2 * size];
+            System.arraycopy(us, 0, ids, 0, size);
+            System.arraycopy(vs, 0, ids, size, size);
+            Arrays.sort(ids);
+            int unique = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                us[i] = Arrays.binarySearch(ids, 0, unique, us[i]);
+                vs[i] = Arrays.binarySearch(ids, 0, unique, vs[i]);
+            }
+            if (unique == 0 || ids[unique - 1] - ids[0] == unique - 1) {
+                return NodeDictionary.numbered(unique == 0 ? 0 : ids[0], unique);
+            }
+            NodeDictionary nodes = new NodeDictionary(unique);
+            for (int i = 0; i < unique; i++) {
+                nodes.add(Long.toString(ids[i]));
+            }
+            return nodes;
+        }
+
+        /**
+         * Sorts the edges by endpoint pair, merges duplicates and lays the result out as CSR.
+         *
+         * @param directed whether each (u, v) is a one-way arc u -> v; otherwise it is an
+         *                 undirected edge, stored as both arcs
+         */
+        Result build(NodeDictionary nodes, boolean directed) {
+            int n = nodes.size();
+
+            // Orient undirected edges as (low, high), drop self-loops and bucket by the first endpoint
+            int[] start = new int[n + 1];
+            long selfLoops = 0;
+            for (int i = 0; i < size; i++) {
+                if (us[i] == vs[i]) {
+                    selfLoops++;
+                } else {
+                    start[(int) (directed ? us[i] : Math.min(us[i], vs[i])) + 1]++;
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                start[u + 1] += start[u];
+            }
+            int kept = start[n];
+            long[] keys = new long[kept]; // (to << 32) | slot, sorted per bucket
+            double[] slotWeights = new double[kept]; // Weights move with their bucket so lookups stay local
+            int[] next = Arrays.copyOf(start, n);
+            for (int i = 0; i < size; i++) {
+                if (us[i] != vs[i]) {
+                    int from = (int) (directed ? us[i] : Math.min(us[i], vs[i]));
+                    long to = directed ? vs[i] : Math.max(us[i], vs[i]);
+                    int slot = next[from]++;
+                    keys[slot] = (to << 32) | slot;
+                    slotWeights[slot] = weights[i];
+                }
+            }
+
+            // Within each bucket equal keys are adjacent after sorting, so one scan finds every duplicate
+            int[] froms = new int[kept];
+            int[] tos = new int[kept];
+            double[] edgeWeights = new double[kept];
+            int unique = 0;
+            for (int from = 0; from < n; from++) {
+                Arrays.sort(keys, start[from], start[from + 1]);
+                for (int k = start[from]; k < start[from + 1]; k++) {
+                    int to = (int) (keys[k] >>> 32);
+                    double weight = slotWeights[(int) keys[k]];
+                    if (unique > 0 && froms[unique - 1] == from && tos[unique - 1] == to) {
+                        edgeWeights[unique - 1] = Math.min(edgeWeights[unique - 1], weight);
+                    } else {
+                        froms[unique] = from;
+                        tos[unique] = to;
+                        edgeWeights[unique] = weight;
+                        unique++;
+                    }
+                }
+            }
+
+            // One arc per directed edge, both arcs of every undirected one
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < unique; e++) {
+                offsets[froms[e] + 1]++;
+                if (!directed) {
+                    offsets[tos[e] + 1]++;
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int arcCount = directed ? unique : 2 * unique;
+            int[] targets = new int[arcCount];
+            double[] arcWeights = new double[arcCount];
+            int[] slot = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < unique; e++) {
+                int a = slot[froms[e]]++;
+                targets[a] = tos[e];
+                arcWeights[a] = edgeWeights[e];
+                if (!directed) {
+                    int b = slot[tos[e]]++;
+                    targets[b] = froms[e];
+                    arcWeights[b] = edgeWeights[e];
+                }
+            }
+            CsrGraph graph = new CsrGraph(nodes, offsets, targets, arcWeights);
+            return new Result(graph, size, kept - unique, selfLoops, !directed || isSymmetric(graph));
+        }
+
+        // Arcs are sorted by target with no duplicates, and the reversed graph lists each node's
+        // incoming arcs in source order, so the graph is symmetric exactly when both line up arc by arc
+        private static boolean isSymmetric(CsrGraph graph) {
+            CsrGraph reversed = graph.reversed();
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                if (graph.degree(u) != reversed.degree(u)) {
+                    return false;
+                }
+                for (int arc = graph.firstArc(u), other = reversed.firstArc(u); arc < graph.endArc(u); arc++, other++) {
+                    if (graph.arcTarget(arc) != reversed.arcTarget(other) || graph.arcWeight(arc) != reversed.arcWeight(other)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Byte-level tokenizer over a fixed-size read buffer. Tracks the line number for error messages.
+     */
+    private static final class Scanner implements AutoCloseable {
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final Path path;
+        private final FileChannel channel;
+        private final byte[] bytes = new byte[READ_BUFFER_BYTES];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes); // Only used to read from the channel
+        private int position; // Next unread byte in bytes
+        private int limit;    // End of the valid bytes
+        private long line = 1;
+        private boolean endOfFile;
+
+        Scanner(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        /**
+         * @return the next byte without consuming it, or -1 at the end of the file
+         */
+        int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return bytes[position] & 0xff;
+        }
+
+        int next() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return bytes[position++] & 0xff;
+        }
+
+        private boolean fill() throws IOException {
+            if (endOfFile) {
+                return false;
+            }
+            buffer.clear();
+            while (buffer.position() == 0) {
+                if (channel.read(buffer) < 0) {
+                    endOfFile = true;
+                    return false;
+                }
+            }
+            position = 0;
+            limit = buffer.position();
+            return true;
+        }
+
+        private void skipSpaces() throws IOException {
+            int b = peek();
+            while (b == ' ' || b == '\t') {
+                next();
+                b = peek();
+            }
+        }
+
+        /**
+         * Skips empty lines and leading whitespace.
+         *
+         * @return false at the end of the file
+         */
+        boolean skipBlankLines() throws IOException {
+            while (true) {
+                skipSpaces();
+                int b = peek();
+                if (b == '\r') {
+                    next();
+                } else if (b == '\n') {
+                    next();
+                    line++;
+                } else {
+                    return b >= 0;
+                }
+            }
+        }
+
+        void skipLine() throws IOException {
+            int b = next();
+            while (b >= 0 && b != '\n') {
+                b = next();
+            }
+            if (b == '\n') {
+                line++;
+            }
+        }
+
+        /**
+         * Requires that only whitespace is left on the current line, then moves to the next one.
+         */
+        void endLine() throws IOException {
+            skipSpaces();
+            int b = peek();
+            if (b == '\r') {
+                next();
+                b = peek();
+            }
+            if (b >= 0 && b != '\n') {
+                throw error("Unexpected text at the end of the line");
+            }
+            skipLine();
+        }
+
+        /**
+         * Skips one field separator (comma, semicolon or whitespace).
+         *
+         * @return false if the line ends here
+         */
+        boolean skipSeparator() throws IOException {
+            skipSpaces();
+            int b = peek();
+            if (b == ',' || b == ';') {
+                next();
+                skipSpaces();
+            }
+            b = peek();
+            return b >= 0 && b != '\n' && b != '\r';
+        }
+
+        void expectWord(String word) throws IOException {
+            skipSpaces();
+            for (int i = 0; i < word.length(); i++) {
+                if (next() != word.charAt(i)) {
+                    throw error("Expected '" + word + "'");
+                }
+            }
+        }
+
+        long readLong() throws IOException {
+            skipSpaces();
+            int b = peek();
+            if (b < '0' || b > '9') {
+                throw error("Expected a non-negative integer");
+            }
+            long value = 0;
+            while (b >= '0' && b <= '9') {
+                if (value > (Long.MAX_VALUE - (b - '0')) / 10) {
+                    throw error("Number too large");
+                }
+                value = value * 10 + (b - '0');
+                next();
+                b = peek();
+            }
+            return value;
+        }
+
+        /**
+         * Reads a decimal number such as {@code 12}, {@code 0.5} or {@code 1.5e3} and checks that it is a valid weight.
+         */
+        double readWeight() throws IOException {
+            skipSpaces();
+            int b = peek();
+            boolean negative = false;
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                next();
+                b = peek();
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean sawDigit = false;
+            while (b >= '0' && b <= '9') {
+                sawDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else {
+                    exponent++; // Digits beyond 18 only shift the magnitude
+                }
+                next();
+                b = peek();
+            }
+            if (b == '.') {
+                next();
+                b = peek();
+                while (b >= '0' && b <= '9') {
+                    sawDigit = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        exponent--;
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                    }
+                    next();
+                    b = peek();
+                }
+            }
+            if (!sawDigit) {
+                throw error("Expected a number");
+            }
+            if (b == 'e' || b == 'E') {
+                next();
+                b = peek();
+                boolean negativeExponent = false;
+                if (b == '-' || b == '+') {
+                    negativeExponent = b == '-';
+                    next();
+                }
+                long explicitExponent = readLong();
+                exponent += (int) Math.min(explicitExponent, 1000) * (negativeExponent ? -1 : 1);
+            }
+
+            double value;
+            if (exponent == 0) {
+                value = mantissa;
+            } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+                value = mantissa * POWERS_OF_TEN[exponent];
+            } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                value = mantissa / POWERS_OF_TEN[-exponent]; // Correctly rounded for mantissas below 2^53
+            } else {
+                value = Double.parseDouble(mantissa + "e" + exponent); // Rare extreme exponents
+            }
+            if (negative) {
+                value = -value;
+            }
+            if (!(value > 0) || Double.isInfinite(value)) {
+                throw error("Weight must be a positive number");
+            }
+            return value;
+        }
+
+        IOException error(String message) {
+            return new IOException(path.getFileName() + ", line " + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Drawing position of every node of a {@link CsrGraph}, indexed like the graph's nodes.
+ */
+public final class GraphLayout {
+
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * Wraps the coordinate arrays without copying them.
+     */
+    public GraphLayout(double[] xs, double[] ys) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Expected as many y coordinates as x coordinates");
+        }
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * @return a layout with every node at the origin, for graphs that come without coordinates
+     */
+    public static GraphLayout empty(int nodeCount) {
+        return new GraphLayout(new double[nodeCount], new double[nodeCount]);
+    }
+
+    public int nodeCount() {
+        return xs.length;
+    }
+
+    public double x(int node) {
+        return xs[node];
+    }
+
+    public double y(int node) {
+        return ys[node];
+    }
+
+    double[] xs() {
+        return xs;
+    }
+
+    double[] ys() {
+        return ys;
+    }
+
+    /**
+     * @return {minX, minY, maxX, maxY}, or all zeros for an empty layout
+     */
+    public double[] bounds() {
+        if (xs.length == 0) {
+            return new double[4];
+        }
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < xs.length; i++) {
+            bounds[0] = Math.min(bounds[0], xs[i]);
+            bounds[1] = Math.min(bounds[1], ys[i]);
+            bounds[2] = Math.max(bounds[2], xs[i]);
+            bounds[3] = Math.max(bounds[3], ys[i]);
+        }
+        return bounds;
+    }
+}
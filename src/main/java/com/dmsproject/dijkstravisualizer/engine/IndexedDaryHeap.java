@@ -0,0 +1,123 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Index-addressed d-ary min-heap over node indices with true decrease-key.
+ * <p>
+ * Every node occupies at most one slot; {@code positions[node]} tracks where,
+ * so lowering a priority sifts the existing entry up instead of pushing a
+ * duplicate. All arrays are sized once for the graph, so offers and polls
+ * never allocate. Ties are broken by node index, keeping runs deterministic.
+ */
+final class IndexedDaryHeap implements NodeQueue {
+
+    private final int arity;
+    private final int[] heapNodes;   // Node stored at each heap slot
+    private final double[] heapKeys; // Priority stored at each heap slot
+    private final int[] positions;   // Heap slot of each node, -1 if not queued
+    private int size;
+
+    IndexedDaryHeap(int nodeCount, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+        this.heapNodes = new int[nodeCount];
+        this.heapKeys = new double[nodeCount];
+        this.positions = new int[nodeCount];
+        Arrays.fill(positions, -1);
+    }
+
+    @Override
+    public void offer(int node, double priority) {
+        int slot = positions[node];
+        if (slot == -1) {
+            siftUp(size++, node, priority);
+        } else if (priority < heapKeys[slot]) {
+            siftUp(slot, node, priority);
+        }
+    }
+
+    @Override
+    public int poll() {
+        int min = heapNodes[0];
+        positions[min] = -1;
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, heapNodes[last], heapKeys[last]);
+        }
+        return min;
+    }
+
+    @Override
+    public double peekPriority() {
+        return heapKeys[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heapNodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    boolean contains(int node) {
+        return positions[node] != -1;
+    }
+
+    private void siftUp(int slot, int node, double key) {
+        while (slot > 0) {
+            int parent = (slot - 1) / arity;
+            if (!less(node, key, heapNodes[parent], heapKeys[parent])) {
+                break;
+            }
+            place(slot, heapNodes[parent], heapKeys[parent]);
+            slot = parent;
+        }
+        place(slot, node, key);
+    }
+
+    private void siftDown(int slot, int node, double key) {
+        while (true) {
+            int first = slot * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first;
+            int end = Math.min(first + arity, size);
+            for (int child = first + 1; child < end; child++) {
+                if (less(heapNodes[child], heapKeys[child], heapNodes[best], heapKeys[best])) {
+                    best = child;
+                }
+            }
+            if (!less(heapNodes[best], heapKeys[best], node, key)) {
+                break;
+            }
+            place(slot, heapNodes[best], heapKeys[best]);
+            slot = best;
+        }
+        place(slot, node, key);
+    }
+
+    private void place(int slot, int node, double key) {
+        heapNodes[slot] = node;
+        heapKeys[slot] = key;
+        positions[node] = slot;
+    }
+
+    private static boolean less(int nodeA, double keyA, int nodeB, double keyB) {
+        return keyA < keyB || (keyA == keyB && nodeA < nodeB);
+    }
+}
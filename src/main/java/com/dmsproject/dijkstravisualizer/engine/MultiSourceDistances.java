@@ -0,0 +1,213 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distances from many sources at once (all pairs, or any list of sources), one
+ * independent single-source search per source spread over a {@link ForkJoinPool}.
+ * <p>
+ * The list of sources is split in halves down to single sources, so idle workers steal
+ * whole searches from busy ones. Every worker thread keeps one {@link SearchWorkspace}
+ * for all the searches it runs, so a search allocates nothing. Results either go into a
+ * {@link DistanceMatrix} or, when sources x nodes does not fit in memory, to a
+ * {@link RowSink} one row at a time, for example a {@link CsvSink}.
+ */
+public final class MultiSourceDistances {
+
+    /**
+     * Receives the distance rows of a multi-source run.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+
+        /**
+         * Called once per source, from the worker threads and in no particular order, so
+         * implementations must be thread-safe. {@code distances} is reused for the worker's
+         * next search once the call returns, so keep a copy if it is needed later.
+         *
+         * @param row position of the source in the list of sources
+         */
+        void accept(int row, int source, double[] distances);
+    }
+
+    private MultiSourceDistances() {
+    }
+
+    /**
+     * @return every node of the graph, for all-pairs runs
+     */
+    public static int[] allNodes(CsrGraph graph) {
+        int[] nodes = new int[graph.nodeCount()];
+        for (int v = 0; v < nodes.length; v++) {
+            nodes[v] = v;
+        }
+        return nodes;
+    }
+
+    public static DistanceMatrix compute(ShortestPathEngine engine, int[] sources) {
+        return compute(engine, sources, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the matrix would exceed {@link DistanceMatrix#MAX_ENTRIES}
+     */
+    public static DistanceMatrix compute(ShortestPathEngine engine, int[] sources, ForkJoinPool pool) {
+        DistanceMatrix matrix = new DistanceMatrix(engine.getGraph(), sources);
+        forEachRow(engine, sources, pool, (row, source, distances) -> matrix.setRow(row, distances));
+        return matrix;
+    }
+
+    /**
+     * Runs one search per source on the pool and hands every row to the sink. Returns once all
+     * rows are delivered; an exception thrown by the sink stops the run and is rethrown here.
+     */
+    public static void forEachRow(ShortestPathEngine engine, int[] sources, ForkJoinPool pool, RowSink sink) {
+        int n = engine.getGraph().nodeCount();
+        for (int source : sources) {
+            if (source < 0 || source >= n) {
+                throw new IndexOutOfBoundsException("Node index " + source + " out of range [0, " + n + ")");
+            }
+        }
+        if (sources.length == 0) {
+            return;
+        }
+        // Scoped to this run, so the workspaces are dropped with it
+        ThreadLocal<SearchWorkspace> workspaces =
+                ThreadLocal.withInitial(() -> new SearchWorkspace(engine.getGraph(), engine.getQueueStrategy()));
+        pool.invoke(new RowTask(engine, sources, 0, sources.length, workspaces, sink));
+    }
+
+    /**
+     * Writes the distances from every source as CSV, replacing the file if it exists.
+     */
+    public static void writeCsv(ShortestPathEngine engine, int[] sources, Path path, ForkJoinPool pool) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            CsvSink sink = new CsvSink(engine.getGraph(), writer);
+            forEachRow(engine, sources, pool, sink);
+        } catch (RuntimeException e) {
+            throw CsvSink.unwrap(e);
+        }
+    }
+
+    // Splits [from, to) until a single source is left, then runs its search
+    private static final class RowTask extends RecursiveAction {
+        private final ShortestPathEngine engine;
+        private final int[] sources;
+        private final int from;
+        private final int to;
+        private final ThreadLocal<SearchWorkspace> workspaces;
+        private final RowSink sink;
+
+        RowTask(ShortestPathEngine engine, int[] sources, int from, int to,
+                ThreadLocal<SearchWorkspace> workspaces, RowSink sink) {
+            this.engine = engine;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.workspaces = workspaces;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                SearchWorkspace workspace = workspaces.get();
+                engine.distancesFrom(sources[from], workspace);
+                sink.accept(from, sources[from], workspace.distanceRow());
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowTask(engine, sources, from, middle, workspaces, sink),
+                    new RowTask(engine, sources, middle, to, workspaces, sink));
+        }
+    }
+
+    /**
+     * Writes rows as CSV: a header with the node IDs, then one line per source starting with
+     * its ID. Lines follow the order in which searches finish, not the order of the sources.
+     * Unreachable nodes are left empty. Rows are formatted on the worker threads and written
+     * one at a time.
+     */
+    public static final class CsvSink implements RowSink {
+
+        private final CsrGraph graph;
+        private final Writer writer;
+        private final AtomicInteger rowsWritten = new AtomicInteger();
+
+        /**
+         * Writes the header line right away. The writer should be buffered; it is not closed.
+         */
+        public CsvSink(CsrGraph graph, Writer writer) throws IOException {
+            this.graph = graph;
+            this.writer = writer;
+            StringBuilder header = new StringBuilder("source");
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                header.append(',');
+                appendField(header, graph.idOf(v));
+            }
+            this.writer.write(header.append('\n').toString());
+        }
+
+        @Override
+        public void accept(int row, int source, double[] distances) {
+            StringBuilder line = new StringBuilder(16 * distances.length);
+            appendField(line, graph.idOf(source));
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                line.append(',');
+                if (distances[v] != Double.POSITIVE_INFINITY) {
+                    line.append(distances[v]);
+                }
+            }
+            line.append('\n');
+            synchronized (this) {
+                try {
+                    writer.write(line.toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            rowsWritten.incrementAndGet();
+        }
+
+        public int rowsWritten() {
+            return rowsWritten.get();
+        }
+
+        /**
+         * Flushes the lines written so far (the writer itself is left open).
+         */
+        public synchronized void flush() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * @return the write error behind an exception of {@link #forEachRow} with this sink, or
+         *         the exception itself if it did not come from writing
+         */
+        public static IOException unwrap(RuntimeException e) {
+            // The pool may rethrow a copy of the worker's exception with the original as its cause
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException) {
+                    return ((UncheckedIOException) cause).getCause();
+                }
+            }
+            throw e;
+        }
+
+        private static void appendField(StringBuilder line, String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                line.append(value);
+            } else {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense two-way mapping between external node IDs (the strings shown in the UI,
+ * e.g. "Node3") and the contiguous int indices used by {@link CsrGraph}.
+ * Index {@code i} is always the i-th distinct ID that was added.
+ * <p>
+ * Imported graphs whose IDs are a contiguous range of numbers use a
+ * {@linkplain #numbered(long, int) numbered} dictionary instead, which stores no
+ * strings at all: index {@code i} is the ID {@code first + i} written in decimal.
+ * Adding any other ID converts it to the explicit form.
+ */
+public final class NodeDictionary {
+
+    private String[] ids;
+    private Map<String, Integer> indices;
+    private int size;
+    private long firstNumber = -1; // First ID of a numbered dictionary, -1 once IDs are stored explicitly
+
+    public NodeDictionary() {
+        this(16);
+    }
+
+    public NodeDictionary(int expectedSize) {
+        this.ids = new String[Math.max(expectedSize, 1)];
+        this.indices = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+    }
+
+    private NodeDictionary(long firstNumber, int count) {
+        this.firstNumber = firstNumber;
+        this.size = count;
+    }
+
+    /**
+     * @return a dictionary of the IDs {@code first, first + 1, ..., first + count - 1}
+     */
+    public static NodeDictionary numbered(long first, int count) {
+        if (first < 0 || count < 0 || first > Long.MAX_VALUE - count) {
+            throw new IllegalArgumentException("Invalid numbered range: " + first + " + " + count);
+        }
+        return new NodeDictionary(first, count);
+    }
+
+    /**
+     * Adds an ID if it is not already present.
+     *
+     * @return the index of the ID (existing or newly assigned)
+     */
+    public int add(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Node ID must not be null");
+        }
+        if (firstNumber >= 0) {
+            int index = numberedIndexOf(id);
+            if (index >= 0) {
+                return index;
+            }
+            storeIdsExplicitly();
+        }
+        Integer existing = indices.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        indices.put(id, size);
+        return size++;
+    }
+
+    /**
+     * @return the index of the ID, or -1 if it is unknown
+     */
+    public int indexOf(String id) {
+        if (firstNumber >= 0) {
+            return id == null ? -1 : numberedIndexOf(id);
+        }
+        Integer index = indices.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public String idOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Node index " + index + " out of range [0, " + size + ")");
+        }
+        return firstNumber >= 0 ? Long.toString(firstNumber + index) : ids[index];
+    }
+
+    public boolean contains(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an independent copy, used when a graph snapshot is frozen
+     */
+    public NodeDictionary copy() {
+        if (firstNumber >= 0) {
+            return new NodeDictionary(firstNumber, size);
+        }
+        NodeDictionary copy = new NodeDictionary(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(ids[i]);
+        }
+        return copy;
+    }
+
+    // Accepts only the canonical decimal form, so "007" or "+7" never alias "7"
+    private int numberedIndexOf(String id) {
+        int length = id.length();
+        if (length == 0 || length > 19 || (length > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (value < firstNumber || value - firstNumber >= size) {
+            return -1; // Also rejects a 19-digit value that overflowed to a negative number
+        }
+        return (int) (value - firstNumber);
+    }
+
+    private void storeIdsExplicitly() {
+        String[] explicit = new String[Math.max(size * 2, 16)];
+        Map<String, Integer> explicitIndices = new HashMap<>(Math.max(16, (int) (explicit.length / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            explicit[i] = Long.toString(firstNumber + i);
+            explicitIndices.put(explicit[i], i);
+        }
+        ids = explicit;
+        indices = explicitIndices;
+        firstNumber = -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Priority queue of node indices keyed by tentative distance, as used by
+ * {@link ShortestPathEngine}. Implementations are chosen via {@link QueueStrategy}.
+ * <p>
+ * {@link #offer(int, double)} either inserts the node or lowers its priority.
+ * Queues with true decrease-key keep one entry per node; lazy queues may hand
+ * back a node that was already settled, which the engine then skips.
+ */
+public interface NodeQueue {
+
+    /**
+     * Inserts the node, or lowers its priority if it is already queued.
+     */
+    void offer(int node, double priority);
+
+    /**
+     * Removes and returns the node with the smallest priority. The heaps break ties by lower
+     * index; the bucket queues return tied nodes in no particular order.
+     */
+    int poll();
+
+    /**
+     * @return the smallest queued priority without removing it. For lazy queues this may be the
+     *         priority of a stale entry, which is never larger than that of the true minimum.
+     */
+    double peekPriority();
+
+    boolean isEmpty();
+
+    int size();
+
+    void clear();
+}
@@ -0,0 +1,132 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Selectable priority queue implementations for {@link ShortestPathEngine}.
+ * <p>
+ * The two heaps work on any non-negative weights. The bucket queues only accept whole-number
+ * keys and rely on Dijkstra never offering a key below the current minimum, so they need a
+ * graph whose {@link CsrGraph#hasIntegerWeights()} holds and cannot drive A*, whose keys
+ * include a fractional heuristic.
+ */
+public enum QueueStrategy {
+
+    BINARY_HEAP("Binary heap (lazy deletion)") {
+        @Override
+        public NodeQueue create(int nodeCount, double maxArcWeight) {
+            return new BinaryMinHeap(Math.min(nodeCount, 1024));
+        }
+    },
+    INDEXED_DARY_HEAP("Indexed 4-ary heap (decrease-key)") {
+        @Override
+        public NodeQueue create(int nodeCount, double maxArcWeight) {
+            return new IndexedDaryHeap(nodeCount, 4);
+        }
+    },
+    DIAL_BUCKETS("Dial buckets (integer weights)") {
+        @Override
+        public NodeQueue create(int nodeCount, double maxArcWeight) {
+            requireWholeNumber(maxArcWeight);
+            return new DialQueue((long) maxArcWeight);
+        }
+
+        @Override
+        public boolean needsIntegerWeights() {
+            return true;
+        }
+
+        @Override
+        public int bucketOf(double key, double smallestKey, double maxArcWeight) {
+            return DialQueue.bucketIndex((long) key, (int) Math.ceil(maxArcWeight) + 1);
+        }
+    },
+    RADIX_HEAP("Radix heap (integer weights)") {
+        @Override
+        public NodeQueue create(int nodeCount, double maxArcWeight) {
+            requireWholeNumber(maxArcWeight);
+            return new RadixHeap();
+        }
+
+        @Override
+        public boolean needsIntegerWeights() {
+            return true;
+        }
+
+        @Override
+        public int bucketOf(double key, double smallestKey, double maxArcWeight) {
+            return RadixHeap.bucketIndex((long) key, (long) smallestKey);
+        }
+    };
+
+    /**
+     * Above this maximum arc weight {@link #forWeights(CsrGraph)} prefers the radix heap, whose
+     * cost grows with log C instead of C.
+     */
+    public static final int DIAL_MAX_WEIGHT = 1 << 10;
+
+    private final String displayName;
+
+    QueueStrategy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Creates an empty queue able to hold node indices {@code 0..nodeCount-1} for a search
+     * whose arc weights are at most {@code maxArcWeight}. The heaps ignore the weight.
+     *
+     * @throws IllegalArgumentException if this is a bucket queue and the maximum is not a
+     *                                  finite whole number (or, for Dial buckets, too large)
+     */
+    public abstract NodeQueue create(int nodeCount, double maxArcWeight);
+
+    /**
+     * Creates an empty queue sized for the graph.
+     *
+     * @throws IllegalArgumentException if this is a bucket queue and the graph has fractional weights
+     */
+    public NodeQueue create(CsrGraph graph) {
+        if (needsIntegerWeights() && !graph.hasIntegerWeights()) {
+            throw new IllegalArgumentException(this + " needs whole-number edge weights");
+        }
+        return create(graph.nodeCount(), graph.maxArcWeight());
+    }
+
+    /**
+     * @return whether the queue only accepts whole-number keys
+     */
+    public boolean needsIntegerWeights() {
+        return false;
+    }
+
+    /**
+     * Tells which bucket a queued key sits in, for display.
+     *
+     * @param smallestKey  smallest key currently queued
+     * @param maxArcWeight largest arc weight of the searched graph
+     * @return the bucket index, or -1 for the heaps, which have no buckets
+     */
+    public int bucketOf(double key, double smallestKey, double maxArcWeight) {
+        return -1;
+    }
+
+    /**
+     * @return the fastest strategy for the graph's weights: Dial buckets for small whole-number
+     *         weights, the radix heap for larger ones and the indexed heap otherwise
+     */
+    public static QueueStrategy forWeights(CsrGraph graph) {
+        if (!graph.hasIntegerWeights()) {
+            return INDEXED_DARY_HEAP;
+        }
+        return graph.maxArcWeight() <= DIAL_MAX_WEIGHT ? DIAL_BUCKETS : RADIX_HEAP;
+    }
+
+    private static void requireWholeNumber(double maxArcWeight) {
+        if (!(maxArcWeight >= 0) || maxArcWeight != Math.floor(maxArcWeight) || Double.isInfinite(maxArcWeight)) {
+            throw new IllegalArgumentException("Bucket queues need a finite whole-number maximum arc weight, got " + maxArcWeight);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
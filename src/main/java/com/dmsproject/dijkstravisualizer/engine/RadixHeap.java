@@ -0,0 +1,120 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Radix heap for monotone integer keys: every offered key is at least the last polled one,
+ * which Dijkstra guarantees.
+ * <p>
+ * Bucket 0 holds the keys equal to the last minimum; bucket {@code i > 0} holds the keys
+ * whose highest bit differing from the last minimum is bit {@code i - 1}. When bucket 0 runs
+ * empty, the lowest non-empty bucket is scanned for its smallest key, which becomes the new
+ * minimum, and its entries are spread over lower buckets. An entry only ever moves down, so
+ * with arc weights of at most C the amortized cost is O(log C) per key and independent of
+ * the node count. Deletion is lazy like {@link BinaryMinHeap}; nodes with equal keys come
+ * out in reverse insertion order.
+ */
+final class RadixHeap implements NodeQueue {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    private final int[][] nodes = new int[BUCKETS][];
+    private final long[][] keys = new long[BUCKETS][];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private long last; // Last minimum; no queued key is smaller
+    private int size;
+
+    RadixHeap() {
+        for (int b = 0; b < BUCKETS; b++) {
+            nodes[b] = new int[4];
+            keys[b] = new long[4];
+        }
+    }
+
+    /**
+     * @return the bucket a key falls in while the last minimum is {@code last}
+     */
+    static int bucketIndex(long key, long last) {
+        return key == last ? 0 : Long.SIZE - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    @Override
+    public void offer(int node, double priority) {
+        long key = (long) priority;
+        if (key != priority || key < 0) {
+            throw new IllegalArgumentException("A radix heap needs non-negative integer keys, got " + priority);
+        }
+        if (key < last) {
+            if (size > 0) {
+                throw new IllegalArgumentException("Key " + key + " is below the last minimum " + last);
+            }
+            last = key; // An empty heap (a new search) can restart anywhere
+        }
+        push(bucketIndex(key, last), node, key);
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        fillBucketZero();
+        size--;
+        return nodes[0][--bucketSizes[0]];
+    }
+
+    @Override
+    public double peekPriority() {
+        fillBucketZero();
+        return last;
+    }
+
+    // Makes the smallest key the new last minimum; afterwards bucket 0 holds its entries
+    private void fillBucketZero() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        if (bucketSizes[0] > 0) {
+            return;
+        }
+        int b = 1;
+        while (bucketSizes[b] == 0) {
+            b++;
+        }
+        int count = bucketSizes[b];
+        long minimum = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minimum = Math.min(minimum, keys[b][i]);
+        }
+        last = minimum;
+        bucketSizes[b] = 0;
+        for (int i = 0; i < count; i++) {
+            push(bucketIndex(keys[b][i], last), nodes[b][i], keys[b][i]); // Always a lower bucket than b
+        }
+    }
+
+    private void push(int bucket, int node, long key) {
+        int bucketSize = bucketSizes[bucket];
+        if (bucketSize == nodes[bucket].length) {
+            nodes[bucket] = Arrays.copyOf(nodes[bucket], bucketSize * 2);
+            keys[bucket] = Arrays.copyOf(keys[bucket], bucketSize * 2);
+        }
+        nodes[bucket][bucketSize] = node;
+        keys[bucket][bucketSize] = key;
+        bucketSizes[bucket] = bucketSize + 1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(bucketSizes, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Searches the visualizer can run on a {@link ShortestPathEngine}, on a
+ * {@link ContractionHierarchy} built from its graph, or with {@link DeltaStepping}.
+ */
+public enum SearchAlgorithm {
+
+    DIJKSTRA("Dijkstra"),
+    BIDIRECTIONAL_DIJKSTRA("Bidirectional Dijkstra"),
+    A_STAR("A*"),
+    CONTRACTION_HIERARCHY("Contraction Hierarchy"),
+    DELTA_STEPPING("Delta-Stepping (parallel)");
+
+    private final String displayName;
+
+    SearchAlgorithm(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return true if the search only answers point-to-point queries, so an end node must be chosen
+     */
+    public boolean needsTarget() {
+        return this != DIJKSTRA && this != DELTA_STEPPING;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * One step of a search as published by a {@link SearchStream}.
+ * Carries the same fields as one event of a {@link SearchTrace}.
+ */
+public final class SearchEvent {
+
+    private final long index;
+    private final SearchTrace.EventType type;
+    private final int node;
+    private final int fromNode;
+    private final double distance;
+    private final boolean backward;
+
+    public SearchEvent(long index, SearchTrace.EventType type, int node, int fromNode, double distance) {
+        this(index, type, false, node, fromNode, distance);
+    }
+
+    public SearchEvent(long index, SearchTrace.EventType type, boolean backward, int node, int fromNode, double distance) {
+        this.index = index;
+        this.type = type;
+        this.backward = backward;
+        this.node = node;
+        this.fromNode = fromNode;
+        this.distance = distance;
+    }
+
+    /**
+     * @return position of the event in the run, starting at 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public SearchTrace.EventType getType() {
+        return type;
+    }
+
+    /**
+     * @return true for events of the backward search of a bidirectional run
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    /**
+     * @return the settled node, the target of the relaxed arc, or the search target (-1 in all-paths mode) when finished
+     */
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * @return the source of the relaxed arc, the meeting node when a bidirectional run finishes, otherwise -1
+     */
+    public int getFromNode() {
+        return fromNode;
+    }
+
+    /**
+     * @return the distance after the event; for FINISHED the target's distance (0 in all-paths mode)
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchEvent[" + index + " " + type + (backward ? " backward" : "") + " node=" + node + " from=" + fromNode + " distance=" + distance + "]";
+    }
+}
@@ -0,0 +1,66 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Optional callbacks fired by {@link ShortestPathEngine} while a search runs.
+ * The visualizer uses them to record algorithm steps; headless queries pass
+ * {@link #NONE} and pay nothing for them.
+ */
+public interface SearchListener {
+
+    SearchListener NONE = new SearchListener() { };
+
+    /**
+     * The source has distance 0 and is the only queued node.
+     */
+    default void onInitialized(int source) { }
+
+    /**
+     * A node was extracted from the queue; its distance is now final.
+     */
+    default void onNodeSettled(int node, double distance) { }
+
+    /**
+     * The arc {@code from -> to} improved the tentative distance of {@code to}.
+     */
+    default void onEdgeRelaxed(int from, int to, double newDistance) { }
+
+    // --- Bidirectional searches only (see ShortestPathEngine#bidirectionalSearch) ---
+
+    /**
+     * The target has distance 0 to itself and is the only node in the backward queue.
+     */
+    default void onBackwardInitialized(int target) { }
+
+    /**
+     * The backward search extracted a node; {@code distance} is its final distance to the target.
+     */
+    default void onBackwardNodeSettled(int node, double distance) { }
+
+    /**
+     * The arc {@code to -> from} improved the distance from {@code to} to the target;
+     * {@code from} is now the next node on its way there.
+     */
+    default void onBackwardEdgeRelaxed(int from, int to, double newDistance) { }
+
+    /**
+     * The search stopped with a path: the forward tree reaches {@code meeting} from the source and
+     * the backward tree leads on from it to the target. Not called when there is no path.
+     */
+    default void onSearchesMet(int meeting, double distance) { }
+
+    // --- Contraction hierarchy queries only (see ContractionHierarchy.Query#search) ---
+
+    /**
+     * The search found its path over hierarchy arcs, some of them shortcuts; this is the same
+     * path expanded into arcs of the graph. Called right after {@link #onSearchesMet}.
+     */
+    default void onPathUnpacked(int[] path) { }
+
+    // --- Delta-stepping only (see DeltaStepping#search) ---
+
+    /**
+     * Delta-stepping settled a whole bucket: every node with a distance below {@code upperBound}
+     * is now final. The improved distances and settled nodes of the bucket follow.
+     */
+    default void onBucketOpened(int bucket, double upperBound) { }
+}
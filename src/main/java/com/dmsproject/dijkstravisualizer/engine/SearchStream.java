@@ -0,0 +1,210 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a search on a worker thread and publishes its steps as they happen.
+ * <p>
+ * Events go through a bounded {@link SubmissionPublisher}: once the subscriber has
+ * {@code bufferCapacity} undelivered events the search thread waits until it requests
+ * more. Memory therefore stays bounded by the buffer, not by the length of the run,
+ * and the first step is available as soon as the search starts. The stream ends with
+ * a FINISHED event followed by {@code onComplete}. It is meant for a single subscriber,
+ * which must subscribe before {@link #start()}. Cancelling the stream, or the
+ * subscription, stops the search thread. A bidirectional stream publishes the events of
+ * both searches, flagged as in a bidirectional {@link SearchTrace}; an A* stream publishes
+ * the same events as a Dijkstra one.
+ */
+public final class SearchStream implements Flow.Publisher<SearchEvent> {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 256;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 50; // How often a blocked search thread checks for cancellation
+
+    private final ShortestPathEngine engine;
+    private final int source;
+    private final int target;
+    private final boolean bidirectional;
+    private final EuclideanHeuristic heuristic; // Non-null for an A* run
+    private final SubmissionPublisher<SearchEvent> publisher;
+    private volatile boolean cancelled;
+    private boolean started;
+
+    /**
+     * @param target node to stop at, or -1 for a full single-source run
+     */
+    public SearchStream(ShortestPathEngine engine, int source, int target, int bufferCapacity) {
+        this(engine, source, target, false, bufferCapacity);
+    }
+
+    public SearchStream(ShortestPathEngine engine, int source, int target) {
+        this(engine, source, target, false, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * @param bidirectional true to stream {@link ShortestPathEngine#bidirectionalSearch} (target required)
+     */
+    public SearchStream(ShortestPathEngine engine, int source, int target, boolean bidirectional, int bufferCapacity) {
+        if (bidirectional && target == -1) {
+            throw new IllegalArgumentException("A bidirectional run needs a target");
+        }
+        this.engine = engine;
+        this.source = source;
+        this.target = target;
+        this.bidirectional = bidirectional;
+        this.heuristic = null;
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferCapacity);
+    }
+
+    /**
+     * Streams {@link ShortestPathEngine#aStarSearch} towards the target.
+     */
+    public SearchStream(ShortestPathEngine engine, int source, int target, EuclideanHeuristic heuristic, int bufferCapacity) {
+        if (target == -1) {
+            throw new IllegalArgumentException("An A* run needs a target");
+        }
+        this.engine = engine;
+        this.source = source;
+        this.target = target;
+        this.bidirectional = false;
+        this.heuristic = heuristic;
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferCapacity);
+    }
+
+    public CsrGraph getGraph() {
+        return engine.getGraph();
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SearchEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Starts the search thread.
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Stream already started");
+        }
+        if (!publisher.hasSubscribers()) {
+            throw new IllegalStateException("Subscribe before starting the stream");
+        }
+        started = true;
+        Thread worker = new Thread(this::run, "search-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the search at its next step; the subscriber receives no further events.
+     */
+    public void cancel() {
+        cancelled = true;
+        publisher.close();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void run() {
+        Publisher listener = new Publisher();
+        try {
+            if (bidirectional) {
+                ShortestPath path = engine.bidirectionalSearch(source, target, listener);
+                listener.publish(SearchTrace.EventType.FINISHED, false, target, listener.meeting, path.getDistance());
+            } else {
+                ShortestPathTree tree = heuristic != null
+                        ? engine.aStarSearch(source, target, heuristic, listener)
+                        : engine.search(source, target, listener);
+                double distance = target == -1 ? 0.0 : tree.distanceTo(target);
+                listener.publish(SearchTrace.EventType.FINISHED, false, target, -1, distance);
+            }
+            publisher.close();
+        } catch (CancellationException e) {
+            publisher.close();
+        } catch (RuntimeException e) {
+            if (cancelled) {
+                publisher.close(); // offer() raced with cancel() closing the publisher
+            } else {
+                publisher.closeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Forwards engine callbacks to the publisher, waiting while the subscriber's buffer is full.
+     */
+    private final class Publisher implements SearchListener {
+
+        private long index = 0;
+        private int meeting = -1;
+
+        @Override
+        public void onInitialized(int node) {
+            publish(SearchTrace.EventType.INITIALIZED, false, node, -1, 0.0);
+        }
+
+        @Override
+        public void onNodeSettled(int node, double distance) {
+            publish(SearchTrace.EventType.NODE_SETTLED, false, node, -1, distance);
+        }
+
+        @Override
+        public void onEdgeRelaxed(int from, int to, double newDistance) {
+            publish(SearchTrace.EventType.EDGE_RELAXED, false, to, from, newDistance);
+        }
+
+        @Override
+        public void onBackwardInitialized(int node) {
+            publish(SearchTrace.EventType.INITIALIZED, true, node, -1, 0.0);
+        }
+
+        @Override
+        public void onBackwardNodeSettled(int node, double distance) {
+            publish(SearchTrace.EventType.NODE_SETTLED, true, node, -1, distance);
+        }
+
+        @Override
+        public void onBackwardEdgeRelaxed(int from, int to, double newDistance) {
+            publish(SearchTrace.EventType.EDGE_RELAXED, true, to, from, newDistance);
+        }
+
+        @Override
+        public void onSearchesMet(int meeting, double distance) {
+            this.meeting = meeting;
+        }
+
+        void publish(SearchTrace.EventType type, boolean backward, int node, int from, double distance) {
+            checkCancelled();
+            SearchEvent event = new SearchEvent(index++, type, backward, node, from, distance);
+            // A negative result means the subscriber's buffer stayed full for the whole timeout
+            while (publisher.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, null) < 0) {
+                checkCancelled();
+            }
+        }
+
+        private void checkCancelled() {
+            if (cancelled || !publisher.hasSubscribers()) {
+                throw new CancellationException("Search stream cancelled");
+            }
+        }
+    }
+}
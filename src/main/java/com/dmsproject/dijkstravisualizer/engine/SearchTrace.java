@@ -0,0 +1,378 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Delta-encoded record of one search run.
+ * <p>
+ * Each event stores only what changed: the settled node, or the relaxed arc
+ * together with the new distance. The previous distance and predecessor of a
+ * relaxed node are kept as well so a {@link TraceCursor} can walk the trace
+ * backwards. Memory therefore grows with the number of events, not with
+ * events x nodes as full per-step snapshots would.
+ * <p>
+ * Every {@link #getKeyframeInterval()} events the recorder also stores a full
+ * keyframe of the state, so a cursor can seek anywhere by restoring the nearest
+ * keyframe and replaying fewer than one interval of deltas. The interval grows
+ * with the node count: a keyframe costs O(V) to restore anyway, and spacing them
+ * V events apart keeps keyframe memory on the same order as the deltas.
+ * <p>
+ * A bidirectional run records both searches in one trace: events of the search from the
+ * target are flagged {@linkplain #isBackward(int) backward}, their distances are distances
+ * to the target, and the closing event names the node where the two searches met.
+ */
+public final class SearchTrace {
+
+    public enum EventType {
+        INITIALIZED,  // The source got distance 0
+        NODE_SETTLED, // A node was extracted from the queue
+        EDGE_RELAXED, // An arc improved the distance of its target
+        BUCKET_OPENED, // Delta-stepping settled the next distance bucket (node -1, see SearchListener#onBucketOpened)
+        FINISHED      // The search terminated
+    }
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final int MIN_KEYFRAME_INTERVAL = 256;
+    private static final byte BACKWARD_FLAG = 0x40; // Set in types[] for events of the backward search
+
+    private final CsrGraph graph;
+    private final int source;
+    private final int target;
+    private final boolean bidirectional;
+
+    private byte[] types;
+    private int[] nodes;          // Settled node, or target of the relaxed arc
+    private int[] fromNodes;      // Source of the relaxed arc (the new predecessor), the meeting node when a bidirectional run finishes, the bucket index of BUCKET_OPENED, otherwise -1
+    private double[] distances;   // Distance after the event (upper bound of the bucket for BUCKET_OPENED)
+    private double[] previousDistances;
+    private int[] previousPredecessors;
+    private int size;
+    private int[] unpackedPath; // Path in graph arcs reported by a contraction hierarchy query, else null
+
+    private final int keyframeInterval;
+    private final List<Keyframe> keyframes = new ArrayList<>(); // keyframes.get(k) holds the state after event (k + 1) * interval - 1
+
+    private SearchTrace(CsrGraph graph, int source, int target, boolean bidirectional, int initialCapacity) {
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        this.bidirectional = bidirectional;
+        this.keyframeInterval = Math.max(MIN_KEYFRAME_INTERVAL, graph.nodeCount());
+        int capacity = Math.max(initialCapacity, 16);
+        types = new byte[capacity];
+        nodes = new int[capacity];
+        fromNodes = new int[capacity];
+        distances = new double[capacity];
+        previousDistances = new double[capacity];
+        previousPredecessors = new int[capacity];
+    }
+
+    /**
+     * Runs the engine and records every step it takes.
+     *
+     * @param target node to stop at, or -1 for a full single-source run
+     */
+    public static SearchTrace record(ShortestPathEngine engine, int source, int target) {
+        Recorder recorder = new Recorder(engine.getGraph(), source, target);
+        engine.search(source, target, recorder);
+        return recorder.finish();
+    }
+
+    /**
+     * Runs a bidirectional search between two nodes and records the steps of both sides.
+     */
+    public static SearchTrace recordBidirectional(ShortestPathEngine engine, int source, int target) {
+        Recorder recorder = new Recorder(engine.getGraph(), source, target, true);
+        engine.bidirectionalSearch(source, target, recorder);
+        return recorder.finish();
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return the node the search stopped at, or -1 for a full single-source run
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return true if the run searched from both ends (see {@link ShortestPathEngine#bidirectionalSearch})
+     */
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    /**
+     * @return the found path expanded into graph arcs, for a run over a contraction hierarchy
+     *         whose arcs include shortcuts (see {@link SearchListener#onPathUnpacked}), otherwise null
+     */
+    int[] unpackedPath() {
+        return unpackedPath;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public EventType type(int event) {
+        return EVENT_TYPES[types[event] & ~BACKWARD_FLAG];
+    }
+
+    /**
+     * @return true if the event belongs to the backward search of a bidirectional run
+     */
+    public boolean isBackward(int event) {
+        return (types[event] & BACKWARD_FLAG) != 0;
+    }
+
+    public int node(int event) {
+        return nodes[event];
+    }
+
+    public int fromNode(int event) {
+        return fromNodes[event];
+    }
+
+    public double distance(int event) {
+        return distances[event];
+    }
+
+    /**
+     * @return how many events separate two consecutive keyframes
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    /**
+     * @return the latest keyframe taken at or before the event, or null if the event precedes the first one
+     */
+    Keyframe keyframeAtOrBefore(int event) {
+        int index = (event + 1) / keyframeInterval - 1;
+        return index < 0 ? null : keyframes.get(Math.min(index, keyframes.size() - 1));
+    }
+
+    double previousDistance(int event) {
+        return previousDistances[event];
+    }
+
+    int previousPredecessor(int event) {
+        return previousPredecessors[event];
+    }
+
+    private void append(EventType type, boolean backward, int node, int from, double distance,
+                        double previousDistance, int previousPredecessor) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            fromNodes = Arrays.copyOf(fromNodes, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            previousDistances = Arrays.copyOf(previousDistances, capacity);
+            previousPredecessors = Arrays.copyOf(previousPredecessors, capacity);
+        }
+        types[size] = (byte) (type.ordinal() | (backward ? BACKWARD_FLAG : 0));
+        nodes[size] = node;
+        fromNodes[size] = from;
+        distances[size] = distance;
+        previousDistances[size] = previousDistance;
+        previousPredecessors[size] = previousPredecessor;
+        size++;
+    }
+
+    /**
+     * Full copy of the state of one search. A keyframe holds one for the forward search and,
+     * in a bidirectional run, one for the backward search.
+     */
+    static final class SideState {
+        final double[] distances;
+        final int[] predecessors;
+        final BitSet settled;
+
+        SideState(int nodeCount) {
+            this(new double[nodeCount], new int[nodeCount], new BitSet(nodeCount));
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecessors, -1);
+        }
+
+        private SideState(double[] distances, int[] predecessors, BitSet settled) {
+            this.distances = distances;
+            this.predecessors = predecessors;
+            this.settled = settled;
+        }
+
+        SideState copy() {
+            return new SideState(distances.clone(), predecessors.clone(), (BitSet) settled.clone());
+        }
+
+        void restoreFrom(SideState other) {
+            System.arraycopy(other.distances, 0, distances, 0, distances.length);
+            System.arraycopy(other.predecessors, 0, predecessors, 0, predecessors.length);
+            settled.clear();
+            settled.or(other.settled);
+        }
+
+        void clear() {
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecessors, -1);
+            settled.clear();
+        }
+    }
+
+    /**
+     * Full copy of the state after one event.
+     */
+    static final class Keyframe {
+        final int position;
+        final SideState forward;
+        final SideState backward; // null unless the run is bidirectional
+
+        Keyframe(int position, SideState forward, SideState backward) {
+            this.position = position;
+            this.forward = forward;
+            this.backward = backward;
+        }
+    }
+
+    /**
+     * {@link SearchListener} that appends engine callbacks to a new trace.
+     * It keeps the current state per node to know what each relaxation overwrote
+     * and to take keyframes.
+     */
+    public static final class Recorder implements SearchListener {
+
+        private final SearchTrace trace;
+        private final SideState forward;
+        private final SideState backward; // null unless recording a bidirectional run
+        private int meeting = -1;
+        private double meetingDistance = Double.POSITIVE_INFINITY;
+        private boolean finished;
+
+        public Recorder(CsrGraph graph, int source, int target) {
+            this(graph, source, target, false);
+        }
+
+        /**
+         * @param bidirectional true to record {@link ShortestPathEngine#bidirectionalSearch} (target required)
+         */
+        public Recorder(CsrGraph graph, int source, int target, boolean bidirectional) {
+            if (bidirectional && target == -1) {
+                throw new IllegalArgumentException("A bidirectional run needs a target");
+            }
+            this.trace = new SearchTrace(graph, source, target, bidirectional, Math.min(4 * graph.nodeCount(), 1 << 16));
+            this.forward = new SideState(graph.nodeCount());
+            this.backward = bidirectional ? new SideState(graph.nodeCount()) : null;
+        }
+
+        @Override
+        public void onInitialized(int source) {
+            initialized(forward, false, source);
+        }
+
+        @Override
+        public void onNodeSettled(int node, double distance) {
+            settled(forward, false, node, distance);
+        }
+
+        @Override
+        public void onEdgeRelaxed(int from, int to, double newDistance) {
+            relaxed(forward, false, from, to, newDistance);
+        }
+
+        @Override
+        public void onBackwardInitialized(int target) {
+            initialized(backwardState(), true, target);
+        }
+
+        @Override
+        public void onBackwardNodeSettled(int node, double distance) {
+            settled(backwardState(), true, node, distance);
+        }
+
+        @Override
+        public void onBackwardEdgeRelaxed(int from, int to, double newDistance) {
+            relaxed(backwardState(), true, from, to, newDistance);
+        }
+
+        @Override
+        public void onSearchesMet(int meeting, double distance) {
+            this.meeting = meeting;
+            this.meetingDistance = distance;
+        }
+
+        @Override
+        public void onPathUnpacked(int[] path) {
+            trace.unpackedPath = path.clone();
+        }
+
+        @Override
+        public void onBucketOpened(int bucket, double upperBound) {
+            trace.append(EventType.BUCKET_OPENED, false, -1, bucket, upperBound, upperBound, -1);
+            takeKeyframeIfDue();
+        }
+
+        private void initialized(SideState side, boolean isBackward, int node) {
+            trace.append(EventType.INITIALIZED, isBackward, node, -1, 0.0, side.distances[node], side.predecessors[node]);
+            side.distances[node] = 0.0;
+            takeKeyframeIfDue();
+        }
+
+        private void settled(SideState side, boolean isBackward, int node, double distance) {
+            trace.append(EventType.NODE_SETTLED, isBackward, node, -1, distance, distance, side.predecessors[node]);
+            side.settled.set(node);
+            takeKeyframeIfDue();
+        }
+
+        private void relaxed(SideState side, boolean isBackward, int from, int to, double newDistance) {
+            trace.append(EventType.EDGE_RELAXED, isBackward, to, from, newDistance, side.distances[to], side.predecessors[to]);
+            side.distances[to] = newDistance;
+            side.predecessors[to] = from;
+            takeKeyframeIfDue();
+        }
+
+        private SideState backwardState() {
+            if (backward == null) {
+                throw new IllegalStateException("Backward search events need a bidirectional recorder");
+            }
+            return backward;
+        }
+
+        private void takeKeyframeIfDue() {
+            if (trace.size % trace.keyframeInterval == 0) {
+                trace.keyframes.add(new Keyframe(trace.size - 1, forward.copy(), backward == null ? null : backward.copy()));
+            }
+        }
+
+        /**
+         * Appends the closing event and returns the trace; the recorder must not be used afterwards.
+         */
+        public SearchTrace finish() {
+            if (finished) {
+                throw new IllegalStateException("Trace already finished");
+            }
+            finished = true;
+            int target = trace.target;
+            if (trace.bidirectional) {
+                trace.append(EventType.FINISHED, false, target, meeting, meetingDistance, meetingDistance, -1);
+                return trace;
+            }
+            double distance = target == -1 ? 0.0 : forward.distances[target];
+            trace.append(EventType.FINISHED, false, target, -1, distance, distance, target == -1 ? -1 : forward.predecessors[target]);
+            return trace;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Per-node arrays and queue of one search, kept between searches on the same graph so
+ * that running many of them in a row (one per worker thread in
+ * {@link MultiSourceDistances}, or back-to-back point-to-point queries on a
+ * {@link ShortestPathEngine}) allocates nothing per search.
+ * <p>
+ * Entries are epoch-stamped: a node's distance and predecessor only count if its stamp is
+ * that of the current search, so {@link #reset()} just moves to the next epoch instead of
+ * clearing every node. A search that explores 50 nodes then costs 50 nodes of work, however
+ * large the graph is.
+ */
+final class SearchWorkspace {
+
+    private final CsrGraph graph;
+    private final QueueStrategy queueStrategy;
+    private final double[] distances;
+    private final int[] predecessors;
+    private final int[] stamps; // reachedStamp: distance set in this search; reachedStamp + 1: also settled
+    private int reachedStamp;
+    final NodeQueue queue;
+
+    SearchWorkspace(CsrGraph graph, QueueStrategy queueStrategy) {
+        this.graph = graph;
+        this.queueStrategy = queueStrategy;
+        this.distances = new double[graph.nodeCount()];
+        this.predecessors = new int[graph.nodeCount()];
+        this.stamps = new int[graph.nodeCount()];
+        this.queue = queueStrategy.create(graph);
+    }
+
+    /**
+     * @return whether this workspace was made for searches on the graph with the queue strategy
+     */
+    boolean isFor(CsrGraph graph, QueueStrategy queueStrategy) {
+        return this.graph == graph && this.queueStrategy == queueStrategy;
+    }
+
+    /**
+     * Puts every node back to unreached and empties the queue, in O(1) apart from the entries
+     * the last search left in the queue.
+     */
+    void reset() {
+        if (reachedStamp >= Integer.MAX_VALUE - 2) {
+            Arrays.fill(stamps, 0); // Once every billion searches
+            reachedStamp = 0;
+        }
+        reachedStamp += 2;
+        queue.clear();
+    }
+
+    /**
+     * @return the node's tentative (or, once settled, final) distance, or infinity if not reached
+     */
+    double distance(int node) {
+        return stamps[node] >= reachedStamp ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the node's predecessor, or -1 if it is the source or not reached
+     */
+    int predecessor(int node) {
+        return stamps[node] >= reachedStamp ? predecessors[node] : -1;
+    }
+
+    boolean isSettled(int node) {
+        return stamps[node] == reachedStamp + 1;
+    }
+
+    /**
+     * Sets the distance and predecessor of a node that is not settled.
+     */
+    void reach(int node, double distance, int predecessor) {
+        distances[node] = distance;
+        predecessors[node] = predecessor;
+        stamps[node] = reachedStamp;
+    }
+
+    void settle(int node) {
+        stamps[node] = reachedStamp + 1;
+    }
+
+    /**
+     * @return the distances of the last search for every node, unreached ones set to infinity.
+     *         O(V); the array is overwritten by the next search.
+     */
+    double[] distanceRow() {
+        for (int v = 0; v < distances.length; v++) {
+            if (stamps[v] < reachedStamp) {
+                distances[v] = Double.POSITIVE_INFINITY;
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @return the path from the source to the node, along the predecessors of the last search,
+     *         or an empty array if the node was not reached
+     */
+    int[] pathTo(int node) {
+        if (stamps[node] < reachedStamp) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int v = predecessors[node]; v != -1; v = predecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = node, i = length - 1; v != -1; v = predecessors[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    /**
+     * Predecessor array for walking reached nodes only (entries of unreached nodes are stale).
+     */
+    int[] predecessors() {
+        return predecessors;
+    }
+}
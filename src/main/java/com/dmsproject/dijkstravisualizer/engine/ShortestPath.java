@@ -0,0 +1,70 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a point-to-point query.
+ */
+public final class ShortestPath {
+
+    private final CsrGraph graph;
+    private final int source;
+    private final int target;
+    private final double distance;
+    private final int[] nodes;
+    private final int settledCount;
+
+    public ShortestPath(CsrGraph graph, int source, int target, double distance, int[] nodes, int settledCount) {
+        this.graph = graph;
+        this.source = source;
+        this.target = target;
+        this.distance = distance;
+        this.nodes = nodes;
+        this.settledCount = settledCount;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the path cost, or {@link Double#POSITIVE_INFINITY} if the target is unreachable
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    public boolean isFound() {
+        return distance != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the node indices from source to target (empty if unreachable)
+     */
+    public int[] getNodes() {
+        return nodes.clone();
+    }
+
+    /**
+     * @return the path translated back to node IDs
+     */
+    public List<String> getNodeIds() {
+        List<String> ids = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            ids.add(graph.idOf(node));
+        }
+        return ids;
+    }
+
+    /**
+     * @return how many nodes the search settled before it could answer
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+}
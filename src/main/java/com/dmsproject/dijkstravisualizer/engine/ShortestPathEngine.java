@@ -0,0 +1,418 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+
+/**
+ * Headless Dijkstra implementation over a {@link CsrGraph}.
+ * <p>
+ * All per-node state lives in primitive arrays indexed by node, so a relaxation
+ * costs a few array reads instead of string hashing and boxed doubles.
+ * The priority queue is pluggable through {@link QueueStrategy}.
+ * Point-to-point queries run in a {@link SearchWorkspace} kept per thread, so repeated
+ * local queries cost time in proportion to the nodes they explore rather than to the graph.
+ * A thread keeps one workspace (two for bidirectional search) whichever engine it queries:
+ * a query on another graph replaces it, and {@link #releaseWorkspaces()} drops it.
+ * This class has no JavaFX dependency and can be used from tools and tests.
+ */
+public final class ShortestPathEngine {
+
+    private final CsrGraph graph;
+    private final QueueStrategy queueStrategy;
+    // Shared by every engine, so a thread holds O(V) search state however many engines it has queried
+    private static final ThreadLocal<SearchWorkspace> WORKSPACES = new ThreadLocal<>();
+    private static final ThreadLocal<SearchWorkspace> BACKWARD_WORKSPACES = new ThreadLocal<>();
+
+    public ShortestPathEngine(CsrGraph graph) {
+        this(graph, QueueStrategy.INDEXED_DARY_HEAP);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the strategy is a bucket queue and the graph has
+     *                                  fractional weights
+     */
+    public ShortestPathEngine(CsrGraph graph, QueueStrategy queueStrategy) {
+        if (queueStrategy.needsIntegerWeights() && !graph.hasIntegerWeights()) {
+            throw new IllegalArgumentException(queueStrategy + " needs whole-number edge weights");
+        }
+        this.graph = graph;
+        this.queueStrategy = queueStrategy;
+    }
+
+    /**
+     * Drops the calling thread's workspaces, e.g. on a worker thread once the graph it searched
+     * has been replaced. The next query on the thread allocates new ones.
+     */
+    public static void releaseWorkspaces() {
+        WORKSPACES.remove();
+        BACKWARD_WORKSPACES.remove();
+    }
+
+    // This thread's workspace from the slot, replaced if it was made for another graph or queue
+    private SearchWorkspace workspace(ThreadLocal<SearchWorkspace> slot) {
+        SearchWorkspace workspace = slot.get();
+        if (workspace == null || !workspace.isFor(graph, queueStrategy)) {
+            workspace = new SearchWorkspace(graph, queueStrategy);
+            slot.set(workspace);
+        }
+        return workspace;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public QueueStrategy getQueueStrategy() {
+        return queueStrategy;
+    }
+
+    /**
+     * Computes distances from the source to every reachable node.
+     */
+    public ShortestPathTree singleSource(int source) {
+        return search(source, -1, SearchListener.NONE);
+    }
+
+    public ShortestPathTree singleSource(String sourceId) {
+        return singleSource(requireNode(sourceId));
+    }
+
+    /**
+     * Computes the shortest path between two nodes, stopping as soon as the target is settled.
+     * Apart from the returned path, nothing is allocated per query.
+     */
+    public ShortestPath shortestPath(int source, int target) {
+        SearchWorkspace workspace = workspace(WORKSPACES);
+        int settledCount = pointToPoint(source, target, workspace);
+        return new ShortestPath(graph, source, target, workspace.distance(target), workspace.pathTo(target), settledCount);
+    }
+
+    public ShortestPath shortestPath(String sourceId, String targetId) {
+        return shortestPath(requireNode(sourceId), requireNode(targetId));
+    }
+
+    /**
+     * Shortest distance between two nodes, without the path and without allocating anything.
+     *
+     * @return the distance, or {@link Double#POSITIVE_INFINITY} if the target is unreachable
+     */
+    public double distance(int source, int target) {
+        SearchWorkspace workspace = workspace(WORKSPACES);
+        pointToPoint(source, target, workspace);
+        return workspace.distance(target);
+    }
+
+    // Dijkstra in the workspace until the target (-1: every node) is settled; returns the settled count
+    private int pointToPoint(int source, int target, SearchWorkspace workspace) {
+        checkNode(source);
+        if (target != -1) {
+            checkNode(target);
+        }
+        workspace.reset();
+        NodeQueue queue = workspace.queue;
+        workspace.reach(source, 0.0, -1);
+        queue.offer(source, 0.0);
+        int settledCount = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (workspace.isSettled(u)) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            workspace.settle(u);
+            settledCount++;
+            if (u == target) {
+                break;
+            }
+            double uDistance = workspace.distance(u);
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.arcTarget(arc);
+                double candidate = uDistance + graph.arcWeight(arc);
+                if (!workspace.isSettled(v) && candidate < workspace.distance(v)) {
+                    workspace.reach(v, candidate, u);
+                    queue.offer(v, candidate);
+                }
+            }
+        }
+        return settledCount;
+    }
+
+    /**
+     * Runs Dijkstra from the source, reporting every step to the listener.
+     *
+     * @param target node to stop at once it is settled, or -1 to explore every reachable node
+     */
+    public ShortestPathTree search(int source, int target, SearchListener listener) {
+        int n = graph.nodeCount();
+        checkNode(source);
+        if (target != -1) {
+            checkNode(target);
+        }
+
+        double[] distances = new double[n];
+        int[] predecessors = new int[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        NodeQueue queue = queueStrategy.create(graph);
+        distances[source] = 0.0;
+        queue.offer(source, 0.0);
+        listener.onInitialized(source);
+
+        int settledCount = 0;
+        boolean complete = true;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (settled[u]) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            double uDistance = distances[u];
+            settled[u] = true;
+            settledCount++;
+            listener.onNodeSettled(u, uDistance);
+
+            if (u == target) {
+                complete = false; // Nodes still queued may have shorter paths left to find
+                break;
+            }
+
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.arcTarget(arc);
+                if (settled[v]) {
+                    continue;
+                }
+                double candidate = uDistance + graph.arcWeight(arc);
+                if (candidate < distances[v]) {
+                    distances[v] = candidate;
+                    predecessors[v] = u;
+                    queue.offer(v, candidate);
+                    listener.onEdgeRelaxed(u, v, candidate);
+                }
+            }
+        }
+        return new ShortestPathTree(graph, source, distances, predecessors, settledCount, complete);
+    }
+
+    /**
+     * Single-source distances only, computed in a reused workspace: no listener and no
+     * allocation. Read them with {@link SearchWorkspace#distance} or
+     * {@link SearchWorkspace#distanceRow()}.
+     */
+    void distancesFrom(int source, SearchWorkspace workspace) {
+        pointToPoint(source, -1, workspace);
+    }
+
+    /**
+     * Point-to-point A* query; same result as {@link #shortestPath(int, int)} as long as the
+     * heuristic is consistent, usually after settling fewer nodes.
+     */
+    public ShortestPath aStarShortestPath(int source, int target, EuclideanHeuristic heuristic) {
+        ShortestPathTree tree = aStarSearch(source, target, heuristic, SearchListener.NONE);
+        return new ShortestPath(graph, source, target, tree.distanceTo(target), tree.pathTo(target), tree.getSettledCount());
+    }
+
+    public ShortestPath aStarShortestPath(String sourceId, String targetId, EuclideanHeuristic heuristic) {
+        return aStarShortestPath(requireNode(sourceId), requireNode(targetId), heuristic);
+    }
+
+    /**
+     * Runs A* from the source to the target: Dijkstra with every node queued by its distance
+     * plus the heuristic's estimate of the rest of the way, so nodes towards the target are
+     * settled first. The listener sees the same events as for {@link #search}, with the
+     * distances from the source (not the queue priorities).
+     */
+    public ShortestPathTree aStarSearch(int source, int target, EuclideanHeuristic heuristic, SearchListener listener) {
+        int n = graph.nodeCount();
+        checkNode(source);
+        checkNode(target);
+        if (queueStrategy.needsIntegerWeights()) {
+            throw new IllegalArgumentException("A* keys are not whole numbers; " + queueStrategy + " cannot order them");
+        }
+        if (heuristic.getLayout().nodeCount() != n) {
+            throw new IllegalArgumentException("Heuristic layout has " + heuristic.getLayout().nodeCount()
+                    + " nodes, graph has " + n);
+        }
+
+        double[] distances = new double[n];
+        int[] predecessors = new int[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        NodeQueue queue = queueStrategy.create(graph);
+        distances[source] = 0.0;
+        queue.offer(source, heuristic.estimate(source, target));
+        listener.onInitialized(source);
+
+        int settledCount = 0;
+        boolean complete = true;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (settled[u]) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            double uDistance = distances[u];
+            settled[u] = true;
+            settledCount++;
+            listener.onNodeSettled(u, uDistance);
+
+            if (u == target) {
+                complete = false; // Nodes still queued may have shorter paths left to find
+                break;
+            }
+
+            for (int arc = graph.firstArc(u), end = graph.endArc(u); arc < end; arc++) {
+                int v = graph.arcTarget(arc);
+                if (settled[v]) {
+                    continue;
+                }
+                double candidate = uDistance + graph.arcWeight(arc);
+                if (candidate < distances[v]) {
+                    distances[v] = candidate;
+                    predecessors[v] = u;
+                    queue.offer(v, candidate + heuristic.estimate(v, target));
+                    listener.onEdgeRelaxed(u, v, candidate);
+                }
+            }
+        }
+        return new ShortestPathTree(graph, source, distances, predecessors, settledCount, complete);
+    }
+
+    /**
+     * Point-to-point query that searches from both ends at once; same result as
+     * {@link #shortestPath(int, int)}, usually after settling far fewer nodes.
+     */
+    public ShortestPath bidirectionalShortestPath(int source, int target) {
+        return bidirectionalSearch(source, target, SearchListener.NONE);
+    }
+
+    public ShortestPath bidirectionalShortestPath(String sourceId, String targetId) {
+        return bidirectionalShortestPath(requireNode(sourceId), requireNode(targetId));
+    }
+
+    /**
+     * Runs Dijkstra forward from the source and, over reversed arcs, backward from the target,
+     * always extending the side whose queue has the smaller minimum. Every arc scan that touches
+     * a node reached by both sides offers a path through that node. The search stops once the two
+     * queue minimums add up to at least the best such path: any path not yet seen would have to
+     * leave both settled regions and cannot be shorter. Both frontiers are reported to the
+     * listener, the backward one through the {@code onBackward...} callbacks. Both searches run
+     * in this thread's reused workspaces, so the listener must not start another query on any
+     * engine from its callbacks.
+     *
+     * @return the path, whose settled count covers both searches
+     */
+    public ShortestPath bidirectionalSearch(int source, int target, SearchListener listener) {
+        checkNode(source);
+        checkNode(target);
+        CsrGraph reversedGraph = graph.reversed();
+
+        SearchWorkspace forwardSearch = workspace(WORKSPACES);
+        SearchWorkspace backwardSearch = workspace(BACKWARD_WORKSPACES); // Predecessors: next node towards the target
+        forwardSearch.reset();
+        backwardSearch.reset();
+        NodeQueue forwardQueue = forwardSearch.queue;
+        NodeQueue backwardQueue = backwardSearch.queue;
+        forwardSearch.reach(source, 0.0, -1);
+        forwardQueue.offer(source, 0.0);
+        listener.onInitialized(source);
+        backwardSearch.reach(target, 0.0, -1);
+        backwardQueue.offer(target, 0.0);
+        listener.onBackwardInitialized(target);
+
+        double best = source == target ? 0.0 : Double.POSITIVE_INFINITY; // Shortest path seen so far
+        int meeting = source == target ? source : -1;
+        int settledCount = 0;
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                && forwardQueue.peekPriority() + backwardQueue.peekPriority() < best) {
+            boolean forward = forwardQueue.peekPriority() <= backwardQueue.peekPriority();
+            NodeQueue queue = forward ? forwardQueue : backwardQueue;
+            CsrGraph arcs = forward ? graph : reversedGraph;
+            SearchWorkspace search = forward ? forwardSearch : backwardSearch;
+            SearchWorkspace other = forward ? backwardSearch : forwardSearch;
+
+            int u = queue.poll();
+            if (search.isSettled(u)) {
+                continue; // Stale entry left behind by a lazy-deletion queue
+            }
+            double uDistance = search.distance(u);
+            search.settle(u);
+            settledCount++;
+            if (forward) {
+                listener.onNodeSettled(u, uDistance);
+            } else {
+                listener.onBackwardNodeSettled(u, uDistance);
+            }
+
+            for (int arc = arcs.firstArc(u), end = arcs.endArc(u); arc < end; arc++) {
+                int v = arcs.arcTarget(arc);
+                if (!search.isSettled(v)) {
+                    double candidate = uDistance + arcs.arcWeight(arc);
+                    if (candidate < search.distance(v)) {
+                        search.reach(v, candidate, u);
+                        queue.offer(v, candidate);
+                        if (forward) {
+                            listener.onEdgeRelaxed(u, v, candidate);
+                        } else {
+                            listener.onBackwardEdgeRelaxed(u, v, candidate);
+                        }
+                    }
+                }
+                // Both trees reach v: their paths join into a source-target path through it
+                double through = search.distance(v) + other.distance(v);
+                if (through < best) {
+                    best = through;
+                    meeting = v;
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return new ShortestPath(graph, source, target, Double.POSITIVE_INFINITY, new int[0], settledCount);
+        }
+        listener.onSearchesMet(meeting, best);
+        return new ShortestPath(graph, source, target, best,
+                joinPaths(source, meeting, forwardSearch.predecessors(), backwardSearch.predecessors()), settledCount);
+    }
+
+    // Source -> meeting along the forward tree, then meeting -> target along the backward tree
+    static int[] joinPaths(int source, int meeting, int[] forwardPredecessors, int[] backwardSuccessors) {
+        int length = 1;
+        for (int v = meeting; v != source; v = forwardPredecessors[v]) {
+            length++;
+        }
+        for (int v = meeting; backwardSuccessors[v] != -1; v = backwardSuccessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = meeting; ; v = forwardPredecessors[v]) {
+            path[i++] = v;
+            if (v == source) {
+                break;
+            }
+        }
+        for (int low = 0, high = i - 1; low < high; low++, high--) {
+            int swap = path[low];
+            path[low] = path[high];
+            path[high] = swap;
+        }
+        for (int v = backwardSuccessors[meeting]; v != -1; v = backwardSuccessors[v]) {
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    private int requireNode(String nodeId) {
+        int index = graph.indexOf(nodeId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown node: " + nodeId);
+        }
+        return index;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= graph.nodeCount()) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + graph.nodeCount() + ")");
+        }
+    }
+}
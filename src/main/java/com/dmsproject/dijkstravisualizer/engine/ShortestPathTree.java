@@ -0,0 +1,84 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+/**
+ * Result of a single-source search: a distance and a predecessor for every node.
+ * If the search stopped early at a target, only settled nodes are guaranteed
+ * to carry final distances.
+ */
+public final class ShortestPathTree {
+
+    private final CsrGraph graph;
+    private final int source;
+    private final double[] distances;
+    private final int[] predecessors;
+    private final int settledCount;
+    private final boolean complete;
+
+    ShortestPathTree(CsrGraph graph, int source, double[] distances, int[] predecessors, int settledCount,
+                     boolean complete) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.predecessors = predecessors;
+        this.settledCount = settledCount;
+        this.complete = complete;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return the distance to the node, or {@link Double#POSITIVE_INFINITY} if it was not reached
+     */
+    public double distanceTo(int node) {
+        return distances[node];
+    }
+
+    /**
+     * @return the predecessor of the node on its shortest path, or -1 for the source and unreached nodes
+     */
+    public int predecessorOf(int node) {
+        return predecessors[node];
+    }
+
+    public boolean isReached(int node) {
+        return distances[node] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the number of nodes extracted from the queue during the search
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * @return true if the search settled every reachable node, so every distance and path is final
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the node indices from the source to the target, or an empty array if unreachable
+     */
+    public int[] pathTo(int target) {
+        if (!isReached(target)) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int v = target; v != source; v = predecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = predecessors[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,122 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of complete {@link ShortestPathTree}s keyed by (graph version, source).
+ * <p>
+ * The graph version is a counter the owner bumps on every edit, so a tree is only ever
+ * found for the graph it was computed on. Once a tree is cached, the path and distance to
+ * any target from its source are a walk over its predecessor array, with no new search.
+ * When the cache is full the least recently used tree is dropped. Not thread-safe; the
+ * visualizer uses it from the JavaFX thread only.
+ */
+public final class ShortestPathTreeCache {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, ShortestPathTree> trees;
+    private long hits;
+    private long misses;
+
+    public ShortestPathTreeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ShortestPathTreeCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        // Access order: every get moves the tree to the end, so the eldest entry is the least recently used
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ShortestPathTree> eldest) {
+                return size() > ShortestPathTreeCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the cached tree from the source on that version of the graph, or null
+     */
+    public ShortestPathTree get(long graphVersion, int source) {
+        ShortestPathTree tree = trees.get(new Key(graphVersion, source));
+        if (tree != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return tree;
+    }
+
+    /**
+     * Caches a tree computed on that version of the graph, replacing any tree from the same source.
+     *
+     * @throws IllegalArgumentException if the search stopped early, so the tree is not complete
+     */
+    public void put(long graphVersion, ShortestPathTree tree) {
+        if (!tree.isComplete()) {
+            throw new IllegalArgumentException("Only complete shortest-path trees can be cached");
+        }
+        trees.put(new Key(graphVersion, tree.getSource()), tree);
+    }
+
+    /**
+     * Drops every tree computed on an older graph version; they can never be looked up again.
+     */
+    public void evictOlderThan(long graphVersion) {
+        for (Iterator<Key> keys = trees.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().graphVersion < graphVersion) {
+                keys.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        trees.clear();
+    }
+
+    public int size() {
+        return trees.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    private static final class Key {
+        private final long graphVersion;
+        private final int source;
+
+        Key(long graphVersion, int source) {
+            this.graphVersion = graphVersion;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return graphVersion == key.graphVersion && source == key.source;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(graphVersion) * 31 + source;
+        }
+    }
+}
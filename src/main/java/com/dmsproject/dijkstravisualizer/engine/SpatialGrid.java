@@ -0,0 +1,221 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over node centres, for finding nodes by position without looking at
+ * all of them: the node under the mouse, the nodes inside a rectangle, the node
+ * nearest to a point.
+ * <p>
+ * The plane is cut into square cells of a fixed size and every non-empty cell lists the
+ * nodes whose centre lies in it. A query only visits the cells its area touches, so its
+ * cost depends on how many nodes are near the queried area, not on the size of the graph.
+ * Nodes are engine indices, added in order and moved with {@link #put}.
+ */
+public final class SpatialGrid {
+
+    private final double cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    public SpatialGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.xs = new double[16];
+        this.ys = new double[16];
+    }
+
+    /**
+     * @return a grid holding every node of the layout
+     */
+    public static SpatialGrid of(GraphLayout layout, double cellSize) {
+        SpatialGrid grid = new SpatialGrid(cellSize);
+        grid.xs = new double[Math.max(layout.nodeCount(), 16)];
+        grid.ys = new double[grid.xs.length];
+        for (int v = 0; v < layout.nodeCount(); v++) {
+            grid.put(v, layout.x(v), layout.y(v));
+        }
+        return grid;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int node) {
+        checkNode(node);
+        return xs[node];
+    }
+
+    public double y(int node) {
+        checkNode(node);
+        return ys[node];
+    }
+
+    /**
+     * Moves a node to (x, y). {@code node == size()} adds the next node.
+     */
+    public void put(int node, double x, double y) {
+        if (node == size) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            size++;
+        } else {
+            checkNode(node);
+            long oldKey = cellKey(xs[node], ys[node]);
+            if (oldKey == cellKey(x, y)) {
+                xs[node] = x;
+                ys[node] = y;
+                return;
+            }
+            Cell oldCell = cells.get(oldKey);
+            oldCell.remove(node);
+            if (oldCell.size == 0) {
+                cells.remove(oldKey);
+            }
+        }
+        xs[node] = x;
+        ys[node] = y;
+        cells.computeIfAbsent(cellKey(x, y), key -> new Cell()).add(node);
+    }
+
+    /**
+     * @return the node whose centre is nearest to (x, y) and at most {@code maxDistance} away, or -1.
+     * Of equally near nodes the one added last (drawn on top) wins.
+     */
+    public int nearest(double x, double y, double maxDistance) {
+        int[] best = {-1};
+        double[] bestDistanceSquared = {maxDistance * maxDistance};
+        forEachIn(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, node -> {
+            double dx = xs[node] - x;
+            double dy = ys[node] - y;
+            double distanceSquared = dx * dx + dy * dy;
+            if (distanceSquared < bestDistanceSquared[0]
+                    || (distanceSquared == bestDistanceSquared[0] && node > best[0])) {
+                best[0] = node;
+                bestDistanceSquared[0] = distanceSquared;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Calls {@code action} for every node whose centre lies in the rectangle, in no particular order.
+     *
+     * @return the number of such nodes
+     */
+    public int forEachIn(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        if (size == 0 || !(minX <= maxX) || !(minY <= maxY)) {
+            return 0;
+        }
+        int count = 0;
+        double firstColumn = Math.floor(minX / cellSize);
+        double lastColumn = Math.floor(maxX / cellSize);
+        double firstRow = Math.floor(minY / cellSize);
+        double lastRow = Math.floor(maxY / cellSize);
+        if ((lastColumn - firstColumn + 1) * (lastRow - firstRow + 1) > cells.size()) {
+            // More cells in the rectangle than occupied ones: visit the occupied cells instead
+            for (Cell cell : cells.values()) {
+                count += cell.forEachIn(this, minX, minY, maxX, maxY, action);
+            }
+            return count;
+        }
+        // long counters: a column saturated at Integer.MAX_VALUE must not wrap around
+        for (long column = (int) firstColumn; column <= (int) lastColumn; column++) {
+            for (long row = (int) firstRow; row <= (int) lastRow; row++) {
+                Cell cell = cells.get(cellKey((int) column, (int) row));
+                if (cell != null) {
+                    count += cell.forEachIn(this, minX, minY, maxX, maxY, action);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of nodes whose centre lies in the rectangle
+     */
+    public int countIn(double minX, double minY, double maxX, double maxY) {
+        return forEachIn(minX, minY, maxX, maxY, node -> { });
+    }
+
+    /**
+     * @return the nodes whose centre lies in the rectangle, in ascending order
+     */
+    public int[] nodesIn(double minX, double minY, double maxX, double maxY) {
+        int[][] found = {new int[16]};
+        int count = forEachIn(minX, minY, maxX, maxY, new IntConsumer() {
+            private int next;
+
+            @Override
+            public void accept(int node) {
+                if (next == found[0].length) {
+                    found[0] = Arrays.copyOf(found[0], next * 2);
+                }
+                found[0][next++] = node;
+            }
+        });
+        int[] nodes = Arrays.copyOf(found[0], count);
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Node index " + node + " out of range [0, " + size + ")");
+        }
+    }
+
+    private long cellKey(double x, double y) {
+        return cellKey((int) Math.floor(x / cellSize), (int) Math.floor(y / cellSize));
+    }
+
+    private static long cellKey(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    // Nodes of one cell, unordered
+    private static final class Cell {
+        private int[] nodes = new int[4];
+        private int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        void remove(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    nodes[i] = nodes[--size];
+                    return;
+                }
+            }
+        }
+
+        int forEachIn(SpatialGrid grid, double minX, double minY, double maxX, double maxY, IntConsumer action) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int node = nodes[i];
+                double x = grid.xs[node];
+                double y = grid.ys[node];
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    action.accept(node);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Rebuilds the full algorithm state at any event of a {@link SearchTrace}.
+ * <p>
+ * The cursor owns one distance array, one predecessor array and one settled
+ * set, and moves between events by applying deltas forwards or undoing them
+ * backwards. Stepping to a neighbouring event is O(1). Long jumps restore the
+ * nearest keyframe at or before the target and replay less than one keyframe
+ * interval of deltas, so any seek takes bounded time regardless of trace length.
+ * <p>
+ * For a bidirectional trace the cursor keeps the same state for the backward search as
+ * well, in which distances are distances to the target and predecessors point towards it.
+ */
+public final class TraceCursor {
+
+    private final SearchTrace trace;
+    private final SearchTrace.SideState forward;
+    private final SearchTrace.SideState backward; // null unless the trace is bidirectional
+    private final double[] distances; // Arrays of the forward state, used directly by the getters
+    private final int[] predecessors;
+    private final BitSet settled;
+    private int position = -1; // Index of the last applied event, -1 before the first one
+
+    public TraceCursor(SearchTrace trace) {
+        this.trace = trace;
+        int n = trace.getGraph().nodeCount();
+        this.forward = new SearchTrace.SideState(n);
+        this.backward = trace.isBidirectional() ? new SearchTrace.SideState(n) : null;
+        this.distances = forward.distances;
+        this.predecessors = forward.predecessors;
+        this.settled = forward.settled;
+    }
+
+    public SearchTrace getTrace() {
+        return trace;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Positions the cursor so that events {@code 0..event} are applied.
+     */
+    public void moveTo(int event) {
+        if (event < -1 || event >= trace.size()) {
+            throw new IndexOutOfBoundsException("Event " + event + " out of range [-1, " + trace.size() + ")");
+        }
+        if (Math.abs(event - position) > trace.getKeyframeInterval()) {
+            restoreKeyframe(event);
+        }
+        while (position < event) {
+            apply(++position);
+        }
+        while (position > event) {
+            undo(position--);
+        }
+    }
+
+    private void restoreKeyframe(int event) {
+        SearchTrace.Keyframe keyframe = trace.keyframeAtOrBefore(event);
+        if (keyframe == null) {
+            forward.clear();
+            if (backward != null) {
+                backward.clear();
+            }
+            position = -1;
+        } else {
+            forward.restoreFrom(keyframe.forward);
+            if (backward != null) {
+                backward.restoreFrom(keyframe.backward);
+            }
+            position = keyframe.position;
+        }
+    }
+
+    private void apply(int event) {
+        int node = trace.node(event);
+        SearchTrace.SideState side = trace.isBackward(event) ? backward : forward;
+        switch (trace.type(event)) {
+            case INITIALIZED:
+                side.distances[node] = 0.0;
+                break;
+            case NODE_SETTLED:
+                side.settled.set(node);
+                break;
+            case EDGE_RELAXED:
+                side.distances[node] = trace.distance(event);
+                side.predecessors[node] = trace.fromNode(event);
+                break;
+            case BUCKET_OPENED:
+            case FINISHED:
+                break;
+        }
+    }
+
+    private void undo(int event) {
+        int node = trace.node(event);
+        SearchTrace.SideState side = trace.isBackward(event) ? backward : forward;
+        switch (trace.type(event)) {
+            case INITIALIZED:
+            case EDGE_RELAXED:
+                side.distances[node] = trace.previousDistance(event);
+                side.predecessors[node] = trace.previousPredecessor(event);
+                break;
+            case NODE_SETTLED:
+                side.settled.clear(node);
+                break;
+            case BUCKET_OPENED:
+            case FINISHED:
+                break;
+        }
+    }
+
+    public double distance(int node) {
+        return distances[node];
+    }
+
+    public int predecessor(int node) {
+        return predecessors[node];
+    }
+
+    public boolean isSettled(int node) {
+        return settled.get(node);
+    }
+
+    /**
+     * @return the node's distance to the target in the backward search of a bidirectional trace
+     */
+    public double backwardDistance(int node) {
+        return backwardState().distances[node];
+    }
+
+    /**
+     * @return the next node towards the target in the backward search, or -1
+     */
+    public int backwardSuccessor(int node) {
+        return backwardState().predecessors[node];
+    }
+
+    public boolean isBackwardSettled(int node) {
+        return backward != null && backward.settled.get(node);
+    }
+
+    /**
+     * @return the distance to show for the node: its distance from the source or, if only the
+     *         backward search of a bidirectional trace has reached it, its distance to the target
+     */
+    public double shownDistance(int node) {
+        if (distances[node] != Double.POSITIVE_INFINITY || backward == null) {
+            return distances[node];
+        }
+        return backward.distances[node];
+    }
+
+    /**
+     * @return true if the node waits in the queue of the search whose distance {@link #shownDistance} shows
+     */
+    public boolean isQueued(int node) {
+        if (distances[node] != Double.POSITIVE_INFINITY || backward == null) {
+            return distances[node] != Double.POSITIVE_INFINITY && !settled.get(node);
+        }
+        return backward.distances[node] != Double.POSITIVE_INFINITY && !backward.settled.get(node);
+    }
+
+    /**
+     * @return the number of settled nodes, counting both searches of a bidirectional trace
+     */
+    public int settledCount() {
+        return settled.cardinality() + (backward == null ? 0 : backward.settled.cardinality());
+    }
+
+    /**
+     * @return the nodes currently waiting in a queue ({@link #isQueued}), ordered by shown
+     *         distance and then by node index
+     */
+    public int[] queuedNodes() {
+        int count = 0;
+        int[] queued = new int[16];
+        for (int v = 0; v < distances.length; v++) {
+            if (isQueued(v)) {
+                if (count == queued.length) {
+                    queued = Arrays.copyOf(queued, count * 2);
+                }
+                queued[count++] = v;
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = queued[i];
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Double.compare(shownDistance(a), shownDistance(b));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return the current tree path from the trace source to the node, or an empty array if unreached
+     */
+    public int[] pathTo(int node) {
+        if (distances[node] == Double.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+        int source = trace.getSource();
+        int length = 1;
+        for (int v = node; v != source; v = predecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = node, i = length - 1; i >= 0; v = predecessors[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    /**
+     * @return the path the run found, once the cursor is at its FINISHED event: the tree path to
+     *         the target, or for a bidirectional trace the two tree paths joined at the meeting node
+     *         (expanded into graph arcs for a hierarchy run; empty if there is no path)
+     */
+    public int[] foundPath() {
+        int finish = trace.size() - 1;
+        if (position != finish || trace.getTarget() == -1) {
+            throw new IllegalStateException("The cursor is not at the end of a point-to-point run");
+        }
+        if (trace.unpackedPath() != null) {
+            return trace.unpackedPath().clone(); // The tree paths would skip nodes through shortcuts
+        }
+        if (!trace.isBidirectional()) {
+            return pathTo(trace.getTarget());
+        }
+        int meeting = trace.fromNode(finish);
+        if (meeting == -1) {
+            return new int[0];
+        }
+        return ShortestPathEngine.joinPaths(trace.getSource(), meeting, predecessors, backward.predecessors);
+    }
+
+    private SearchTrace.SideState backwardState() {
+        if (backward == null) {
+            throw new IllegalStateException("The trace has no backward search");
+        }
+        return backward;
+    }
+}
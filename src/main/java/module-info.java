@@ -6,4 +6,5 @@ module com.dmsproject.dijkstravisualizer {
 
     opens com.dmsproject.dijkstravisualizer to javafx.fxml;
     exports com.dmsproject.dijkstravisualizer;
+    exports com.dmsproject.dijkstravisualizer.engine;
 }
\ No newline at end of file
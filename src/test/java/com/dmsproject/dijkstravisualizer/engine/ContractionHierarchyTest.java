@@ -0,0 +1,144 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void queriesMatchDijkstraOnUndirectedGraphs() {
+        checkQueries(new SplittableRandom(21), false);
+    }
+
+    @Test
+    void queriesMatchDijkstraOnDirectedGraphs() {
+        checkQueries(new SplittableRandom(22), true);
+    }
+
+    // Every query checks the distance, that the unpacked path is made of graph arcs only, and that
+    // stalling (which skips nodes settled above their true distance) never loses a shortest path
+    private static void checkQueries(SplittableRandom random, boolean directed) {
+        for (int trial = 0; trial < 30; trial++) {
+            CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(120), random.nextInt(400), directed, trial % 2 == 0);
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+            ContractionHierarchy.Query query = hierarchy.newQuery();
+            for (int q = 0; q < 20; q++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                double expected = TestGraphs.dijkstra(graph, source)[target];
+                int[][] unpacked = new int[1][];
+                ShortestPath path = query.search(source, target, new SearchListener() {
+                    @Override
+                    public void onPathUnpacked(int[] nodes) {
+                        unpacked[0] = nodes;
+                    }
+                });
+                assertEquals(expected, path.getDistance(), "Distance from " + source + " to " + target);
+                assertEquals(expected != Double.POSITIVE_INFINITY, path.isFound());
+                if (path.isFound()) {
+                    TestGraphs.assertPath(graph, source, target, expected, path.getNodes());
+                    assertArrayEquals(path.getNodes(), unpacked[0], "Reported unpacked path");
+                }
+            }
+        }
+    }
+
+    @Test
+    void stallingNeverLosesAShortestPath() {
+        // Dense graphs with spread weights reach many nodes upwards above their distance, which
+        // stalling then skips; every label must stay an upper bound and every answer exact
+        SplittableRandom random = new SplittableRandom(23);
+        for (int trial = 0; trial < 20; trial++) {
+            CsrGraph graph = TestGraphs.random(random, 200, 1200, trial % 2 == 0, false);
+            ContractionHierarchy.Query query = ContractionHierarchy.build(graph).newQuery();
+            for (int q = 0; q < 20; q++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                double[] distances = TestGraphs.dijkstra(graph, source);
+                ShortestPath path = query.search(source, target, new SearchListener() {
+                    @Override
+                    public void onNodeSettled(int node, double distance) {
+                        assertTrue(distance >= distances[node], "Settled " + node + " below its distance");
+                    }
+
+                    @Override
+                    public void onEdgeRelaxed(int from, int to, double newDistance) {
+                        assertTrue(newDistance >= distances[to], "Reached " + to + " below its distance");
+                    }
+                });
+                assertEquals(distances[target], path.getDistance(), "Distance from " + source + " to " + target);
+            }
+        }
+    }
+
+    @Test
+    void sidecarRoundTrip(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(24);
+        CsrGraph graph = TestGraphs.random(random, 150, 450, false, false);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        Path sidecar = ContractionHierarchy.sidecarOf(directory.resolve("graph." + GraphFile.EXTENSION));
+        assertEquals("graph." + ContractionHierarchy.EXTENSION, sidecar.getFileName().toString());
+        hierarchy.write(sidecar);
+
+        ContractionHierarchy loaded = ContractionHierarchy.read(sidecar, graph);
+        assertEquals(hierarchy.getShortcutCount(), loaded.getShortcutCount());
+        assertEquals(hierarchy.arcCount(), loaded.arcCount());
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(hierarchy.rankOf(v), loaded.rankOf(v));
+        }
+        ContractionHierarchy.Query built = hierarchy.newQuery();
+        ContractionHierarchy.Query read = loaded.newQuery();
+        for (int q = 0; q < 200; q++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            ShortestPath expected = built.shortestPath(source, target);
+            ShortestPath actual = read.shortestPath(source, target);
+            assertEquals(expected.getDistance(), actual.getDistance());
+            assertArrayEquals(expected.getNodes(), actual.getNodes());
+        }
+    }
+
+    @Test
+    void sidecarOfAnotherGraphIsRejected(@TempDir Path directory) throws IOException {
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v < 4; v++) {
+            builder.addNode("n" + v);
+        }
+        builder.addEdge("n0", "n1", 1);
+        builder.addEdge("n1", "n2", 2);
+        builder.addEdge("n2", "n3", 3);
+        CsrGraph graph = builder.build();
+        Path sidecar = directory.resolve("path." + ContractionHierarchy.EXTENSION);
+        ContractionHierarchy.build(graph).write(sidecar);
+
+        CsrGraph sameGraph = builder.build(); // Another snapshot of the same graph is accepted
+        assertEquals(ContractionHierarchy.fingerprint(graph), ContractionHierarchy.fingerprint(sameGraph));
+        assertEquals(6, ContractionHierarchy.read(sidecar, sameGraph).shortestPath(0, 3).getDistance());
+
+        builder.addEdge("n0", "n3", 1);
+        CsrGraph edited = builder.build();
+        assertNotEquals(ContractionHierarchy.fingerprint(graph), ContractionHierarchy.fingerprint(edited));
+        assertThrows(IOException.class, () -> ContractionHierarchy.read(sidecar, edited));
+
+        GraphBuilder reweightedBuilder = new GraphBuilder();
+        for (int v = 0; v < 4; v++) {
+            reweightedBuilder.addNode("n" + v);
+        }
+        reweightedBuilder.addEdge("n0", "n1", 5); // Same arcs, one weight changed
+        reweightedBuilder.addEdge("n1", "n2", 2);
+        reweightedBuilder.addEdge("n2", "n3", 3);
+        CsrGraph reweighted = reweightedBuilder.build();
+        assertNotEquals(ContractionHierarchy.fingerprint(graph), ContractionHierarchy.fingerprint(reweighted));
+        assertThrows(IOException.class, () -> ContractionHierarchy.read(sidecar, reweighted));
+    }
+}
@@ -0,0 +1,63 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeltaSteppingTest {
+
+    @Test
+    void matchesDijkstraForAutomaticDelta() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int trial = 0; trial < 60; trial++) {
+            CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(80), random.nextInt(300), trial % 2 == 0, trial % 3 == 0);
+            DeltaStepping deltaStepping = new DeltaStepping(graph, ForkJoinPool.commonPool());
+            int source = random.nextInt(graph.nodeCount());
+            TestGraphs.assertTree(graph, source, deltaStepping.singleSource(source));
+        }
+    }
+
+    @Test
+    void matchesDijkstraForAnyBucketWidth() {
+        SplittableRandom random = new SplittableRandom(12);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (double delta : new double[]{0.25, 1, 3, 100}) {
+                for (int trial = 0; trial < 20; trial++) {
+                    CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(80), random.nextInt(300), trial % 2 == 0, false);
+                    int source = random.nextInt(graph.nodeCount());
+                    TestGraphs.assertTree(graph, source, new DeltaStepping(graph, delta, pool).singleSource(source));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void targetSearchSettlesTheTarget() {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int trial = 0; trial < 30; trial++) {
+            CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(80), random.nextInt(300), false, true);
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            ShortestPathTree tree = new DeltaStepping(graph, ForkJoinPool.commonPool()).search(source, target, SearchListener.NONE);
+            double expected = TestGraphs.dijkstra(graph, source)[target];
+            assertEquals(expected, tree.distanceTo(target));
+            if (tree.isReached(target)) {
+                TestGraphs.assertPath(graph, source, target, expected, tree.pathTo(target));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidBucketWidth() {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(14), 10, 20, false, true);
+        assertThrows(IllegalArgumentException.class, () -> new DeltaStepping(graph, 0, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> new DeltaStepping(graph, 1e-9, ForkJoinPool.commonPool()));
+    }
+}
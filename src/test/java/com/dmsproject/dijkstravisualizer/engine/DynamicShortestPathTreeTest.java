@@ -0,0 +1,211 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamicShortestPathTreeTest {
+
+    @Test
+    void repairsMatchANewSearchAfterEveryEdit() {
+        for (QueueStrategy strategy : QueueStrategy.values()) {
+            SplittableRandom random = new SplittableRandom(31);
+            for (int trial = 0; trial < 30; trial++) {
+                CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(40), random.nextInt(80), trial % 2 == 0, true);
+                int source = random.nextInt(graph.nodeCount());
+                DynamicShortestPathTree tree = new DynamicShortestPathTree(
+                        new ShortestPathEngine(graph, strategy).singleSource(source), strategy);
+                for (int edit = 0; edit < 60; edit++) {
+                    int n = tree.nodeCount();
+                    int a = random.nextInt(n);
+                    int b = random.nextInt(n);
+                    double weight = random.nextInt(12) * 0.5;
+                    switch (random.nextInt(6)) {
+                        case 0:
+                            assertEquals(n, tree.addNode("added" + n));
+                            break;
+                        case 1:
+                            tree.removeArc(a, b, SearchListener.NONE);
+                            break;
+                        case 2:
+                            tree.removeEdge(a, b, SearchListener.NONE);
+                            break;
+                        case 3:
+                            tree.setArcWeight(a, b, weight, SearchListener.NONE);
+                            break;
+                        default:
+                            tree.setEdgeWeight(a, b, weight, SearchListener.NONE);
+                            break;
+                    }
+                    CsrGraph edited = tree.getGraph();
+                    ShortestPathTree repaired = tree.toTree();
+                    assertSame(edited, repaired.getGraph());
+                    TestGraphs.assertTree(edited, source, repaired);
+                }
+            }
+        }
+    }
+
+    @Test
+    void repairReportsOnlyTheNodesItSettles() {
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v < 5; v++) {
+            builder.addNode("n" + v);
+        }
+        builder.addEdge("n0", "n1", 1);
+        builder.addEdge("n1", "n2", 1);
+        builder.addEdge("n2", "n3", 1);
+        builder.addEdge("n3", "n4", 1);
+        CsrGraph graph = builder.build();
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(new ShortestPathEngine(graph).singleSource(0),
+                QueueStrategy.BINARY_HEAP);
+
+        int[] settled = new int[1];
+        SearchListener counter = new SearchListener() {
+            @Override
+            public void onNodeSettled(int node, double distance) {
+                assertEquals(tree.distanceTo(node), distance);
+                settled[0]++;
+            }
+        };
+        assertEquals(2, tree.setEdgeWeight(0, 3, 1.5, counter)); // Shortens the paths to n3 and n4
+        assertEquals(2, settled[0]);
+        assertEquals(1.5, tree.distanceTo(3));
+        assertEquals(2.5, tree.distanceTo(4));
+        assertEquals(0, tree.setEdgeWeight(1, 2, 1, counter)); // Same weight: nothing to repair
+
+        int added = tree.addNode("n5");
+        assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo(added));
+        assertEquals(added, tree.getGraph().indexOf("n5"));
+        assertEquals(-1, graph.indexOf("n5")); // The original graph does not see the edit
+        assertThrows(IllegalArgumentException.class, () -> tree.addNode("n5"));
+        assertThrows(IllegalArgumentException.class, () -> tree.setArcWeight(0, 1, -1, SearchListener.NONE));
+    }
+
+    @Test
+    void editedGraphMatchesAModelOfTheEdits() {
+        SplittableRandom random = new SplittableRandom(51);
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v < 30; v++) {
+            builder.addNode("n" + v);
+        }
+        for (int v = 0; v < 30; v++) {
+            builder.addEdge("n" + v, "n" + (v + 1) % 30, 1 + v % 4); // A ring: no parallel arcs
+        }
+        CsrGraph graph = builder.build();
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(new ShortestPathEngine(graph).singleSource(0),
+                QueueStrategy.INDEXED_DARY_HEAP);
+        double[][] weights = adjacency(graph, 40);
+        for (int edit = 0; edit < 300; edit++) {
+            int n = tree.nodeCount();
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            double weight = random.nextInt(8) * 0.5;
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (n < 40) {
+                        assertEquals(n, tree.addNode("added" + n));
+                    }
+                    break;
+                case 1:
+                    tree.removeArc(a, b, SearchListener.NONE);
+                    weights[a][b] = Double.NaN;
+                    break;
+                case 2:
+                    tree.setArcWeight(a, b, weight, SearchListener.NONE);
+                    weights[a][b] = weight;
+                    break;
+                default:
+                    tree.setEdgeWeight(a, b, weight, SearchListener.NONE);
+                    weights[a][b] = weight;
+                    weights[b][a] = weight;
+                    break;
+            }
+            assertSameArcs(weights, tree.getGraph(), tree.nodeCount());
+            assertEquals(tree.getGraph().arcCount(), tree.arcCount());
+            for (int v = 0; v < tree.nodeCount(); v++) {
+                assertEquals(v, tree.getGraph().indexOf(tree.idOf(v)));
+            }
+        }
+    }
+
+    @Test
+    void graphsHandedOutNeverSeeLaterEdits() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addNode("a");
+        builder.addNode("b");
+        builder.addEdge("a", "b", 2);
+        CsrGraph graph = builder.build();
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(new ShortestPathEngine(graph).singleSource(0),
+                QueueStrategy.BINARY_HEAP);
+        assertSame(graph, tree.getGraph()); // Nothing edited yet
+
+        tree.addNode("c");
+        tree.setEdgeWeight(1, 2, 0.5, SearchListener.NONE);
+        CsrGraph withC = tree.getGraph();
+        assertSame(withC, tree.getGraph()); // Built once per batch of edits
+        tree.setEdgeWeight(1, 2, 0.5, SearchListener.NONE);
+        assertSame(withC, tree.getGraph()); // The same weight again changes nothing
+        tree.addNode("d");
+        tree.removeEdge(1, 2, SearchListener.NONE);
+        CsrGraph withD = tree.getGraph();
+        assertNotSame(withC, withD);
+
+        assertEquals(2, graph.nodeCount());
+        assertEquals(2, graph.arcCount());
+        assertEquals(2, graph.getNodes().size());
+        assertEquals(-1, graph.indexOf("c"));
+        assertEquals(3, withC.nodeCount());
+        assertEquals(4, withC.arcCount());
+        assertEquals(2, withC.indexOf("c"));
+        assertEquals(-1, withC.indexOf("d"));
+        assertFalse(withC.hasIntegerWeights());
+        assertEquals(2, withC.maxArcWeight());
+        assertEquals(3, withD.indexOf("d"));
+        assertEquals(2, withD.arcCount());
+        assertTrue(withD.hasIntegerWeights());
+        assertEquals(Double.POSITIVE_INFINITY, tree.distanceTo(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.idOf(4));
+        assertThrows(IllegalArgumentException.class, () -> tree.addNode(null));
+    }
+
+    // Weight of every arc (NaN where there is none), for at most capacity nodes
+    private static double[][] adjacency(CsrGraph graph, int capacity) {
+        double[][] weights = new double[capacity][capacity];
+        for (double[] row : weights) {
+            Arrays.fill(row, Double.NaN);
+        }
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                weights[u][graph.arcTarget(arc)] = graph.arcWeight(arc);
+            }
+        }
+        return weights;
+    }
+
+    private static void assertSameArcs(double[][] weights, CsrGraph graph, int n) {
+        assertEquals(n, graph.nodeCount());
+        double max = 0;
+        boolean integral = true;
+        for (int u = 0; u < n; u++) {
+            for (int v = 0; v < n; v++) {
+                int arc = graph.arcIndex(u, v);
+                assertEquals(weights[u][v], arc < 0 ? Double.NaN : graph.arcWeight(arc), "Arc " + u + " -> " + v);
+                if (arc >= 0) {
+                    max = Math.max(max, graph.arcWeight(arc));
+                    integral &= graph.arcWeight(arc) == Math.rint(graph.arcWeight(arc));
+                }
+            }
+        }
+        assertEquals(max, graph.maxArcWeight());
+        assertEquals(integral, graph.hasIntegerWeights());
+    }
+}
@@ -0,0 +1,117 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GraphFileTest {
+
+    @Test
+    void roundTripKeepsGraphAndLayout(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(41);
+        for (int nodes : new int[]{0, 1, 7, 300}) {
+            CsrGraph graph = nodes == 0 ? new GraphBuilder().build() : TestGraphs.random(random, nodes, 3 * nodes, nodes % 2 == 0, false);
+            double[] xs = new double[graph.nodeCount()];
+            double[] ys = new double[graph.nodeCount()];
+            for (int v = 0; v < xs.length; v++) {
+                xs[v] = random.nextDouble() * 1000;
+                ys[v] = -random.nextDouble() * 1000;
+            }
+            Path path = directory.resolve("g" + nodes + "." + GraphFile.EXTENSION);
+            GraphFile.write(path, graph, new GraphLayout(xs, ys));
+            GraphFile file = GraphFile.read(path);
+
+            CsrGraph read = file.getGraph();
+            assertEquals(graph.nodeCount(), read.nodeCount());
+            assertEquals(graph.arcCount(), read.arcCount());
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                assertEquals(graph.idOf(v), read.idOf(v));
+                assertEquals(v, read.indexOf(graph.idOf(v)));
+                assertEquals(graph.firstArc(v), read.firstArc(v));
+                assertEquals(graph.endArc(v), read.endArc(v));
+                assertEquals(xs[v], file.getLayout().x(v));
+                assertEquals(ys[v], file.getLayout().y(v));
+            }
+            for (int arc = 0; arc < graph.arcCount(); arc++) {
+                assertEquals(graph.arcTarget(arc), read.arcTarget(arc));
+                assertEquals(graph.arcWeight(arc), read.arcWeight(arc));
+            }
+            assertEquals(ContractionHierarchy.fingerprint(graph), ContractionHierarchy.fingerprint(read));
+
+            GraphFile.write(path, read, file.getLayout()); // The loaded file can be overwritten right away
+            assertEquals(graph.arcCount(), GraphFile.read(path).getGraph().arcCount());
+        }
+    }
+
+    @Test
+    void rejectsDamagedFiles(@TempDir Path directory) throws IOException {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(42), 20, 40, false, true);
+        Path path = directory.resolve("g." + GraphFile.EXTENSION);
+        GraphFile.write(path, graph, GraphLayout.empty(graph.nodeCount()));
+        long size = Files.size(path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 8);
+        }
+        assertThrows(IOException.class, () -> GraphFile.read(path));
+
+        Files.write(path, new byte[]{'n', 'o', 't', ' ', 'a', ' ', 'g', 'r', 'a', 'p', 'h'});
+        assertThrows(IOException.class, () -> GraphFile.read(path));
+
+        byte[] wrongMagic = new byte[64];
+        Files.write(path, wrongMagic);
+        assertThrows(IOException.class, () -> GraphFile.read(path));
+    }
+
+    @Test
+    void rejectsHeadersThatDoNotMatchTheFileSize(@TempDir Path directory) throws IOException {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(44), 20, 40, false, true);
+        Path path = directory.resolve("g." + GraphFile.EXTENSION);
+        GraphFile.write(path, graph, GraphLayout.empty(graph.nodeCount()));
+        long idBytes = 0;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            idBytes += graph.idOf(v).length(); // ASCII IDs
+        }
+        assertEquals(Files.size(path), GraphFile.fileSize(graph.nodeCount(), graph.arcCount(), idBytes));
+
+        // Each of these would ask for arrays far larger than the file if read before the size check
+        long[][] headers = {
+                {8, Integer.MAX_VALUE}, {8, Integer.MAX_VALUE - 1}, {8, -1},
+                {12, Integer.MAX_VALUE}, {12, -1}, {12, graph.arcCount() + 1}
+        };
+        for (long[] header : headers) {
+            GraphFile.write(path, graph, GraphLayout.empty(graph.nodeCount()));
+            overwrite(path, (int) header[0], ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, (int) header[1]));
+            assertThrows(IOException.class, () -> GraphFile.read(path), "field at " + header[0] + " = " + header[1]);
+        }
+        for (long corrupt : new long[]{Integer.MAX_VALUE, Long.MAX_VALUE, -1, idBytes + 8}) {
+            GraphFile.write(path, graph, GraphLayout.empty(graph.nodeCount()));
+            overwrite(path, 16, ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, corrupt));
+            assertThrows(IOException.class, () -> GraphFile.read(path), "ID bytes = " + corrupt);
+        }
+    }
+
+    private static void overwrite(Path path, int position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    @Test
+    void rejectsLayoutOfAnotherSize(@TempDir Path directory) {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(43), 5, 5, false, true);
+        assertThrows(IllegalArgumentException.class,
+                () -> GraphFile.write(directory.resolve("g.dgraph"), graph, GraphLayout.empty(4)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dimacsArcsStayDirected() throws IOException {
+        GraphImporter.Result result = importText("directed.gr",
+                "c one-way arcs and a duplicate\n"
+                        + "p sp 3 4\n"
+                        + "a 1 2 5\n"
+                        + "c comment between arcs\n"
+                        + "a 2 3 1\n"
+                        + "a 1 2 7\n"
+                        + "a 3 1 2\n");
+        CsrGraph graph = result.getGraph();
+        assertEquals(3, graph.nodeCount());
+        assertEquals(3, graph.arcCount());
+        assertEquals(4, result.getEdgeLines());
+        assertEquals(1, result.getDuplicateEdges());
+        assertFalse(result.isSymmetric());
+        assertEquals(5, weight(graph, "1", "2")); // The cheaper duplicate wins
+        assertEquals(Double.POSITIVE_INFINITY, weight(graph, "2", "1"));
+        assertEquals(2, weight(graph, "3", "1"));
+        assertEquals(3, new ShortestPathEngine(graph).shortestPath("2", "1").getDistance()); // 2 -> 3 -> 1
+    }
+
+    @Test
+    void dimacsWithBothDirectionsIsSymmetric() throws IOException {
+        GraphImporter.Result result = importText("both.gr", "p sp 2 2\na 1 2 4\na 2 1 4\n");
+        assertTrue(result.isSymmetric());
+        assertEquals(2, result.getGraph().arcCount());
+
+        GraphImporter.Result uneven = importText("uneven.gr", "p sp 2 2\na 1 2 4\na 2 1 3\n");
+        assertFalse(uneven.isSymmetric());
+    }
+
+    @Test
+    void edgeListMergesDuplicatesAndSkipsComments() throws IOException {
+        GraphImporter.Result result = importText("edges.csv",
+                "source,target,weight\n"
+                        + "# comment\n"
+                        + "% another comment\n"
+                        + "\n"
+                        + "10,20,3\n"
+                        + "20;10;1.5\n"
+                        + "20 30\n"
+                        + "30,30,9\n");
+        CsrGraph graph = result.getGraph();
+        assertEquals(3, graph.nodeCount());
+        assertEquals(4, graph.arcCount());
+        assertEquals(4, result.getEdgeLines());
+        assertEquals(1, result.getDuplicateEdges());
+        assertEquals(1, result.getSelfLoops());
+        assertTrue(result.isSymmetric());
+        assertEquals(1.5, weight(graph, "10", "20"));
+        assertEquals(1.5, weight(graph, "20", "10"));
+        assertEquals(1.0, weight(graph, "20", "30")); // Missing weights default to 1
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertRejected("nop.gr", "a 1 2 3\n");
+        assertRejected("noproblem.gr", "c only a comment\n");
+        assertRejected("range.gr", "p sp 2 1\na 1 3 1\n");
+        assertRejected("twice.gr", "p sp 2 1\np sp 2 1\n");
+        assertRejected("kind.gr", "p sp 2 1\nx 1 2 1\n");
+        assertRejected("negative.gr", "p sp 2 1\na 1 2 -1\n");
+        assertRejected("zero.txt", "1 2 0\n");
+        assertRejected("text.txt", "1 2 3\n1 b 3\n");
+        assertRejected("trailing.txt", "1 2 3 4\n");
+    }
+
+    private GraphImporter.Result importText(String name, String text) throws IOException {
+        Path path = directory.resolve(name);
+        Files.writeString(path, text);
+        return GraphImporter.importFile(path);
+    }
+
+    private void assertRejected(String name, String text) {
+        assertThrows(IOException.class, () -> importText(name, text), name);
+    }
+
+    // Weight of the arc between two nodes given by ID, infinity if there is none
+    private static double weight(CsrGraph graph, String from, String to) {
+        int arc = graph.arcIndex(graph.indexOf(from), graph.indexOf(to));
+        return arc < 0 ? Double.POSITIVE_INFINITY : graph.arcWeight(arc);
+    }
+}
@@ -0,0 +1,140 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueStrategyTest {
+
+    @Test
+    void singleSourceMatchesDijkstra() {
+        for (QueueStrategy strategy : QueueStrategy.values()) {
+            SplittableRandom random = new SplittableRandom(1);
+            for (int trial = 0; trial < 40; trial++) {
+                CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(60), random.nextInt(200), trial % 2 == 0, true);
+                int source = random.nextInt(graph.nodeCount());
+                TestGraphs.assertTree(graph, source, new ShortestPathEngine(graph, strategy).singleSource(source));
+            }
+        }
+    }
+
+    @Test
+    void pointToPointMatchesDijkstra() {
+        for (QueueStrategy strategy : QueueStrategy.values()) {
+            SplittableRandom random = new SplittableRandom(2);
+            for (int trial = 0; trial < 40; trial++) {
+                CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(60), random.nextInt(200), trial % 2 == 0, true);
+                ShortestPathEngine engine = new ShortestPathEngine(graph, strategy);
+                for (int query = 0; query < 10; query++) {
+                    int source = random.nextInt(graph.nodeCount());
+                    int target = random.nextInt(graph.nodeCount());
+                    double expected = TestGraphs.dijkstra(graph, source)[target];
+                    assertEquals(expected, engine.distance(source, target), strategy + ": distance");
+                    ShortestPath path = engine.shortestPath(source, target);
+                    assertEquals(expected, path.getDistance(), strategy + ": path distance");
+                    if (path.isFound()) {
+                        TestGraphs.assertPath(graph, source, target, expected, path.getNodes());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void enginesOnOneThreadTakeTurnsWithTheWorkspace() {
+        // The thread's workspace moves between engines; each must still start from a clean one
+        SplittableRandom random = new SplittableRandom(6);
+        ShortestPathEngine[] engines = new ShortestPathEngine[4];
+        for (int i = 0; i < engines.length; i++) {
+            CsrGraph graph = TestGraphs.random(random, 10 + 30 * i, 100, false, true);
+            engines[i] = new ShortestPathEngine(graph, QueueStrategy.values()[i % QueueStrategy.values().length]);
+        }
+        for (int query = 0; query < 200; query++) {
+            ShortestPathEngine engine = engines[random.nextInt(engines.length)];
+            CsrGraph graph = engine.getGraph();
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            double expected = TestGraphs.dijkstra(graph, source)[target];
+            assertEquals(expected, random.nextBoolean() ? engine.distance(source, target)
+                    : engine.bidirectionalShortestPath(source, target).getDistance());
+            if (query % 50 == 0) {
+                ShortestPathEngine.releaseWorkspaces();
+            }
+        }
+    }
+
+    @Test
+    void heapsHandleFractionalWeights() {
+        for (QueueStrategy strategy : new QueueStrategy[]{QueueStrategy.BINARY_HEAP, QueueStrategy.INDEXED_DARY_HEAP}) {
+            SplittableRandom random = new SplittableRandom(3);
+            for (int trial = 0; trial < 40; trial++) {
+                CsrGraph graph = TestGraphs.random(random, 2 + random.nextInt(60), random.nextInt(200), trial % 2 == 0, false);
+                int source = random.nextInt(graph.nodeCount());
+                TestGraphs.assertTree(graph, source, new ShortestPathEngine(graph, strategy).singleSource(source));
+            }
+        }
+    }
+
+    @Test
+    void queuesPollInPriorityOrder() {
+        for (QueueStrategy strategy : QueueStrategy.values()) {
+            // Keys never drop below the last minimum or exceed it by more than the largest weight, as in Dijkstra
+            SplittableRandom random = new SplittableRandom(4);
+            int nodes = 500;
+            int maxWeight = 20;
+            boolean decreaseKey = strategy == QueueStrategy.INDEXED_DARY_HEAP; // The others keep stale entries
+            NodeQueue queue = strategy.create(nodes, maxWeight);
+            PriorityQueue<Double> expected = new PriorityQueue<>();
+            double[] queued = new double[nodes];
+            Arrays.fill(queued, Double.POSITIVE_INFINITY);
+            double minimum = 0;
+            for (int round = 0; round < 5000; round++) {
+                if (queue.isEmpty() || random.nextInt(3) > 0) {
+                    int node = random.nextInt(nodes);
+                    double key = minimum + random.nextInt(maxWeight + 1);
+                    if (key < queued[node]) {
+                        if (decreaseKey && queued[node] != Double.POSITIVE_INFINITY) {
+                            expected.remove(queued[node]);
+                        }
+                        queue.offer(node, key);
+                        queued[node] = key;
+                        expected.add(key);
+                    }
+                } else {
+                    assertEquals((double) expected.peek(), queue.peekPriority(), strategy + ": minimum");
+                    int node = queue.poll();
+                    minimum = expected.poll();
+                    if (queued[node] == minimum) {
+                        queued[node] = Double.POSITIVE_INFINITY;
+                    }
+                }
+                assertEquals(expected.size(), queue.size(), strategy + ": size");
+            }
+            queue.clear();
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void bucketQueuesNeedWholeWeights() {
+        SplittableRandom random = new SplittableRandom(5);
+        CsrGraph integral = TestGraphs.random(random, 20, 40, false, true);
+        CsrGraph fractional = TestGraphs.random(random, 20, 40, false, false);
+        assertFalse(fractional.hasIntegerWeights());
+
+        assertTrue(QueueStrategy.forWeights(integral).needsIntegerWeights());
+        assertSame(QueueStrategy.INDEXED_DARY_HEAP, QueueStrategy.forWeights(fractional));
+        assertThrows(IllegalArgumentException.class, () -> QueueStrategy.DIAL_BUCKETS.create(fractional));
+        assertThrows(IllegalArgumentException.class, () -> QueueStrategy.RADIX_HEAP.create(fractional));
+        assertThrows(IllegalArgumentException.class, () -> QueueStrategy.DIAL_BUCKETS.create(10, 2.5));
+        assertThrows(IllegalArgumentException.class, () -> QueueStrategy.RADIX_HEAP.create(10, Double.POSITIVE_INFINITY));
+    }
+}
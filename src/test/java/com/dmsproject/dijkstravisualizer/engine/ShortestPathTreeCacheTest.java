@@ -0,0 +1,77 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShortestPathTreeCacheTest {
+
+    private final CsrGraph graph = TestGraphs.random(new SplittableRandom(31), 12, 30, false, true);
+    private final ShortestPathEngine engine = new ShortestPathEngine(graph);
+
+    @Test
+    void dropsTheLeastRecentlyUsedTree() {
+        ShortestPathTreeCache cache = new ShortestPathTreeCache(3);
+        ShortestPathTree[] trees = new ShortestPathTree[4];
+        for (int source = 0; source < trees.length; source++) {
+            trees[source] = engine.singleSource(source);
+        }
+        cache.put(1, trees[0]);
+        cache.put(1, trees[1]);
+        cache.put(1, trees[2]);
+        assertSame(trees[0], cache.get(1, 0)); // Tree 1 is now the least recently used
+        cache.put(1, trees[3]);
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(1, 1));
+        assertSame(trees[0], cache.get(1, 0));
+        assertSame(trees[2], cache.get(1, 2));
+        assertSame(trees[3], cache.get(1, 3));
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void findsTreesOnlyForTheirGraphVersion() {
+        ShortestPathTreeCache cache = new ShortestPathTreeCache();
+        ShortestPathTree first = engine.singleSource(0);
+        ShortestPathTree second = engine.singleSource(0);
+        cache.put(4, first);
+        cache.put(5, second);
+        cache.put(5, engine.singleSource(1));
+        cache.put(6, engine.singleSource(2));
+        assertSame(first, cache.get(4, 0));
+        assertSame(second, cache.get(5, 0));
+        assertNull(cache.get(6, 0));
+
+        cache.evictOlderThan(5);
+        assertEquals(3, cache.size());
+        assertNull(cache.get(4, 0));
+        assertSame(second, cache.get(5, 0));
+
+        ShortestPathTree replacement = engine.singleSource(0);
+        cache.put(5, replacement); // Same version and source: replaces the tree
+        assertEquals(3, cache.size());
+        assertSame(replacement, cache.get(5, 0));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(5, 0));
+    }
+
+    @Test
+    void rejectsIncompleteTreesAndBadCapacities() {
+        GraphBuilder builder = new GraphBuilder();
+        builder.addEdge("a", "b", 1);
+        builder.addEdge("b", "c", 1);
+        ShortestPathTree partial = new ShortestPathEngine(builder.build()).search(0, 1, SearchListener.NONE);
+        assertThrows(IllegalArgumentException.class, () -> new ShortestPathTreeCache(2).put(1, partial));
+        assertThrows(IllegalArgumentException.class, () -> new ShortestPathTreeCache(0));
+        assertEquals(ShortestPathTreeCache.DEFAULT_CAPACITY, new ShortestPathTreeCache().getCapacity());
+    }
+}
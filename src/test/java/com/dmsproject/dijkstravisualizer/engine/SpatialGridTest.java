@@ -0,0 +1,96 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpatialGridTest {
+
+    @Test
+    void queriesMatchAScanOfEveryNode() {
+        SplittableRandom random = new SplittableRandom(21);
+        for (double cellSize : new double[]{0.5, 20, 5000}) {
+            SpatialGrid grid = new SpatialGrid(cellSize);
+            double[] xs = new double[0];
+            double[] ys = new double[0];
+            for (int step = 0; step < 600; step++) {
+                // Add a node or move one, sometimes within its cell
+                int node = xs.length == 0 || random.nextInt(3) == 0 ? xs.length : random.nextInt(xs.length);
+                if (node == xs.length) {
+                    xs = Arrays.copyOf(xs, node + 1);
+                    ys = Arrays.copyOf(ys, node + 1);
+                }
+                boolean nudge = node < xs.length - 1 && random.nextBoolean();
+                xs[node] = nudge ? xs[node] + 0.01 : coordinate(random);
+                ys[node] = nudge ? ys[node] : coordinate(random);
+                grid.put(node, xs[node], ys[node]);
+                assertEquals(xs.length, grid.size());
+
+                double minX = coordinate(random);
+                double minY = coordinate(random);
+                double maxX = minX + random.nextDouble(300);
+                double maxY = minY + random.nextDouble(300);
+                int[] expected = scanIn(xs, ys, minX, minY, maxX, maxY);
+                assertArrayEquals(expected, grid.nodesIn(minX, minY, maxX, maxY), "Nodes in the rectangle");
+                assertEquals(expected.length, grid.countIn(minX, minY, maxX, maxY));
+
+                double x = coordinate(random);
+                double y = coordinate(random);
+                double maxDistance = random.nextDouble(200);
+                assertEquals(scanNearest(xs, ys, x, y, maxDistance), grid.nearest(x, y, maxDistance), "Nearest node");
+            }
+            for (int v = 0; v < xs.length; v++) {
+                assertEquals(xs[v], grid.x(v));
+                assertEquals(ys[v], grid.y(v));
+            }
+        }
+    }
+
+    @Test
+    void nearestPrefersTheNodeAddedLast() {
+        SpatialGrid grid = SpatialGrid.of(new GraphLayout(new double[]{10, 10, 30}, new double[]{10, 10, 10}), 8);
+        assertEquals(1, grid.nearest(10, 10, 5));
+        assertEquals(2, grid.nearest(25, 10, 10));
+        assertEquals(-1, grid.nearest(20, 40, 5));
+        assertArrayEquals(new int[0], grid.nodesIn(50, 0, 40, 20)); // Empty rectangle
+    }
+
+    @Test
+    void rejectsUnknownNodesAndBadCellSizes() {
+        SpatialGrid grid = new SpatialGrid(10);
+        grid.put(0, 1, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.put(2, 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.x(1));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialGrid(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialGrid(Double.NaN));
+    }
+
+    private static double coordinate(SplittableRandom random) {
+        return random.nextDouble(-1000, 1000);
+    }
+
+    private static int[] scanIn(double[] xs, double[] ys, double minX, double minY, double maxX, double maxY) {
+        return IntStream.range(0, xs.length)
+                .filter(v -> xs[v] >= minX && xs[v] <= maxX && ys[v] >= minY && ys[v] <= maxY)
+                .toArray();
+    }
+
+    private static int scanNearest(double[] xs, double[] ys, double x, double y, double maxDistance) {
+        int best = -1;
+        double bestDistanceSquared = maxDistance * maxDistance;
+        for (int v = 0; v < xs.length; v++) {
+            double distanceSquared = (xs[v] - x) * (xs[v] - x) + (ys[v] - y) * (ys[v] - y);
+            if (distanceSquared <= bestDistanceSquared) {
+                best = v;
+                bestDistanceSquared = distanceSquared;
+            }
+        }
+        return best;
+    }
+}
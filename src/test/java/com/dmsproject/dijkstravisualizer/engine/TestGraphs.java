@@ -0,0 +1,110 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Small random graphs and a plain textbook Dijkstra to check the engine against.
+ */
+final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * @param integerWeights whole weights in [1, 9]; otherwise multiples of 0.25 in [0, 9.75],
+     *                       which add up exactly, so every algorithm must match to the last bit
+     */
+    static CsrGraph random(SplittableRandom random, int nodes, int edges, boolean directed, boolean integerWeights) {
+        GraphBuilder builder = new GraphBuilder(nodes, 2 * edges);
+        for (int v = 0; v < nodes; v++) {
+            builder.addNode("n" + v);
+        }
+        for (int e = 0; e < edges; e++) {
+            int u = random.nextInt(nodes);
+            int v = random.nextInt(nodes);
+            double weight = integerWeights ? 1 + random.nextInt(9) : random.nextInt(40) * 0.25;
+            builder.addArc(u, v, weight);
+            if (!directed) {
+                builder.addArc(v, u, weight);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the distance to every node, infinity for unreachable ones
+     */
+    static double[] dijkstra(CsrGraph graph, int source) {
+        double[] distances = new double[graph.nodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, source});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int u = (int) entry[1];
+            if (entry[0] > distances[u]) {
+                continue;
+            }
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.arcTarget(arc);
+                double candidate = distances[u] + graph.arcWeight(arc);
+                if (candidate < distances[v]) {
+                    distances[v] = candidate;
+                    queue.add(new double[]{candidate, v});
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Checks that the nodes are a path of the graph from source to target whose length is the distance.
+     */
+    static void assertPath(CsrGraph graph, int source, int target, double distance, int[] path) {
+        assertTrue(path.length > 0, "No path from " + source + " to " + target);
+        assertEquals(source, path[0]);
+        assertEquals(target, path[path.length - 1]);
+        double length = 0;
+        for (int i = 1; i < path.length; i++) {
+            length += shortestArc(graph, path[i - 1], path[i]);
+        }
+        assertEquals(distance, length, "Length of the path from " + source + " to " + target);
+    }
+
+    /**
+     * Checks a tree's distances against plain Dijkstra, and that each predecessor arc lies on a shortest path.
+     */
+    static void assertTree(CsrGraph graph, int source, ShortestPathTree tree) {
+        double[] expected = dijkstra(graph, source);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(expected[v], tree.distanceTo(v), "Distance from " + source + " to " + v);
+            int predecessor = tree.predecessorOf(v);
+            if (predecessor != -1) {
+                assertEquals(expected[v], expected[predecessor] + shortestArc(graph, predecessor, v),
+                        "Predecessor of " + v);
+            } else if (v != source) {
+                assertEquals(Double.POSITIVE_INFINITY, expected[v], "Node " + v + " has no predecessor");
+            }
+        }
+    }
+
+    private static double shortestArc(CsrGraph graph, int from, int to) {
+        double shortest = Double.POSITIVE_INFINITY;
+        for (int arc = graph.firstArc(from); arc < graph.endArc(from); arc++) {
+            if (graph.arcTarget(arc) == to) {
+                shortest = Math.min(shortest, graph.arcWeight(arc));
+            }
+        }
+        if (shortest == Double.POSITIVE_INFINITY) {
+            fail("No arc " + from + " -> " + to);
+        }
+        return shortest;
+    }
+}
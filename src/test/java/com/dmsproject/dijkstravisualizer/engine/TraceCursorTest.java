@@ -0,0 +1,98 @@
+package com.dmsproject.dijkstravisualizer.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceCursorTest {
+
+    @Test
+    void seekMatchesReplayingFromTheStart() {
+        SplittableRandom random = new SplittableRandom(11);
+        CsrGraph graph = TestGraphs.random(random, 300, 4000, false, false);
+        SearchTrace trace = SearchTrace.record(new ShortestPathEngine(graph), 0, -1);
+        assertTrue(trace.getKeyframeCount() >= 3, "The trace should span several keyframes");
+
+        // One cursor only ever steps forwards, so its state after each event is the reference
+        TraceCursor replay = new TraceCursor(trace);
+        TraceCursor seeker = new TraceCursor(trace);
+        int[] order = new int[200];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = random.nextInt(-1, trace.size());
+        }
+        for (int event : order) {
+            seeker.moveTo(event);
+            replay = replayTo(trace, event, replay);
+            assertEquals(event, seeker.getPosition());
+            assertSameState(graph, replay, seeker, event);
+        }
+    }
+
+    @Test
+    void steppingBackUndoesEveryEvent() {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(12), 120, 500, true, true);
+        SearchTrace trace = SearchTrace.record(new ShortestPathEngine(graph), 3, -1);
+        TraceCursor cursor = new TraceCursor(trace);
+        cursor.moveTo(trace.size() - 1);
+        for (int event = trace.size() - 2; event >= -1; event--) {
+            cursor.moveTo(event);
+            assertSameState(graph, replayTo(trace, event, new TraceCursor(trace)), cursor, event);
+        }
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(Double.POSITIVE_INFINITY, cursor.distance(v));
+            assertEquals(-1, cursor.predecessor(v));
+        }
+        assertEquals(0, cursor.settledCount());
+    }
+
+    @Test
+    void lastEventHoldsTheSearchResult() {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(13), 400, 2000, false, true);
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        ShortestPathTree tree = engine.singleSource(7);
+        TraceCursor cursor = new TraceCursor(SearchTrace.record(engine, 7, -1));
+        cursor.moveTo(cursor.getTrace().size() - 1);
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(tree.distanceTo(v), cursor.distance(v), "Distance to " + v);
+            assertEquals(tree.isReached(v), cursor.isSettled(v), "Settled " + v);
+            assertArrayEquals(tree.pathTo(v), cursor.pathTo(v), "Path to " + v);
+        }
+
+        int target = graph.nodeCount() - 1;
+        TraceCursor pointToPoint = new TraceCursor(SearchTrace.record(engine, 7, target));
+        pointToPoint.moveTo(pointToPoint.getTrace().size() - 1);
+        assertEquals(tree.distanceTo(target), pointToPoint.distance(target));
+        assertArrayEquals(pointToPoint.pathTo(target), pointToPoint.foundPath());
+    }
+
+    @Test
+    void rejectsEventsOutsideTheTrace() {
+        CsrGraph graph = TestGraphs.random(new SplittableRandom(14), 10, 20, false, true);
+        TraceCursor cursor = new TraceCursor(SearchTrace.record(new ShortestPathEngine(graph), 0, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.moveTo(-2));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.moveTo(cursor.getTrace().size()));
+        assertThrows(IllegalStateException.class, cursor::foundPath);
+    }
+
+    // Steps forwards only, restarting from a new cursor when the event lies behind
+    private static TraceCursor replayTo(SearchTrace trace, int event, TraceCursor cursor) {
+        TraceCursor replay = cursor.getPosition() <= event ? cursor : new TraceCursor(trace);
+        for (int next = replay.getPosition() + 1; next <= event; next++) {
+            replay.moveTo(next);
+        }
+        return replay;
+    }
+
+    private static void assertSameState(CsrGraph graph, TraceCursor expected, TraceCursor actual, int event) {
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(expected.distance(v), actual.distance(v), "Distance of " + v + " after event " + event);
+            assertEquals(expected.predecessor(v), actual.predecessor(v), "Predecessor of " + v + " after event " + event);
+            assertEquals(expected.isSettled(v), actual.isSettled(v), "Settled " + v + " after event " + event);
+        }
+    }
+}